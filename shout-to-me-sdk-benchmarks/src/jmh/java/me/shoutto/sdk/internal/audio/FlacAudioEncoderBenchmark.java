@@ -0,0 +1,52 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to losslessly encode a whole recording with FlacAudioEncoder, the work done
+ * between the end of recording and the start of upload when no device encoder is available.
+ * The encoded size is returned so it can be compared with the PCM size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlacAudioEncoderBenchmark {
+
+    @Param({"5", "30"})
+    public int seconds;
+
+    private byte[] pcm;
+    private FlacAudioEncoder flacAudioEncoder;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        short[] samples = SyntheticPcm.generate(seconds, 1);
+        pcm = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            pcm[i * 2] = (byte) samples[i];
+            pcm[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        flacAudioEncoder = new FlacAudioEncoder();
+        output = new ByteArrayOutputStream(pcm.length);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        output.reset();
+        flacAudioEncoder.encode(new ByteArrayInputStream(pcm), pcm.length, output);
+        return output.size();
+    }
+}
@@ -0,0 +1,80 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-read cost of storing captured audio: the direct capture buffer appended to a
+ * PcmSegmentBuffer, compared with the previous short to byte conversion, array copy and
+ * ByteArrayOutputStream write. Both variants start from an empty recording every iteration so
+ * that buffer growth is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PcmCaptureBenchmark {
+
+    private static final int MAX_RECORDING_BYTES = 60 * 32000;
+
+    @Param({"1280", "4096"})
+    public int samplesPerRead;
+
+    private short[] samples;
+    private byte[] legacyBuffer;
+    private ByteBuffer captureBuffer;
+    private PcmSegmentBuffer pcmSegmentBuffer;
+    private ByteArrayOutputStream legacyStream;
+
+    @Setup
+    public void setUp() {
+        samples = new short[samplesPerRead];
+        System.arraycopy(SyntheticPcm.generate(1, 1), 0, samples, 0, samplesPerRead);
+        legacyBuffer = new byte[samplesPerRead * 2];
+        captureBuffer = ByteBuffer.allocateDirect(samplesPerRead * 2).order(ByteOrder.LITTLE_ENDIAN);
+        captureBuffer.asShortBuffer().put(samples);
+        pcmSegmentBuffer = new PcmSegmentBuffer(MAX_RECORDING_BYTES, PcmSegmentBuffer.DEFAULT_SEGMENT_SIZE);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetRecording() {
+        pcmSegmentBuffer.reset();
+        legacyStream = new ByteArrayOutputStream();
+    }
+
+    @Benchmark
+    public int append() {
+        if (pcmSegmentBuffer.size() + captureBuffer.capacity() > MAX_RECORDING_BYTES) {
+            pcmSegmentBuffer.reset();
+        }
+        captureBuffer.clear();
+        pcmSegmentBuffer.append(captureBuffer);
+        return pcmSegmentBuffer.size();
+    }
+
+    @Benchmark
+    public int appendLegacy() {
+        if (legacyStream.size() + legacyBuffer.length > MAX_RECORDING_BYTES) {
+            legacyStream = new ByteArrayOutputStream();
+        }
+        for (int i = 0; i < samplesPerRead; i++) {
+            legacyBuffer[i * 2] = (byte) (samples[i] & 0xff);
+            legacyBuffer[i * 2 + 1] = (byte) ((samples[i] >> 8) & 0xff);
+        }
+        byte[] bytes = Arrays.copyOf(legacyBuffer, samplesPerRead * 2);
+        legacyStream.write(bytes, 0, bytes.length);
+        return legacyStream.size();
+    }
+}
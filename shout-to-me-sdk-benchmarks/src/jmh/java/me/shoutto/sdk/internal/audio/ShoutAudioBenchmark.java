@@ -0,0 +1,80 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import me.shoutto.sdk.internal.http.Base64JsonRequestBody;
+import me.shoutto.sdk.internal.http.WavRecordingRequestBody;
+
+/**
+ * Measures writing a shout's audio to the request for recordings of different lengths: the WAV
+ * body streamed from the recorder's segments, and the JSON body with the WAV audio as a Base64
+ * string that shouts are posted with
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShoutAudioBenchmark {
+
+    private static final int BYTES_PER_SECOND = 32000;
+
+    @Param({"5", "15", "60"})
+    public int recordingLengthInSeconds;
+
+    private PcmRecording recording;
+    private CountingOutputStream outputStream;
+
+    @Setup
+    public void setUp() {
+        byte[] rawData = new byte[recordingLengthInSeconds * BYTES_PER_SECOND];
+        new Random(1).nextBytes(rawData);
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(rawData.length,
+                PcmSegmentBuffer.DEFAULT_SEGMENT_SIZE);
+        pcmSegmentBuffer.append(ByteBuffer.wrap(rawData));
+        pcmSegmentBuffer.commit();
+        recording = pcmSegmentBuffer.getRecording();
+        outputStream = new CountingOutputStream();
+    }
+
+    @Benchmark
+    public long writeWavBody() throws IOException {
+        outputStream.count = 0;
+        new WavRecordingRequestBody(recording).writeTo(outputStream);
+        return outputStream.count;
+    }
+
+    @Benchmark
+    public long writeBase64JsonBody() throws IOException {
+        outputStream.count = 0;
+        new Base64JsonRequestBody("{\"channel_id\":\"channel\"}", "audio",
+                new WavRecordingRequestBody(recording)).writeTo(outputStream);
+        return outputStream.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.util.Random;
+
+/**
+ * Generates repeatable 16 kHz 16-bit mono PCM for the audio benchmarks: low-level background
+ * noise interrupted by louder voiced segments, roughly what the recorder sees during a shout.
+ */
+final class SyntheticPcm {
+
+    static final int SAMPLE_RATE = 16000;
+
+    private SyntheticPcm() {
+    }
+
+    /**
+     * Returns the specified number of seconds of audio alternating between one second of noise
+     * and one second of speech-like tone
+     */
+    static short[] generate(int seconds, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[SAMPLE_RATE * seconds];
+        for (int i = 0; i < samples.length; i++) {
+            double noise = random.nextGaussian() * 60;
+            boolean voiced = (i / SAMPLE_RATE) % 2 == 1;
+            double voice = voiced
+                    ? 6000 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE)
+                        + 2500 * Math.sin(2 * Math.PI * 720 * i / SAMPLE_RATE)
+                    : 0;
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, noise + voice));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,48 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures VoiceActivityDetector.determineTalkingStatus on one AudioRecord read worth of samples.
+ * The buffer size matches what StmAudioRecorder reads per loop (twice the minimum buffer size
+ * reported by typical devices at 16 kHz).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VoiceActivityDetectorBenchmark {
+
+    @Param({"1280", "4096"})
+    public int samplesPerRead;
+
+    private short[] audio;
+    private short[] readBuffer;
+    private int position;
+    private VoiceActivityDetector voiceActivityDetector;
+
+    @Setup
+    public void setUp() {
+        audio = SyntheticPcm.generate(10, 1);
+        readBuffer = new short[samplesPerRead];
+        voiceActivityDetector = new VoiceActivityDetector();
+    }
+
+    @Benchmark
+    public int determineTalkingStatus() {
+        if (position + samplesPerRead > audio.length) {
+            position = 0;
+        }
+        System.arraycopy(audio, position, readBuffer, 0, samplesPerRead);
+        position += samplesPerRead;
+        return voiceActivityDetector.determineTalkingStatus(readBuffer, samplesPerRead);
+    }
+}
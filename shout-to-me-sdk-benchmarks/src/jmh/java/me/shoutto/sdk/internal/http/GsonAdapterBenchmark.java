@@ -0,0 +1,115 @@
+package me.shoutto.sdk.internal.http;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.shoutto.sdk.Message;
+import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.UserLocation;
+
+/**
+ * Measures the Gson request and response adapters on message payloads of different sizes. The
+ * JSONObject variants are the paths taken by the Volley JsonObjectRequest based processors and
+ * the stream variants are the paths taken by StmHttpTransport and StmStreamingJsonRequest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GsonAdapterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int numberOfMessages;
+
+    private String messageListJson;
+    private byte[] messageListBytes;
+    private byte[] messageBytes;
+    private JSONObject messageListJsonObject;
+    private JSONObject messageJsonObject;
+    private GsonListResponseAdapter<List<Message>, Message> listResponseAdapter;
+    private GsonObjectResponseAdapter<Message> objectResponseAdapter;
+    private GsonRequestAdapter<StmBaseEntity> requestAdapter;
+    private UserLocation userLocation;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        StringBuilder messages = new StringBuilder();
+        for (int i = 0; i < numberOfMessages; i++) {
+            if (i > 0) {
+                messages.append(',');
+            }
+            messages.append(messageJson(i));
+        }
+        messageListJson = "{\"status\":\"success\",\"data\":{\"messages\":[" + messages + "]}}";
+        messageListBytes = messageListJson.getBytes("UTF-8");
+        messageListJsonObject = new JSONObject(messageListJson);
+
+        String messageJson = "{\"status\":\"success\",\"data\":{\"message\":" + messageJson(0) + "}}";
+        messageBytes = messageJson.getBytes("UTF-8");
+        messageJsonObject = new JSONObject(messageJson);
+
+        listResponseAdapter = new GsonListResponseAdapter<>(Message.LIST_SERIALIZATION_KEY,
+                Message.SERIALIZATION_KEY, Message.getSerializationListType(), Message.class);
+        objectResponseAdapter = new GsonObjectResponseAdapter<>(Message.SERIALIZATION_KEY,
+                Message.getSerializationType());
+        requestAdapter = new GsonRequestAdapter<>();
+
+        userLocation = new UserLocation();
+        userLocation.setDate(new Date(1500000000000L));
+        userLocation.setLocation(new UserLocation.Location(new Double[] { -122.6765, 45.5231 }));
+        userLocation.setMetersSinceLastUpdate(125.5f);
+    }
+
+    @Benchmark
+    public List<Message> listResponseFromJsonObject() {
+        return listResponseAdapter.adapt(messageListJsonObject);
+    }
+
+    @Benchmark
+    public List<Message> listResponseFromStream() throws IOException {
+        return listResponseAdapter.adapt(new ByteArrayInputStream(messageListBytes)).getData();
+    }
+
+    @Benchmark
+    public Message objectResponseFromJsonObject() {
+        return objectResponseAdapter.adapt(messageJsonObject);
+    }
+
+    @Benchmark
+    public Message objectResponseFromStream() throws IOException {
+        return objectResponseAdapter.adapt(new ByteArrayInputStream(messageBytes)).getData();
+    }
+
+    @Benchmark
+    public String request() {
+        return requestAdapter.adapt(userLocation);
+    }
+
+    /**
+     * Parsing the response body into a JSONObject is part of the cost of the JSONObject path
+     */
+    @Benchmark
+    public List<Message> listResponseFromString() throws JSONException {
+        return listResponseAdapter.adapt(new JSONObject(messageListJson));
+    }
+
+    private static String messageJson(int index) {
+        return String.format("{\"id\":\"5a1f%08d\",\"channel_id\":\"c1a5e7b2\",\"recipient_id\":\"u9d2c4f1\","
+                + "\"message\":\"Traffic is backed up on the bridge, expect delays of about %d minutes\","
+                + "\"sender\":{\"handle\":\"newsdesk\"},\"sent_date\":\"2017-11-%02dT14:%02d:05.123Z\"}",
+                index, index % 60, index % 28 + 1, index % 60);
+    }
+}
@@ -0,0 +1,124 @@
+package me.shoutto.sdk.internal.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.lang.reflect.Type;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares GsonDateAdapter with the synchronized SimpleDateFormat adapter it replaced on
+ * 10k-date payloads. The Gson instances are shared between threads the same way GsonRegistry
+ * shares them, so the multi-threaded variants show lock contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GsonDateAdapterBenchmark {
+
+    private static final int DATES_PER_PAYLOAD = 10000;
+    private static final Type DATE_LIST_TYPE = new TypeToken<List<Date>>(){}.getType();
+
+    private List<Date> dates;
+    private String payload;
+    private Gson legacyGson;
+    private Gson gson;
+
+    @Setup
+    public void setUp() {
+        dates = new ArrayList<>(DATES_PER_PAYLOAD);
+        Random random = new Random(1);
+        for (int i = 0; i < DATES_PER_PAYLOAD; i++) {
+            dates.add(new Date(1400000000000L + (long) (random.nextDouble() * 300000000000L)));
+        }
+
+        legacyGson = new GsonBuilder().registerTypeAdapter(Date.class, new SynchronizedDateAdapter()).create();
+        gson = new GsonBuilder().registerTypeAdapter(Date.class, new GsonDateAdapter()).create();
+        payload = gson.toJson(dates, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return gson.toJson(dates, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public String serializeLegacy() {
+        return legacyGson.toJson(dates, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<Date> deserialize() {
+        return gson.fromJson(payload, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<Date> deserializeLegacy() {
+        return legacyGson.fromJson(payload, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Date> deserializeConcurrent() {
+        return gson.fromJson(payload, DATE_LIST_TYPE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Date> deserializeConcurrentLegacy() {
+        return legacyGson.fromJson(payload, DATE_LIST_TYPE);
+    }
+
+    /**
+     * The adapter as it was before Iso8601DateCodec
+     */
+    private static class SynchronizedDateAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
+
+        private final DateFormat dateFormat;
+
+        SynchronizedDateAdapter() {
+            dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        }
+
+        @Override
+        public synchronized JsonElement serialize(Date date, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(dateFormat.format(date));
+        }
+
+        @Override
+        public synchronized Date deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext context) {
+            try {
+                return dateFormat.parse(jsonElement.getAsString());
+            } catch (ParseException e) {
+                throw new JsonParseException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package me.shoutto.sdk.internal.http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import me.shoutto.sdk.UserLocation;
+
+/**
+ * Measures serializing the stored location backlog the way UpdateUserLocation sends it. 1000 is
+ * the maximum number of locations kept in the database. The request size in bytes per location is
+ * printed at the end of each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserLocationsRequestAdapterBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int numberOfLocations;
+
+    @Param({"JSON", "POLYLINE"})
+    public UserLocationsRequestAdapter.Format format;
+
+    private SortedSet<UserLocation> userLocations;
+    private UserLocationsRequestAdapter userLocationsRequestAdapter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        userLocations = new TreeSet<>(new Comparator<UserLocation>() {
+            @Override
+            public int compare(UserLocation ul1, UserLocation ul2) {
+                return ul2.getDate().compareTo(ul1.getDate());
+            }
+        });
+        for (int i = 0; i < numberOfLocations; i++) {
+            UserLocation userLocation = new UserLocation();
+            userLocation.setDate(new Date(1500000000000L + i * 60000L));
+            userLocation.setLocation(new UserLocation.Location(new Double[] {
+                    -122.6765 + random.nextDouble() / 10, 45.5231 + random.nextDouble() / 10 }));
+            userLocation.setMetersSinceLastUpdate(random.nextFloat() * 5000);
+            userLocations.add(userLocation);
+        }
+        userLocationsRequestAdapter = new UserLocationsRequestAdapter(format);
+    }
+
+    @TearDown
+    public void reportRequestSize() throws UnsupportedEncodingException {
+        int bytes = userLocationsRequestAdapter.adapt(userLocations).getBytes("UTF-8").length;
+        System.out.println(String.format(Locale.US, "%s, %d locations: %.1f bytes per location",
+                format, numberOfLocations, (double) bytes / numberOfLocations));
+    }
+
+    @Benchmark
+    public String adapt() {
+        return userLocationsRequestAdapter.adapt(userLocations);
+    }
+}
@@ -72,6 +72,14 @@ public class CreateShoutRequest implements StmEntityActionRequest {
         return temporaryFile;
     }
 
+    /**
+     * Marks the file as owned by the SDK so that it is deleted once it has been uploaded
+     * @param temporaryFile true if the file should be deleted after upload
+     */
+    void setTemporaryFile(boolean temporaryFile) {
+        this.temporaryFile = temporaryFile;
+    }
+
     /**
      * Gets the list of tags
      * @return The list of tags
@@ -72,7 +72,7 @@ public class GcmNotificationRegistrationIntentService extends IntentService {
     @Override
     public void onCreate() {
         super.onCreate();
-        StmPreferenceManager stmPreferenceManager = new StmPreferenceManager(getApplicationContext());
+        StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(getApplicationContext());
         authToken = stmPreferenceManager.getAuthToken();
         serverUrl = stmPreferenceManager.getServerUrl();
         userId = stmPreferenceManager.getUserId();
@@ -0,0 +1,214 @@
+package me.shoutto.sdk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.shoutto.sdk.internal.StmScheduler;
+import me.shoutto.sdk.internal.database.MessageDao;
+import me.shoutto.sdk.internal.database.MessageRecord;
+import me.shoutto.sdk.internal.http.BearerAuthHeaderProvider;
+import me.shoutto.sdk.internal.http.DefaultEntityRequestProcessorSync;
+import me.shoutto.sdk.internal.http.GsonRegistry;
+import me.shoutto.sdk.internal.http.MessagePage;
+import me.shoutto.sdk.internal.http.MessagePageResponseAdapter;
+import me.shoutto.sdk.internal.http.MessagePageUrlProvider;
+import me.shoutto.sdk.internal.usecases.SyncMessages;
+
+/**
+ * A local store of the user's messages. Call sync to download the messages that are not stored
+ * yet, then read the stored messages one page at a time, newest first, with getMessages. Only the
+ * messages of the requested page are loaded into memory. Messages deleted on the service are not
+ * removed from the store. Get the store from StmService.getMessageStore. Callbacks are executed on
+ * the main thread.
+ */
+public class MessageStore {
+
+    private static final String TAG = MessageStore.class.getSimpleName();
+    private static final int SYNC_PAGE_SIZE = 100;
+    // The cursor query parameters of the messages endpoint (sort, limit, after and after_id) have
+    // not been confirmed with the service. Until they are, sync requests the whole message list
+    // in one request, as StmService.getMessages does.
+    private static final boolean IS_CURSOR_PAGING_ENABLED = false;
+    private final StmService stmService;
+    private final MessageDao messageDao;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object syncLock = new Object();
+    private List<StmCallback<Integer>> pendingSyncCallbacks = new ArrayList<>();
+    private boolean isSyncing;
+
+    MessageStore(StmService stmService, MessageDao messageDao) {
+        this.stmService = stmService;
+        this.messageDao = messageDao;
+    }
+
+    /**
+     * Downloads the user's messages that are newer than the newest stored message. The first sync
+     * downloads all of the user's messages. While cursor paging is disabled, every sync downloads
+     * the message list and stores the messages that are new. A sync that is requested while one
+     * is running does not start another. It is called back with the result of the running sync.
+     * @param callback The callback to execute with the number of messages added, or null.
+     */
+    public void sync(final StmCallback<Integer> callback) {
+        synchronized (syncLock) {
+            pendingSyncCallbacks.add(new MainThreadCallback<>(callback));
+            if (isSyncing) {
+                return;
+            }
+            isSyncing = true;
+        }
+
+        stmService.getUserAuthToken(new StmCallback<String>() {
+            @Override
+            public void onResponse(final String authToken) {
+                StmScheduler.io().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            syncMessages(authToken);
+                        } catch (RuntimeException ex) {
+                            Log.e(TAG, "Could not sync messages", ex);
+                            completeSync(null, new StmError("Could not sync messages. " + ex.getMessage(),
+                                    false, StmError.SEVERITY_MINOR));
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                completeSync(null, stmError);
+            }
+        });
+    }
+
+    /**
+     * Gets a page of stored messages, newest first. Does not call the service.
+     * @param olderThan The last message of the previous page, or null for the first page.
+     * @param limit The maximum number of messages to return.
+     * @param callback The callback to execute with the messages.
+     */
+    public void getMessages(final Message olderThan, final int limit, final StmCallback<List<Message>> callback) {
+        if (olderThan != null && (olderThan.getSentDate() == null || olderThan.getId() == null)) {
+            new MainThreadCallback<>(callback).onError(new StmError(
+                    "Cannot get messages. The message to page from has no ID or sent date.",
+                    false, StmError.SEVERITY_MINOR));
+            return;
+        }
+
+        stmService.getUserAuthToken(new StmCallback<String>() {
+            @Override
+            public void onResponse(String authToken) {
+                StmScheduler.io().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MessageRecord before = null;
+                        if (olderThan != null) {
+                            before = new MessageRecord();
+                            before.setSentDate(olderThan.getSentDate());
+                            before.setMessageId(olderThan.getId());
+                        }
+
+                        List<MessageRecord> messageRecords =
+                                messageDao.getMessageRecordsBefore(stmService.getUser().getId(), before, limit);
+                        Gson gson = GsonRegistry.getPolymorphicEntityGson(Message.class, Message.SERIALIZATION_KEY);
+                        List<Message> messages = new ArrayList<>(messageRecords.size());
+                        for (MessageRecord messageRecord : messageRecords) {
+                            messages.add(gson.fromJson(messageRecord.getJson(), Message.class));
+                        }
+                        new MainThreadCallback<>(callback).onResponse(messages);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                new MainThreadCallback<>(callback).onError(stmError);
+            }
+        });
+    }
+
+    private void syncMessages(String authToken) {
+        MessagePageUrlProvider messagePageUrlProvider = IS_CURSOR_PAGING_ENABLED
+                ? new MessagePageUrlProvider(stmService.getServerUrl(), SYNC_PAGE_SIZE)
+                : new MessagePageUrlProvider(stmService.getServerUrl());
+        DefaultEntityRequestProcessorSync<MessagePage> stmRequestProcessor
+                = new DefaultEntityRequestProcessorSync<>(
+                null,
+                new MessagePageResponseAdapter(),
+                new BearerAuthHeaderProvider(authToken),
+                messagePageUrlProvider
+        );
+
+        SyncMessages syncMessages = new SyncMessages(stmRequestProcessor,
+                messagePageUrlProvider, messageDao, stmService.getUser().getId());
+        syncMessages.sync(new StmCallback<Integer>() {
+            @Override
+            public void onResponse(Integer numMessagesAdded) {
+                completeSync(numMessagesAdded, null);
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                completeSync(null, stmError);
+            }
+        });
+    }
+
+    private void completeSync(Integer numMessagesAdded, StmError stmError) {
+        List<StmCallback<Integer>> callbacks;
+        synchronized (syncLock) {
+            callbacks = pendingSyncCallbacks;
+            pendingSyncCallbacks = new ArrayList<>();
+            isSyncing = false;
+        }
+
+        for (StmCallback<Integer> callback : callbacks) {
+            if (stmError == null) {
+                callback.onResponse(numMessagesAdded);
+            } else {
+                callback.onError(stmError);
+            }
+        }
+    }
+
+    private class MainThreadCallback<T> implements StmCallback<T> {
+
+        private final StmCallback<T> callback;
+
+        MainThreadCallback(StmCallback<T> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponse(final T t) {
+            if (callback == null) {
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onResponse(t);
+                }
+            });
+        }
+
+        @Override
+        public void onError(final StmError stmError) {
+            if (callback == null) {
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onError(stmError);
+                }
+            });
+        }
+    }
+}
@@ -11,6 +11,12 @@ import org.json.JSONObject;
 
 import java.lang.reflect.Type;
 
+import me.shoutto.sdk.internal.audio.PcmRecording;
+import me.shoutto.sdk.internal.audio.WavHeader;
+import me.shoutto.sdk.internal.http.ByteArrayRequestBody;
+import me.shoutto.sdk.internal.http.StmHttpRequestBody;
+import me.shoutto.sdk.internal.http.WavRecordingRequestBody;
+
 /**
  * This class represents a Shout to Me Shout object.
  */
@@ -26,8 +32,10 @@ public class Shout extends StmBaseEntity {
     public static final String SERIALIZATION_KEY = "shout";
 
     private static final String TAG = Shout.class.getSimpleName();
+    private static final String WAV_CONTENT_TYPE = "audio/wav";
 
     private byte[] audio;
+    private transient PcmRecording recording;
     private String channelId;
     private String description;
     private String mediaFileUrl;
@@ -40,9 +48,9 @@ public class Shout extends StmBaseEntity {
         super(stmService, SERIALIZATION_KEY, BASE_ENDPOINT);
     }
 
-    Shout(StmService stmService, byte[] rawData) {
+    Shout(StmService stmService, PcmRecording recording) {
         this(stmService);
-        this.audio = addHeaderToRawData(rawData);
+        this.recording = recording;
     }
 
     public Shout() {
@@ -64,70 +72,38 @@ public class Shout extends StmBaseEntity {
     }
 
     /**
-     * Returns the byte array that contains the raw audio.
+     * Returns the byte array that contains the raw audio. For a shout created from a recording,
+     * this copies the recording into a new array.
      * @return The raw audio.
      */
     public byte[] getAudio() {
+        if (audio == null && recording != null) {
+            return addHeaderToRecording(recording);
+        }
         return audio;
     }
 
     /**
-     * Adds a wav header onto the raw audio data
-     * @param rawData - byte[]
+     * Returns the audio as a WAV request body that is streamed when the shout is posted, without
+     * copying a recording into a single array.
+     * @return The request body, or null if the shout has no audio.
+     */
+    StmHttpRequestBody getAudioRequestBody() {
+        if (recording != null) {
+            return new WavRecordingRequestBody(recording);
+        }
+        return audio != null ? new ByteArrayRequestBody(WAV_CONTENT_TYPE, audio) : null;
+    }
+
+    /**
+     * Adds a wav header onto recorded audio, copying the audio once
+     * @param recording - the recorded PCM audio
      * @return byte[]
      */
-    private byte[] addHeaderToRawData(byte[] rawData) {
-        int totalDataLength = 36 + rawData.length; //44-8 since first part of header isnt included
-
-        byte[] header = new byte[44];
-        header[0] = 'R';  // RIFF/WAVE header
-        header[1] = 'I';
-        header[2] = 'F';
-        header[3] = 'F';
-        header[4] = (byte) (totalDataLength & 0xff);
-        header[5] = (byte) ((totalDataLength  >> 8) & 0xff);
-        header[6] = (byte) ((totalDataLength  >> 16) & 0xff);
-        header[7] = (byte) ((totalDataLength  >> 24) & 0xff);
-        header[8] = 'W';
-        header[9] = 'A';
-        header[10] = 'V';
-        header[11] = 'E';
-        header[12] = 'f';  // 'fmt ' chunk
-        header[13] = 'm';
-        header[14] = 't';
-        header[15] = ' ';
-        header[16] = 16;  // 4 bytes: size of 'fmt ' chunk
-        header[17] = 0;
-        header[18] = 0;
-        header[19] = 0;
-        header[20] = 1;  // format = 1 for PCM
-        header[21] = 0;
-        header[22] = (byte) 1;
-        header[23] = 0;
-        header[24] = (byte) (16000 & 0xff);
-        header[25] = (byte) ((16000 >> 8) & 0xff);
-        header[26] = (byte) ((16000 >> 16) & 0xff);
-        header[27] = (byte) ((16000 >> 24) & 0xff);
-        header[28] = (byte) (32000 & 0xff);
-        header[29] = (byte) ((32000 >> 8) & 0xff);
-        header[30] = (byte) ((32000 >> 16) & 0xff);
-        header[31] = (byte) ((32000 >> 24) & 0xff);
-        header[32] = (byte) (1 * 16 / 8);  // block align(channel*bitrate/8)
-        header[33] = 0;
-        header[34] = 16;  // bits per sample
-        header[35] = 0;
-        header[36] = 'd';
-        header[37] = 'a';
-        header[38] = 't';
-        header[39] = 'a';
-        header[40] = (byte) (rawData.length  & 0xff);
-        header[41] = (byte) ((rawData.length  >> 8) & 0xff);
-        header[42] = (byte) ((rawData.length  >> 16) & 0xff);
-        header[43] = (byte) ((rawData.length  >> 24) & 0xff);
-
-        byte[] wavData = new byte[header.length + rawData.length];
-        System.arraycopy(header, 0, wavData, 0, header.length);
-        System.arraycopy(rawData, 0, wavData, header.length, rawData.length);
+    static byte[] addHeaderToRecording(PcmRecording recording) {
+        byte[] wavData = new byte[WavHeader.LENGTH + recording.size()];
+        WavHeader.write(wavData, 0, recording.size());
+        recording.copyTo(wavData, WavHeader.LENGTH);
 
         return wavData;
     }
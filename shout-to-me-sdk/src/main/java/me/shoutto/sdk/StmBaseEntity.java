@@ -136,107 +136,58 @@ public abstract class StmBaseEntity {
     void sendAuthorizedGetRequest(final String urlSuffix,
                                             final Response.Listener<JSONObject> responseListener,
                                             final Response.ErrorListener errorListener) {
-        stmService.getExecutorService().execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    final String authToken = stmService.getUserAuthToken();
-                    String url = stmService.getServerUrl() + urlSuffix;
-                    JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
-                            responseListener, errorListener) {
-                        @Override
-                        public Map<String, String> getHeaders() throws AuthFailureError {
-                            Map<String, String> params = new HashMap<>();
-                            params.put("Authorization", "Bearer " + authToken);
-                            return params;
-                        }
-                    };
-                    StmRequestQueue.getInstance().addToRequestQueue(request);
-                } catch (Exception ex) {
-                    Log.e(TAG, "An error occurred building the GET request. Aborting.", ex);
-                }
-            }
-        });
+        sendAuthorizedRequest(Request.Method.GET, stmService.getServerUrl() + urlSuffix, null,
+                responseListener, errorListener);
     }
 
     void sendAuthorizedPostRequest(final String urlSuffix,
                                              final JSONObject data,
                                              final Response.Listener<JSONObject> responseListener,
                                              final Response.ErrorListener errorListener) {
-        stmService.getExecutorService().execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    final String authToken = stmService.getUserAuthToken();
-                    String url = stmService.getServerUrl() + urlSuffix;
-                    JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST, url, data,
-                            responseListener, errorListener) {
-                        @Override
-                        public Map<String, String> getHeaders() throws AuthFailureError {
-                            Map<String, String> params = new HashMap<>();
-                            params.put("Authorization", "Bearer " + authToken);
-                            return params;
-                        }
-                    };
-                    StmRequestQueue.getInstance().addToRequestQueue(request);
-                } catch (Exception ex) {
-                    Log.e(TAG, "An error occurred building the GET request. Aborting.", ex);
-                }
-            }
-        });
+        sendAuthorizedRequest(Request.Method.POST, stmService.getServerUrl() + urlSuffix, data,
+                responseListener, errorListener);
     }
 
     void sendAuthorizedPutRequest(final StmBaseEntity entity, final JSONObject data,
                                             final Response.Listener<JSONObject> responseListener,
                                             final Response.ErrorListener errorListener) {
-
-        stmService.getExecutorService().execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    final String authToken = stmService.getUserAuthToken();
-                    String url = entity.getSingleResourceEndpoint().replace(":id", entity.getId());
-                    JsonObjectRequest request = new JsonObjectRequest(Request.Method.PUT, url, data,
-                            responseListener, errorListener) {
-                        @Override
-                        public Map<String, String> getHeaders() throws AuthFailureError {
-                            Map<String, String> params = new HashMap<>();
-                            params.put("Authorization", "Bearer " + authToken);
-                            return params;
-                        }
-                    };
-                    StmRequestQueue.getInstance().addToRequestQueue(request);
-                } catch (Exception ex) {
-                    Log.e(TAG, "An error occurred building the PUT request. Aborting.", ex);
-                }
-
-            }
-        });
+        sendAuthorizedRequest(Request.Method.PUT, entity.getSingleResourceEndpoint().replace(":id", entity.getId()),
+                data, responseListener, errorListener);
     }
 
     void sendAuthorizedDeleteRequest(String urlSuffix,
                                                Response.Listener<JSONObject> responseListener,
                                                Response.ErrorListener errorListener) {
+        sendAuthorizedRequest(Request.Method.DELETE, stmService.getServerUrl() + urlSuffix, new JSONObject(),
+                responseListener, errorListener);
+    }
 
-        try {
-            final String authToken = stmService.getUserAuthToken();
-            JsonObjectRequest deleteObjectRequest = new JsonObjectRequest(Request.Method.DELETE,
-                    stmService.getServerUrl() + urlSuffix,
-                    new JSONObject(),
-                    responseListener,
-                    errorListener) {
-                @Override
-                public Map<String, String> getHeaders() throws AuthFailureError {
-                    Map<String, String> params = new HashMap<>();
-                    params.put("Authorization", "Bearer " + authToken);
-                    return params;
-                }
-            };
-
-            StmRequestQueue.getInstance().addToRequestQueue(deleteObjectRequest);
-
-        } catch (Exception ex) {
-            Log.e(TAG, "Error occurred getting user's auth token. Aborting request", ex);
-        }
+    /**
+     * Adds the request to the request queue once the user auth token is available. The token is
+     * requested without blocking, so no thread waits while the user session is created.
+     */
+    private void sendAuthorizedRequest(final int method, final String url, final JSONObject data,
+                                       final Response.Listener<JSONObject> responseListener,
+                                       final Response.ErrorListener errorListener) {
+        stmService.getUserAuthToken(new StmCallback<String>() {
+            @Override
+            public void onResponse(final String authToken) {
+                JsonObjectRequest request = new JsonObjectRequest(method, url, data,
+                        responseListener, errorListener) {
+                    @Override
+                    public Map<String, String> getHeaders() throws AuthFailureError {
+                        Map<String, String> params = new HashMap<>();
+                        params.put("Authorization", "Bearer " + authToken);
+                        return params;
+                    }
+                };
+                StmRequestQueue.getInstance().addToRequestQueue(request);
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                Log.e(TAG, "Error occurred getting user's auth token. Aborting request. " + stmError.getMessage());
+            }
+        });
     }
 }
@@ -50,7 +50,7 @@ public class StmGcmListenerService extends GcmListenerService {
             notificationData.putString(MessageNotificationIntentWrapper.EXTRA_CONVERSATION_ID, messageId);
         }
 
-        StmPreferenceManager stmPreferenceManager = new StmPreferenceManager(this);
+        StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(this);
         NotificationManager notificationManager = new NotificationManager(this);
         notificationManager.processIncomingNotification(notificationData, stmPreferenceManager.getServerUrl(),
                 stmPreferenceManager.getAuthToken(), stmPreferenceManager.getUserId());
@@ -20,17 +20,21 @@ import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import me.shoutto.sdk.internal.RecordingGraphicView;
+import me.shoutto.sdk.internal.StmScheduler;
+import me.shoutto.sdk.internal.audio.AacAudioEncoder;
+import me.shoutto.sdk.internal.audio.AudioEncoder;
+import me.shoutto.sdk.internal.audio.FlacAudioEncoder;
+import me.shoutto.sdk.internal.audio.PcmRecording;
+import me.shoutto.sdk.internal.audio.RecordingEncoder;
 import me.shoutto.sdk.internal.audio.StmAudioRecorder;
 import me.shoutto.sdk.internal.audio.StmAudioRecorderResult;
 
@@ -44,6 +48,24 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
     public static final String SILENCE_DETECTION_ENABLED = "me.shoutto.sdk.SILENCE_DETECTION_ENABLED";
     public static final String TAGS = "me.shoutto.sdk.tags";
     public static final String TOPIC = "me.shoutto.sdk.topic";
+    /**
+     * Optional <code>VadConfig</code> extra that tunes speech and silence detection
+     */
+    public static final String VAD_CONFIG = "me.shoutto.sdk.VAD_CONFIG";
+    /**
+     * Optional boolean extra. When true, audio is streamed to a file in the cache directory while
+     * recording instead of being held in memory, which suits long recordings.
+     */
+    public static final String RECORD_TO_FILE = "me.shoutto.sdk.RECORD_TO_FILE";
+    /**
+     * Optional extra that selects how the recording is compressed before upload. Compressed
+     * recordings are uploaded to media storage as a file instead of as Base64 in the request.
+     * AAC uses the device encoder and falls back to FLAC where it is unavailable.
+     */
+    public static final String AUDIO_ENCODING = "me.shoutto.sdk.AUDIO_ENCODING";
+    public static final String AUDIO_ENCODING_WAV = "wav";
+    public static final String AUDIO_ENCODING_FLAC = "flac";
+    public static final String AUDIO_ENCODING_AAC = "aac";
 
     /**
      * Activity result and reasons for failure
@@ -52,21 +74,25 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
     public static final String ACTIVITY_RESULT = "me.shoutto.sdk.ACTIVITY_RESULT";
     public static final String MAX_RECORDING_TIME_MISSING = "me.shoutto.sdk.MAX_RECORDING_TIME_MISSING";
     public static final String OBJECTS_UNINITIALIZED = "me.shoutto.sdk.OBJECTS_UNINITIALIZED";
+    public static final String INVALID_VAD_CONFIG = "me.shoutto.sdk.INVALID_VAD_CONFIG";
     public static final String RECORD_AUDIO_PERMISSION_DENIED = "me.shoutto.sdk.RECORD_AUDIO_PERMISSION_DENIED";
 
     private static final String TAG = StmRecorderActivity.class.getSimpleName();
+    // Long enough for the S3 upload to wait out its connectivity retries before the shout is posted
+    private static final long SHOUT_UPLOAD_TIMEOUT_IN_MINUTES = 15;
     private StmAudioRecorder stmAudioRecorder;
     private StmService stmService;
     private Boolean isStmServiceBound = false;
     private SoundPool soundPool;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final ExecutorService executor = Executors.newFixedThreadPool(1);
     private boolean isAlreadyLaunchedRecorder = false;
     private AudioManager audioManager;
     private String shoutTags;
     private String shoutTopic;
     private int maxRecordingTimeInSeconds;
     private Boolean isSilenceDetectionEnabled;
+    private VadConfig vadConfig;
+    private boolean isRecordToFileEnabled;
+    private String audioEncoding;
     private TextView countdownTextView;
     private String countdownText;
     private ProgressBar countdownTimer;
@@ -108,7 +134,8 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
     private void finalizeRecordingDetailsAndStartRecording() {
         Handler recorderHandler = new RecordingHandler(StmRecorderActivity.this);
         try {
-            stmAudioRecorder = new StmAudioRecorder(recorderHandler, maxRecordingTimeInSeconds);
+            stmAudioRecorder = new StmAudioRecorder(recorderHandler, maxRecordingTimeInSeconds,
+                    vadConfig != null ? vadConfig : new VadConfig());
             stmAudioRecorder.setRecordingCountdownListener(StmRecorderActivity.this);
 
             if (isSilenceDetectionEnabled == null) {
@@ -117,12 +144,27 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
                 stmAudioRecorder.setSilenceDetectionEnabled(isSilenceDetectionEnabled);
             }
 
+            if (isRecordToFileEnabled) {
+                try {
+                    stmAudioRecorder.setRecordingFile(File.createTempFile("shout", ".wav", getCacheDir()));
+                } catch (IOException ex) {
+                    Log.w(TAG, "Could not create recording file. Recording to memory instead.", ex);
+                }
+            }
+
             progressMax = maxRecordingTimeInSeconds * 100; // To smooth animation
             animation = ObjectAnimator.ofInt (countdownTimer, "progress", 0, progressMax);
 
             stmService.setOverlay(StmRecorderActivity.this);
 
             startRecording();
+        } catch (IllegalArgumentException ex) {
+            Log.e(TAG, "StmRecorderActivity.VAD_CONFIG is invalid. " + ex.getMessage());
+            Intent intent = new Intent();
+            intent.putExtra(ACTIVITY_RESULT, StmService.FAILURE);
+            intent.putExtra(ACTIVITY_REASON, INVALID_VAD_CONFIG);
+            setResult(RESULT_OK, intent);
+            finish();
         } catch (IllegalStateException ex) {
             Log.e(TAG, "Could not initialize objects for recording.");
             Intent intent = new Intent();
@@ -175,6 +217,9 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
                 shoutTopic = extras.getString(TOPIC);
                 maxRecordingTimeInSeconds = extras.getInt(MAX_RECORDING_TIME_IN_SECONDS);
                 isSilenceDetectionEnabled = extras.getBoolean(SILENCE_DETECTION_ENABLED, true);
+                vadConfig = (VadConfig) extras.getSerializable(VAD_CONFIG);
+                isRecordToFileEnabled = extras.getBoolean(RECORD_TO_FILE, false);
+                audioEncoding = extras.getString(AUDIO_ENCODING);
             }
         } else {
             shoutTags = (String) savedInstanceState.getSerializable(TAGS);
@@ -184,6 +229,9 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
             if (isSilenceDetectionEnabled == null) {
                 isSilenceDetectionEnabled = true;
             }
+            vadConfig = (VadConfig) savedInstanceState.getSerializable(VAD_CONFIG);
+            isRecordToFileEnabled = savedInstanceState.getBoolean(RECORD_TO_FILE, false);
+            audioEncoding = savedInstanceState.getString(AUDIO_ENCODING);
         }
 
         if (maxRecordingTimeInSeconds <= 0) {
@@ -213,8 +261,6 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
         super.onDestroy();
 
         soundPool.release();
-        scheduler.shutdown();
-        executor.shutdown();
         if (stmAudioRecorder != null) {
             stmAudioRecorder.setRecordingCountdownListener(null);
         }
@@ -275,64 +321,18 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
 
         playStartListeningSound();
 
-        scheduler.schedule(new Runnable() {
+        StmScheduler.timer().schedule(new Runnable() {
+            @Override
             public void run() {
-                try {
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            countdownTimer.setMax(progressMax);
-                            animation.setDuration(maxRecordingTimeInSeconds * 1000);
-                            animation.start();
-                        }
-                    });
-
-                    Future<StmAudioRecorderResult> futureRecorderResult = executor.submit(new RecordShoutCallable());
-                    StmAudioRecorderResult recordingResult = futureRecorderResult.get();
-                    final Integer shoutRecordingLengthInSeconds = recordingResult.getRecordingLengthInSeconds();
-
-                    if (recordingResult.isCancelled() || !recordingResult.didUserSpeak()) {
-                        playCancelListeningSound();
-                    } else {
-                        playFinishListeningSound();
-
-                        Future<Shout> futureShout = executor.submit(new SendShoutCallable(recordingResult.getAudioBuffer()));
-                        final Shout newShout = futureShout.get();
-                        newShout.setRecordingLengthInSeconds(shoutRecordingLengthInSeconds);
-
-                        playShoutSentSound();
-
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                StmCallback<Shout> stmCallback = stmService.getShoutCreationCallback();
-                                if (stmCallback != null) {
-                                    stmCallback.onResponse(newShout);
-                                }
-                            }
-                        });
-                    }
-
-                    // Sleeping is necessary to prevent the onDestroy being called to early
-                    // which results in the sent sound not being played
-                    Thread.sleep(700);
-
-                } catch (InterruptedException ex) {
-                    Log.w(TAG, "Recording and/or sending shout was interrupted", ex);
-                } catch (ExecutionException ex) {
-                    Log.e(TAG, "An error occurred during the recording or sending of a new shout", ex);
-                } finally {
-                    // Release the audio focus
-                    if (audioManager != null) {
-                        audioManager.abandonAudioFocus(audioFocusChangeListener);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        countdownTimer.setMax(progressMax);
+                        animation.setDuration(maxRecordingTimeInSeconds * 1000);
+                        animation.start();
                     }
-
-                    // Close the overlay
-                    Intent intent = new Intent();
-                    intent.putExtra(ACTIVITY_RESULT, StmService.SUCCESS);
-                    setResult(RESULT_OK, intent);
-                    finish();
-                }
+                });
+                StmScheduler.audio().execute(new RecordShoutTask());
             }
         }, 300, TimeUnit.MILLISECONDS);
     }
@@ -347,6 +347,53 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
         stmAudioRecorder.cancelRecording();
     }
 
+    private AudioEncoder createAudioEncoder() {
+        if (AUDIO_ENCODING_AAC.equals(audioEncoding)) {
+            return AacAudioEncoder.isSupported() ? new AacAudioEncoder() : new FlacAudioEncoder();
+        } else if (AUDIO_ENCODING_FLAC.equals(audioEncoding)) {
+            return new FlacAudioEncoder();
+        }
+        return null;
+    }
+
+    private void onRecordingComplete(StmAudioRecorderResult recordingResult) {
+        if (recordingResult.isCancelled() || !recordingResult.didUserSpeak()) {
+            playCancelListeningSound();
+            finishRecording();
+            return;
+        }
+
+        playFinishListeningSound();
+        ShoutCreationCallback shoutCreationCallback =
+                new ShoutCreationCallback(recordingResult.getRecordingLengthInSeconds());
+        AudioEncoder audioEncoder = createAudioEncoder();
+        if (recordingResult.getFile() != null || audioEncoder != null) {
+            StmScheduler.io().execute(new UploadShoutTask(recordingResult, audioEncoder, shoutCreationCallback));
+        } else {
+            StmScheduler.io().execute(new SendShoutTask(recordingResult.getRecording(), shoutCreationCallback));
+        }
+    }
+
+    private void finishRecording() {
+        // Finishing is delayed to prevent onDestroy being called too early,
+        // which results in the sent sound not being played
+        StmScheduler.timer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                // Release the audio focus
+                if (audioManager != null) {
+                    audioManager.abandonAudioFocus(audioFocusChangeListener);
+                }
+
+                // Close the overlay
+                Intent intent = new Intent();
+                intent.putExtra(ACTIVITY_RESULT, StmService.SUCCESS);
+                setResult(RESULT_OK, intent);
+                finish();
+            }
+        }, 700, TimeUnit.MILLISECONDS);
+    }
+
     private void updateRecordingViews(int amplitudeSqrt) {
         RecordingGraphicView outerCircle = (RecordingGraphicView) findViewById(R.id.outerCircle);
         int newCircleSize = 400 + amplitudeSqrt;
@@ -383,31 +430,173 @@ public class StmRecorderActivity extends Activity implements HandWaveGestureList
         });
     }
 
-    private class RecordShoutCallable implements Callable<StmAudioRecorderResult> {
+    private class RecordShoutTask implements Runnable {
         @Override
-        public StmAudioRecorderResult call() throws Exception {
+        public void run() {
             android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_URGENT_AUDIO);
-            return stmAudioRecorder.writeAudioToStream();
+            StmAudioRecorderResult recordingResult;
+            try {
+                recordingResult = stmAudioRecorder.writeAudioToStream();
+            } catch (Exception ex) {
+                Log.e(TAG, "An error occurred during the recording of a new shout", ex);
+                finishRecording();
+                return;
+            }
+            onRecordingComplete(recordingResult);
         }
     }
 
-    private class SendShoutCallable implements Callable<Shout> {
-        private ByteArrayOutputStream stream;
+    /**
+     * Completes the recording once the new shout has been created or has failed. The callback
+     * may be raced by the upload timeout, so only the first result is delivered.
+     */
+    private class ShoutCreationCallback implements StmCallback<Shout> {
+        private final Integer recordingLengthInSeconds;
+        private final AtomicBoolean isCompleted = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
 
-        public SendShoutCallable(ByteArrayOutputStream stream) {
-            this.stream = stream;
+        ShoutCreationCallback(Integer recordingLengthInSeconds) {
+            this.recordingLengthInSeconds = recordingLengthInSeconds;
+        }
+
+        void startTimeout() {
+            timeout = StmScheduler.timer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onError(new StmError("Timed out waiting for the shout to upload", false,
+                            StmError.SEVERITY_MAJOR));
+                }
+            }, SHOUT_UPLOAD_TIMEOUT_IN_MINUTES, TimeUnit.MINUTES);
+        }
+
+        @Override
+        public void onResponse(final Shout shout) {
+            if (!complete()) {
+                return;
+            }
+            shout.setRecordingLengthInSeconds(recordingLengthInSeconds);
+            playShoutSentSound();
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    StmCallback<Shout> stmCallback = stmService.getShoutCreationCallback();
+                    if (stmCallback != null) {
+                        stmCallback.onResponse(shout);
+                    }
+                }
+            });
+            finishRecording();
+        }
+
+        @Override
+        public void onError(final StmError stmError) {
+            if (!complete()) {
+                return;
+            }
+            Log.e(TAG, "An error occurred sending a new shout. " + stmError.getMessage());
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    StmCallback<Shout> stmCallback = stmService.getShoutCreationCallback();
+                    if (stmCallback != null) {
+                        stmCallback.onError(stmError);
+                    }
+                }
+            });
+            finishRecording();
+        }
+
+        private boolean complete() {
+            if (!isCompleted.compareAndSet(false, true)) {
+                return false;
+            }
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            return true;
+        }
+    }
+
+    private class SendShoutTask implements Runnable {
+        private final PcmRecording recording;
+        private final ShoutCreationCallback callback;
+
+        SendShoutTask(PcmRecording recording, ShoutCreationCallback callback) {
+            this.recording = recording;
+            this.callback = callback;
         }
 
         @Override
-        public Shout call() throws Exception {
-            Shout shout = new Shout(stmService, stream.toByteArray());
+        public void run() {
+            Shout shout = new Shout(stmService, recording);
             if (shoutTags != null) {
                 shout.setTags(shoutTags);
             }
             if (shoutTopic != null) {
                 shout.setTopic(shoutTopic);
             }
-            return stmService.getStmHttpSender().postNewShout(shout);
+            try {
+                Shout newShout = stmService.getStmHttpSender().postNewShout(shout, shout.getAudioRequestBody());
+                if (newShout == null) {
+                    callback.onError(new StmError("Shout to Me service did not return the new shout", false,
+                            StmError.SEVERITY_MAJOR));
+                } else {
+                    callback.onResponse(newShout);
+                }
+            } catch (Exception ex) {
+                callback.onError(new StmError("Could not send the shout. " + ex.getMessage(), false,
+                        StmError.SEVERITY_MAJOR));
+            }
+        }
+    }
+
+    /**
+     * Uploads a recording to media storage as a file, encoding it first if an encoder is set.
+     * The uploaded file is deleted once the upload completes.
+     */
+    private class UploadShoutTask implements Runnable {
+        private final StmAudioRecorderResult recordingResult;
+        private final AudioEncoder audioEncoder;
+        private final ShoutCreationCallback callback;
+
+        UploadShoutTask(StmAudioRecorderResult recordingResult, AudioEncoder audioEncoder,
+                        ShoutCreationCallback callback) {
+            this.recordingResult = recordingResult;
+            this.audioEncoder = audioEncoder;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            File file = recordingResult.getFile();
+            if (audioEncoder != null) {
+                try {
+                    File encodedFile = new RecordingEncoder(audioEncoder, getCacheDir()).encode(recordingResult);
+                    if (file != null && !file.delete()) {
+                        Log.w(TAG, "Could not delete recording file " + file.getAbsolutePath());
+                    }
+                    file = encodedFile;
+                } catch (IOException ex) {
+                    Log.e(TAG, "Could not encode the recording. Sending it uncompressed.", ex);
+                    if (file == null) {
+                        new SendShoutTask(recordingResult.getRecording(), callback).run();
+                        return;
+                    }
+                }
+            }
+
+            CreateShoutRequest createShoutRequest = new CreateShoutRequest();
+            createShoutRequest.setFile(file);
+            createShoutRequest.setTemporaryFile(true);
+            if (shoutTags != null) {
+                createShoutRequest.setTags(Arrays.asList(shoutTags.split(",")));
+            }
+            if (shoutTopic != null) {
+                createShoutRequest.setTopic(shoutTopic);
+            }
+
+            callback.startTimeout();
+            stmService.createShout(createShoutRequest, callback);
         }
     }
-}
\ No newline at end of file
+}
@@ -15,8 +15,6 @@ import android.util.Log;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import me.shoutto.sdk.internal.ChannelManager;
 import me.shoutto.sdk.internal.ProximitySensorClient;
@@ -45,12 +43,18 @@ import me.shoutto.sdk.internal.usecases.GetMessages;
 import me.shoutto.sdk.internal.usecases.GetUser;
 import me.shoutto.sdk.internal.usecases.UpdateUser;
 import me.shoutto.sdk.internal.usecases.UploadShout;
+import me.shoutto.sdk.internal.SessionManager;
+import me.shoutto.sdk.internal.SessionSnapshot;
+import me.shoutto.sdk.internal.StmScheduler;
 import me.shoutto.sdk.internal.StmPreferenceManager;
+import me.shoutto.sdk.internal.database.MessageDaoImpl;
 import me.shoutto.sdk.internal.http.DefaultUrlProvider;
 import me.shoutto.sdk.internal.http.GsonRequestAdapter;
 import me.shoutto.sdk.internal.http.GsonObjectResponseAdapter;
 import me.shoutto.sdk.internal.http.DefaultEntityRequestProcessorAsync;
+import me.shoutto.sdk.internal.http.OutboxRequestProcessor;
 import me.shoutto.sdk.internal.http.StmHttpSender;
+import me.shoutto.sdk.internal.http.StmOutbox;
 import me.shoutto.sdk.internal.http.StmRequestQueue;
 
 /**
@@ -101,18 +105,22 @@ public class StmService extends Service {
 
     private static final String TAG = StmService.class.getSimpleName();
     private static final Object initializationLock = new Object();
+    private static final long MESSAGE_CACHE_TIME_TO_LIVE = 60 * 60 * 1000;
+    private static final long MESSAGES_CACHE_TIME_TO_LIVE = 60 * 1000;
+    private static final long USER_CACHE_TIME_TO_LIVE = 5 * 60 * 1000;
     private final IBinder stmBinder = new StmBinder();
     private String accessToken;
     private User user;
     private StmHttpSender stmHttpSender;
     private StmCallback<Shout> shoutCreationCallback;
-    private ExecutorService executorService;
     private ProximitySensorClient proximitySensorClient;
     private List<HandWaveGestureListener> handWaveGestureListenerList = new ArrayList<>();
     private StmPreferenceManager stmPreferenceManager;
+    private SessionManager sessionManager;
     private HandWaveGestureListener overlay;
     private ChannelManager channelManager;
     private UserLocationListener userLocationListener;
+    private MessageStore messageStore;
 
     public StmService() {
     }
@@ -140,7 +148,7 @@ public class StmService extends Service {
      * @param topic The topic
      * @param callback An optional callback or null
      */
-    public void addTopicPreference(String topic, StmCallback<Void> callback) {
+    public void addTopicPreference(final String topic, final StmCallback<Void> callback) {
 
         if (topic == null) {
             String validationErrorMessage = "topic cannot be null";
@@ -153,16 +161,23 @@ public class StmService extends Service {
             }
         }
 
-        DefaultEntityRequestProcessorAsync<Void> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new NullResponseAdapter(),
-                getUserAuthToken(),
-                new TopicUrlProvider(getServerUrl(), user)
-        );
-
-        CreateTopicPreference createTopicPreference = new CreateTopicPreference(defaultEntityRequestProcessorAsync);
-        createTopicPreference.create(topic, callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                OutboxRequestProcessor<Void> outboxRequestProcessor = new OutboxRequestProcessor<>(
+                        StmOutbox.getInstance(),
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new NullResponseAdapter(),
+                        authToken,
+                        new TopicUrlProvider(getServerUrl(), user),
+                        true
+                );
+
+                CreateTopicPreference createTopicPreference = new CreateTopicPreference(outboxRequestProcessor);
+                createTopicPreference.create(topic, callback);
+            }
+        });
     }
 
     /**
@@ -171,18 +186,27 @@ public class StmService extends Service {
      * @param createShoutRequest A CreateShoutRequest object with all required fields
      * @param callback An optional callback or null
      */
-    public void createShout(CreateShoutRequest createShoutRequest, StmCallback<Shout> callback) {
+    public void createShout(final CreateShoutRequest createShoutRequest, final StmCallback<Shout> callback) {
         refreshUserLocation();
 
-        DefaultEntityRequestProcessorAsync<Shout> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new GsonObjectResponseAdapter<Shout>(Shout.SERIALIZATION_KEY, Shout.getSerializationType()),
-                getUserAuthToken(),
-                new DefaultUrlProvider(this.getServerUrl())
-        );
-        UploadShout shoutUploader = new UploadShout(this, new S3Client(this), defaultEntityRequestProcessorAsync);
-        shoutUploader.upload(createShoutRequest, callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                // Shouts are not queued in the outbox, so they are not held up behind other writes
+                // that are backing off, and a shout that may have been created is not sent again.
+                DefaultEntityRequestProcessorAsync<Shout> defaultEntityRequestProcessorAsync
+                        = new DefaultEntityRequestProcessorAsync<>(
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new GsonObjectResponseAdapter<Shout>(Shout.SERIALIZATION_KEY, Shout.getSerializationType()),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl())
+                );
+                UploadShout shoutUploader = new UploadShout(StmService.this, new S3Client(StmService.this),
+                        defaultEntityRequestProcessorAsync);
+                shoutUploader.upload(createShoutRequest, callback);
+            }
+        });
     }
 
     /**
@@ -210,16 +234,12 @@ public class StmService extends Service {
         if (channelManager == null) {
             channelManager = new ChannelManager(this);
         }
-        new Thread(new Runnable() {
+        StmScheduler.io().execute(new Runnable() {
             @Override
             public void run() {
                 channelManager.getChannels(StmService.this, callback);
             }
-        }).start();
-    }
-
-    ExecutorService getExecutorService() {
-        return executorService;
+        });
     }
 
     /**
@@ -230,10 +250,10 @@ public class StmService extends Service {
 
         String installationId = stmPreferenceManager.getInstallationId();
         if (installationId == null) {
-            stmPreferenceManager.setInstallationId(UUID.randomUUID().toString());
+            installationId = stmPreferenceManager.setInstallationIdIfAbsent(UUID.randomUUID().toString());
         }
 
-        return stmPreferenceManager.getInstallationId();
+        return installationId;
     }
 
     /**
@@ -250,17 +270,23 @@ public class StmService extends Service {
      * @param messageId The message ID
      * @param callback An optional callback or null
      */
-    public void getMessage(String messageId, StmCallback<Message> callback) {
-        DefaultEntityRequestProcessorAsync<Message> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                null,
-                StmRequestQueue.getInstance(),
-                new GsonObjectResponseAdapter<Message>(Message.SERIALIZATION_KEY, Message.getSerializationType()),
-                getUserAuthToken(),
-                new DefaultUrlProvider(getServerUrl())
-        );
-
-        GetMessage getMessage = new GetMessage(defaultEntityRequestProcessorAsync);
-        getMessage.get(messageId, callback);
+    public void getMessage(final String messageId, final StmCallback<Message> callback) {
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                DefaultEntityRequestProcessorAsync<Message> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
+                        null,
+                        StmRequestQueue.getInstance(),
+                        new GsonObjectResponseAdapter<Message>(Message.SERIALIZATION_KEY, Message.getSerializationType()),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl()),
+                        MESSAGE_CACHE_TIME_TO_LIVE
+                );
+
+                GetMessage getMessage = new GetMessage(defaultEntityRequestProcessorAsync);
+                getMessage.get(messageId, callback);
+            }
+        });
     }
 
     /**
@@ -269,22 +295,40 @@ public class StmService extends Service {
      * @param callback The callback to execute or null.
      */
     public void getMessages(final StmCallback<List<Message>> callback) {
-        DefaultEntityRequestProcessorAsync<List<Message>> defaultEntityRequestProcessorAsync
-                = new DefaultEntityRequestProcessorAsync<>(
-                null,
-                StmRequestQueue.getInstance(),
-                new GsonListResponseAdapter<List<Message>, Message>(
-                        Message.LIST_SERIALIZATION_KEY,
-                        Message.SERIALIZATION_KEY,
-                        Message.getSerializationListType(),
-                        Message.class
-                ),
-                getUserAuthToken(),
-                new DefaultUrlProvider(getServerUrl())
-        );
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                DefaultEntityRequestProcessorAsync<List<Message>> defaultEntityRequestProcessorAsync
+                        = new DefaultEntityRequestProcessorAsync<>(
+                        null,
+                        StmRequestQueue.getInstance(),
+                        new GsonListResponseAdapter<List<Message>, Message>(
+                                Message.LIST_SERIALIZATION_KEY,
+                                Message.SERIALIZATION_KEY,
+                                Message.getSerializationListType(),
+                                Message.class
+                        ),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl()),
+                        MESSAGES_CACHE_TIME_TO_LIVE
+                );
+
+                GetMessages getMessages = new GetMessages(defaultEntityRequestProcessorAsync);
+                getMessages.get(callback);
+            }
+        });
+    }
 
-        GetMessages getMessages = new GetMessages(defaultEntityRequestProcessorAsync);
-        getMessages.get(callback);
+    /**
+     * Gets the local store of the user's messages. The store is only synced when its sync method is
+     * called. getMessages does not use it.
+     * @return The message store.
+     */
+    public synchronized MessageStore getMessageStore() {
+        if (messageStore == null) {
+            messageStore = new MessageStore(this, MessageDaoImpl.getInstance(this));
+        }
+        return messageStore;
     }
 
     /**
@@ -308,16 +352,21 @@ public class StmService extends Service {
      * @param callback The callback to execute or null.
      */
     public void getUnreadMessageCount(final StmCallback<Integer> callback) {
-        DefaultEntityRequestProcessorAsync<Integer> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                null,
-                StmRequestQueue.getInstance(),
-                new CountResponseAdapter(),
-                getUserAuthToken(),
-                new MessageCountUrlProvider(getServerUrl(), true)
-        );
-
-        GetMessageCount getUnreadMessageCount = new GetMessageCount(defaultEntityRequestProcessorAsync);
-        getUnreadMessageCount.get(callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                DefaultEntityRequestProcessorAsync<Integer> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
+                        null,
+                        StmRequestQueue.getInstance(),
+                        new CountResponseAdapter(),
+                        authToken,
+                        new MessageCountUrlProvider(getServerUrl(), true)
+                );
+
+                GetMessageCount getUnreadMessageCount = new GetMessageCount(defaultEntityRequestProcessorAsync);
+                getUnreadMessageCount.get(callback);
+            }
+        });
     }
 
     /**
@@ -334,81 +383,89 @@ public class StmService extends Service {
      * @param callback The Callback to be executed or null.
      */
     public void getUser(final StmCallback<User> callback) {
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                DefaultEntityRequestProcessorAsync<User> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new GsonUserResponseAdapter(),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl()),
+                        USER_CACHE_TIME_TO_LIVE
+                );
+                GetUser getUser = new GetUser(defaultEntityRequestProcessorAsync);
+                getUser.get(user.getId(), callback);
+            }
+        });
+    }
 
-        if (user.getId() == null) {
-            StmError stmError = new StmError("User has not been initialized", true, StmError.SEVERITY_MINOR);
-            callback.onError(stmError);
-            return;
-        }
+    /**
+     * Returns the user auth token from local storage or gets it from the service if not in local
+     * storage.  This token can be used to make calls to the Shout to Me REST API outside of the SDK.
+     * Until the user has been created or retrieved from the service, this method blocks the calling
+     * thread on the network. Use {@link #getUserAuthToken(StmCallback)} from the main thread.
+     * @return The user auth token.
+     */
+    public String getUserAuthToken() {
+        SessionSnapshot sessionSnapshot = sessionManager.awaitSession();
+        applyUserSession(sessionSnapshot);
+        return sessionSnapshot.getAuthToken();
+    }
 
-        DefaultEntityRequestProcessorAsync<User> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new GsonUserResponseAdapter(),
-                getUserAuthToken(),
-                new DefaultUrlProvider(getServerUrl())
-        );
-        GetUser getUser = new GetUser(defaultEntityRequestProcessorAsync);
-        getUser.get(user.getId(), callback);
+    /**
+     * Returns the user auth token in the callback without blocking the calling thread. If the user
+     * has not been created or retrieved from the service yet, the callback is executed once that
+     * request completes.
+     * @param callback The callback to be executed.
+     */
+    public void getUserAuthToken(final StmCallback<String> callback) {
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                callback.onResponse(authToken);
+            }
+        });
     }
 
-    private void initializeUserSession() {
+    private void applyUserSession(SessionSnapshot sessionSnapshot) {
+        if (!sessionSnapshot.hasUserSession()) {
+            return;
+        }
         synchronized (initializationLock) {
-            if (!user.isInitialized()) {
-                String userId = stmPreferenceManager.getUserId();
-                String authToken = stmPreferenceManager.getAuthToken();
-                if (userId == null || authToken == null) {
-
-                    User user = new User();
-                    user.setDeviceId(getInstallationId());
-
-                    DefaultEntityRequestProcessorSync<User> stmRequestProcessor = new DefaultEntityRequestProcessorSync<>(
-                            new GsonRequestAdapter<StmBaseEntity>(),
-                            new GsonUserResponseAdapter(),
-                            new BasicAuthHeaderProvider(getAccessToken()),
-                            new CreateUserUrlProvider(stmPreferenceManager.getServerUrl())
-                    );
-                    CreateOrGetUser createOrGetUser = new CreateOrGetUser(stmRequestProcessor);
-                    createOrGetUser.createOrGet(user, new Callback<User>() {
-                        @Override
-                        public void onSuccess(StmResponse<User> stmResponse) {
-                            User userFromResponse = stmResponse.get();
-                            stmPreferenceManager.setAuthToken(userFromResponse.getAuthToken());
-                            stmPreferenceManager.setUserId(userFromResponse.getId());
-
-                            getUser().setIsInitialized(true);
-                            getUser().setId(userFromResponse.getId());
-                            getUser().setAuthToken(userFromResponse.getAuthToken());
-
-                            Log.d(TAG, "User has been initialized from Shout to Me service");
-                        }
-
-                        @Override
-                        public void onFailure(StmError stmError) {
-                            Log.e(TAG, "Could not create or get user. " + stmError.getMessage());
-                        }
-                    });
-                } else {
-                    user.setId(userId);
-                    user.setAuthToken(authToken);
-                    user.setIsInitialized(true);
-
-                    Log.d(TAG, "User has been initialized via Shared Preferences");
-                }
-            } else {
-                Log.d(TAG, "User is already initialized");
+            if (!user.isInitialized()
+                    || !sessionSnapshot.getUserId().equals(user.getId())
+                    || !sessionSnapshot.getAuthToken().equals(user.getAuthToken())) {
+                user.setId(sessionSnapshot.getUserId());
+                user.setAuthToken(sessionSnapshot.getAuthToken());
+                user.setIsInitialized(true);
             }
         }
     }
 
     /**
-     * Returns the user auth token from local storage or gets it from the service if not in local
-     * storage.  This token can be used to make calls to the Shout to Me REST API outside of the SDK.
-     * @return The user auth token.
+     * Runs a task once the user session is ready. Tasks for requests made before the user has been
+     * created or retrieved from the service are queued and run when that request completes.
+     * @param callback The callback of the request, which receives the error if there is no session.
+     * @param userSessionTask The task to run.
      */
-    public String getUserAuthToken() {
-        initializeUserSession();
-        return stmPreferenceManager.getAuthToken();
+    private void whenUserSessionReady(final StmCallback<?> callback, final UserSessionTask userSessionTask) {
+        sessionManager.getSession(new StmCallback<SessionSnapshot>() {
+            @Override
+            public void onResponse(SessionSnapshot sessionSnapshot) {
+                applyUserSession(sessionSnapshot);
+                userSessionTask.run(sessionSnapshot.getAuthToken());
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                if (callback != null) {
+                    callback.onError(stmError);
+                } else {
+                    Log.w(TAG, "Request dropped. No user session. " + stmError.getMessage());
+                }
+            }
+        });
     }
 
     /**
@@ -426,11 +483,11 @@ public class StmService extends Service {
 
     /**
      * Sends request to the Shout to Me service to see if the user is subscribed to the specified
-     * channel.
+     * channel. The user is served from the response cache when it was retrieved recently.
      * @param channelId The channel ID to check subscription status.
      * @param callback The callback to be executed or null.
      */
-    public void isSubscribedToChannel(String channelId, final StmCallback<Boolean> callback) {
+    public void isSubscribedToChannel(final String channelId, final StmCallback<Boolean> callback) {
 
         if (channelId == null) {
             String validationErrorMessage = "channelId cannot be null";
@@ -443,16 +500,22 @@ public class StmService extends Service {
             }
         }
 
-        DefaultEntityRequestProcessorAsync<User> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new GsonUserResponseAdapter(),
-                getUserAuthToken(),
-                new DefaultUrlProvider(getServerUrl())
-        );
-
-        GetChannelSubscription getChannelSubscription = new GetChannelSubscription(defaultEntityRequestProcessorAsync);
-        getChannelSubscription.get(channelId, user.getId(), callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                DefaultEntityRequestProcessorAsync<User> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new GsonUserResponseAdapter(),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl()),
+                        USER_CACHE_TIME_TO_LIVE
+                );
+
+                GetChannelSubscription getChannelSubscription = new GetChannelSubscription(defaultEntityRequestProcessorAsync);
+                getChannelSubscription.get(channelId, user.getId(), callback);
+            }
+        });
     }
 
     /**
@@ -464,7 +527,7 @@ public class StmService extends Service {
     public IBinder onBind(Intent intent) {
 
         if (stmPreferenceManager == null) {
-            stmPreferenceManager = new StmPreferenceManager(this);
+            stmPreferenceManager = StmPreferenceManager.getInstance(this);
         }
 
         try {
@@ -491,23 +554,28 @@ public class StmService extends Service {
         // Initialize the RequestQueue
         StmRequestQueue.setInstance(this);
 
+        // Initialize the outbox and deliver writes queued before the service was last stopped
+        StmOutbox.setInstance(this);
+        StmOutbox.getInstance().drain();
+
         this.stmHttpSender = new StmHttpSender(this);
 
-        // Create or get user
+        // Create or get user, then connect to location services on the main thread
         this.user = new User(this);
-        new Thread(new Runnable() {
+        sessionManager = new SessionManager(stmPreferenceManager, new CreateOrGetUserSessionLoader());
+        sessionManager.getSession(new StmCallback<SessionSnapshot>() {
             @Override
-            public void run() {
-                // Needs to be done in background thread
-                initializeUserSession();
-
-                // Needs to be done in main thread
+            public void onResponse(SessionSnapshot sessionSnapshot) {
+                applyUserSession(sessionSnapshot);
+                Log.d(TAG, "User session is ready");
                 connectToLocationServicesHandler.sendEmptyMessage(0);
             }
-        }).start();
 
-
-        executorService = Executors.newFixedThreadPool(10);
+            @Override
+            public void onError(StmError stmError) {
+                connectToLocationServicesHandler.sendEmptyMessage(0);
+            }
+        });
 
         proximitySensorClient = new ProximitySensorClient(this);
 
@@ -532,15 +600,39 @@ public class StmService extends Service {
     }
 
     /**
-     * Clears the user auth token from local storage and gets it from the service.
+     * Clears the user auth token from local storage and gets it from the service. Blocks the calling
+     * thread on the network. Use {@link #refreshUserAuthToken(StmCallback)} from the main thread.
      * @throws Exception The exception that occurred.
      */
     public void refreshUserAuthToken() throws Exception {
-        stmPreferenceManager.setAuthToken(null);
-        stmPreferenceManager.setUserId(null);
+        stmPreferenceManager.setUserSession(null, null);
         getUserAuthToken();
     }
 
+    /**
+     * Clears the user auth token from local storage and gets a new one from the service without
+     * blocking the calling thread.
+     * @param callback The callback to be executed with the new user auth token or null.
+     */
+    public void refreshUserAuthToken(final StmCallback<String> callback) {
+        sessionManager.reload(new StmCallback<SessionSnapshot>() {
+            @Override
+            public void onResponse(SessionSnapshot sessionSnapshot) {
+                applyUserSession(sessionSnapshot);
+                if (callback != null) {
+                    callback.onResponse(sessionSnapshot.getAuthToken());
+                }
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                if (callback != null) {
+                    callback.onError(stmError);
+                }
+            }
+        });
+    }
+
     public void refreshUserLocation() {
         userLocationListener.updateUserLocation(this);
     }
@@ -566,9 +658,22 @@ public class StmService extends Service {
      */
     public void reloadUser(final StmCallback<User> callback) {
         user.setIsInitialized(false);
-        stmPreferenceManager.setAuthToken(null);
-        stmPreferenceManager.setUserId(null);
-        initializeUserSession();
+        sessionManager.reload(new StmCallback<SessionSnapshot>() {
+            @Override
+            public void onResponse(SessionSnapshot sessionSnapshot) {
+                applyUserSession(sessionSnapshot);
+                if (callback != null) {
+                    callback.onResponse(user);
+                }
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                if (callback != null) {
+                    callback.onError(stmError);
+                }
+            }
+        });
     }
 
     /**
@@ -579,7 +684,7 @@ public class StmService extends Service {
      * @param topic The topic to remove
      * @param callback An optional callback or null
      */
-    public void removeTopicPreference(String topic, StmCallback<Void> callback) {
+    public void removeTopicPreference(final String topic, final StmCallback<Void> callback) {
         if (topic == null) {
             String validationErrorMessage = "topic cannot be null";
             if (callback != null) {
@@ -591,16 +696,23 @@ public class StmService extends Service {
             }
         }
 
-        DefaultEntityRequestProcessorAsync<Void> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new NullResponseAdapter(),
-                getUserAuthToken(),
-                new TopicUrlProvider(getServerUrl(), user)
-        );
-
-        DeleteTopicPreference deleteTopicPreference = new DeleteTopicPreference(defaultEntityRequestProcessorAsync);
-        deleteTopicPreference.delete(topic, callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                OutboxRequestProcessor<Void> outboxRequestProcessor = new OutboxRequestProcessor<>(
+                        StmOutbox.getInstance(),
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new NullResponseAdapter(),
+                        authToken,
+                        new TopicUrlProvider(getServerUrl(), user),
+                        true
+                );
+
+                DeleteTopicPreference deleteTopicPreference = new DeleteTopicPreference(outboxRequestProcessor);
+                deleteTopicPreference.delete(topic, callback);
+            }
+        });
     }
 
     /**
@@ -650,17 +762,24 @@ public class StmService extends Service {
             }
         }
 
-        DefaultEntityRequestProcessorAsync<Void> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new NullResponseAdapter(),
-                getUserAuthToken(),
-                new ChannelSubscriptionUrlProvider(getServerUrl(), user)
-        );
-
-        CreateChannelSubscription createChannelSubscription =
-                new CreateChannelSubscription(defaultEntityRequestProcessorAsync);
-        createChannelSubscription.create(channelId, callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                OutboxRequestProcessor<Void> outboxRequestProcessor = new OutboxRequestProcessor<>(
+                        StmOutbox.getInstance(),
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new NullResponseAdapter(),
+                        authToken,
+                        new ChannelSubscriptionUrlProvider(getServerUrl(), user),
+                        true
+                );
+
+                CreateChannelSubscription createChannelSubscription =
+                        new CreateChannelSubscription(outboxRequestProcessor);
+                createChannelSubscription.create(channelId, callback);
+            }
+        });
     }
 
 
@@ -693,16 +812,23 @@ public class StmService extends Service {
             }
         }
 
-        DefaultEntityRequestProcessorAsync<Void> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new NullResponseAdapter(),
-                getUserAuthToken(),
-                new ChannelSubscriptionUrlProvider(getServerUrl(), user)
-        );
-
-        DeleteChannelSubscription deleteChannelSubscription = new DeleteChannelSubscription(defaultEntityRequestProcessorAsync);
-        deleteChannelSubscription.delete(channelId, callback);
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                OutboxRequestProcessor<Void> outboxRequestProcessor = new OutboxRequestProcessor<>(
+                        StmOutbox.getInstance(),
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new NullResponseAdapter(),
+                        authToken,
+                        new ChannelSubscriptionUrlProvider(getServerUrl(), user),
+                        true
+                );
+
+                DeleteChannelSubscription deleteChannelSubscription = new DeleteChannelSubscription(outboxRequestProcessor);
+                deleteChannelSubscription.delete(channelId, callback);
+            }
+        });
     }
 
     /**
@@ -710,28 +836,45 @@ public class StmService extends Service {
      * @param updateUserRequest The object containing the updated properties.
      * @param callback The callback to be executed or null.
      */
-    public void updateUser(UpdateUserRequest updateUserRequest, StmCallback<User> callback) {
-
-        if (user.getId() == null) {
-            String validationErrorMessage = "Shout to Me user not initialized";
-            if (callback != null) {
-                StmError error = new StmError(validationErrorMessage, false, StmError.SEVERITY_MAJOR);
-                callback.onError(error);
-                return;
-            } else {
-                throw new IllegalArgumentException(validationErrorMessage);
+    public void updateUser(final UpdateUserRequest updateUserRequest, final StmCallback<User> callback) {
+        whenUserSessionReady(callback, new UserSessionTask() {
+            @Override
+            public void run(String authToken) {
+                OutboxRequestProcessor<User> outboxRequestProcessor = new OutboxRequestProcessor<>(
+                        StmOutbox.getInstance(),
+                        new GsonRequestAdapter<StmBaseEntity>(),
+                        StmRequestQueue.getInstance(),
+                        new GsonUserResponseAdapter(),
+                        authToken,
+                        new DefaultUrlProvider(getServerUrl()),
+                        false
+                );
+
+                UpdateUser updateUser = new UpdateUser(outboxRequestProcessor, StmService.this);
+                updateUser.update(updateUserRequest, user.getId(), true, callback);
             }
-        }
+        });
+    }
+
+    private interface UserSessionTask {
+        void run(String authToken);
+    }
 
-        DefaultEntityRequestProcessorAsync<User> defaultEntityRequestProcessorAsync = new DefaultEntityRequestProcessorAsync<>(
-                new GsonRequestAdapter<StmBaseEntity>(),
-                StmRequestQueue.getInstance(),
-                new GsonUserResponseAdapter(),
-                getUserAuthToken(),
-                new DefaultUrlProvider(this.getServerUrl())
-        );
+    private class CreateOrGetUserSessionLoader implements SessionManager.SessionLoader {
 
-        UpdateUser updateUser = new UpdateUser(defaultEntityRequestProcessorAsync, this);
-        updateUser.update(updateUserRequest, user.getId(), true, callback);
+        @Override
+        public void load(StmCallback<User> callback) {
+            User user = new User();
+            user.setDeviceId(getInstallationId());
+
+            DefaultEntityRequestProcessorSync<User> stmRequestProcessor = new DefaultEntityRequestProcessorSync<>(
+                    new GsonRequestAdapter<StmBaseEntity>(),
+                    new GsonUserResponseAdapter(),
+                    new BasicAuthHeaderProvider(getAccessToken()),
+                    new CreateUserUrlProvider(stmPreferenceManager.getServerUrl())
+            );
+            CreateOrGetUser createOrGetUser = new CreateOrGetUser(stmRequestProcessor);
+            createOrGetUser.createOrGet(user, callback);
+        }
     }
 }
@@ -52,7 +52,7 @@ public class User extends StmBaseEntity {
     private Locations locations;
     private MetaInfo metaInfo;
 
-    private transient boolean isInitialized = false;
+    private transient volatile boolean isInitialized = false;
 
     /**
      * A constructor that allows setting <code>StmService</code> which is used for context and other
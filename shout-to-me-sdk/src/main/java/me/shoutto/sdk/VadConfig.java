@@ -0,0 +1,170 @@
+package me.shoutto.sdk;
+
+import java.io.Serializable;
+
+/**
+ * Tuning for the voice activity detection used by <code>StmRecorderActivity</code> to detect
+ * when the user starts and stops speaking. Durations are in milliseconds so that the same
+ * configuration applies at any sample rate. Pass an instance to the recorder with the
+ * <code>StmRecorderActivity.VAD_CONFIG</code> intent extra, or use one of the built-in profiles.
+ */
+public class VadConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int frameDurationInMillis = 10;
+    private double energyThresholdInDecibels = 8.0;
+    private int calibrationDurationInMillis = 300;
+    private int speechOnsetDurationInMillis = 100;
+    private int speechOffsetDurationInMillis = 500;
+    private int silenceTimeoutInMillis = 2000;
+
+    /**
+     * Creates a configuration with the default values, suitable for most environments
+     */
+    public VadConfig() {
+    }
+
+    /**
+     * Returns a profile for quiet rooms. Speech stands well above the background, so recording
+     * stops sooner after the user finishes speaking.
+     * @return A new VadConfig
+     */
+    public static VadConfig forQuietRoom() {
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setSpeechOffsetDurationInMillis(400);
+        vadConfig.setSilenceTimeoutInMillis(1000);
+        return vadConfig;
+    }
+
+    /**
+     * Returns a profile for cars. Engine and road noise is steady but loud, so speech is detected
+     * at a lower threshold and recording continues longer after speech drops into the noise.
+     * @return A new VadConfig
+     */
+    public static VadConfig forCar() {
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setEnergyThresholdInDecibels(6.0);
+        vadConfig.setCalibrationDurationInMillis(500);
+        vadConfig.setSpeechOffsetDurationInMillis(800);
+        vadConfig.setSilenceTimeoutInMillis(3000);
+        return vadConfig;
+    }
+
+    /**
+     * Returns a profile for noisy venues such as bars and stadiums. Background voices fluctuate,
+     * so speech must be louder and last longer before it is detected.
+     * @return A new VadConfig
+     */
+    public static VadConfig forNoisyVenue() {
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setEnergyThresholdInDecibels(12.0);
+        vadConfig.setCalibrationDurationInMillis(500);
+        vadConfig.setSpeechOnsetDurationInMillis(200);
+        vadConfig.setSpeechOffsetDurationInMillis(700);
+        vadConfig.setSilenceTimeoutInMillis(2500);
+        return vadConfig;
+    }
+
+    /**
+     * Gets the length of the frames that audio energy is measured over
+     * @return The frame duration in milliseconds
+     */
+    public int getFrameDurationInMillis() {
+        return frameDurationInMillis;
+    }
+
+    /**
+     * Sets the length of the frames that audio energy is measured over
+     * @param frameDurationInMillis The frame duration in milliseconds. Must be greater than 0.
+     */
+    public void setFrameDurationInMillis(int frameDurationInMillis) {
+        this.frameDurationInMillis = frameDurationInMillis;
+    }
+
+    /**
+     * Gets how far above the background noise a frame must be to count as speech
+     * @return The threshold in decibels
+     */
+    public double getEnergyThresholdInDecibels() {
+        return energyThresholdInDecibels;
+    }
+
+    /**
+     * Sets how far above the background noise a frame must be to count as speech
+     * @param energyThresholdInDecibels The threshold in decibels
+     */
+    public void setEnergyThresholdInDecibels(double energyThresholdInDecibels) {
+        this.energyThresholdInDecibels = energyThresholdInDecibels;
+    }
+
+    /**
+     * Gets how long the background noise is measured at the start of recording before speech
+     * can be detected
+     * @return The calibration duration in milliseconds
+     */
+    public int getCalibrationDurationInMillis() {
+        return calibrationDurationInMillis;
+    }
+
+    /**
+     * Sets how long the background noise is measured at the start of recording before speech
+     * can be detected
+     * @param calibrationDurationInMillis The calibration duration in milliseconds
+     */
+    public void setCalibrationDurationInMillis(int calibrationDurationInMillis) {
+        this.calibrationDurationInMillis = calibrationDurationInMillis;
+    }
+
+    /**
+     * Gets how long speech must continue before the user is considered to be talking
+     * @return The speech onset duration in milliseconds
+     */
+    public int getSpeechOnsetDurationInMillis() {
+        return speechOnsetDurationInMillis;
+    }
+
+    /**
+     * Sets how long speech must continue before the user is considered to be talking
+     * @param speechOnsetDurationInMillis The speech onset duration in milliseconds. Must be at
+     *                                    least one frame.
+     */
+    public void setSpeechOnsetDurationInMillis(int speechOnsetDurationInMillis) {
+        this.speechOnsetDurationInMillis = speechOnsetDurationInMillis;
+    }
+
+    /**
+     * Gets how long there must be no speech before the user is considered to have stopped talking
+     * @return The speech offset duration in milliseconds
+     */
+    public int getSpeechOffsetDurationInMillis() {
+        return speechOffsetDurationInMillis;
+    }
+
+    /**
+     * Sets how long there must be no speech before the user is considered to have stopped talking
+     * @param speechOffsetDurationInMillis The speech offset duration in milliseconds. Must be at
+     *                                     least the speech onset duration.
+     */
+    public void setSpeechOffsetDurationInMillis(int speechOffsetDurationInMillis) {
+        this.speechOffsetDurationInMillis = speechOffsetDurationInMillis;
+    }
+
+    /**
+     * Gets how long recording continues after the user stops talking when silence detection is
+     * enabled
+     * @return The silence timeout in milliseconds
+     */
+    public int getSilenceTimeoutInMillis() {
+        return silenceTimeoutInMillis;
+    }
+
+    /**
+     * Sets how long recording continues after the user stops talking when silence detection is
+     * enabled
+     * @param silenceTimeoutInMillis The silence timeout in milliseconds
+     */
+    public void setSilenceTimeoutInMillis(int silenceTimeoutInMillis) {
+        this.silenceTimeoutInMillis = silenceTimeoutInMillis;
+    }
+}
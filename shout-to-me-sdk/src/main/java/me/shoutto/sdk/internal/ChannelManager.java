@@ -4,32 +4,28 @@ import android.content.Context;
 import android.util.Log;
 
 import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import me.shoutto.sdk.Channel;
-import me.shoutto.sdk.StmBaseEntity;
 import me.shoutto.sdk.StmCallback;
 import me.shoutto.sdk.StmError;
 import me.shoutto.sdk.StmService;
-import me.shoutto.sdk.internal.http.GsonDateAdapter;
+import me.shoutto.sdk.internal.http.GsonRegistry;
 import me.shoutto.sdk.internal.http.StmEntityListRequestSync;
 import me.shoutto.sdk.internal.http.StmRequestQueue;
+import me.shoutto.sdk.internal.http.StmResponseCache;
 
 /**
  * ChannelManager provides methods to retrieve channel information.
@@ -37,10 +33,11 @@ import me.shoutto.sdk.internal.http.StmRequestQueue;
 public class ChannelManager {
 
     private static final String TAG = ChannelManager.class.getSimpleName();
+    private static final long CACHE_TIME_TO_LIVE = 10 * 60 * 1000;
     private StmPreferenceManager stmPreferenceManager;
 
     public ChannelManager(Context context) {
-        stmPreferenceManager = new StmPreferenceManager(context);
+        stmPreferenceManager = StmPreferenceManager.getInstance(context);
     }
 
     public void getChannels(final StmService stmService, final StmCallback<List<Channel>> callback) {
@@ -53,17 +50,8 @@ public class ChannelManager {
                     JSONObject data = response.getJSONObject("data");
                     JSONArray channelArray = data.getJSONArray(Channel.LIST_SERIALIZATION_KEY);
 
-                    RuntimeTypeAdapterFactory<StmBaseEntity> runtimeTypeAdapterFactory = RuntimeTypeAdapterFactory
-                            .of(StmBaseEntity.class, StmBaseEntity.SERIALIZATION_FIELD)
-                            .registerSubtype(Channel.class, Channel.SERIALIZATION_KEY);
-
-                    Gson gson = new GsonBuilder()
-                            .registerTypeAdapterFactory(runtimeTypeAdapterFactory)
-                            .registerTypeAdapter(Date.class, new GsonDateAdapter())
-                            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                            .create();
-
-                    channelList = gson.fromJson(channelArray.toString(), Channel.getSerializationListType());
+                    channelList = GsonRegistry.getPolymorphicEntityGson()
+                            .fromJson(channelArray.toString(), Channel.getSerializationListType());
 
                     for (Channel channel : channelList) {
                         channel.setStmService(stmService);
@@ -110,6 +98,20 @@ public class ChannelManager {
                 params.put("Authorization", "Bearer " + authToken);
                 return params;
             }
+
+            @Override
+            public String getCacheKey() {
+                return StmResponseCache.getCacheKey(getUrl(), "Bearer " + authToken);
+            }
+
+            @Override
+            protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+                Response<JSONObject> parsedResponse = super.parseNetworkResponse(response);
+                if (parsedResponse.isSuccess() && "success".equals(parsedResponse.result.optString("status"))) {
+                    StmResponseCache.applyTimeToLive(parsedResponse, CACHE_TIME_TO_LIVE);
+                }
+                return parsedResponse;
+            }
         };
         StmRequestQueue.getInstance().addToRequestQueue(request);
     }
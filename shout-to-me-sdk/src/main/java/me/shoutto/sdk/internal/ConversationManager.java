@@ -16,7 +16,7 @@ class ConversationManager {
     private StmPreferenceManager stmPreferenceManager;
 
     ConversationManager(Context context) {
-        stmPreferenceManager = new StmPreferenceManager(context);
+        stmPreferenceManager = StmPreferenceManager.getInstance(context);
     }
 
     List<Conversation> getActiveConversations(String channelId) {
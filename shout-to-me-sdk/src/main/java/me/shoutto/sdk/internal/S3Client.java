@@ -1,28 +1,39 @@
 package me.shoutto.sdk.internal;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 import android.net.Uri;
 import android.util.Log;
 import android.webkit.MimeTypeMap;
 
 import com.amazonaws.auth.CognitoCachingCredentialsProvider;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferListener;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferObserver;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferState;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3Client;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import me.shoutto.sdk.StmService;
+import me.shoutto.sdk.internal.database.UploadDaoImpl;
+import me.shoutto.sdk.internal.upload.ResumableUploadManager;
+import me.shoutto.sdk.internal.upload.S3UploadPartTransport;
+import me.shoutto.sdk.internal.upload.UploadNotFoundException;
 import me.shoutto.sdk.internal.usecases.UploadShout.FileUploader;
 
 /**
- * The class used to upload files to S3
+ * The class used to upload files to S3 through the ResumableUploadManager. Files larger than one
+ * part are uploaded in parts. When the network drops during an upload, the upload is resumed
+ * with the parts that have not been sent yet once the device is connected again. Smaller files
+ * are sent again in full. No thread is blocked while an upload waits to be retried.
  */
 
 public class S3Client implements FileUploader {
@@ -30,12 +41,18 @@ public class S3Client implements FileUploader {
     private static final String TAG = S3Client.class.getSimpleName();
     private static final String SHOUT_UPLOAD_BUCKET = "s2m-shout-upload-inbox";
     private static final String SHOUT_URL_BUCKET_PREFIX = "https://s3-us-west-2.amazonaws.com/" + SHOUT_UPLOAD_BUCKET + "/";
-    private TransferUtility transferUtility;
-    private ArrayList<StmObserver> observers;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_RETRY_DELAY_IN_MILLIS = 1000;
+    private static final long CONNECTIVITY_TIMEOUT_IN_MILLIS = 2 * 60 * 1000;
+    private static final Executor uploadExecutor = StmScheduler.newSerialExecutor();
+    private Context context;
+    private ResumableUploadManager resumableUploadManager;
+    private final StmEventBus eventBus;
 
     public S3Client(Context context) {
 
-        observers = new ArrayList<>();
+        eventBus = new StmEventBus(StmEventBus.DeliveryThread.MAIN);
+        this.context = context.getApplicationContext();
 
         CognitoCachingCredentialsProvider cognitoCachingCredentialsProvider = new CognitoCachingCredentialsProvider(
                 context.getApplicationContext(),
@@ -45,77 +62,128 @@ public class S3Client implements FileUploader {
         AmazonS3Client s3Client = new AmazonS3Client(cognitoCachingCredentialsProvider);
         s3Client.setRegion(Region.getRegion(Regions.US_WEST_2));
 
-        transferUtility = new TransferUtility(s3Client, context.getApplicationContext());
+        resumableUploadManager = new ResumableUploadManager(
+                new UploadDaoImpl(context),
+                new S3UploadPartTransport(s3Client, SHOUT_UPLOAD_BUCKET)
+        );
     }
 
     @Override
-    public void uploadFile(File file) {
+    public void uploadFile(final File file) {
         UUID uuid = UUID.randomUUID();
         Uri uri = Uri.fromFile(file);
         String fileExtension = MimeTypeMap.getFileExtensionFromUrl(uri
                 .toString());
         final String s3FileKey = String.format("%s.%s", uuid, fileExtension);
 
-        TransferObserver transferObserver = transferUtility.upload(
-                SHOUT_UPLOAD_BUCKET,
-                s3FileKey,
-                file
-        );
-        transferObserver.setTransferListener(new TransferListener(){
-
-            @Override
-            public void onStateChanged(int id, TransferState state) {
-                Log.d(TAG, state.toString());
-                if (state.equals(TransferState.COMPLETED)) {
-                    StmObservableResults<String> stmObservableResults = new StmObservableResults<>();
-                    stmObservableResults.setError(false);
-                    stmObservableResults.setResult(String.format("%s%s", SHOUT_URL_BUCKET_PREFIX, s3FileKey));
-                    stmObservableResults.setStmObservableType(StmObservableType.UPLOAD_FILE);
-                    notifyObservers(stmObservableResults);
-                } else if (state.equals(TransferState.CANCELED) || state.equals(TransferState.FAILED)) {
-                    StmObservableResults stmObservableResults = new StmObservableResults();
-                    stmObservableResults.setError(true);
-                    stmObservableResults.setErrorMessage("File upload failed or canceled.");
-                    notifyObservers(stmObservableResults);
-                }
-            }
+        uploadExecutor.execute(new UploadTask(file, s3FileKey));
+    }
 
-            @Override
-            public void onProgressChanged(int id, long bytesCurrent, long bytesTotal) {
-                if (bytesTotal > 0) {
-                    int percentage = (int) (bytesCurrent/bytesTotal * 100);
-                    Log.d(TAG, String.format("File upload percentage completed: %d", percentage));
-                } else {
-                    Log.w(TAG, "bytesTotal = 0. This value should be a positive number representing the file size.");
+    private void onUploaded(String uploadedFileKey) {
+        String url = String.format("%s%s", SHOUT_URL_BUCKET_PREFIX, uploadedFileKey);
+        notifyObservers(StmObservableResults.success(url, StmObservableType.UPLOAD_FILE));
+    }
+
+    private void onUploadFailed(IOException ex) {
+        Log.e(TAG, ex.getMessage(), ex);
+        notifyObservers(StmObservableResults.failure(
+                "Error occurred uploading a file to S3. " + ex.getMessage()));
+    }
+
+    private static boolean isConnected(ConnectivityManager connectivityManager) {
+        NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    /**
+     * One attempt to upload a file. A failed attempt does not hold an io thread while it waits.
+     * The next attempt is scheduled on the timer after the retry delay. If there is no connection
+     * by then, it is started from the connectivity broadcast instead.
+     */
+    private class UploadTask implements Runnable {
+
+        private final File file;
+        private final String s3FileKey;
+        private int attempt = 1;
+        private long retryDelay = INITIAL_RETRY_DELAY_IN_MILLIS;
+
+        UploadTask(File file, String s3FileKey) {
+            this.file = file;
+            this.s3FileKey = s3FileKey;
+        }
+
+        @Override
+        public void run() {
+            try {
+                onUploaded(resumableUploadManager.upload(file, s3FileKey));
+            } catch (UploadNotFoundException ex) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    onUploadFailed(ex);
+                    return;
                 }
+                Log.w(TAG, "Upload expired on the server. Restarting upload.", ex);
+                attempt++;
+                uploadExecutor.execute(this);
+            } catch (IOException ex) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    onUploadFailed(ex);
+                    return;
+                }
+                Log.w(TAG, String.format("Upload attempt %d failed. Resuming when connected.", attempt), ex);
+                attempt++;
+                StmScheduler.timer().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        retryWhenConnected();
+                    }
+                }, retryDelay, TimeUnit.MILLISECONDS);
+                retryDelay *= 2;
             }
+        }
 
-            @Override
-            public void onError(int id, Exception ex) {
-                Log.e(TAG, ex.getMessage(), ex);
-                StmObservableResults stmObservableResults = new StmObservableResults();
-                stmObservableResults.setError(true);
-                stmObservableResults.setErrorMessage("Error occurred uploading a file to S3. " + ex.getMessage());
-                notifyObservers(stmObservableResults);
+        private void retryWhenConnected() {
+            final ConnectivityManager connectivityManager =
+                    (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivityManager == null || isConnected(connectivityManager)) {
+                uploadExecutor.execute(this);
+                return;
             }
 
-        });
+            final AtomicBoolean isWaiting = new AtomicBoolean(true);
+            final BroadcastReceiver connectivityReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context receiverContext, Intent intent) {
+                    if (isConnected(connectivityManager) && isWaiting.compareAndSet(true, false)) {
+                        context.unregisterReceiver(this);
+                        uploadExecutor.execute(UploadTask.this);
+                    }
+                }
+            };
+            context.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+            StmScheduler.timer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (isWaiting.compareAndSet(true, false)) {
+                        context.unregisterReceiver(connectivityReceiver);
+                        onUploadFailed(new IOException("Timed out waiting for a network connection"));
+                    }
+                }
+            }, CONNECTIVITY_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void addObserver(StmObserver o) {
-        observers.add(o);
+        eventBus.addObserver(o);
     }
 
     @Override
     public void deleteObserver(StmObserver o) {
-        observers.remove(o);
+        eventBus.deleteObserver(o);
     }
 
     @Override
     public void notifyObservers(StmObservableResults stmObservableResults) {
-        for (StmObserver o : observers) {
-            o.update(stmObservableResults);
-        }
+        eventBus.notifyObservers(stmObservableResults);
     }
 }
@@ -0,0 +1,185 @@
+package me.shoutto.sdk.internal;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import me.shoutto.sdk.StmCallback;
+import me.shoutto.sdk.StmError;
+import me.shoutto.sdk.User;
+
+/**
+ * Creates or gets the Shout to Me user session. If the session is not in the shared preferences,
+ * the first caller starts a single create or get request on the session thread and every caller
+ * that arrives while it is in flight is queued. The queued callbacks are called with the one result
+ * when the request completes, so the network is never called twice for the same session and
+ * callers are never blocked while they wait.
+ */
+public class SessionManager {
+
+    private static final String TAG = SessionManager.class.getSimpleName();
+    private final StmPreferenceManager stmPreferenceManager;
+    private final SessionLoader sessionLoader;
+    private final Executor executor;
+    private final Object lock = new Object();
+    private List<StmCallback<SessionSnapshot>> pendingCallbacks = new ArrayList<>();
+    private boolean isLoading;
+
+    /**
+     * Loads the user from the Shout to Me service
+     */
+    public interface SessionLoader {
+        /**
+         * Creates or gets the user. Called on the session thread, so the request may be made
+         * synchronously. It must not wait for work on the io pool, as io tasks may be waiting
+         * for the session.
+         * @param callback the callback to call with a user that has an ID and auth token
+         */
+        void load(StmCallback<User> callback);
+    }
+
+    public SessionManager(StmPreferenceManager stmPreferenceManager, SessionLoader sessionLoader) {
+        this(stmPreferenceManager, sessionLoader, StmScheduler.session());
+    }
+
+    SessionManager(StmPreferenceManager stmPreferenceManager, SessionLoader sessionLoader, Executor executor) {
+        this.stmPreferenceManager = stmPreferenceManager;
+        this.sessionLoader = sessionLoader;
+        this.executor = executor;
+    }
+
+    /**
+     * Calls back with the user session. If there is a session already, the callback is called on
+     * the calling thread before this method returns. Otherwise it is called on the session thread when
+     * the in-flight create or get request completes.
+     * @param callback the callback
+     */
+    public void getSession(StmCallback<SessionSnapshot> callback) {
+        SessionSnapshot sessionSnapshot = stmPreferenceManager.getSessionSnapshot();
+        if (sessionSnapshot.hasUserSession()) {
+            callback.onResponse(sessionSnapshot);
+            return;
+        }
+
+        boolean shouldLoad = false;
+        synchronized (lock) {
+            // The request may have completed since the snapshot was read
+            sessionSnapshot = stmPreferenceManager.getSessionSnapshot();
+            if (!sessionSnapshot.hasUserSession()) {
+                pendingCallbacks.add(callback);
+                if (!isLoading) {
+                    isLoading = true;
+                    shouldLoad = true;
+                }
+            }
+        }
+
+        if (sessionSnapshot.hasUserSession()) {
+            callback.onResponse(sessionSnapshot);
+        } else if (shouldLoad) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    load();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the user session, waiting for the in-flight create or get request if there is no
+     * session yet. Prefer getSession, as this method blocks the calling thread on the network.
+     * Must not be called from a session callback, since the session thread would wait for itself.
+     * @return the session snapshot, which has no user session if the request failed
+     */
+    public SessionSnapshot awaitSession() {
+        SessionSnapshot sessionSnapshot = stmPreferenceManager.getSessionSnapshot();
+        if (sessionSnapshot.hasUserSession()) {
+            return sessionSnapshot;
+        }
+
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        getSession(new StmCallback<SessionSnapshot>() {
+            @Override
+            public void onResponse(SessionSnapshot sessionSnapshot) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void onError(StmError stmError) {
+                countDownLatch.countDown();
+            }
+        });
+        try {
+            countDownLatch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return stmPreferenceManager.getSessionSnapshot();
+    }
+
+    /**
+     * Discards the stored user session and gets it again from the service
+     * @param callback the callback
+     */
+    public void reload(StmCallback<SessionSnapshot> callback) {
+        stmPreferenceManager.setUserSession(null, null);
+        getSession(callback);
+    }
+
+    private void load() {
+        try {
+            sessionLoader.load(new StmCallback<User>() {
+                @Override
+                public void onResponse(User user) {
+                    if (user == null || user.getId() == null || user.getAuthToken() == null) {
+                        complete(new StmError("Shout to Me service did not return a user session", true,
+                                StmError.SEVERITY_MAJOR));
+                        return;
+                    }
+                    stmPreferenceManager.setUserSession(user.getId(), user.getAuthToken());
+                    Log.d(TAG, "User session has been initialized from Shout to Me service");
+                    complete(null);
+                }
+
+                @Override
+                public void onError(StmError stmError) {
+                    Log.e(TAG, "Could not create or get user. " + stmError.getMessage());
+                    complete(stmError);
+                }
+            });
+        } catch (RuntimeException ex) {
+            Log.e(TAG, "Could not create or get user.", ex);
+            complete(new StmError("Could not create or get user. " + ex.getMessage(), true,
+                    StmError.SEVERITY_MAJOR));
+        }
+    }
+
+    private void complete(StmError stmError) {
+        List<StmCallback<SessionSnapshot>> callbacks;
+        synchronized (lock) {
+            if (!isLoading) {
+                return;
+            }
+            callbacks = pendingCallbacks;
+            pendingCallbacks = new ArrayList<>();
+            isLoading = false;
+        }
+
+        SessionSnapshot sessionSnapshot = stmPreferenceManager.getSessionSnapshot();
+        for (StmCallback<SessionSnapshot> callback : callbacks) {
+            try {
+                if (stmError == null) {
+                    callback.onResponse(sessionSnapshot);
+                } else {
+                    callback.onError(stmError);
+                }
+            } catch (RuntimeException ex) {
+                Log.e(TAG, "Session callback failed", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package me.shoutto.sdk.internal;
+
+/**
+ * An immutable copy of the session values kept in the shared preferences. StmPreferenceManager
+ * replaces the whole snapshot when a value changes, so a reader always sees a consistent set of
+ * values, such as a user ID and the auth token that belongs to it, without taking a lock.
+ */
+public final class SessionSnapshot {
+
+    private final String userId;
+    private final String authToken;
+    private final String serverUrl;
+    private final String channelId;
+    private final String installationId;
+
+    public SessionSnapshot(String userId, String authToken, String serverUrl, String channelId,
+                           String installationId) {
+        this.userId = userId;
+        this.authToken = authToken;
+        this.serverUrl = serverUrl;
+        this.channelId = channelId;
+        this.installationId = installationId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public String getInstallationId() {
+        return installationId;
+    }
+
+    /**
+     * Returns whether the snapshot has both a user ID and an auth token
+     * @return true if the user session has been created
+     */
+    public boolean hasUserSession() {
+        return userId != null && authToken != null;
+    }
+
+    public SessionSnapshot withUserSession(String userId, String authToken) {
+        return new SessionSnapshot(userId, authToken, serverUrl, channelId, installationId);
+    }
+
+    public SessionSnapshot withServerUrl(String serverUrl) {
+        return new SessionSnapshot(userId, authToken, serverUrl, channelId, installationId);
+    }
+
+    public SessionSnapshot withChannelId(String channelId) {
+        return new SessionSnapshot(userId, authToken, serverUrl, channelId, installationId);
+    }
+
+    public SessionSnapshot withInstallationId(String installationId) {
+        return new SessionSnapshot(userId, authToken, serverUrl, channelId, installationId);
+    }
+}
@@ -0,0 +1,137 @@
+package me.shoutto.sdk.internal;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers StmObservableResults to a list of observers. StmObservable implementations delegate
+ * to an event bus instead of keeping their own observer lists.
+ *
+ * The observers are kept in an array that is copied when an observer is added or removed, so
+ * observers can add and remove themselves, or be added and removed from other threads, while
+ * results are being delivered. A delivery goes to the observers registered when it started.
+ * An observer that throws is logged and the remaining observers still receive the result.
+ */
+public class StmEventBus implements StmObservable {
+
+    /**
+     * The thread that observers are called on
+     */
+    public enum DeliveryThread {
+        /** The thread that calls notifyObservers */
+        CALLER,
+        /** The main thread */
+        MAIN,
+        /** A thread from the io pool */
+        IO
+    }
+
+    private static final String TAG = StmEventBus.class.getSimpleName();
+    private static final StmObserver[] NO_OBSERVERS = new StmObserver[0];
+    private static Executor mainThreadExecutor;
+    private final Executor deliveryExecutor;
+    private final Object lock = new Object();
+    private volatile StmObserver[] observers = NO_OBSERVERS;
+
+    public StmEventBus() {
+        this(DeliveryThread.CALLER);
+    }
+
+    public StmEventBus(DeliveryThread deliveryThread) {
+        this(getExecutor(deliveryThread));
+    }
+
+    /**
+     * @param deliveryExecutor the executor to deliver on, or null to deliver on the calling thread
+     */
+    StmEventBus(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    @Override
+    public void addObserver(StmObserver o) {
+        synchronized (lock) {
+            StmObserver[] currentObservers = observers;
+            StmObserver[] newObservers = new StmObserver[currentObservers.length + 1];
+            System.arraycopy(currentObservers, 0, newObservers, 0, currentObservers.length);
+            newObservers[currentObservers.length] = o;
+            observers = newObservers;
+        }
+    }
+
+    @Override
+    public void deleteObserver(StmObserver o) {
+        synchronized (lock) {
+            StmObserver[] currentObservers = observers;
+            for (int i = 0; i < currentObservers.length; i++) {
+                if (currentObservers[i].equals(o)) {
+                    if (currentObservers.length == 1) {
+                        observers = NO_OBSERVERS;
+                        return;
+                    }
+                    StmObserver[] newObservers = new StmObserver[currentObservers.length - 1];
+                    System.arraycopy(currentObservers, 0, newObservers, 0, i);
+                    System.arraycopy(currentObservers, i + 1, newObservers, i, newObservers.length - i);
+                    observers = newObservers;
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void notifyObservers(final StmObservableResults stmObservableResults) {
+        final StmObserver[] currentObservers = observers;
+        if (currentObservers.length == 0) {
+            return;
+        }
+
+        if (deliveryExecutor == null) {
+            deliver(currentObservers, stmObservableResults);
+        } else {
+            deliveryExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(currentObservers, stmObservableResults);
+                }
+            });
+        }
+    }
+
+    private static void deliver(StmObserver[] observers, StmObservableResults stmObservableResults) {
+        for (StmObserver o : observers) {
+            try {
+                o.update(stmObservableResults);
+            } catch (RuntimeException ex) {
+                Log.e(TAG, "Observer " + o.getClass().getName() + " failed to handle results", ex);
+            }
+        }
+    }
+
+    private static Executor getExecutor(DeliveryThread deliveryThread) {
+        switch (deliveryThread) {
+            case MAIN:
+                return getMainThreadExecutor();
+            case IO:
+                return StmScheduler.io();
+            default:
+                return null;
+        }
+    }
+
+    private static synchronized Executor getMainThreadExecutor() {
+        if (mainThreadExecutor == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            mainThreadExecutor = new Executor() {
+                @Override
+                public void execute(Runnable runnable) {
+                    mainHandler.post(runnable);
+                }
+            };
+        }
+        return mainThreadExecutor;
+    }
+}
@@ -1,21 +1,82 @@
 package me.shoutto.sdk.internal;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
- * Results from an StmObserver process
+ * Results from an StmObserver process. Results created with the static factory methods should be
+ * treated as read-only. Empty results are shared instances and cannot be changed.
  */
 
 public class StmObservableResults<T> {
 
+    private static final Map<StmObservableType, StmObservableResults<?>> EMPTY_RESULTS =
+            new EnumMap<>(StmObservableType.class);
+    private final boolean isShared;
     private boolean error = false;
     private String errorMessage;
     private StmObservableType stmObservableType;
     private T result;
 
+    static {
+        for (StmObservableType stmObservableType : StmObservableType.values()) {
+            EMPTY_RESULTS.put(stmObservableType, new StmObservableResults<>(stmObservableType));
+        }
+    }
+
+    public StmObservableResults() {
+        isShared = false;
+    }
+
+    private StmObservableResults(StmObservableType stmObservableType) {
+        this.stmObservableType = stmObservableType;
+        isShared = true;
+    }
+
+    /**
+     * Returns a successful result
+     * @param result the result, or null for a response with no entity such as a 404
+     * @param stmObservableType the type of operation
+     * @return the shared empty result if the result is null, otherwise a new result
+     */
+    public static <T> StmObservableResults<T> success(T result, StmObservableType stmObservableType) {
+        if (result == null) {
+            return empty(stmObservableType);
+        }
+        StmObservableResults<T> stmObservableResults = new StmObservableResults<>();
+        stmObservableResults.result = result;
+        stmObservableResults.stmObservableType = stmObservableType;
+        return stmObservableResults;
+    }
+
+    /**
+     * Returns the shared, unmodifiable successful result with a null result
+     * @param stmObservableType the type of operation
+     * @return the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> StmObservableResults<T> empty(StmObservableType stmObservableType) {
+        return (StmObservableResults<T>) EMPTY_RESULTS.get(stmObservableType);
+    }
+
+    /**
+     * Returns an error result
+     * @param errorMessage the error message
+     * @return a new result
+     */
+    public static <T> StmObservableResults<T> failure(String errorMessage) {
+        StmObservableResults<T> stmObservableResults = new StmObservableResults<>();
+        stmObservableResults.error = true;
+        stmObservableResults.errorMessage = errorMessage;
+        return stmObservableResults;
+    }
+
     public boolean isError() {
         return error;
     }
 
     public void setError(boolean error) {
+        checkNotShared();
         this.error = error;
     }
 
@@ -24,6 +85,7 @@ public class StmObservableResults<T> {
     }
 
     public void setErrorMessage(String errorMessage) {
+        checkNotShared();
         this.errorMessage = errorMessage;
     }
 
@@ -32,6 +94,7 @@ public class StmObservableResults<T> {
     }
 
     public void setStmObservableType(StmObservableType stmObservableType) {
+        checkNotShared();
         this.stmObservableType = stmObservableType;
     }
 
@@ -40,6 +103,13 @@ public class StmObservableResults<T> {
     }
 
     public void setResult(T result) {
+        checkNotShared();
         this.result = result;
     }
+
+    private void checkNotShared() {
+        if (isShared) {
+            throw new UnsupportedOperationException("Shared results cannot be changed");
+        }
+    }
 }
@@ -4,12 +4,14 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
-import java.util.Date;
-
 import me.shoutto.sdk.StmService;
+import me.shoutto.sdk.internal.location.LocationState;
+import me.shoutto.sdk.internal.location.LocationStateStore;
 
 /**
- * An internal class to manage the shared preference data
+ * An internal class to manage the shared preference data. The session values are read from the
+ * shared preferences once per process and then served from a SessionSnapshot, which every write
+ * replaces before the preference is written.
  */
 public class StmPreferenceManager {
 
@@ -23,115 +25,184 @@ public class StmPreferenceManager {
     private static final String PREF_USER_LOCATION_LAT = "me.shoutto.sdk.USER_LOCATION_LAT";
     private static final String PREF_USER_LOCATION_LON = "me.shoutto.sdk.USER_LOCATION_LON";
     private static final String PREF_USER_LOCATION_TIME = "me.shoutto.sdk.USER_LOCATION_TIME";
+    private static final Object sessionLock = new Object();
+    private static volatile SessionSnapshot sessionSnapshot;
+    private static StmPreferenceManager instance;
     private SharedPreferences sharedPreferences;
+    private LocationStateStore locationStateStore;
 
     public StmPreferenceManager(Context context) {
         sharedPreferences = context.getSharedPreferences(STM_PREFERENCES, Context.MODE_PRIVATE);
+        locationStateStore = LocationStateStore.getInstance(context);
+        if (sessionSnapshot == null) {
+            synchronized (sessionLock) {
+                if (sessionSnapshot == null) {
+                    sessionSnapshot = loadSessionSnapshot();
+                }
+            }
+        }
+    }
+
+    public static synchronized StmPreferenceManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new StmPreferenceManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the current session values. The snapshot does not change, so values read from it
+     * together are consistent with each other.
+     * @return the session snapshot
+     */
+    public SessionSnapshot getSessionSnapshot() {
+        return sessionSnapshot;
     }
 
     public String getAuthToken() {
-        return sharedPreferences.getString(PREF_AUTH_TOKEN, null);
+        return sessionSnapshot.getAuthToken();
     }
 
     public void setAuthToken(String authToken) {
-        setPreferenceString(PREF_AUTH_TOKEN, authToken);
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withUserSession(sessionSnapshot.getUserId(), authToken);
+            setPreferenceString(PREF_AUTH_TOKEN, authToken);
+        }
     }
 
     public String getChannelId() {
-        return sharedPreferences.getString(PREF_CHANNEL_ID, null);
+        return sessionSnapshot.getChannelId();
     }
 
     public void setChannelId(String channelId) {
-        setPreferenceString(PREF_CHANNEL_ID, channelId);
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withChannelId(channelId);
+            setPreferenceString(PREF_CHANNEL_ID, channelId);
+        }
     }
 
     public String getInstallationId() {
-        return sharedPreferences.getString(PREF_INSTALLATION_ID, null);
+        return sessionSnapshot.getInstallationId();
     }
 
     public void setInstallationId(String installationId) {
-        setPreferenceString(PREF_INSTALLATION_ID, installationId);
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withInstallationId(installationId);
+            setPreferenceString(PREF_INSTALLATION_ID, installationId);
+        }
     }
 
-    public String getServerUrl() {
-        String serverUrl = sharedPreferences.getString(PREF_SERVER_URL, null);
-        if (serverUrl == null) {
-            return StmService.DEFAULT_SERVER_URL;
-        } else {
-            return serverUrl;
+    /**
+     * Sets the installation ID if there is none yet
+     * @param installationId the new installation ID
+     * @return the installation ID that is in effect
+     */
+    public String setInstallationIdIfAbsent(String installationId) {
+        synchronized (sessionLock) {
+            if (sessionSnapshot.getInstallationId() == null) {
+                setInstallationId(installationId);
+            }
+            return sessionSnapshot.getInstallationId();
         }
     }
 
+    public String getServerUrl() {
+        return sessionSnapshot.getServerUrl();
+    }
+
     public void setServerUrl(String serverUrl) {
-        setPreferenceString(PREF_SERVER_URL, serverUrl);
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withServerUrl(serverUrl != null ? serverUrl : StmService.DEFAULT_SERVER_URL);
+            setPreferenceString(PREF_SERVER_URL, serverUrl);
+        }
     }
 
     public String getUserId() {
-        return sharedPreferences.getString(PREF_USER_ID, null);
+        return sessionSnapshot.getUserId();
     }
 
     public void setUserId(String userId) {
-        setPreferenceString(PREF_USER_ID, userId);
-    }
-
-    public Double getUserLocationLat() {
-        Double lat = null;
-        String latString = sharedPreferences.getString(PREF_USER_LOCATION_LAT, null);
-        if (latString != null) {
-            try {
-                lat = Double.parseDouble(latString);
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "Could not parse user lat: " + latString);
-            }
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withUserSession(userId, sessionSnapshot.getAuthToken());
+            setPreferenceString(PREF_USER_ID, userId);
         }
-        return lat;
     }
 
-    public void setUserLocationLat(Double lat) {
-        if (lat == null) {
-            setPreferenceString(PREF_USER_LOCATION_LAT, null);
-        } else {
-            setPreferenceString(PREF_USER_LOCATION_LAT, Double.toString(lat));
+    /**
+     * Sets the user ID and auth token together so that readers never see the ID of one user with
+     * the token of another
+     * @param userId the user ID or null
+     * @param authToken the auth token or null
+     */
+    public void setUserSession(String userId, String authToken) {
+        synchronized (sessionLock) {
+            sessionSnapshot = sessionSnapshot.withUserSession(userId, authToken);
+            SharedPreferences.Editor editor = sharedPreferences.edit();
+            putOrRemove(editor, PREF_USER_ID, userId);
+            putOrRemove(editor, PREF_AUTH_TOKEN, authToken);
+            editor.apply();
         }
     }
 
-    public Double getUserLocationLon() {
-        Double lon = null;
-        String lonString = sharedPreferences.getString(PREF_USER_LOCATION_LON, null);
-        if (lonString != null) {
-            try {
-                lon = Double.parseDouble(lonString);
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "Could not parse user lon: " + lonString);
-            }
+    /**
+     * Returns the last user location that was sent to the service. Values saved by earlier SDK
+     * versions as separate preferences are moved to the location state store on first use.
+     * @return the location state or null if there is none
+     */
+    public LocationState getUserLocationState() {
+        LocationState locationState = locationStateStore.read();
+        if (locationState == null && sharedPreferences.contains(PREF_USER_LOCATION_LAT)) {
+            locationState = migrateUserLocationPreferences();
         }
-        return lon;
+        return locationState;
     }
 
-    public void setUserLocationLon(Double lon) {
-        if (lon == null) {
-            setPreferenceString(PREF_USER_LOCATION_LON, null);
-        } else {
-            setPreferenceString(PREF_USER_LOCATION_LON, Double.toString(lon));
-        }
+    public void setUserLocationState(LocationState locationState) {
+        locationStateStore.write(locationState);
     }
 
-    public Long getUserLocationTime() {
-        Long userLocationTime = sharedPreferences.getLong(PREF_USER_LOCATION_TIME, 0L);
-        return (userLocationTime == 0L) ? null : userLocationTime;
+    private SessionSnapshot loadSessionSnapshot() {
+        String serverUrl = sharedPreferences.getString(PREF_SERVER_URL, null);
+        return new SessionSnapshot(
+                sharedPreferences.getString(PREF_USER_ID, null),
+                sharedPreferences.getString(PREF_AUTH_TOKEN, null),
+                serverUrl != null ? serverUrl : StmService.DEFAULT_SERVER_URL,
+                sharedPreferences.getString(PREF_CHANNEL_ID, null),
+                sharedPreferences.getString(PREF_INSTALLATION_ID, null));
     }
 
-    public void setUserLocationTime(Long userLocationTime) {
-        if (userLocationTime != null) {
-            sharedPreferences.edit().putLong(PREF_USER_LOCATION_TIME, userLocationTime).apply();
+    private LocationState migrateUserLocationPreferences() {
+        LocationState locationState = null;
+        String latString = sharedPreferences.getString(PREF_USER_LOCATION_LAT, null);
+        String lonString = sharedPreferences.getString(PREF_USER_LOCATION_LON, null);
+        if (latString != null && lonString != null) {
+            try {
+                locationState = new LocationState(Double.parseDouble(latString), Double.parseDouble(lonString),
+                        sharedPreferences.getLong(PREF_USER_LOCATION_TIME, 0L), 0f);
+                locationStateStore.write(locationState);
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Could not parse user location: " + latString + ", " + lonString);
+            }
         }
+        sharedPreferences.edit()
+                .remove(PREF_USER_LOCATION_LAT)
+                .remove(PREF_USER_LOCATION_LON)
+                .remove(PREF_USER_LOCATION_TIME)
+                .apply();
+        return locationState;
     }
 
     private void setPreferenceString(String key, String value) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        putOrRemove(editor, key, value);
+        editor.apply();
+    }
+
+    private static void putOrRemove(SharedPreferences.Editor editor, String key, String value) {
         if (value == null) {
-            sharedPreferences.edit().remove(key).apply();
+            editor.remove(key);
         } else {
-            sharedPreferences.edit().putString(key, value).apply();
+            editor.putString(key, value);
         }
     }
 }
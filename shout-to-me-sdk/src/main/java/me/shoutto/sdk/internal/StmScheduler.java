@@ -0,0 +1,166 @@
+package me.shoutto.sdk.internal;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads that the SDK runs background work on. Work is submitted to one of a few shared,
+ * named pools instead of to threads and executors created per call, so a burst of location
+ * callbacks or requests queues up behind a fixed number of threads.
+ * <ul>
+ *     <li>io: network requests and other blocking work</li>
+ *     <li>disk writer: file writes that must happen in order</li>
+ *     <li>timer: short delayed and periodic tasks. Long or blocking work should be handed to
+ *     the io pool with scheduleOnIo.</li>
+ *     <li>audio: audio recording</li>
+ *     <li>session: creating or getting the user session. io tasks may wait for the session, so
+ *     it is loaded on its own thread where it can never queue behind them.</li>
+ * </ul>
+ * Queues that must run their tasks one at a time, such as the outbox, use a serial executor on
+ * the io pool rather than a thread of their own.
+ * The pools are created when first used and are never shut down. Idle io threads time out.
+ */
+public final class StmScheduler {
+
+    static final int IO_POOL_SIZE = 4;
+    private static final long KEEP_ALIVE_IN_SECONDS = 30;
+    private static ExecutorService io;
+    private static ExecutorService diskWriter;
+    private static ScheduledExecutorService timer;
+    private static ExecutorService audio;
+    private static ExecutorService session;
+
+    private StmScheduler() {
+    }
+
+    public static synchronized ExecutorService io() {
+        if (io == null) {
+            io = createPool("stm-io", IO_POOL_SIZE);
+        }
+        return io;
+    }
+
+    public static synchronized Executor diskWriter() {
+        if (diskWriter == null) {
+            diskWriter = createPool("stm-disk", 1);
+        }
+        return diskWriter;
+    }
+
+    public static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("stm-timer"));
+        }
+        return timer;
+    }
+
+    public static synchronized ExecutorService audio() {
+        if (audio == null) {
+            audio = createPool("stm-audio", 1);
+        }
+        return audio;
+    }
+
+    public static synchronized Executor session() {
+        if (session == null) {
+            session = createPool("stm-session", 1);
+        }
+        return session;
+    }
+
+    /**
+     * Returns an executor that runs its tasks one at a time, in the order they were submitted, on
+     * the io pool. It only holds an io thread while it has tasks to run.
+     * @return the serial executor
+     */
+    public static Executor newSerialExecutor() {
+        return new SerialExecutor(io());
+    }
+
+    /**
+     * Runs a task on the io pool after a delay. The timer thread only hands the task over, so
+     * the task may block.
+     * @param runnable the task
+     * @param delay the delay
+     * @param timeUnit the unit of the delay
+     * @return the future of the hand-over, which can be used to cancel the task before it starts
+     */
+    public static ScheduledFuture<?> scheduleOnIo(final Runnable runnable, long delay, TimeUnit timeUnit) {
+        return timer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                io().execute(runnable);
+            }
+        }, delay, timeUnit);
+    }
+
+    private static ExecutorService createPool(String name, int numberOfThreads) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
+                KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new NamedThreadFactory(name));
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    private static class SerialExecutor implements Executor {
+
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(final Runnable runnable) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        scheduleNext();
+                    }
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
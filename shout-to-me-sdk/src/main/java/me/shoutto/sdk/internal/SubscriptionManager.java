@@ -16,7 +16,7 @@ class SubscriptionManager {
     private StmPreferenceManager stmPreferenceManager;
 
     SubscriptionManager(Context context) {
-        this.stmPreferenceManager = new StmPreferenceManager(context);
+        this.stmPreferenceManager = StmPreferenceManager.getInstance(context);
     }
 
     List<Subscription> getSubscriptions() {
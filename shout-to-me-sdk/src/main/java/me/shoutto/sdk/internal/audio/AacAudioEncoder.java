@@ -0,0 +1,172 @@
+package me.shoutto.sdk.internal.audio;
+
+import android.annotation.TargetApi;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.media.MediaFormat;
+import android.os.Build;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes audio to AAC-LC with the device's MediaCodec encoder and writes it as an ADTS stream,
+ * which needs no container and can be written as the frames are produced. Check isSupported()
+ * before use.
+ */
+@TargetApi(16)
+public class AacAudioEncoder implements AudioEncoder {
+
+    private static final String MIME_TYPE = "audio/mp4a-latm";
+    private static final int BIT_RATE = 32000;
+    private static final int ADTS_HEADER_LENGTH = 7;
+    private static final int ADTS_SAMPLE_RATE_INDEX_16KHZ = 8;
+    private static final long TIMEOUT_IN_MICROSECONDS = 10000;
+    // How long the codec may neither take input nor produce output before encoding is given up
+    private static final long STALL_TIMEOUT_IN_NANOSECONDS = 5L * 1000 * 1000 * 1000;
+
+    /**
+     * Returns whether the device has an AAC encoder that this class can use
+     * @return true if AAC encoding is available
+     */
+    public static boolean isSupported() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return false;
+        }
+        for (int i = 0; i < MediaCodecList.getCodecCount(); i++) {
+            MediaCodecInfo codecInfo = MediaCodecList.getCodecInfoAt(i);
+            if (!codecInfo.isEncoder()) {
+                continue;
+            }
+            for (String type : codecInfo.getSupportedTypes()) {
+                if (type.equalsIgnoreCase(MIME_TYPE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "aac";
+    }
+
+    @Override
+    public void encode(InputStream pcmInput, long pcmLength, OutputStream output) throws IOException {
+        MediaFormat mediaFormat = MediaFormat.createAudioFormat(MIME_TYPE, StmAudioRecorder.SAMPLE_RATE, 1);
+        mediaFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        mediaFormat.setInteger(MediaFormat.KEY_BIT_RATE, BIT_RATE);
+
+        MediaCodec mediaCodec = MediaCodec.createEncoderByType(MIME_TYPE);
+        try {
+            mediaCodec.configure(mediaFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            mediaCodec.start();
+            drainEncoder(mediaCodec, pcmInput, pcmLength, output);
+        } catch (IllegalStateException ex) {
+            throw new IOException("AAC encoding failed", ex);
+        } finally {
+            try {
+                mediaCodec.stop();
+            } catch (IllegalStateException ex) {
+                // The codec was not started or has already failed
+            }
+            mediaCodec.release();
+        }
+        output.flush();
+    }
+
+    private void drainEncoder(MediaCodec mediaCodec, InputStream pcmInput, long pcmLength,
+                              OutputStream output) throws IOException {
+        ByteBuffer[] inputBuffers = mediaCodec.getInputBuffers();
+        ByteBuffer[] outputBuffers = mediaCodec.getOutputBuffers();
+        MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+        byte[] pcmChunk = new byte[8192];
+        byte[] frame = new byte[ADTS_HEADER_LENGTH + 2048];
+        long remaining = pcmLength;
+        long samplesQueued = 0;
+        boolean isInputDone = false;
+        long lastProgressTime = System.nanoTime();
+
+        while (true) {
+            if (System.nanoTime() - lastProgressTime > STALL_TIMEOUT_IN_NANOSECONDS) {
+                throw new IOException("AAC encoder stopped producing output");
+            }
+
+            if (!isInputDone) {
+                int inputIndex = mediaCodec.dequeueInputBuffer(TIMEOUT_IN_MICROSECONDS);
+                if (inputIndex >= 0) {
+                    lastProgressTime = System.nanoTime();
+                    ByteBuffer inputBuffer = inputBuffers[inputIndex];
+                    inputBuffer.clear();
+                    int length = (int) Math.min(Math.min(inputBuffer.remaining(), pcmChunk.length), remaining) & ~1;
+                    length = readFully(pcmInput, pcmChunk, length);
+                    long presentationTimeUs = samplesQueued * 1000000L / StmAudioRecorder.SAMPLE_RATE;
+                    if (length <= 0) {
+                        mediaCodec.queueInputBuffer(inputIndex, 0, 0, presentationTimeUs,
+                                MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                        isInputDone = true;
+                    } else {
+                        inputBuffer.put(pcmChunk, 0, length);
+                        mediaCodec.queueInputBuffer(inputIndex, 0, length, presentationTimeUs, 0);
+                        remaining -= length;
+                        samplesQueued += length / 2;
+                    }
+                }
+            }
+
+            int outputIndex = mediaCodec.dequeueOutputBuffer(bufferInfo, TIMEOUT_IN_MICROSECONDS);
+            if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                outputBuffers = mediaCodec.getOutputBuffers();
+            } else if (outputIndex >= 0) {
+                lastProgressTime = System.nanoTime();
+                if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0 && bufferInfo.size > 0) {
+                    int frameLength = ADTS_HEADER_LENGTH + bufferInfo.size;
+                    if (frame.length < frameLength) {
+                        frame = new byte[frameLength];
+                    }
+                    writeAdtsHeader(frame, frameLength);
+                    ByteBuffer outputBuffer = outputBuffers[outputIndex];
+                    outputBuffer.position(bufferInfo.offset);
+                    outputBuffer.limit(bufferInfo.offset + bufferInfo.size);
+                    outputBuffer.get(frame, ADTS_HEADER_LENGTH, bufferInfo.size);
+                    output.write(frame, 0, frameLength);
+                }
+                mediaCodec.releaseOutputBuffer(outputIndex, false);
+                if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(buffer, offset, length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset & ~1;
+    }
+
+    /**
+     * Writes a 7 byte ADTS header without CRC for an AAC-LC mono frame
+     */
+    static void writeAdtsHeader(byte[] frame, int frameLength) {
+        int profile = MediaCodecInfo.CodecProfileLevel.AACObjectLC;
+        int channelConfiguration = 1;
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xF1;
+        frame[2] = (byte) (((profile - 1) << 6) | (ADTS_SAMPLE_RATE_INDEX_16KHZ << 2) | (channelConfiguration >> 2));
+        frame[3] = (byte) (((channelConfiguration & 3) << 6) | (frameLength >> 11));
+        frame[4] = (byte) ((frameLength & 0x7FF) >> 3);
+        frame[5] = (byte) (((frameLength & 7) << 5) | 0x1F);
+        frame[6] = (byte) 0xFC;
+    }
+}
@@ -0,0 +1,28 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses recorded audio before it is uploaded. Input is the 16 kHz 16-bit little-endian
+ * mono PCM that StmAudioRecorder produces.
+ */
+public interface AudioEncoder {
+
+    /**
+     * Returns the extension of the encoded file, which the media storage upload uses to identify
+     * the format
+     * @return the file extension without the leading dot
+     */
+    String getFileExtension();
+
+    /**
+     * Encodes the PCM audio
+     * @param pcmInput the PCM audio to encode
+     * @param pcmLength the number of bytes of PCM audio to read from the input
+     * @param output the stream the encoded audio is written to
+     * @throws IOException if the audio cannot be read, encoded or written
+     */
+    void encode(InputStream pcmInput, long pcmLength, OutputStream output) throws IOException;
+}
@@ -0,0 +1,425 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Pure Java lossless encoder that writes a FLAC stream. Each block is coded with the best of the
+ * FLAC fixed polynomial predictors and Rice coded residuals, which is enough to roughly halve the
+ * size of speech without depending on device codecs. Used when no hardware encoder is available.
+ */
+public class FlacAudioEncoder implements AudioEncoder {
+
+    static final int BLOCK_SIZE = 4096;
+    private static final int BITS_PER_SAMPLE = 16;
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_PARTITION_ORDER = 8;
+    private static final int MAX_RICE_PARAMETER = 14;
+    private static final int SAMPLE_RATE_CODE_16KHZ = 5;
+    private static final int SAMPLE_SIZE_CODE_16BIT = 4;
+
+    private final byte[] pcmBuffer = new byte[BLOCK_SIZE * 2];
+    private final int[] samples = new int[BLOCK_SIZE];
+    private final int[] residuals = new int[BLOCK_SIZE];
+    private final long[] partitionSums = new long[1 << MAX_PARTITION_ORDER];
+    private final long[] mergedSums = new long[1 << MAX_PARTITION_ORDER];
+    private final int[] riceParameters = new int[1 << MAX_PARTITION_ORDER];
+    private final BitWriter bitWriter = new BitWriter(BLOCK_SIZE * 2 + 64);
+
+    @Override
+    public String getFileExtension() {
+        return "flac";
+    }
+
+    @Override
+    public void encode(InputStream pcmInput, long pcmLength, OutputStream output) throws IOException {
+        long totalSamples = pcmLength / 2;
+        writeStreamHeader(output, totalSamples);
+
+        long remainingSamples = totalSamples;
+        int frameNumber = 0;
+        while (remainingSamples > 0) {
+            int blockSize = (int) Math.min(BLOCK_SIZE, remainingSamples);
+            int samplesRead = readSamples(pcmInput, blockSize);
+            if (samplesRead == 0) {
+                break;
+            }
+            writeFrame(output, samplesRead, frameNumber++);
+            remainingSamples -= samplesRead;
+        }
+        output.flush();
+    }
+
+    private void writeStreamHeader(OutputStream output, long totalSamples) throws IOException {
+        BitWriter header = bitWriter;
+        header.reset();
+        header.writeBits('f', 8);
+        header.writeBits('L', 8);
+        header.writeBits('a', 8);
+        header.writeBits('C', 8);
+
+        // STREAMINFO, the last and only metadata block
+        header.writeBits(1, 1);
+        header.writeBits(0, 7);
+        header.writeBits(34, 24);
+        header.writeBits(BLOCK_SIZE, 16);
+        header.writeBits(BLOCK_SIZE, 16);
+        header.writeBits(0, 24); // minimum frame size unknown
+        header.writeBits(0, 24); // maximum frame size unknown
+        header.writeBits(StmAudioRecorder.SAMPLE_RATE, 20);
+        header.writeBits(0, 3); // channels - 1
+        header.writeBits(BITS_PER_SAMPLE - 1, 5);
+        header.writeBits((int) (totalSamples >>> 32) & 0xF, 4);
+        header.writeBits((int) totalSamples, 32);
+        for (int i = 0; i < 4; i++) {
+            header.writeBits(0, 32); // MD5 signature not computed
+        }
+        output.write(header.getData(), 0, header.getLength());
+    }
+
+    private int readSamples(InputStream pcmInput, int blockSize) throws IOException {
+        int length = blockSize * 2;
+        int offset = 0;
+        while (offset < length) {
+            int read = pcmInput.read(pcmBuffer, offset, length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        int samplesRead = offset / 2;
+        for (int i = 0; i < samplesRead; i++) {
+            samples[i] = (short) ((pcmBuffer[2 * i] & 0xFF) | (pcmBuffer[2 * i + 1] << 8));
+        }
+        return samplesRead;
+    }
+
+    private void writeFrame(OutputStream output, int blockSize, int frameNumber) throws IOException {
+        BitWriter frame = bitWriter;
+        frame.reset();
+
+        frame.writeBits(0xFFF8, 16); // sync code, fixed block size
+        int blockSizeCode;
+        if (blockSize == BLOCK_SIZE) {
+            blockSizeCode = 12;
+        } else if (blockSize <= 256) {
+            blockSizeCode = 6;
+        } else {
+            blockSizeCode = 7;
+        }
+        frame.writeBits(blockSizeCode, 4);
+        frame.writeBits(SAMPLE_RATE_CODE_16KHZ, 4);
+        frame.writeBits(0, 4); // mono
+        frame.writeBits(SAMPLE_SIZE_CODE_16BIT, 3);
+        frame.writeBits(0, 1);
+        writeUtf8(frame, frameNumber);
+        if (blockSizeCode == 6) {
+            frame.writeBits(blockSize - 1, 8);
+        } else if (blockSizeCode == 7) {
+            frame.writeBits(blockSize - 1, 16);
+        }
+        frame.writeBits(crc8(frame.getData(), frame.getLength()), 8);
+
+        writeSubframe(frame, blockSize);
+
+        frame.alignToByte();
+        frame.writeBits(crc16(frame.getData(), frame.getLength()), 16);
+        output.write(frame.getData(), 0, frame.getLength());
+    }
+
+    private void writeSubframe(BitWriter frame, int blockSize) {
+        if (isConstant(blockSize)) {
+            frame.writeBits(0, 8);
+            frame.writeBits(samples[0], BITS_PER_SAMPLE);
+            return;
+        }
+
+        int order = chooseFixedOrder(blockSize);
+        computeResiduals(order, blockSize);
+        int partitionOrder = chooseRicePartitioning(order, blockSize);
+        long residualBits = 6;
+        int partitions = 1 << partitionOrder;
+        for (int i = 0; i < partitions; i++) {
+            residualBits += 4 + riceBits(partitionSize(i, partitionOrder, order, blockSize),
+                    partitionSums[i], riceParameters[i]);
+        }
+
+        if (order * BITS_PER_SAMPLE + residualBits >= (long) blockSize * BITS_PER_SAMPLE) {
+            frame.writeBits(2, 8); // verbatim
+            for (int i = 0; i < blockSize; i++) {
+                frame.writeBits(samples[i], BITS_PER_SAMPLE);
+            }
+            return;
+        }
+
+        frame.writeBits((8 | order) << 1, 8);
+        for (int i = 0; i < order; i++) {
+            frame.writeBits(samples[i], BITS_PER_SAMPLE);
+        }
+        frame.writeBits(0, 2); // Rice coding with 4 bit parameters
+        frame.writeBits(partitionOrder, 4);
+        int sample = order;
+        for (int i = 0; i < partitions; i++) {
+            int riceParameter = riceParameters[i];
+            frame.writeBits(riceParameter, 4);
+            int end = sample + partitionSize(i, partitionOrder, order, blockSize);
+            for (; sample < end; sample++) {
+                frame.writeRice(zigzag(residuals[sample]), riceParameter);
+            }
+        }
+    }
+
+    private boolean isConstant(int blockSize) {
+        int first = samples[0];
+        for (int i = 1; i < blockSize; i++) {
+            if (samples[i] != first) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks the fixed predictor order with the smallest total absolute residual
+     */
+    private int chooseFixedOrder(int blockSize) {
+        int maxOrder = Math.min(MAX_FIXED_ORDER, blockSize - 1);
+        int bestOrder = 0;
+        long bestTotal = Long.MAX_VALUE;
+        for (int order = 0; order <= maxOrder; order++) {
+            long total = 0;
+            for (int i = maxOrder; i < blockSize; i++) {
+                total += Math.abs(fixedResidual(samples, i, order));
+            }
+            if (total < bestTotal) {
+                bestTotal = total;
+                bestOrder = order;
+            }
+        }
+        return bestOrder;
+    }
+
+    private void computeResiduals(int order, int blockSize) {
+        for (int i = order; i < blockSize; i++) {
+            residuals[i] = fixedResidual(samples, i, order);
+        }
+    }
+
+    private static int fixedResidual(int[] x, int i, int order) {
+        switch (order) {
+            case 0:
+                return x[i];
+            case 1:
+                return x[i] - x[i - 1];
+            case 2:
+                return x[i] - 2 * x[i - 1] + x[i - 2];
+            case 3:
+                return x[i] - 3 * x[i - 1] + 3 * x[i - 2] - x[i - 3];
+            default:
+                return x[i] - 4 * x[i - 1] + 6 * x[i - 2] - 4 * x[i - 3] + x[i - 4];
+        }
+    }
+
+    /**
+     * Finds the partition order and per-partition Rice parameters that give the fewest bits.
+     * On return, partitionSums and riceParameters hold the values for the chosen order.
+     */
+    private int chooseRicePartitioning(int order, int blockSize) {
+        int maxPartitionOrder = 0;
+        while (maxPartitionOrder < MAX_PARTITION_ORDER
+                && blockSize % (1 << (maxPartitionOrder + 1)) == 0
+                && (blockSize >> (maxPartitionOrder + 1)) > order) {
+            maxPartitionOrder++;
+        }
+
+        // Sum the residuals at the finest partitioning, then merge pairs for coarser ones
+        int partitions = 1 << maxPartitionOrder;
+        int sample = order;
+        for (int i = 0; i < partitions; i++) {
+            long sum = 0;
+            int end = sample + partitionSize(i, maxPartitionOrder, order, blockSize);
+            for (; sample < end; sample++) {
+                sum += zigzag(residuals[sample]);
+            }
+            partitionSums[i] = sum;
+        }
+
+        int bestPartitionOrder = maxPartitionOrder;
+        long bestBits = Long.MAX_VALUE;
+        long[] sums = mergedSums;
+        System.arraycopy(partitionSums, 0, sums, 0, partitions);
+        for (int partitionOrder = maxPartitionOrder; partitionOrder >= 0; partitionOrder--) {
+            partitions = 1 << partitionOrder;
+            if (partitionOrder < maxPartitionOrder) {
+                for (int i = 0; i < partitions; i++) {
+                    sums[i] = sums[2 * i] + sums[2 * i + 1];
+                }
+            }
+            long bits = 0;
+            for (int i = 0; i < partitions; i++) {
+                int size = partitionSize(i, partitionOrder, order, blockSize);
+                bits += 4 + riceBits(size, sums[i], bestRiceParameter(size, sums[i]));
+            }
+            if (bits <= bestBits) {
+                bestBits = bits;
+                bestPartitionOrder = partitionOrder;
+            }
+        }
+
+        // Recompute the sums and parameters for the chosen order
+        partitions = 1 << bestPartitionOrder;
+        int merge = 1 << (maxPartitionOrder - bestPartitionOrder);
+        for (int i = 0; i < partitions; i++) {
+            long sum = 0;
+            for (int j = 0; j < merge; j++) {
+                sum += partitionSums[i * merge + j];
+            }
+            partitionSums[i] = sum;
+            riceParameters[i] = bestRiceParameter(partitionSize(i, bestPartitionOrder, order, blockSize), sum);
+        }
+        return bestPartitionOrder;
+    }
+
+    private static int partitionSize(int partition, int partitionOrder, int order, int blockSize) {
+        int size = blockSize >> partitionOrder;
+        return partition == 0 ? size - order : size;
+    }
+
+    private static int bestRiceParameter(int size, long sum) {
+        int bestParameter = 0;
+        long bestBits = riceBits(size, sum, 0);
+        for (int parameter = 1; parameter <= MAX_RICE_PARAMETER; parameter++) {
+            long bits = riceBits(size, sum, parameter);
+            if (bits < bestBits) {
+                bestBits = bits;
+                bestParameter = parameter;
+            }
+        }
+        return bestParameter;
+    }
+
+    /**
+     * Estimates the bits needed to Rice code a partition from the sum of its values
+     */
+    private static long riceBits(int size, long sum, int parameter) {
+        return (long) size * (parameter + 1) + (sum >> parameter);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static void writeUtf8(BitWriter writer, int value) {
+        if (value < 0x80) {
+            writer.writeBits(value, 8);
+            return;
+        }
+        int continuationBytes;
+        if (value < 0x800) {
+            continuationBytes = 1;
+        } else if (value < 0x10000) {
+            continuationBytes = 2;
+        } else if (value < 0x200000) {
+            continuationBytes = 3;
+        } else if (value < 0x4000000) {
+            continuationBytes = 4;
+        } else {
+            continuationBytes = 5;
+        }
+        int prefix = (0xFF00 >> (continuationBytes + 1)) & 0xFF;
+        writer.writeBits(prefix | (value >>> (6 * continuationBytes)), 8);
+        for (int i = continuationBytes - 1; i >= 0; i--) {
+            writer.writeBits(0x80 | ((value >>> (6 * i)) & 0x3F), 8);
+        }
+    }
+
+    static int crc8(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc ^= data[i] & 0xFF;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+        }
+        return crc;
+    }
+
+    static int crc16(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc ^= (data[i] & 0xFF) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x8005) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+        }
+        return crc;
+    }
+
+    /**
+     * Accumulates a frame bit by bit, most significant bit first
+     */
+    private static class BitWriter {
+
+        private byte[] data;
+        private int length;
+        private long accumulator;
+        private int accumulatorBits;
+
+        BitWriter(int initialCapacity) {
+            data = new byte[initialCapacity];
+        }
+
+        void reset() {
+            length = 0;
+            accumulator = 0;
+            accumulatorBits = 0;
+        }
+
+        /**
+         * Writes the low bits of the value. At most 32 bits may be written at a time.
+         */
+        void writeBits(int value, int bits) {
+            if (bits == 0) {
+                return;
+            }
+            accumulator = (accumulator << bits) | (value & (0xFFFFFFFFL >>> (32 - bits)));
+            accumulatorBits += bits;
+            while (accumulatorBits >= 8) {
+                accumulatorBits -= 8;
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                data[length++] = (byte) (accumulator >>> accumulatorBits);
+            }
+        }
+
+        void writeRice(int value, int parameter) {
+            int quotient = value >>> parameter;
+            while (quotient >= 32) {
+                writeBits(0, 32);
+                quotient -= 32;
+            }
+            writeBits(1, quotient + 1);
+            writeBits(value, parameter);
+        }
+
+        void alignToByte() {
+            if (accumulatorBits > 0) {
+                writeBits(0, 8 - accumulatorBits);
+            }
+        }
+
+        /**
+         * Returns the completed bytes. Bits not yet forming a whole byte are not included.
+         */
+        byte[] getData() {
+            return data;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+}
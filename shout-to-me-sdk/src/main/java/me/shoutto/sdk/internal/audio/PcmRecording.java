@@ -0,0 +1,128 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of captured 16-bit little-endian PCM audio. The view shares the recorder's
+ * segments rather than copying them, so it stays valid only until the recorder that produced
+ * it records again.
+ */
+public class PcmRecording {
+
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final int size;
+
+    PcmRecording(ByteBuffer[] segments, int segmentSize, int size) {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.size = size;
+    }
+
+    /**
+     * Returns the length of the recording
+     * @return the number of bytes of PCM audio
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getSegmentCount() {
+        return (size + segmentSize - 1) / segmentSize;
+    }
+
+    /**
+     * Returns a read-only buffer over one segment of the recording, positioned at the start of
+     * the segment and limited to the recorded bytes
+     * @param index the index of the segment
+     * @return the read-only segment
+     */
+    public ByteBuffer getSegment(int index) {
+        if (index < 0 || index >= getSegmentCount()) {
+            throw new IndexOutOfBoundsException("Segment " + index + " of " + getSegmentCount());
+        }
+        ByteBuffer segment = segments[index].asReadOnlyBuffer();
+        segment.position(0);
+        segment.limit(Math.min(segmentSize, size - index * segmentSize));
+        return segment;
+    }
+
+    /**
+     * Copies the recording into the destination array
+     * @param destination the array to copy into
+     * @param offset the index in the destination at which to start
+     */
+    public void copyTo(byte[] destination, int offset) {
+        if (offset < 0 || destination.length - offset < size) {
+            throw new IndexOutOfBoundsException("The recording does not fit in the destination array");
+        }
+        int remaining = size;
+        for (int i = 0; remaining > 0; i++) {
+            int length = Math.min(segmentSize, remaining);
+            ByteBuffer segment = segments[i].duplicate();
+            segment.position(0);
+            segment.get(destination, offset, length);
+            offset += length;
+            remaining -= length;
+        }
+    }
+
+    /**
+     * Writes the recording to the output stream
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        int remaining = size;
+        for (int i = 0; remaining > 0; i++) {
+            int length = Math.min(segmentSize, remaining);
+            outputStream.write(segments[i].array(), segments[i].arrayOffset(), length);
+            remaining -= length;
+        }
+    }
+
+    /**
+     * Returns a stream that reads the recording without copying it
+     * @return the input stream
+     */
+    public InputStream openInputStream() {
+        return new InputStream() {
+            private int position = 0;
+
+            @Override
+            public int read() {
+                if (position >= size) {
+                    return -1;
+                }
+                int value = segments[position / segmentSize].get(position % segmentSize) & 0xFF;
+                position++;
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                int segmentOffset = position % segmentSize;
+                int count = Math.min(length, Math.min(segmentSize - segmentOffset, size - position));
+                ByteBuffer segment = segments[position / segmentSize].duplicate();
+                segment.position(segmentOffset);
+                segment.get(buffer, offset, count);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return size - position;
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only store for captured PCM audio. Audio is kept in fixed-size segments. The segment
+ * list is sized up front from the maximum recording length and segments are allocated as they
+ * are first needed, so appending never copies audio that has already been captured.
+ *
+ * Audio is committed up to a point, for example when the speaker pauses. Only the committed
+ * part is exposed as the recording.
+ */
+class PcmSegmentBuffer implements PcmSink {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    private final int segmentSize;
+    private ByteBuffer[] segments;
+    private volatile int size;
+    private volatile int committedSize;
+
+    /**
+     * @param expectedCapacity the expected maximum number of bytes, used to size the segment list
+     * @param segmentSize the size of each segment in bytes
+     */
+    PcmSegmentBuffer(int expectedCapacity, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be greater than 0");
+        }
+        this.segmentSize = segmentSize;
+        segments = new ByteBuffer[Math.max(1, (expectedCapacity + segmentSize - 1) / segmentSize)];
+    }
+
+    @Override
+    public void append(ByteBuffer source) {
+        while (source.hasRemaining()) {
+            int segmentIndex = size / segmentSize;
+            int segmentOffset = size % segmentSize;
+            ByteBuffer segment = getOrAllocateSegment(segmentIndex);
+
+            int length = Math.min(source.remaining(), segmentSize - segmentOffset);
+            int sourceLimit = source.limit();
+            source.limit(source.position() + length);
+            segment.position(segmentOffset);
+            segment.put(source);
+            source.limit(sourceLimit);
+            size += length;
+        }
+    }
+
+    @Override
+    public void commit() {
+        committedSize = size;
+    }
+
+    /**
+     * Discards all audio. Allocated segments are kept for reuse.
+     */
+    void reset() {
+        size = 0;
+        committedSize = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int committedSize() {
+        return committedSize;
+    }
+
+    /**
+     * Returns a read-only view of the committed audio without copying it
+     * @return the recording
+     */
+    PcmRecording getRecording() {
+        return new PcmRecording(segments, segmentSize, committedSize);
+    }
+
+    private ByteBuffer getOrAllocateSegment(int index) {
+        if (index == segments.length) {
+            // Longer than expected, e.g. audio read while a stop was being processed
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        ByteBuffer segment = segments[index];
+        if (segment == null) {
+            segment = ByteBuffer.allocate(segmentSize);
+            segments[index] = segment;
+        }
+        return segment;
+    }
+}
@@ -0,0 +1,22 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination for audio captured by StmAudioRecorder. Audio is appended as it is read and
+ * committed up to a point, for example when the speaker pauses. Only committed audio ends up in
+ * the recording.
+ */
+interface PcmSink {
+
+    /**
+     * Appends the remaining bytes of the source buffer and advances its position to its limit
+     */
+    void append(ByteBuffer source) throws IOException;
+
+    /**
+     * Marks all audio appended so far as part of the recording
+     */
+    void commit();
+}
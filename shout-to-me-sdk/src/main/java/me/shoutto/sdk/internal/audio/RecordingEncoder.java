@@ -0,0 +1,106 @@
+package me.shoutto.sdk.internal.audio;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes a finished recording to a file for upload. The recording is read from the WAV file
+ * or the in-memory recording in the StmAudioRecorderResult. If the encoder fails, for example
+ * because a device codec is unavailable, the recording is encoded with FlacAudioEncoder instead.
+ */
+public class RecordingEncoder {
+
+    private static final String TAG = RecordingEncoder.class.getSimpleName();
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    private final AudioEncoder audioEncoder;
+    private final File directory;
+
+    /**
+     * @param audioEncoder the preferred encoder
+     * @param directory the directory the encoded file is created in
+     */
+    public RecordingEncoder(AudioEncoder audioEncoder, File directory) {
+        this.audioEncoder = audioEncoder;
+        this.directory = directory;
+    }
+
+    /**
+     * Encodes the recording to a new temporary file. The recording itself is not deleted.
+     * @param stmAudioRecorderResult the result of a completed recording
+     * @return the encoded file
+     * @throws IOException if the recording could not be encoded by either encoder
+     */
+    public File encode(StmAudioRecorderResult stmAudioRecorderResult) throws IOException {
+        try {
+            return encode(stmAudioRecorderResult, audioEncoder);
+        } catch (IOException ex) {
+            if (audioEncoder instanceof FlacAudioEncoder) {
+                throw ex;
+            }
+            Log.w(TAG, "Could not encode the recording. Encoding as FLAC instead.", ex);
+            return encode(stmAudioRecorderResult, new FlacAudioEncoder());
+        }
+    }
+
+    private File encode(StmAudioRecorderResult stmAudioRecorderResult, AudioEncoder encoder) throws IOException {
+        File encodedFile = File.createTempFile("shout", "." + encoder.getFileExtension(), directory);
+        InputStream pcmInput = null;
+        OutputStream output = null;
+        boolean isEncoded = false;
+        try {
+            long pcmLength;
+            File recordingFile = stmAudioRecorderResult.getFile();
+            if (recordingFile != null) {
+                pcmInput = new BufferedInputStream(new FileInputStream(recordingFile), STREAM_BUFFER_SIZE);
+                skipFully(pcmInput, WavHeader.LENGTH);
+                pcmLength = recordingFile.length() - WavHeader.LENGTH;
+            } else {
+                PcmRecording recording = stmAudioRecorderResult.getRecording();
+                pcmInput = recording.openInputStream();
+                pcmLength = recording.size();
+            }
+
+            output = new BufferedOutputStream(new FileOutputStream(encodedFile), STREAM_BUFFER_SIZE);
+            encoder.encode(pcmInput, pcmLength, output);
+            output.close();
+            output = null;
+            isEncoded = true;
+            return encodedFile;
+        } finally {
+            closeQuietly(pcmInput);
+            closeQuietly(output);
+            if (!isEncoded && !encodedFile.delete()) {
+                Log.w(TAG, "Could not delete partially encoded file " + encodedFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private static void skipFully(InputStream inputStream, long length) throws IOException {
+        while (length > 0) {
+            long skipped = inputStream.skip(length);
+            if (skipped <= 0) {
+                throw new IOException("Recording file is shorter than its header");
+            }
+            length -= skipped;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ex) {
+                Log.w(TAG, "Error closing stream", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package me.shoutto.sdk.internal.audio;
+
+/**
+ * Decides when a recording ends, using the number of samples recorded as its clock. The recorder
+ * passes every frame it reads, with the voice activity detector's result for it, and the state
+ * machine updates the countdown, ends the recording at the maximum length and ends it when the
+ * silence after speech has lasted for the silence timeout. All of this happens on the recording
+ * thread, so no timer threads are needed and the result depends only on the audio.
+ * <p>
+ * Stop and cancel requests from other threads are recorded and handled with the next frame.
+ */
+public class RecordingStateMachine {
+
+    public enum State {
+        /** Recording, and the user has not spoken yet */
+        WAITING_FOR_SPEECH,
+        /** Recording while the user speaks */
+        SPEAKING,
+        /** Recording through the silence after speech */
+        SILENCE_AFTER_SPEECH,
+        /** Recording has ended and the recording should be kept */
+        STOPPED,
+        /** Recording has ended and the recording should be discarded */
+        CANCELLED
+    }
+
+    public interface Listener {
+        /**
+         * Called when the recording starts and every full second after that
+         * @param secondsRemaining the seconds until the maximum recording length
+         * @param secondsElapsed the seconds recorded
+         */
+        void onCountdownUpdate(int secondsRemaining, int secondsElapsed);
+
+        /**
+         * Called when the audio recorded so far should be kept, which is when the user stops
+         * speaking and when the recording is stopped
+         */
+        void onCommitAudio();
+    }
+
+    static final int TALKING_STARTED = 1;
+    static final int TALKING_STOPPED = 0;
+    private final int sampleRate;
+    private final int maxRecordingTimeInSeconds;
+    private final long maxSamples;
+    private final long silenceTimeoutSamples;
+    private final boolean isSilenceDetectionEnabled;
+    private final Listener listener;
+    private volatile boolean isStopRequested;
+    private volatile boolean isCancelRequested;
+    private volatile State state = State.WAITING_FOR_SPEECH;
+    private long elapsedSamples;
+    private long silenceEndSample;
+    private int secondsElapsed;
+    private boolean didUserSpeak;
+
+    public RecordingStateMachine(int sampleRate, int maxRecordingTimeInSeconds, int silenceTimeoutInMillis,
+                                 boolean isSilenceDetectionEnabled, Listener listener) {
+        this.sampleRate = sampleRate;
+        this.maxRecordingTimeInSeconds = maxRecordingTimeInSeconds;
+        this.isSilenceDetectionEnabled = isSilenceDetectionEnabled;
+        this.listener = listener;
+        maxSamples = (long) maxRecordingTimeInSeconds * sampleRate;
+        silenceTimeoutSamples = (long) silenceTimeoutInMillis * sampleRate / 1000;
+    }
+
+    /**
+     * Starts the countdown. Call before the first frame.
+     */
+    public void start() {
+        listener.onCountdownUpdate(maxRecordingTimeInSeconds, 0);
+    }
+
+    /**
+     * Advances the recording by one frame
+     * @param numberOfSamples the number of samples in the frame, which may be 0 if a read failed
+     * @param talkingStatus the voice activity detector result for the frame: 1 when the user
+     *                      started talking, 0 when the user stopped talking, otherwise no change
+     * @return the state after the frame
+     */
+    public State onFrame(int numberOfSamples, int talkingStatus) {
+        if (isFinished()) {
+            return state;
+        }
+
+        elapsedSamples += numberOfSamples;
+
+        if (talkingStatus == TALKING_STARTED) {
+            didUserSpeak = true;
+            state = State.SPEAKING;
+        } else if (talkingStatus == TALKING_STOPPED) {
+            listener.onCommitAudio();
+            if (isSilenceDetectionEnabled) {
+                silenceEndSample = elapsedSamples + silenceTimeoutSamples;
+                state = State.SILENCE_AFTER_SPEECH;
+            }
+        }
+
+        int seconds = (int) Math.min(elapsedSamples / sampleRate, maxRecordingTimeInSeconds);
+        while (secondsElapsed < seconds) {
+            secondsElapsed++;
+            listener.onCountdownUpdate(maxRecordingTimeInSeconds - secondsElapsed, secondsElapsed);
+        }
+
+        if (isCancelRequested) {
+            state = State.CANCELLED;
+        } else if (isStopRequested) {
+            stop();
+        } else if (elapsedSamples >= maxSamples) {
+            if (didUserSpeak) {
+                stop();
+            } else {
+                state = State.CANCELLED;
+            }
+        } else if (state == State.SILENCE_AFTER_SPEECH && elapsedSamples >= silenceEndSample) {
+            stop();
+        }
+        return state;
+    }
+
+    /**
+     * Asks for the recording to be stopped and kept. May be called from any thread.
+     */
+    public void requestStop() {
+        isStopRequested = true;
+    }
+
+    /**
+     * Asks for the recording to be cancelled. A cancel wins over a stop requested before the same
+     * frame. May be called from any thread.
+     */
+    public void requestCancel() {
+        isCancelRequested = true;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.STOPPED || state == State.CANCELLED;
+    }
+
+    public boolean didUserSpeak() {
+        return didUserSpeak;
+    }
+
+    /**
+     * Returns the length of the recording in whole seconds
+     */
+    public int getSecondsElapsed() {
+        return secondsElapsed;
+    }
+
+    private void stop() {
+        listener.onCommitAudio();
+        state = State.STOPPED;
+    }
+}
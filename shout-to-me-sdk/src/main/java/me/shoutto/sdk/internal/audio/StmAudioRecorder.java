@@ -8,65 +8,64 @@ import android.os.Handler;
 import android.os.Message;
 import android.util.Log;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import me.shoutto.sdk.VadConfig;
 
 /**
  * StmAudioRecorder
  *
- * This class uses the device's audio resources to capture audio into a ByteArrayOutputStream
- * and returns a StmAudioRecorderResult.
+ * This class uses the device's audio resources to capture audio into a PcmSegmentBuffer,
+ * or a WAV file when file-backed recording is enabled, and returns a StmAudioRecorderResult.
+ * The countdown, maximum length and silence timeout are measured in samples read by a
+ * RecordingStateMachine on the recording thread.
  */
 public class StmAudioRecorder {
 
+    static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_SECOND = SAMPLE_RATE * 2;
+    private static final int MAX_CONSECUTIVE_FAILED_READS = 10;
     private static final String TAG = StmAudioRecorder.class.getSimpleName();
     private final AudioRecord audioRecord;
     private final int minBufferSize;
-    private boolean doRecord = false;
     private Handler handler;
-    ScheduledFuture cancelRecordingFuture;
-    private ScheduledFuture stopRecordingFuture;
-    private ScheduledFuture maxRecordingTimeFuture;
-    private ScheduledFuture timerCountdownFuture;
+    private volatile RecordingStateMachine recordingStateMachine;
+    private volatile boolean isStopRequested = false;
+    private volatile boolean isCancelRequested = false;
     private StmAudioRecorderResult stmAudioRecorderResult;
     private VoiceActivityDetector voiceActivityDetector;
-    ByteArrayOutputStream realTimeStream;
-    ByteArrayOutputStream finalStream;
+    private final ByteBuffer captureBuffer;
+    private final ShortBuffer captureSamples;
+    private PcmSegmentBuffer pcmSegmentBuffer;
+    private WavFileWriter wavFileWriter;
+    private volatile PcmSink pcmSink;
+    private File recordingFile;
     private int maxRecordingTimeInSeconds;
     private boolean isSilenceDetectionEnabled = true;
-    private int secondsRemaining;
-    private int secondsElapsed = 0;
-    private RecordingCountdownListener recordingCountdownListener;
-
-    final Runnable StopRecordingRunnable = new Runnable() {
-        @Override
-        public void run() {
-            stopRecording();
-        }
-    };
-
-    final Runnable CancelRecordingRunnable = new Runnable() {
-        @Override
-        public void run() {
-            cancelRecording();
-        }
-    };
+    private final int silenceTimeoutInMillis;
+    private volatile RecordingCountdownListener recordingCountdownListener;
 
     public StmAudioRecorder(Handler handler, int maxRecordingTimeInSeconds) throws IllegalStateException {
+        this(handler, maxRecordingTimeInSeconds, new VadConfig());
+    }
+
+    public StmAudioRecorder(Handler handler, int maxRecordingTimeInSeconds, VadConfig vadConfig)
+            throws IllegalStateException {
         this.handler = handler;
         this.maxRecordingTimeInSeconds = maxRecordingTimeInSeconds;
+        silenceTimeoutInMillis = vadConfig.getSilenceTimeoutInMillis();
+        voiceActivityDetector = new VoiceActivityDetector(vadConfig, SAMPLE_RATE);
 
-        minBufferSize = AudioRecord.getMinBufferSize(16000,
+        minBufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE,
                 AudioFormat.CHANNEL_IN_MONO,
                 AudioFormat.ENCODING_PCM_16BIT);
 
         audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC,
-                16000,
+                SAMPLE_RATE,
                 AudioFormat.CHANNEL_IN_MONO,
                 AudioFormat.ENCODING_PCM_16BIT,
                 minBufferSize * 2);
@@ -75,79 +74,83 @@ public class StmAudioRecorder {
             throw new IllegalStateException("AudioRecord object is uninitialized.  Cannot continue.");
         }
 
-        realTimeStream = new ByteArrayOutputStream();
-        finalStream = new ByteArrayOutputStream();
+        // AudioRecord writes straight into the direct buffer. The samples are read in place
+        // through the short view and copied once, into the recording's segments.
+        captureBuffer = ByteBuffer.allocateDirect(minBufferSize * 4).order(ByteOrder.LITTLE_ENDIAN);
+        captureSamples = captureBuffer.asShortBuffer();
 
         stmAudioRecorderResult = new StmAudioRecorderResult();
-        voiceActivityDetector = new VoiceActivityDetector();
     }
 
     public StmAudioRecorderResult writeAudioToStream() {
-        realTimeStream.reset();
-        finalStream.reset();
-        final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);
-
-        doRecord = true;
-        audioRecord.startRecording();
-
-        secondsRemaining = maxRecordingTimeInSeconds;
-        cancelRecordingFuture = scheduler.schedule(CancelRecordingRunnable, maxRecordingTimeInSeconds, TimeUnit.SECONDS);
-        maxRecordingTimeFuture = scheduler.schedule(new Runnable() {
+        pcmSink = openPcmSink();
+        RecordingStateMachine stateMachine = new RecordingStateMachine(SAMPLE_RATE, maxRecordingTimeInSeconds,
+                silenceTimeoutInMillis, isSilenceDetectionEnabled, new RecordingStateMachine.Listener() {
             @Override
-            public void run() {
-                if (recordingCountdownListener != null) {
-                    recordingCountdownListener.onCountdownUpdate(0, secondsElapsed);
+            public void onCountdownUpdate(int secondsRemaining, int secondsElapsed) {
+                RecordingCountdownListener listener = recordingCountdownListener;
+                if (listener != null) {
+                    listener.onCountdownUpdate(secondsRemaining, secondsElapsed);
                 }
-                finalizeRecording();
             }
-        }, maxRecordingTimeInSeconds, TimeUnit.SECONDS);
-        timerCountdownFuture = scheduler.scheduleAtFixedRate(new Runnable() {
+
             @Override
-            public void run() {
-                if (recordingCountdownListener != null) {
-                    recordingCountdownListener.onCountdownUpdate(secondsRemaining, secondsElapsed);
-                }
-                secondsRemaining--;
-                secondsElapsed++;
+            public void onCommitAudio() {
+                pushPendingAudioToFinalOutputStream();
             }
-        }, 0, 1, TimeUnit.SECONDS);
+        });
+        recordingStateMachine = stateMachine;
+        // Requests that arrived before the state machine was published
+        if (isCancelRequested) {
+            stateMachine.requestCancel();
+        } else if (isStopRequested) {
+            stateMachine.requestStop();
+        }
+
+        audioRecord.startRecording();
+        stateMachine.start();
 
-        byte[] buffer = new byte[minBufferSize * 4];
-        byte[] bytes;
         Log.d(TAG, String.valueOf(minBufferSize));
-        short[] shortBuffer = new short[minBufferSize * 2];
 
-        while(doRecord) {
-            int shortsWritten = audioRecord.read(shortBuffer, 0, shortBuffer.length);
-            short2byte(shortBuffer, shortsWritten, buffer);
-            bytes = Arrays.copyOf(buffer, shortsWritten * 2);
-            realTimeStream.write(bytes, 0, shortsWritten * 2);
+        int consecutiveFailedReads = 0;
+        while (!stateMachine.isFinished()) {
+            int bytesRead = audioRecord.read(captureBuffer, captureBuffer.capacity());
+            if (bytesRead <= 0) {
+                Log.w(TAG, "AudioRecord read failed with " + bytesRead);
+                if (++consecutiveFailedReads >= MAX_CONSECUTIVE_FAILED_READS) {
+                    Log.e(TAG, "AudioRecord is not returning audio. Cancelling recording.");
+                    stateMachine.requestCancel();
+                }
+                // No audio means no time passes, but stop and cancel requests are still handled
+                stateMachine.onFrame(0, -1);
+                continue;
+            }
+            consecutiveFailedReads = 0;
+            int shortsWritten = bytesRead / 2;
+            captureBuffer.limit(bytesRead);
+            captureBuffer.position(0);
+            try {
+                pcmSink.append(captureBuffer);
+            } catch (IOException ex) {
+                Log.e(TAG, "Error writing audio to the recording file. Cancelling recording.", ex);
+                stateMachine.requestCancel();
+            }
+            captureBuffer.clear();
 
             // VAD
-            int isUserStillTalking = voiceActivityDetector.determineTalkingStatus(shortBuffer, shortsWritten);
+            int isUserStillTalking = voiceActivityDetector.determineTalkingStatus(captureSamples, shortsWritten);
             if (isUserStillTalking == 1) {
                 Log.i(TAG, "Speech detected");
-                if (stopRecordingFuture != null && !stopRecordingFuture.isCancelled()) {
-                    stopRecordingFuture.cancel(false);
-                }
-                if (!cancelRecordingFuture.isCancelled()) {
-                    cancelRecordingFuture.cancel(false);
-                }
-                if (!stmAudioRecorderResult.didUserSpeak()) {
-                    stmAudioRecorderResult.setDidUserSpeak(true);
-                }
             } else if (isUserStillTalking == 0) {
                 Log.d(TAG, "Silence detected");
-                pushPendingAudioToFinalOutputStream();
-                if (isSilenceDetectionEnabled) {
-                    stopRecordingFuture = scheduler.schedule(StopRecordingRunnable, 2, TimeUnit.SECONDS);
-                }
             }
+            stateMachine.onFrame(shortsWritten, isUserStillTalking);
 
             // Value to manipulate UI "speaking" animation
             double sum = 0;
             for (int i = 0; i < shortsWritten; i++) {
-                sum += shortBuffer[i] * shortBuffer[i];
+                short sample = captureSamples.get(i);
+                sum += sample * sample;
             }
 
             if (shortsWritten > 0) {
@@ -161,68 +164,94 @@ public class StmAudioRecorder {
             }
         }
 
+        boolean isCancelled = stateMachine.getState() == RecordingStateMachine.State.CANCELLED;
+        stmAudioRecorderResult.setIsCancelled(isCancelled);
+        stmAudioRecorderResult.setRecordingLengthInSeconds(isCancelled ? 0 : stateMachine.getSecondsElapsed());
+        stmAudioRecorderResult.setDidUserSpeak(stateMachine.didUserSpeak());
+
         Log.d(TAG, "about to close file");
-        stmAudioRecorderResult.setAudioBuffer(finalStream);
+        if (wavFileWriter != null) {
+            finishRecordingFile();
+        } else {
+            stmAudioRecorderResult.setRecording(pcmSegmentBuffer.getRecording());
+        }
 
         audioRecord.stop();
         audioRecord.release();
-        scheduler.shutdown();
         return stmAudioRecorderResult;
     }
 
+    /**
+     * Stops the recording and keeps it. The recording thread handles the request when it reads
+     * the next frame. May be called from any thread.
+     */
     public void finalizeRecording() {
-        pushPendingAudioToFinalOutputStream();
-        stopRecording();
+        isStopRequested = true;
+        RecordingStateMachine stateMachine = recordingStateMachine;
+        if (stateMachine != null) {
+            stateMachine.requestStop();
+        }
     }
 
+    /**
+     * Stops the recording and discards it. The recording thread handles the request when it reads
+     * the next frame. May be called from any thread.
+     */
     public void cancelRecording() {
-        cancelAllFutures();
-        stmAudioRecorderResult.setIsCancelled(true);
-        stmAudioRecorderResult.setRecordingLengthInSeconds(0);
-        doRecord = false;
-    }
-
-    private void stopRecording() {
-        Log.d(TAG, "stopRecording");
-        cancelAllFutures();
-        stmAudioRecorderResult.setIsCancelled(false);
-        stmAudioRecorderResult.setRecordingLengthInSeconds(secondsElapsed);
-        doRecord = false;
+        isCancelRequested = true;
+        RecordingStateMachine stateMachine = recordingStateMachine;
+        if (stateMachine != null) {
+            stateMachine.requestCancel();
+        }
     }
 
-    private void short2byte(short[] shorts, int nb, byte[] bytes) {
-        for (int i = 0; i < nb; i++) {
-            bytes[i * 2] = (byte)(shorts[i] & 0xff);
-            bytes[i * 2 + 1] = (byte)((shorts[i] >> 8) & 0xff);
+    private void pushPendingAudioToFinalOutputStream() {
+        Log.d(TAG, "Commit pending audio to the recording");
+        PcmSink sink = pcmSink;
+        if (sink != null) {
+            sink.commit();
         }
     }
 
-    private void pushPendingAudioToFinalOutputStream() {
-        Log.d(TAG, "Write pending audio to final stream");
-        if (realTimeStream.size() > 0) {
+    /**
+     * Opens the file if file-backed recording was requested, otherwise returns the memory buffer.
+     * If the file cannot be opened, the audio is recorded in memory instead.
+     */
+    private PcmSink openPcmSink() {
+        if (recordingFile != null) {
+            wavFileWriter = new WavFileWriter(recordingFile);
             try {
-                realTimeStream.writeTo(finalStream);
+                wavFileWriter.open();
+                return wavFileWriter;
             } catch (IOException ex) {
-                Log.e(TAG, "Error writing from the real time buffer to the final buffer", ex);
-            } finally {
-                realTimeStream.reset();
+                Log.e(TAG, "Could not open the recording file. Recording to memory instead.", ex);
+                wavFileWriter.abort();
+                wavFileWriter = null;
             }
         }
-    }
 
-    private void cancelAllFutures() {
-        if (stopRecordingFuture != null && !stopRecordingFuture.isCancelled()) {
-            stopRecordingFuture.cancel(false);
-        }
-        if (cancelRecordingFuture != null && !cancelRecordingFuture.isCancelled()) {
-            cancelRecordingFuture.cancel(false);
-        }
-        if (maxRecordingTimeFuture != null && !maxRecordingTimeFuture.isCancelled()) {
-            maxRecordingTimeFuture.cancel(false);
+        if (pcmSegmentBuffer == null) {
+            pcmSegmentBuffer = new PcmSegmentBuffer(maxRecordingTimeInSeconds * BYTES_PER_SECOND,
+                    PcmSegmentBuffer.DEFAULT_SEGMENT_SIZE);
+        } else {
+            pcmSegmentBuffer.reset();
         }
-        if (timerCountdownFuture!= null && !timerCountdownFuture.isCancelled()) {
-            timerCountdownFuture.cancel(true);
+        return pcmSegmentBuffer;
+    }
+
+    private void finishRecordingFile() {
+        if (stmAudioRecorderResult.isCancelled()) {
+            wavFileWriter.abort();
+        } else {
+            try {
+                stmAudioRecorderResult.setFile(wavFileWriter.finish());
+            } catch (IOException ex) {
+                Log.e(TAG, "Error finishing the recording file", ex);
+                wavFileWriter.abort();
+                stmAudioRecorderResult.setIsCancelled(true);
+            }
         }
+        wavFileWriter = null;
     }
 
     public interface RecordingCountdownListener {
@@ -236,4 +265,14 @@ public class StmAudioRecorder {
     public void setSilenceDetectionEnabled(boolean isSilenceDetectionEnabled) {
         this.isSilenceDetectionEnabled = isSilenceDetectionEnabled;
     }
+
+    /**
+     * Streams the recording to a WAV file instead of holding it in memory. The finished file is
+     * returned by StmAudioRecorderResult.getFile(), and it is deleted if the recording is
+     * cancelled.
+     * @param recordingFile the file to write, or null to record in memory
+     */
+    public void setRecordingFile(File recordingFile) {
+        this.recordingFile = recordingFile;
+    }
 }
@@ -1,20 +1,32 @@
 package me.shoutto.sdk.internal.audio;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 
 public class StmAudioRecorderResult {
 
-    private ByteArrayOutputStream audioBuffer;
+    private PcmRecording recording;
+    private File file;
     private boolean isCancelled;
     private boolean didUserSpeak = false;
     private int recordingLengthInSeconds;
 
-    public ByteArrayOutputStream getAudioBuffer() {
-        return audioBuffer;
+    public PcmRecording getRecording() {
+        return recording;
     }
 
-    public void setAudioBuffer(ByteArrayOutputStream audioBuffer) {
-        this.audioBuffer = audioBuffer;
+    public void setRecording(PcmRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Returns the WAV file when the recording was streamed to a file, otherwise null
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
     }
 
     public boolean isCancelled() {
@@ -1,54 +1,114 @@
 package me.shoutto.sdk.internal.audio;
 
+import java.nio.ShortBuffer;
+
+import me.shoutto.sdk.VadConfig;
+
+/**
+ * Energy based voice activity detector. Runs on the recording thread, so it does not allocate
+ * after construction.
+ *
+ * The energy of a frame is the mean of the per-sample attenuation in dB relative to full scale.
+ * Rather than taking a logarithm of every sample, the sample magnitudes are multiplied together
+ * (kept in range by moving the binary exponent into a separate counter) and a single logarithm
+ * is taken per frame, which gives the same mean. The recent energy comparison results are kept
+ * in a ring buffer with running counts, so the talking and not talking checks are O(1).
+ */
 public class VoiceActivityDetector {
 
     private static final double MAX_REF = 32768;
+    private static final double LOG10_MAX_REF = Math.log10(MAX_REF);
+    private static final double LOG10_2 = Math.log10(2);
+    // Below this, multiplying by a 16-bit magnitude cannot overflow
+    private static final double PRODUCT_RENORMALIZE_THRESHOLD = 0x1.0p512;
     private static final String TAG = "VoiceActivityDetector";
+    // The silence baseline is averaged over roughly 1/10 of a second
+    private static final int BASELINE_AVERAGING_DURATION_IN_MILLIS = 100;
     private VadState vadState;
 
     public VoiceActivityDetector() {
-        vadState = new VadState();
+        this(new VadConfig(), StmAudioRecorder.SAMPLE_RATE);
+    }
+
+    /**
+     * Creates a detector for the specified configuration and sample rate
+     * @param vadConfig the VAD tuning
+     * @param sampleRate the sample rate of the audio in Hz
+     * @throws IllegalArgumentException if the configuration does not yield at least one sample per
+     * frame, one onset frame, and an offset window at least as long as the onset window
+     */
+    public VoiceActivityDetector(VadConfig vadConfig, int sampleRate) {
+        vadState = new VadState(vadConfig, sampleRate);
     }
 
     public int determineTalkingStatus(short[] samples, int numberOfSamples) {
 
         int result = -1;
-        double[] samplesInDBFS = convertPCMToDecibelFullScale(samples, numberOfSamples);
-        double decibelFullScale;
 
         for (int i = 0 ; i < numberOfSamples; i++) {
-            decibelFullScale = samplesInDBFS[i];
-            if (decibelFullScale == Double.NEGATIVE_INFINITY || decibelFullScale == Double.POSITIVE_INFINITY) {
-                continue;
+            result = addSample(samples[i], result);
+            if (result == 0 || result == 1) {
+                return result;
             }
+        }
 
-            if (vadState.currentNumberOfSamples == vadState.samplesPerFrame) {
-                result = checkSamples(vadState, vadState.samples, vadState.currentNumberOfSamples);
-                if (result == 0 || result == 1) {
-                    return result;
-                }
-                vadState.currentNumberOfSamples = 0;
-            }
+        return result;
+    }
+
+    /**
+     * Same as {@link #determineTalkingStatus(short[], int)} for samples in a buffer, such as a
+     * view of the recorder's capture buffer. Samples are read from index 0 without changing the
+     * buffer's position.
+     */
+    public int determineTalkingStatus(ShortBuffer samples, int numberOfSamples) {
+
+        int result = -1;
 
-            vadState.samples[vadState.currentNumberOfSamples] = decibelFullScale;
-            vadState.currentNumberOfSamples++;
+        for (int i = 0 ; i < numberOfSamples; i++) {
+            result = addSample(samples.get(i), result);
+            if (result == 0 || result == 1) {
+                return result;
+            }
         }
 
         return result;
     }
 
-    private double[] convertPCMToDecibelFullScale(short[] samples, int numberOfSamples) {
-        double[] samplesInDecibelFullScale = new double[numberOfSamples];
-        for (int i = 0; i < numberOfSamples; i++) {
-            samplesInDecibelFullScale[i] = 0 - 20 * Math.log10(Math.abs(samples[i] / MAX_REF));
+    /**
+     * Adds a sample to the current frame, checking the previous frame first if it is complete
+     * @return the result of the frame check, or the previous result if no frame was checked
+     */
+    private int addSample(short sample, int result) {
+        int magnitude = Math.abs(sample);
+        if (magnitude == 0) {
+            // Infinite attenuation. Not counted in the frame.
+            return result;
+        }
+
+        if (vadState.currentNumberOfSamples == vadState.samplesPerFrame) {
+            result = checkSamples(vadState, calculateAverageEnergy(vadState));
+            if (result == 0 || result == 1) {
+                return result;
+            }
+            vadState.currentNumberOfSamples = 0;
+            vadState.magnitudeProduct = 1.0;
+            vadState.magnitudeProductExponent = 0;
+        }
+
+        double product = vadState.magnitudeProduct * magnitude;
+        if (product >= PRODUCT_RENORMALIZE_THRESHOLD) {
+            int exponent = Math.getExponent(product);
+            product = Math.scalb(product, -exponent);
+            vadState.magnitudeProductExponent += exponent;
         }
-        return samplesInDecibelFullScale;
+        vadState.magnitudeProduct = product;
+        vadState.currentNumberOfSamples++;
+        return result;
     }
 
-    private int checkSamples(VadState vadState, double[] samples, int nb_samples) {
+    private int checkSamples(VadState vadState, double energy) {
 
         int counter;
-        double energy = calculateAverageEnergy(samples, nb_samples);
         int action = -1;
 
         if (vadState.sequence <= vadState.initialFrames) {
@@ -61,18 +121,18 @@ public class VoiceActivityDetector {
             setSilenceEnergyBaseline(vadState, energy, vadState.sequence);
         }
 
-        pushEnergyState(vadState.previousEnergyComparisonStates, vadState.previousStateMaxLen, counter);
+        pushEnergyState(vadState, counter);
 
         if (vadState.sequence < vadState.initialFrames) {
             vadState.sequence++;
             return -1;
         }
 
-        if (!vadState.isTalking && determineIfTalking(vadState.previousEnergyComparisonStates, 1, 10)) {
+        if (!vadState.isTalking && vadState.recentSpeechFrames == vadState.speechFramesToStart) {
             vadState.isTalking = true;
             action = 1;
         }
-        else if (vadState.isTalking && determineIfNotTalking(vadState.previousEnergyComparisonStates, 0, vadState.previousStateMaxLen)) {
+        else if (vadState.isTalking && vadState.historySpeechFrames == 0) {
             vadState.isTalking = false;
             action = 0;
         }
@@ -81,19 +141,19 @@ public class VoiceActivityDetector {
         return action;
     }
 
-    private double calculateAverageEnergy(double[] samples, int numberOfSamples) {
-        double energyTotal = 0.0f;
-        for (int i = 0; i < numberOfSamples; i++) {
-            energyTotal += samples[i];
-        }
-        energyTotal /= numberOfSamples;
-        return energyTotal;
+    /**
+     * Mean of -20 * log10(|sample| / MAX_REF) over the frame, computed from the product of the
+     * sample magnitudes
+     */
+    private double calculateAverageEnergy(VadState vadState) {
+        double log10Product = Math.log10(vadState.magnitudeProduct)
+                + vadState.magnitudeProductExponent * LOG10_2;
+        return 20 * (LOG10_MAX_REF - log10Product / vadState.currentNumberOfSamples);
     }
 
     private void setSilenceEnergyBaseline(VadState vadState, double energy, int n) {
-        n = (n > 10) ? 10 : n; //this correspond to 1/10 of a second
+        n = (n > vadState.baselineFrames) ? vadState.baselineFrames : n;
         vadState.silenceEnergyBaseline = (vadState.silenceEnergyBaseline * n + energy) / (n + 1);
-//        Log.d(TAG, "min energy "+ vadState.silenceEnergyBaseline);
         vadState.isMinimumInitialized = true;
     }
 
@@ -105,43 +165,79 @@ public class VoiceActivityDetector {
         return counter;
     }
 
-    private void pushEnergyState(int[] memory, int length, int value) {
-        while (--length > 0) {
-            memory[length] = memory[length - 1];
+    /**
+     * Records the result for the newest frame and updates the running counts of speech frames
+     * among the most recent speechFramesToStart frames and the whole history
+     */
+    private void pushEnergyState(VadState vadState, int value) {
+        int[] history = vadState.previousEnergyComparisonStates;
+        int length = history.length;
+
+        // The frame that drops out of the short window is still in the ring
+        int leavingRecentIndex = vadState.historyHead - (vadState.speechFramesToStart - 1);
+        if (leavingRecentIndex < 0) {
+            leavingRecentIndex += length;
         }
-        memory[0] = value;
-    }
+        vadState.recentSpeechFrames -= history[leavingRecentIndex];
 
-    private boolean determineIfTalking(int[] memory, int value, int nb) {
-        for (int i = 0; i < nb; i++) {
-            if (memory[i] < value) {
-                return false;
-            }
+        int newHead = vadState.historyHead + 1;
+        if (newHead == length) {
+            newHead = 0;
         }
-        return true;
-    }
+        vadState.historySpeechFrames -= history[newHead];
 
-    private boolean determineIfNotTalking(int[] memory, int value, int nb) {
-        for (int i = 0; i < nb; i++) {
-            if (memory[i] > value) {
-                return false;
-            }
-        }
-        return true;
+        history[newHead] = value;
+        vadState.historyHead = newHead;
+        vadState.recentSpeechFrames += value;
+        vadState.historySpeechFrames += value;
     }
 
-    private class VadState {
+    private static class VadState {
         int sequence = 0;
         boolean isMinimumInitialized = false;
-        int initialFrames = 30;
-        double energyThreshold = 8.0;
-        int previousStateMaxLen = 50;
-        int[] previousEnergyComparisonStates = new int[previousStateMaxLen];
+        final int initialFrames;
+        final double energyThreshold;
+        final int previousStateMaxLen;
+        final int speechFramesToStart;
+        final int baselineFrames;
+        final int[] previousEnergyComparisonStates;
+        int historyHead = 0;
+        int recentSpeechFrames = 0;
+        int historySpeechFrames = 0;
         boolean isTalking = false;
-        int sampleRate = 16000;
-        int samplesPerFrame = sampleRate / 100;
-        double[] samples = new double[samplesPerFrame];
+        final int samplesPerFrame;
         int currentNumberOfSamples = 0;
+        double magnitudeProduct = 1.0;
+        int magnitudeProductExponent = 0;
         double silenceEnergyBaseline = 0.0;
+
+        VadState(VadConfig vadConfig, int sampleRate) {
+            int frameDuration = vadConfig.getFrameDurationInMillis();
+            if (frameDuration <= 0) {
+                throw new IllegalArgumentException("frameDurationInMillis must be greater than 0");
+            }
+
+            samplesPerFrame = (int) ((long) sampleRate * frameDuration / 1000);
+            initialFrames = vadConfig.getCalibrationDurationInMillis() / frameDuration;
+            energyThreshold = vadConfig.getEnergyThresholdInDecibels();
+            speechFramesToStart = vadConfig.getSpeechOnsetDurationInMillis() / frameDuration;
+            previousStateMaxLen = vadConfig.getSpeechOffsetDurationInMillis() / frameDuration;
+            baselineFrames = Math.max(1, BASELINE_AVERAGING_DURATION_IN_MILLIS / frameDuration);
+
+            if (samplesPerFrame < 1) {
+                throw new IllegalArgumentException("A frame must contain at least one sample");
+            }
+            if (initialFrames < 0) {
+                throw new IllegalArgumentException("calibrationDurationInMillis must not be negative");
+            }
+            if (speechFramesToStart < 1) {
+                throw new IllegalArgumentException("speechOnsetDurationInMillis must be at least one frame");
+            }
+            if (previousStateMaxLen < speechFramesToStart) {
+                throw new IllegalArgumentException(
+                        "speechOffsetDurationInMillis must not be less than speechOnsetDurationInMillis");
+            }
+            previousEnergyComparisonStates = new int[previousStateMaxLen];
+        }
     }
 }
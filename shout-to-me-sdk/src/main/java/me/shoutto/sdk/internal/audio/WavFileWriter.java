@@ -0,0 +1,112 @@
+package me.shoutto.sdk.internal.audio;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams captured audio to a WAV file as it is recorded, so that memory use does not grow with
+ * the length of the recording. A placeholder header is written when the file is opened and the
+ * length fields are filled in when the recording is finished.
+ */
+class WavFileWriter implements PcmSink {
+
+    private static final String TAG = WavFileWriter.class.getSimpleName();
+    private final File file;
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(WavHeader.LENGTH);
+    private RandomAccessFile randomAccessFile;
+    private FileChannel fileChannel;
+    private volatile long size;
+    private volatile long committedSize;
+
+    WavFileWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates or truncates the file and writes a placeholder header
+     * @throws IOException if the file cannot be opened
+     */
+    void open() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        fileChannel = randomAccessFile.getChannel();
+        fileChannel.truncate(0);
+        writeHeader(0);
+        size = 0;
+        committedSize = 0;
+    }
+
+    @Override
+    public void append(ByteBuffer source) throws IOException {
+        long written = 0;
+        while (source.hasRemaining()) {
+            written += fileChannel.write(source);
+        }
+        size += written;
+    }
+
+    @Override
+    public void commit() {
+        committedSize = size;
+    }
+
+    /**
+     * Drops uncommitted audio, fills in the header and closes the file
+     * @return the finished WAV file
+     * @throws IOException if the file cannot be written
+     */
+    File finish() throws IOException {
+        try {
+            long dataLength = committedSize;
+            fileChannel.truncate(WavHeader.LENGTH + dataLength);
+            writeHeader((int) dataLength);
+            fileChannel.force(false);
+        } finally {
+            close();
+        }
+        return file;
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    void abort() {
+        close();
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete recording file " + file.getAbsolutePath());
+        }
+    }
+
+    long committedSize() {
+        return committedSize;
+    }
+
+    private void writeHeader(int dataLength) throws IOException {
+        headerBuffer.clear();
+        WavHeader.write(headerBuffer, dataLength);
+        headerBuffer.flip();
+        long position = 0;
+        while (headerBuffer.hasRemaining()) {
+            position += fileChannel.write(headerBuffer, position);
+        }
+        if (fileChannel.position() < WavHeader.LENGTH) {
+            fileChannel.position(WavHeader.LENGTH);
+        }
+    }
+
+    private void close() {
+        if (randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+            } catch (IOException ex) {
+                Log.w(TAG, "Error closing recording file", ex);
+            }
+            randomAccessFile = null;
+            fileChannel = null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package me.shoutto.sdk.internal.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes the 44 byte RIFF/WAVE header for the 16 kHz 16-bit mono PCM audio the recorder produces
+ */
+public final class WavHeader {
+
+    public static final int LENGTH = 44;
+    private static final int CHANNELS = 1;
+    private static final int BITS_PER_SAMPLE = 16;
+
+    private WavHeader() {
+    }
+
+    /**
+     * Writes the header into the array
+     * @param destination the array to write to
+     * @param offset the index at which the header starts
+     * @param dataLength the number of bytes of PCM audio that follow the header
+     */
+    public static void write(byte[] destination, int offset, int dataLength) {
+        write(ByteBuffer.wrap(destination, offset, LENGTH), dataLength);
+    }
+
+    /**
+     * Writes the header at the buffer's position and advances the position past it
+     * @param destination the buffer to write to
+     * @param dataLength the number of bytes of PCM audio that follow the header
+     */
+    public static void write(ByteBuffer destination, int dataLength) {
+        ByteOrder order = destination.order();
+        destination.order(ByteOrder.LITTLE_ENDIAN);
+
+        int blockAlign = CHANNELS * BITS_PER_SAMPLE / 8;
+        destination.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        destination.putInt(36 + dataLength); // 44-8 since first part of header isnt included
+        destination.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+        destination.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        destination.putInt(16); // size of 'fmt ' chunk
+        destination.putShort((short) 1); // format = 1 for PCM
+        destination.putShort((short) CHANNELS);
+        destination.putInt(StmAudioRecorder.SAMPLE_RATE);
+        destination.putInt(StmAudioRecorder.SAMPLE_RATE * blockAlign); // byte rate
+        destination.putShort((short) blockAlign);
+        destination.putShort((short) BITS_PER_SAMPLE);
+        destination.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        destination.putInt(dataLength);
+
+        destination.order(order);
+    }
+}
@@ -0,0 +1,21 @@
+package me.shoutto.sdk.internal.database;
+
+import android.provider.BaseColumns;
+
+/**
+ * Contract class for message entries.  Message entries are the user's messages synced from the
+ * Shout to Me service, stored as the JSON the service returned and indexed by sent date.
+ */
+
+public final class MessageContract {
+
+    private MessageContract() {}
+
+    public static class Message implements BaseColumns {
+        public static final String TABLE_NAME = "message";
+        public static final String COLUMN_NAME_USER_ID = "user_id";
+        public static final String COLUMN_NAME_MESSAGE_ID = "message_id";
+        public static final String COLUMN_NAME_SENT_DATE = "sent_date";
+        public static final String COLUMN_NAME_JSON = "json";
+    }
+}
@@ -0,0 +1,16 @@
+package me.shoutto.sdk.internal.database;
+
+import java.util.List;
+
+/**
+ * Interface for the message data access object
+ */
+
+public interface MessageDao {
+
+    public void addMessageRecords(List<MessageRecord> messageRecords);
+    public MessageRecord getNewestMessageRecord(String userId);
+    public List<MessageRecord> getMessageRecordsBefore(String userId, MessageRecord before, int limit);
+    public long getNumRows(String userId);
+    public void deleteMessageRecords(String userId);
+}
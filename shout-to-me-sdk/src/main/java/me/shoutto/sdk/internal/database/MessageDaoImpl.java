@@ -0,0 +1,173 @@
+package me.shoutto.sdk.internal.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data access object for message records. Records are read newest first, one page at a time,
+ * using the sent date and message ID of the last record of the previous page as the cursor, so
+ * each page is read from the sent date index no matter how many messages are stored. Adding a
+ * record that is already stored replaces it.
+ */
+
+public class MessageDaoImpl implements MessageDao {
+
+    private static final String[] PROJECTION = {
+            MessageContract.Message._ID,
+            MessageContract.Message.COLUMN_NAME_USER_ID,
+            MessageContract.Message.COLUMN_NAME_MESSAGE_ID,
+            MessageContract.Message.COLUMN_NAME_SENT_DATE,
+            MessageContract.Message.COLUMN_NAME_JSON
+    };
+    private static final String ORDER_BY_NEWEST =
+            MessageContract.Message.COLUMN_NAME_SENT_DATE + " DESC, " +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + " DESC";
+    private static final String SELECTION_USER =
+            MessageContract.Message.COLUMN_NAME_USER_ID + " = ?";
+    private static final String SELECTION_USER_BEFORE =
+            MessageContract.Message.COLUMN_NAME_USER_ID + " = ? AND (" +
+                    MessageContract.Message.COLUMN_NAME_SENT_DATE + " < ? OR (" +
+                    MessageContract.Message.COLUMN_NAME_SENT_DATE + " = ? AND " +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + " < ?))";
+    private static final String SQL_INSERT =
+            "INSERT OR REPLACE INTO " + MessageContract.Message.TABLE_NAME + " (" +
+                    MessageContract.Message.COLUMN_NAME_USER_ID + "," +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + "," +
+                    MessageContract.Message.COLUMN_NAME_SENT_DATE + "," +
+                    MessageContract.Message.COLUMN_NAME_JSON + ") VALUES (?,?,?,?)";
+    private static final String SQL_COUNT =
+            "SELECT COUNT(*) FROM " + MessageContract.Message.TABLE_NAME +
+                    " WHERE " + MessageContract.Message.COLUMN_NAME_USER_ID + " = ?";
+    private static final String SQL_DELETE =
+            "DELETE FROM " + MessageContract.Message.TABLE_NAME +
+                    " WHERE " + MessageContract.Message.COLUMN_NAME_USER_ID + " = ?";
+    private static MessageDaoImpl instance;
+    private final StmDbHelper stmDbHelper;
+    private SQLiteDatabase db;
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement countStatement;
+    private SQLiteStatement deleteStatement;
+
+    MessageDaoImpl(StmDbHelper stmDbHelper) {
+        this.stmDbHelper = stmDbHelper;
+    }
+
+    public static synchronized MessageDaoImpl getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageDaoImpl(StmDbHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    @Override
+    public synchronized void addMessageRecords(List<MessageRecord> messageRecords) {
+        SQLiteDatabase db = getDatabase();
+        db.beginTransaction();
+        try {
+            for (MessageRecord messageRecord : messageRecords) {
+                insertStatement.bindString(1, messageRecord.getUserId());
+                insertStatement.bindString(2, messageRecord.getMessageId());
+                insertStatement.bindLong(3, messageRecord.getSentDate().getTime());
+                insertStatement.bindString(4, messageRecord.getJson());
+                insertStatement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Gets the record with the latest sent date, which is the point to sync newer messages from
+     * @param userId the ID of the user the messages belong to
+     * @return the newest record or null if none are stored
+     */
+    @Override
+    public MessageRecord getNewestMessageRecord(String userId) {
+        List<MessageRecord> messageRecords = getMessageRecordsBefore(userId, null, 1);
+        return messageRecords.isEmpty() ? null : messageRecords.get(0);
+    }
+
+    /**
+     * Gets a page of records, newest first
+     * @param userId the ID of the user the messages belong to
+     * @param before the last record of the previous page, or null for the first page
+     * @param limit the maximum number of records to return
+     * @return the records sent before the given record ordered by sent date, newest first
+     */
+    @Override
+    public List<MessageRecord> getMessageRecordsBefore(String userId, MessageRecord before, int limit) {
+        String selection;
+        String[] selectionArgs;
+        if (before == null) {
+            selection = SELECTION_USER;
+            selectionArgs = new String[] { userId };
+        } else {
+            String sentDate = String.valueOf(before.getSentDate().getTime());
+            selection = SELECTION_USER_BEFORE;
+            selectionArgs = new String[] { userId, sentDate, sentDate, before.getMessageId() };
+        }
+
+        Cursor cursor = getDatabase().query(
+                MessageContract.Message.TABLE_NAME,
+                PROJECTION,
+                selection,
+                selectionArgs,
+                null,
+                null,
+                ORDER_BY_NEWEST,
+                String.valueOf(limit)
+        );
+        return getMessageRecords(cursor);
+    }
+
+    @Override
+    public synchronized long getNumRows(String userId) {
+        getDatabase();
+        countStatement.bindString(1, userId);
+        return countStatement.simpleQueryForLong();
+    }
+
+    @Override
+    public synchronized void deleteMessageRecords(String userId) {
+        getDatabase();
+        deleteStatement.bindString(1, userId);
+        deleteStatement.executeUpdateDelete();
+    }
+
+    private List<MessageRecord> getMessageRecords(Cursor cursor) {
+        List<MessageRecord> messageRecords = new ArrayList<>();
+
+        try {
+            while (cursor.moveToNext()) {
+                MessageRecord messageRecord = new MessageRecord();
+                messageRecord.setId(cursor.getLong(0));
+                messageRecord.setUserId(cursor.getString(1));
+                messageRecord.setMessageId(cursor.getString(2));
+                messageRecord.setSentDate(new Date(cursor.getLong(3)));
+                messageRecord.setJson(cursor.getString(4));
+                messageRecords.add(messageRecord);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return messageRecords;
+    }
+
+    private synchronized SQLiteDatabase getDatabase() {
+        if (db == null) {
+            db = stmDbHelper.getWritableDatabase();
+            insertStatement = db.compileStatement(SQL_INSERT);
+            countStatement = db.compileStatement(SQL_COUNT);
+            deleteStatement = db.compileStatement(SQL_DELETE);
+        }
+        return db;
+    }
+}
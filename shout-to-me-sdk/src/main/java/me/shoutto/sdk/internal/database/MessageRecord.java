@@ -0,0 +1,56 @@
+package me.shoutto.sdk.internal.database;
+
+import java.util.Date;
+
+/**
+ * A POJO representation of a message data record
+ */
+
+public class MessageRecord {
+
+    private long id;
+    private String userId;
+    private String messageId;
+    private Date sentDate;
+    private String json;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public Date getSentDate() {
+        return sentDate;
+    }
+
+    public void setSentDate(Date sentDate) {
+        this.sentDate = sentDate;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public void setJson(String json) {
+        this.json = json;
+    }
+}
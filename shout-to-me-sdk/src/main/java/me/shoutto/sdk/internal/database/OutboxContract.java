@@ -0,0 +1,24 @@
+package me.shoutto.sdk.internal.database;
+
+import android.provider.BaseColumns;
+
+/**
+ * Contract class for outbox entries.  Each entry is a write request to the Shout to Me service
+ * that has not been delivered yet.  Entries are sent in insertion order.
+ */
+
+public final class OutboxContract {
+
+    private OutboxContract() {}
+
+    public static class Outbox implements BaseColumns {
+        public static final String TABLE_NAME = "outbox";
+        public static final String COLUMN_NAME_DATE = "date";
+        public static final String COLUMN_NAME_HTTP_METHOD = "http_method";
+        public static final String COLUMN_NAME_URL = "url";
+        public static final String COLUMN_NAME_BODY = "body";
+        public static final String COLUMN_NAME_COALESCING_KEY = "coalescing_key";
+        public static final String COLUMN_NAME_ATTEMPTS = "attempts";
+        public static final String COLUMN_NAME_NEXT_ATTEMPT_DATE = "next_attempt_date";
+    }
+}
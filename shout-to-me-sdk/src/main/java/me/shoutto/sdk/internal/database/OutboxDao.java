@@ -0,0 +1,17 @@
+package me.shoutto.sdk.internal.database;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface for the outbox data access object
+ */
+
+public interface OutboxDao {
+
+    public long addOutboxRecord(OutboxRecord outboxRecord);
+    public OutboxRecord getFirstOutboxRecord();
+    public List<OutboxRecord> getOutboxRecordsWithCoalescingKey(String coalescingKey);
+    public void updateOutboxRecordAttempts(long outboxRecordId, int attempts, Date nextAttemptDate);
+    public void deleteOutboxRecord(long outboxRecordId);
+}
@@ -0,0 +1,117 @@
+package me.shoutto.sdk.internal.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data access object for outbox records
+ */
+
+public class OutboxDaoImpl implements OutboxDao {
+
+    private static final String[] PROJECTION = {
+            OutboxContract.Outbox._ID,
+            OutboxContract.Outbox.COLUMN_NAME_DATE,
+            OutboxContract.Outbox.COLUMN_NAME_HTTP_METHOD,
+            OutboxContract.Outbox.COLUMN_NAME_URL,
+            OutboxContract.Outbox.COLUMN_NAME_BODY,
+            OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY,
+            OutboxContract.Outbox.COLUMN_NAME_ATTEMPTS,
+            OutboxContract.Outbox.COLUMN_NAME_NEXT_ATTEMPT_DATE
+    };
+    private StmDbHelper stmDbHelper;
+
+    public OutboxDaoImpl(Context context) {
+        stmDbHelper = StmDbHelper.getInstance(context);
+    }
+
+    @Override
+    public long addOutboxRecord(OutboxRecord outboxRecord) {
+        ContentValues values = new ContentValues();
+        values.put(OutboxContract.Outbox.COLUMN_NAME_DATE, outboxRecord.getDate().getTime());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_HTTP_METHOD, outboxRecord.getHttpMethod());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_URL, outboxRecord.getUrl());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_BODY, outboxRecord.getBody());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY, outboxRecord.getCoalescingKey());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_ATTEMPTS, outboxRecord.getAttempts());
+        values.put(OutboxContract.Outbox.COLUMN_NAME_NEXT_ATTEMPT_DATE, outboxRecord.getNextAttemptDate().getTime());
+
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        return db.insert(OutboxContract.Outbox.TABLE_NAME, null, values);
+    }
+
+    @Override
+    public OutboxRecord getFirstOutboxRecord() {
+        List<OutboxRecord> outboxRecords = queryOutboxRecords(null, null, "1");
+        return outboxRecords.isEmpty() ? null : outboxRecords.get(0);
+    }
+
+    @Override
+    public List<OutboxRecord> getOutboxRecordsWithCoalescingKey(String coalescingKey) {
+        return queryOutboxRecords(OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY + " = ?",
+                new String[] { coalescingKey }, null);
+    }
+
+    @Override
+    public void updateOutboxRecordAttempts(long outboxRecordId, int attempts, Date nextAttemptDate) {
+        ContentValues values = new ContentValues();
+        values.put(OutboxContract.Outbox.COLUMN_NAME_ATTEMPTS, attempts);
+        values.put(OutboxContract.Outbox.COLUMN_NAME_NEXT_ATTEMPT_DATE, nextAttemptDate.getTime());
+
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        db.update(OutboxContract.Outbox.TABLE_NAME, values, OutboxContract.Outbox._ID + " = ?",
+                new String[] { String.valueOf(outboxRecordId) });
+    }
+
+    @Override
+    public void deleteOutboxRecord(long outboxRecordId) {
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        db.delete(OutboxContract.Outbox.TABLE_NAME, OutboxContract.Outbox._ID + " = ?",
+                new String[] { String.valueOf(outboxRecordId) });
+    }
+
+    private List<OutboxRecord> queryOutboxRecords(String selection, String[] selectionArgs, String limit) {
+        List<OutboxRecord> outboxRecords = new ArrayList<>();
+
+        SQLiteDatabase db = stmDbHelper.getReadableDatabase();
+        Cursor cursor = null;
+
+        try {
+            cursor = db.query(
+                    OutboxContract.Outbox.TABLE_NAME,
+                    PROJECTION,
+                    selection,
+                    selectionArgs,
+                    null,
+                    null,
+                    OutboxContract.Outbox._ID + " asc",
+                    limit
+            );
+
+            while (cursor.moveToNext()) {
+                OutboxRecord outboxRecord = new OutboxRecord();
+                outboxRecord.setId(cursor.getLong(cursor.getColumnIndexOrThrow(OutboxContract.Outbox._ID)));
+                outboxRecord.setDate(new Date(cursor.getLong(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_DATE))));
+                outboxRecord.setHttpMethod(cursor.getString(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_HTTP_METHOD)));
+                outboxRecord.setUrl(cursor.getString(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_URL)));
+                outboxRecord.setBody(cursor.getString(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_BODY)));
+                outboxRecord.setCoalescingKey(cursor.getString(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY)));
+                outboxRecord.setAttempts(cursor.getInt(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_ATTEMPTS)));
+                outboxRecord.setNextAttemptDate(new Date(cursor.getLong(cursor.getColumnIndexOrThrow(OutboxContract.Outbox.COLUMN_NAME_NEXT_ATTEMPT_DATE))));
+                outboxRecords.add(outboxRecord);
+            }
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+
+        return outboxRecords;
+    }
+}
@@ -0,0 +1,89 @@
+package me.shoutto.sdk.internal.database;
+
+import java.util.Date;
+
+/**
+ * A POJO representation of an outbox data record
+ */
+
+public class OutboxRecord {
+
+    private long id;
+    private Date date;
+    private String httpMethod;
+    private String url;
+    private String body;
+    private String coalescingKey;
+    private int attempts;
+    private Date nextAttemptDate;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Date getDate() {
+        if (date == null) {
+            date = new Date();
+        }
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getCoalescingKey() {
+        return coalescingKey;
+    }
+
+    public void setCoalescingKey(String coalescingKey) {
+        this.coalescingKey = coalescingKey;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptDate() {
+        if (nextAttemptDate == null) {
+            nextAttemptDate = getDate();
+        }
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Date nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+}
@@ -5,12 +5,14 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 /**
- * Database helper class for Shout to Me data storage needs.
+ * Database helper class for Shout to Me data storage needs. The DAOs share one helper and keep
+ * its database open for the life of the process, since SQLiteDatabase is thread safe and opening
+ * a connection for every call is expensive.
  */
 
 public class StmDbHelper extends SQLiteOpenHelper {
 
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 6;
     private static final String DATABASE_NAME = "ShoutToMeSDK.db";
 
     private static final String SQL_CREATE_ENTRIES =
@@ -23,26 +25,139 @@ public class StmDbHelper extends SQLiteOpenHelper {
                     UserLocationContract.UserLocation.COLUMN_NAME_RADIUS + " REAL," +
                     UserLocationContract.UserLocation.COLUMN_NAME_TYPE + " TEXT)";
 
+    private static final String SQL_CREATE_USER_LOCATION_DATE_INDEX =
+            "CREATE INDEX user_location_date ON " + UserLocationContract.UserLocation.TABLE_NAME +
+                    " (" + UserLocationContract.UserLocation.COLUMN_NAME_DATE + ")";
+
+    private static final String SQL_CREATE_UPLOAD_ENTRIES =
+            "CREATE TABLE " + UploadContract.Upload.TABLE_NAME + " (" +
+                    UploadContract.Upload._ID + " INTEGER PRIMARY KEY," +
+                    UploadContract.Upload.COLUMN_NAME_DATE + " INTEGER," +
+                    UploadContract.Upload.COLUMN_NAME_FILE_PATH + " TEXT UNIQUE," +
+                    UploadContract.Upload.COLUMN_NAME_FILE_LENGTH + " INTEGER," +
+                    UploadContract.Upload.COLUMN_NAME_FILE_LAST_MODIFIED + " INTEGER," +
+                    UploadContract.Upload.COLUMN_NAME_PART_SIZE + " INTEGER," +
+                    UploadContract.Upload.COLUMN_NAME_OBJECT_KEY + " TEXT," +
+                    UploadContract.Upload.COLUMN_NAME_UPLOAD_ID + " TEXT)";
+
+    private static final String SQL_CREATE_UPLOAD_PART_ENTRIES =
+            "CREATE TABLE " + UploadContract.UploadPart.TABLE_NAME + " (" +
+                    UploadContract.UploadPart._ID + " INTEGER PRIMARY KEY," +
+                    UploadContract.UploadPart.COLUMN_NAME_UPLOAD + " INTEGER," +
+                    UploadContract.UploadPart.COLUMN_NAME_PART_NUMBER + " INTEGER," +
+                    UploadContract.UploadPart.COLUMN_NAME_ETAG + " TEXT," +
+                    "UNIQUE (" + UploadContract.UploadPart.COLUMN_NAME_UPLOAD + "," +
+                    UploadContract.UploadPart.COLUMN_NAME_PART_NUMBER + "))";
+
+    private static final String SQL_CREATE_OUTBOX_ENTRIES =
+            "CREATE TABLE " + OutboxContract.Outbox.TABLE_NAME + " (" +
+                    OutboxContract.Outbox._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    OutboxContract.Outbox.COLUMN_NAME_DATE + " INTEGER," +
+                    OutboxContract.Outbox.COLUMN_NAME_HTTP_METHOD + " TEXT," +
+                    OutboxContract.Outbox.COLUMN_NAME_URL + " TEXT," +
+                    OutboxContract.Outbox.COLUMN_NAME_BODY + " TEXT," +
+                    OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY + " TEXT," +
+                    OutboxContract.Outbox.COLUMN_NAME_ATTEMPTS + " INTEGER," +
+                    OutboxContract.Outbox.COLUMN_NAME_NEXT_ATTEMPT_DATE + " INTEGER)";
+
+    private static final String SQL_CREATE_OUTBOX_INDEX =
+            "CREATE INDEX outbox_coalescing_key ON " + OutboxContract.Outbox.TABLE_NAME +
+                    " (" + OutboxContract.Outbox.COLUMN_NAME_COALESCING_KEY + ")";
+
+    // Outbox tables created before version 6 have an authorization column with the auth token
+    private static final String SQL_CLEAR_OUTBOX_AUTHORIZATION =
+            "UPDATE " + OutboxContract.Outbox.TABLE_NAME + " SET authorization = NULL";
+
+    private static final String SQL_CREATE_MESSAGE_ENTRIES =
+            "CREATE TABLE " + MessageContract.Message.TABLE_NAME + " (" +
+                    MessageContract.Message._ID + " INTEGER PRIMARY KEY," +
+                    MessageContract.Message.COLUMN_NAME_USER_ID + " TEXT," +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + " TEXT," +
+                    MessageContract.Message.COLUMN_NAME_SENT_DATE + " INTEGER," +
+                    MessageContract.Message.COLUMN_NAME_JSON + " TEXT," +
+                    "UNIQUE (" + MessageContract.Message.COLUMN_NAME_USER_ID + "," +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + "))";
+
+    private static final String SQL_CREATE_MESSAGE_SENT_DATE_INDEX =
+            "CREATE INDEX message_sent_date ON " + MessageContract.Message.TABLE_NAME +
+                    " (" + MessageContract.Message.COLUMN_NAME_USER_ID + "," +
+                    MessageContract.Message.COLUMN_NAME_SENT_DATE + "," +
+                    MessageContract.Message.COLUMN_NAME_MESSAGE_ID + ")";
+
     private static final String SQL_DELETE_ENTRIES =
             "DROP TABLE IF EXISTS " + UserLocationContract.UserLocation.TABLE_NAME;
 
+    private static final String SQL_DELETE_UPLOAD_ENTRIES =
+            "DROP TABLE IF EXISTS " + UploadContract.Upload.TABLE_NAME;
+
+    private static final String SQL_DELETE_UPLOAD_PART_ENTRIES =
+            "DROP TABLE IF EXISTS " + UploadContract.UploadPart.TABLE_NAME;
+
+    private static final String SQL_DELETE_OUTBOX_ENTRIES =
+            "DROP TABLE IF EXISTS " + OutboxContract.Outbox.TABLE_NAME;
+
+    private static final String SQL_DELETE_MESSAGE_ENTRIES =
+            "DROP TABLE IF EXISTS " + MessageContract.Message.TABLE_NAME;
+
+    private static StmDbHelper instance;
+
     StmDbHelper(Context context) {
         super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
     }
 
+    static synchronized StmDbHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new StmDbHelper(context);
+        }
+        return instance;
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_ENTRIES);
+        db.execSQL(SQL_CREATE_USER_LOCATION_DATE_INDEX);
+        db.execSQL(SQL_CREATE_UPLOAD_ENTRIES);
+        db.execSQL(SQL_CREATE_UPLOAD_PART_ENTRIES);
+        db.execSQL(SQL_CREATE_OUTBOX_ENTRIES);
+        db.execSQL(SQL_CREATE_OUTBOX_INDEX);
+        db.execSQL(SQL_CREATE_MESSAGE_ENTRIES);
+        db.execSQL(SQL_CREATE_MESSAGE_SENT_DATE_INDEX);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL(SQL_DELETE_ENTRIES);
-        onCreate(db);
+        if (oldVersion < 2) {
+            // Version 2 adds the upload journal. Pending user locations are kept.
+            db.execSQL(SQL_CREATE_UPLOAD_ENTRIES);
+            db.execSQL(SQL_CREATE_UPLOAD_PART_ENTRIES);
+        }
+        if (oldVersion < 3) {
+            // Version 3 adds the outbox.
+            db.execSQL(SQL_CREATE_OUTBOX_ENTRIES);
+            db.execSQL(SQL_CREATE_OUTBOX_INDEX);
+        }
+        if (oldVersion < 4) {
+            // Version 4 indexes user locations by date for trimming the oldest entries.
+            db.execSQL(SQL_CREATE_USER_LOCATION_DATE_INDEX);
+        }
+        if (oldVersion < 5) {
+            // Version 5 adds the local message store.
+            db.execSQL(SQL_CREATE_MESSAGE_ENTRIES);
+            db.execSQL(SQL_CREATE_MESSAGE_SENT_DATE_INDEX);
+        }
+        if (oldVersion >= 3 && oldVersion < 6) {
+            // Version 6 no longer stores auth tokens with queued requests.
+            db.execSQL(SQL_CLEAR_OUTBOX_AUTHORIZATION);
+        }
     }
 
     @Override
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        onUpgrade(db, oldVersion, newVersion);
+        db.execSQL(SQL_DELETE_ENTRIES);
+        db.execSQL(SQL_DELETE_UPLOAD_ENTRIES);
+        db.execSQL(SQL_DELETE_UPLOAD_PART_ENTRIES);
+        db.execSQL(SQL_DELETE_OUTBOX_ENTRIES);
+        db.execSQL(SQL_DELETE_MESSAGE_ENTRIES);
+        onCreate(db);
     }
 }
@@ -0,0 +1,32 @@
+package me.shoutto.sdk.internal.database;
+
+import android.provider.BaseColumns;
+
+/**
+ * Contract class for the upload journal.  An upload entry is stored for each file being uploaded
+ * in parts, along with an entry for each part the server has acknowledged, so that an
+ * interrupted upload can be resumed without sending those parts again.
+ */
+
+public final class UploadContract {
+
+    private UploadContract() {}
+
+    public static class Upload implements BaseColumns {
+        public static final String TABLE_NAME = "upload";
+        public static final String COLUMN_NAME_DATE = "date";
+        public static final String COLUMN_NAME_FILE_PATH = "file_path";
+        public static final String COLUMN_NAME_FILE_LENGTH = "file_length";
+        public static final String COLUMN_NAME_FILE_LAST_MODIFIED = "file_last_modified";
+        public static final String COLUMN_NAME_PART_SIZE = "part_size";
+        public static final String COLUMN_NAME_OBJECT_KEY = "object_key";
+        public static final String COLUMN_NAME_UPLOAD_ID = "upload_id";
+    }
+
+    public static class UploadPart implements BaseColumns {
+        public static final String TABLE_NAME = "upload_part";
+        public static final String COLUMN_NAME_UPLOAD = "upload";
+        public static final String COLUMN_NAME_PART_NUMBER = "part_number";
+        public static final String COLUMN_NAME_ETAG = "etag";
+    }
+}
@@ -0,0 +1,19 @@
+package me.shoutto.sdk.internal.database;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for the upload journal data access object
+ */
+
+public interface UploadDao {
+
+    public long addUploadRecord(UploadRecord uploadRecord);
+    public UploadRecord getUploadRecord(String filePath);
+    public List<UploadRecord> getUploadRecordsCreatedBefore(Date date);
+    public void addCompletedPart(long uploadRecordId, int partNumber, String eTag);
+    public Map<Integer, String> getCompletedParts(long uploadRecordId);
+    public void deleteUploadRecord(long uploadRecordId);
+}
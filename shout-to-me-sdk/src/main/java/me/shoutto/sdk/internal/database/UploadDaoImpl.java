@@ -0,0 +1,168 @@
+package me.shoutto.sdk.internal.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data access object for upload journal records
+ */
+
+public class UploadDaoImpl implements UploadDao {
+
+    private static final String[] UPLOAD_PROJECTION = {
+            UploadContract.Upload._ID,
+            UploadContract.Upload.COLUMN_NAME_DATE,
+            UploadContract.Upload.COLUMN_NAME_FILE_PATH,
+            UploadContract.Upload.COLUMN_NAME_FILE_LENGTH,
+            UploadContract.Upload.COLUMN_NAME_FILE_LAST_MODIFIED,
+            UploadContract.Upload.COLUMN_NAME_PART_SIZE,
+            UploadContract.Upload.COLUMN_NAME_OBJECT_KEY,
+            UploadContract.Upload.COLUMN_NAME_UPLOAD_ID
+    };
+    private StmDbHelper stmDbHelper;
+
+    public UploadDaoImpl(Context context) {
+        stmDbHelper = StmDbHelper.getInstance(context);
+    }
+
+    @Override
+    public long addUploadRecord(UploadRecord uploadRecord) {
+        ContentValues values = new ContentValues();
+        values.put(UploadContract.Upload.COLUMN_NAME_DATE, uploadRecord.getDate().getTime());
+        values.put(UploadContract.Upload.COLUMN_NAME_FILE_PATH, uploadRecord.getFilePath());
+        values.put(UploadContract.Upload.COLUMN_NAME_FILE_LENGTH, uploadRecord.getFileLength());
+        values.put(UploadContract.Upload.COLUMN_NAME_FILE_LAST_MODIFIED, uploadRecord.getFileLastModified());
+        values.put(UploadContract.Upload.COLUMN_NAME_PART_SIZE, uploadRecord.getPartSize());
+        values.put(UploadContract.Upload.COLUMN_NAME_OBJECT_KEY, uploadRecord.getObjectKey());
+        values.put(UploadContract.Upload.COLUMN_NAME_UPLOAD_ID, uploadRecord.getUploadId());
+
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        return db.insert(UploadContract.Upload.TABLE_NAME, null, values);
+    }
+
+    @Override
+    public UploadRecord getUploadRecord(String filePath) {
+        List<UploadRecord> uploadRecords = queryUploadRecords(
+                UploadContract.Upload.COLUMN_NAME_FILE_PATH + " = ?", new String[] { filePath });
+        return uploadRecords.isEmpty() ? null : uploadRecords.get(0);
+    }
+
+    @Override
+    public List<UploadRecord> getUploadRecordsCreatedBefore(Date date) {
+        return queryUploadRecords(UploadContract.Upload.COLUMN_NAME_DATE + " < ?",
+                new String[] { String.valueOf(date.getTime()) });
+    }
+
+    @Override
+    public void addCompletedPart(long uploadRecordId, int partNumber, String eTag) {
+        ContentValues values = new ContentValues();
+        values.put(UploadContract.UploadPart.COLUMN_NAME_UPLOAD, uploadRecordId);
+        values.put(UploadContract.UploadPart.COLUMN_NAME_PART_NUMBER, partNumber);
+        values.put(UploadContract.UploadPart.COLUMN_NAME_ETAG, eTag);
+
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        db.insertWithOnConflict(UploadContract.UploadPart.TABLE_NAME, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    @Override
+    public Map<Integer, String> getCompletedParts(long uploadRecordId) {
+        Map<Integer, String> completedParts = new TreeMap<>();
+
+        SQLiteDatabase db = stmDbHelper.getReadableDatabase();
+
+        String[] projection = {
+                UploadContract.UploadPart.COLUMN_NAME_PART_NUMBER,
+                UploadContract.UploadPart.COLUMN_NAME_ETAG
+        };
+
+        Cursor cursor = null;
+
+        try {
+            cursor = db.query(
+                    UploadContract.UploadPart.TABLE_NAME,
+                    projection,
+                    UploadContract.UploadPart.COLUMN_NAME_UPLOAD + " = ?",
+                    new String[] { String.valueOf(uploadRecordId) },
+                    null,
+                    null,
+                    null
+            );
+
+            while (cursor.moveToNext()) {
+                completedParts.put(
+                        cursor.getInt(cursor.getColumnIndexOrThrow(UploadContract.UploadPart.COLUMN_NAME_PART_NUMBER)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(UploadContract.UploadPart.COLUMN_NAME_ETAG)));
+            }
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+
+        return completedParts;
+    }
+
+    @Override
+    public void deleteUploadRecord(long uploadRecordId) {
+        String[] selectionArgs = { String.valueOf(uploadRecordId) };
+
+        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(UploadContract.UploadPart.TABLE_NAME,
+                    UploadContract.UploadPart.COLUMN_NAME_UPLOAD + " = ?", selectionArgs);
+            db.delete(UploadContract.Upload.TABLE_NAME,
+                    UploadContract.Upload._ID + " = ?", selectionArgs);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<UploadRecord> queryUploadRecords(String selection, String[] selectionArgs) {
+        List<UploadRecord> uploadRecords = new ArrayList<>();
+
+        SQLiteDatabase db = stmDbHelper.getReadableDatabase();
+        Cursor cursor = null;
+
+        try {
+            cursor = db.query(
+                    UploadContract.Upload.TABLE_NAME,
+                    UPLOAD_PROJECTION,
+                    selection,
+                    selectionArgs,
+                    null,
+                    null,
+                    UploadContract.Upload.COLUMN_NAME_DATE + " desc"
+            );
+
+            while (cursor.moveToNext()) {
+                UploadRecord uploadRecord = new UploadRecord();
+                uploadRecord.setId(cursor.getLong(cursor.getColumnIndexOrThrow(UploadContract.Upload._ID)));
+                uploadRecord.setDate(new Date(cursor.getLong(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_DATE))));
+                uploadRecord.setFilePath(cursor.getString(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_FILE_PATH)));
+                uploadRecord.setFileLength(cursor.getLong(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_FILE_LENGTH)));
+                uploadRecord.setFileLastModified(cursor.getLong(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_FILE_LAST_MODIFIED)));
+                uploadRecord.setPartSize(cursor.getLong(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_PART_SIZE)));
+                uploadRecord.setObjectKey(cursor.getString(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_OBJECT_KEY)));
+                uploadRecord.setUploadId(cursor.getString(cursor.getColumnIndexOrThrow(UploadContract.Upload.COLUMN_NAME_UPLOAD_ID)));
+                uploadRecords.add(uploadRecord);
+            }
+        } finally {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+
+        return uploadRecords;
+    }
+}
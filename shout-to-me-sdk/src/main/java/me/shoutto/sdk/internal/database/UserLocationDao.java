@@ -12,8 +12,10 @@ public interface UserLocationDao {
 
     public void addUserLocationRecord(UserLocationRecord userLocationRecord);
     public void deleteAllUserLocationRecords();
+    public void deleteUserLocationRecords(List<Long> ids);
     public List<UserLocationRecord> getAllUserLocationRecords();
     public List<UserLocation> getAllUserLocations();
+    public List<UserLocationRecord> getOldestUserLocationRecords(int limit);
     public long getNumRows();
     public void truncateTable();
 }
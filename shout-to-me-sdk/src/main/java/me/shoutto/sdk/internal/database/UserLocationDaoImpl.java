@@ -1,201 +1,231 @@
 package me.shoutto.sdk.internal.database;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
-import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
-import android.text.TextUtils;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import me.shoutto.sdk.StmBaseEntity;
 import me.shoutto.sdk.UserLocation;
 
 /**
- * Data access object for user location records
+ * Data access object for user location records. All instances share one database connection
+ * and the writes use precompiled statements. Adding a record trims the table to the newest
+ * MAX_NUM_RECORDS records in the same transaction.
  */
 
 public class UserLocationDaoImpl implements UserLocationDao {
 
     private static final String TAG = UserLocationDaoImpl.class.getSimpleName();
     private static final long MAX_NUM_RECORDS = 1000;
-    private StmDbHelper stmDbHelper;
+    private static final String[] PROJECTION = {
+            UserLocationContract.UserLocation.COLUMN_NAME_DATE,
+            UserLocationContract.UserLocation.COLUMN_NAME_LAT,
+            UserLocationContract.UserLocation.COLUMN_NAME_LON,
+            UserLocationContract.UserLocation.COLUMN_NAME_METERS_SINCE_LAST_UPDDATE,
+            UserLocationContract.UserLocation.COLUMN_NAME_RADIUS,
+            UserLocationContract.UserLocation.COLUMN_NAME_TYPE,
+            UserLocationContract.UserLocation._ID
+    };
+    private static final String SQL_INSERT =
+            "INSERT INTO " + UserLocationContract.UserLocation.TABLE_NAME + " (" +
+                    UserLocationContract.UserLocation.COLUMN_NAME_DATE + "," +
+                    UserLocationContract.UserLocation.COLUMN_NAME_LAT + "," +
+                    UserLocationContract.UserLocation.COLUMN_NAME_LON + "," +
+                    UserLocationContract.UserLocation.COLUMN_NAME_METERS_SINCE_LAST_UPDDATE + "," +
+                    UserLocationContract.UserLocation.COLUMN_NAME_RADIUS + "," +
+                    UserLocationContract.UserLocation.COLUMN_NAME_TYPE + ") VALUES (?,?,?,?,?,?)";
+    private static final String SQL_TRIM =
+            "DELETE FROM " + UserLocationContract.UserLocation.TABLE_NAME +
+                    " WHERE " + UserLocationContract.UserLocation._ID + " NOT IN (SELECT " +
+                    UserLocationContract.UserLocation._ID + " FROM " + UserLocationContract.UserLocation.TABLE_NAME +
+                    " ORDER BY " + UserLocationContract.UserLocation.COLUMN_NAME_DATE + " DESC LIMIT ?)";
+    private static final String SQL_COUNT =
+            "SELECT COUNT(*) FROM " + UserLocationContract.UserLocation.TABLE_NAME;
+    private static final String SQL_DELETE_ALL =
+            "DELETE FROM " + UserLocationContract.UserLocation.TABLE_NAME;
+    private static final String SQL_DELETE =
+            "DELETE FROM " + UserLocationContract.UserLocation.TABLE_NAME +
+                    " WHERE " + UserLocationContract.UserLocation._ID + " = ?";
+    private static UserLocationDaoImpl instance;
+    private final StmDbHelper stmDbHelper;
+    private final long maxNumRecords;
+    private SQLiteDatabase db;
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement trimStatement;
+    private SQLiteStatement countStatement;
+    private SQLiteStatement deleteAllStatement;
+    private SQLiteStatement deleteStatement;
+
+    UserLocationDaoImpl(StmDbHelper stmDbHelper, long maxNumRecords) {
+        this.stmDbHelper = stmDbHelper;
+        this.maxNumRecords = maxNumRecords;
+    }
 
-    public UserLocationDaoImpl(Context context) {
-        stmDbHelper = new StmDbHelper(context);
+    public static synchronized UserLocationDaoImpl getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserLocationDaoImpl(StmDbHelper.getInstance(context), MAX_NUM_RECORDS);
+        }
+        return instance;
     }
 
     @Override
-    public void addUserLocationRecord(UserLocationRecord userLocationRecord) {
-        ContentValues values = new ContentValues();
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_DATE, userLocationRecord.getDate().getTime());
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_LAT, userLocationRecord.getLat());
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_LON, userLocationRecord.getLon());
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_METERS_SINCE_LAST_UPDDATE, userLocationRecord.getMetersSinceLastUpdate());
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_RADIUS, userLocationRecord.getRadius());
-        values.put(UserLocationContract.UserLocation.COLUMN_NAME_TYPE, userLocationRecord.getType());
-
-        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+    public synchronized void addUserLocationRecord(UserLocationRecord userLocationRecord) {
+        SQLiteDatabase db = getDatabase();
+        db.beginTransaction();
         try {
-            db.insert(UserLocationContract.UserLocation.TABLE_NAME, null, values);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
+            insertStatement.bindLong(1, userLocationRecord.getDate().getTime());
+            insertStatement.bindDouble(2, userLocationRecord.getLat());
+            insertStatement.bindDouble(3, userLocationRecord.getLon());
+            insertStatement.bindDouble(4, userLocationRecord.getMetersSinceLastUpdate());
+            insertStatement.bindDouble(5, userLocationRecord.getRadius());
+            if (userLocationRecord.getType() != null) {
+                insertStatement.bindString(6, userLocationRecord.getType());
+            } else {
+                insertStatement.bindNull(6);
             }
+            insertStatement.executeInsert();
+
+            int result = trim();
+            if (result > 0) {
+                Log.d(TAG, String.format("Removed %d record(s) from the User Location database", result));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
     }
 
     @Override
-    public void deleteAllUserLocationRecords() {
-        SQLiteDatabase db = stmDbHelper.getWritableDatabase();
+    public synchronized void deleteAllUserLocationRecords() {
+        getDatabase();
+        deleteAllStatement.executeUpdateDelete();
+    }
+
+    @Override
+    public synchronized void deleteUserLocationRecords(List<Long> ids) {
+        SQLiteDatabase db = getDatabase();
+        db.beginTransaction();
         try {
-            db.delete(UserLocationContract.UserLocation.TABLE_NAME, null, null);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
+            for (Long id : ids) {
+                deleteStatement.bindLong(1, id);
+                deleteStatement.executeUpdateDelete();
             }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
     }
 
     @Override
     public List<UserLocationRecord> getAllUserLocationRecords() {
-        List<UserLocationRecord> userLocationRecords = new ArrayList<>();
-
-        SQLiteDatabase db = stmDbHelper.getReadableDatabase();
+        return getUserLocationRecords(query(null, null));
+    }
 
-        String[] projection = {
-                UserLocationContract.UserLocation.COLUMN_NAME_DATE,
-                UserLocationContract.UserLocation.COLUMN_NAME_LAT,
-                UserLocationContract.UserLocation.COLUMN_NAME_LON,
-                UserLocationContract.UserLocation.COLUMN_NAME_METERS_SINCE_LAST_UPDDATE,
-                UserLocationContract.UserLocation.COLUMN_NAME_RADIUS,
-                UserLocationContract.UserLocation.COLUMN_NAME_TYPE
-        };
+    /**
+     * Gets the oldest records first so that a backlog can be sent in date order, one page at a
+     * time. The returned records include their IDs for deleteUserLocationRecords.
+     * @param limit the maximum number of records to return
+     * @return the oldest records ordered by date
+     */
+    @Override
+    public List<UserLocationRecord> getOldestUserLocationRecords(int limit) {
+        return getUserLocationRecords(query(UserLocationContract.UserLocation.COLUMN_NAME_DATE + " ASC, "
+                + UserLocationContract.UserLocation._ID + " ASC", String.valueOf(limit)));
+    }
 
-        Cursor cursor = null;
+    @Override
+    public List<UserLocation> getAllUserLocations() {
+        List<UserLocation> userLocations = new ArrayList<>();
 
+        Cursor cursor = query(null, null);
         try {
-            cursor  = db.query(
-                    UserLocationContract.UserLocation.TABLE_NAME,
-                    projection,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null
-            );
-
-            while(cursor.moveToNext()) {
-                UserLocationRecord userLocationRecord = new UserLocationRecord();
-                userLocationRecord.setDate(new Date(cursor.getLong(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_DATE))));
-                userLocationRecord.setLat(cursor.getDouble(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_LAT)));
-                userLocationRecord.setLon(cursor.getDouble(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_LON)));
-                userLocationRecord.setMetersSinceLastUpdate(cursor.getFloat(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_METERS_SINCE_LAST_UPDDATE)));
-                userLocationRecord.setRadius(cursor.getFloat(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_RADIUS)));
-                userLocationRecord.setType(cursor.getString(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation.COLUMN_NAME_TYPE )));
-                userLocationRecords.add(userLocationRecord);
+            while (cursor.moveToNext()) {
+                UserLocation userLocation = new UserLocation();
+                userLocation.setDate(new Date(cursor.getLong(0)));
+                float metersSinceLastUpdate = cursor.getFloat(3);
+                if (metersSinceLastUpdate > 0.0) {
+                    userLocation.setMetersSinceLastUpdate(metersSinceLastUpdate);
+                }
+                Double[] coordinates = { cursor.getDouble(2), cursor.getDouble(1) };
+                userLocation.setLocation(new UserLocation.Location(coordinates));
+                userLocations.add(userLocation);
             }
         } finally {
-            if (cursor != null && !cursor.isClosed()) {
-                cursor.close();
-            }
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
+            cursor.close();
         }
 
-        return userLocationRecords;
+        return userLocations;
     }
 
     @Override
-    public List<UserLocation> getAllUserLocations() {
-        List<UserLocationRecord> userLocationRecords = getAllUserLocationRecords();
+    public synchronized long getNumRows() {
+        getDatabase();
+        return countStatement.simpleQueryForLong();
+    }
 
-        List<UserLocation> userLocations = new ArrayList<>();
-        for (UserLocationRecord locationRecord : userLocationRecords) {
-            UserLocation userLocation = new UserLocation();
-            userLocation.setDate(locationRecord.getDate());
-            if (locationRecord.getMetersSinceLastUpdate() > 0.0) {
-                userLocation.setMetersSinceLastUpdate(locationRecord.getMetersSinceLastUpdate());
-            }
-            Double[] coordinates = { locationRecord.getLon(), locationRecord.getLat() };
-            userLocation.setLocation(new UserLocation.Location(coordinates));
-            userLocations.add(userLocation);
+    @Override
+    public synchronized void truncateTable() {
+        getDatabase();
+        int result = trim();
+        if (result > 0) {
+            Log.d(TAG, String.format("Removed %d record(s) from the User Location database", result));
         }
+    }
 
-        return userLocations;
+    private int trim() {
+        trimStatement.bindLong(1, maxNumRecords);
+        return trimStatement.executeUpdateDelete();
     }
 
-    @Override
-    public long getNumRows() {
-        SQLiteDatabase db = stmDbHelper.getReadableDatabase();
-        long numRows = 0;
+    private List<UserLocationRecord> getUserLocationRecords(Cursor cursor) {
+        List<UserLocationRecord> userLocationRecords = new ArrayList<>();
 
         try {
-            numRows = DatabaseUtils.queryNumEntries(db, UserLocationContract.UserLocation.TABLE_NAME);
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
+            while (cursor.moveToNext()) {
+                UserLocationRecord userLocationRecord = new UserLocationRecord();
+                userLocationRecord.setDate(new Date(cursor.getLong(0)));
+                userLocationRecord.setLat(cursor.getDouble(1));
+                userLocationRecord.setLon(cursor.getDouble(2));
+                userLocationRecord.setMetersSinceLastUpdate(cursor.getFloat(3));
+                userLocationRecord.setRadius(cursor.getFloat(4));
+                userLocationRecord.setType(cursor.getString(5));
+                userLocationRecord.setId(cursor.getLong(6));
+                userLocationRecords.add(userLocationRecord);
             }
+        } finally {
+            cursor.close();
         }
 
-        return numRows;
+        return userLocationRecords;
     }
 
-    @Override
-    public void truncateTable() {
-        long numRows = getNumRows();
-        if (numRows > MAX_NUM_RECORDS) {
-            long numRowsToDelete = numRows - MAX_NUM_RECORDS;
-            String[] idsToDelete = new String[(int)(numRowsToDelete)];
-            SQLiteDatabase readableDatabase = stmDbHelper.getReadableDatabase();
-            List<String> placeholderList = new ArrayList<>((int)(numRowsToDelete));
-
-            String[] projection = { UserLocationContract.UserLocation._ID };
-            Cursor cursor = null;
-            try {
-                cursor = readableDatabase.query(
-                        UserLocationContract.UserLocation.TABLE_NAME,
-                        projection,
-                        null,
-                        null,
-                        null,
-                        null,
-                        "date asc",
-                        String.valueOf(numRowsToDelete)
-                );
-
-                int index = 0;
-                while(cursor.moveToNext()) {
-                    idsToDelete[index] = String.valueOf(cursor.getLong(cursor.getColumnIndexOrThrow(UserLocationContract.UserLocation._ID)));
-                    placeholderList.add(index, "?");
-                    index++;
-                }
-            } finally {
-                if (cursor != null && !cursor.isClosed()) {
-                    cursor.close();
-                }
-                if (readableDatabase != null && readableDatabase.isOpen()) {
-                    readableDatabase.close();
-                }
-            }
-
-            String placeholdersStr = TextUtils.join(",", placeholderList);
-
-            SQLiteDatabase writableDatabase = stmDbHelper.getWritableDatabase();
-            try {
-                int result = writableDatabase.delete(UserLocationContract.UserLocation.TABLE_NAME, "_id in (" + placeholdersStr + ")", idsToDelete);
-                Log.d(TAG, String.format("Removed %d record(s) from the User Location database", result));
-            } finally {
-                if (writableDatabase != null && writableDatabase.isOpen()) {
-                    writableDatabase.close();
-                }
-            }
+    private Cursor query(String orderBy, String limit) {
+        return getDatabase().query(
+                UserLocationContract.UserLocation.TABLE_NAME,
+                PROJECTION,
+                null,
+                null,
+                null,
+                null,
+                orderBy,
+                limit
+        );
+    }
 
+    private synchronized SQLiteDatabase getDatabase() {
+        if (db == null) {
+            db = stmDbHelper.getWritableDatabase();
+            insertStatement = db.compileStatement(SQL_INSERT);
+            trimStatement = db.compileStatement(SQL_TRIM);
+            countStatement = db.compileStatement(SQL_COUNT);
+            deleteAllStatement = db.compileStatement(SQL_DELETE_ALL);
+            deleteStatement = db.compileStatement(SQL_DELETE);
         }
+        return db;
     }
 }
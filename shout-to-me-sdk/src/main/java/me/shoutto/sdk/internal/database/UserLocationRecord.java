@@ -8,6 +8,7 @@ import java.util.Date;
 
 public class UserLocationRecord {
 
+    private long id;
     private Date date;
     private double lat;
     private double lon;
@@ -15,6 +16,14 @@ public class UserLocationRecord {
     private float radius;
     private String type;
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public Date getDate() {
         if (date == null) {
             date = new Date();
@@ -0,0 +1,114 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A JSON request body with one field whose value is the Base64 encoding of another request body.
+ * The encoded value is written as the body is read, so the request is the same as a JSON object
+ * with a Base64 string but the data is never held in memory as a whole.
+ */
+public class Base64JsonRequestBody implements StmHttpRequestBody {
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(UTF_8);
+    // A multiple of 3, so that every full buffer encodes without padding
+    private static final int BUFFER_SIZE = 3 * 2730;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final StmHttpRequestBody body;
+
+    /**
+     * @param json the other fields, as a JSON object
+     * @param name the name of the Base64 field, which is added as the last field
+     * @param body the data to encode. Its length must be known.
+     */
+    public Base64JsonRequestBody(String json, String name, StmHttpRequestBody body) {
+        String fields = json.trim();
+        fields = fields.substring(0, fields.length() - 1).trim();
+        String separator = fields.length() > 1 ? "," : "";
+        prefix = (fields + separator + "\"" + name + "\":\"").getBytes(UTF_8);
+        suffix = "\"}".getBytes(UTF_8);
+        this.body = body;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE_JSON;
+    }
+
+    @Override
+    public long getContentLength() {
+        return prefix.length + (body.getContentLength() + 2) / 3 * 4 + suffix.length;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(prefix);
+        Base64EncodingStream base64EncodingStream = new Base64EncodingStream(outputStream);
+        body.writeTo(base64EncodingStream);
+        base64EncodingStream.finish();
+        outputStream.write(suffix);
+    }
+
+    /**
+     * Encodes what is written to it in groups of 3 bytes and writes the encoding to the
+     * underlying stream. finish encodes the last, padded group without closing the stream.
+     */
+    private static class Base64EncodingStream extends OutputStream {
+
+        private final OutputStream outputStream;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] encoded = new byte[BUFFER_SIZE / 3 * 4];
+        private int count;
+
+        Base64EncodingStream(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flushBuffer();
+                }
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(data, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void finish() throws IOException {
+            flushBuffer();
+        }
+
+        private void flushBuffer() throws IOException {
+            int length = 0;
+            for (int i = 0; i < count; i += 3) {
+                int remaining = count - i;
+                int b0 = buffer[i] & 0xff;
+                int b1 = remaining > 1 ? buffer[i + 1] & 0xff : 0;
+                int b2 = remaining > 2 ? buffer[i + 2] & 0xff : 0;
+                encoded[length++] = ALPHABET[b0 >>> 2];
+                encoded[length++] = ALPHABET[((b0 & 0x03) << 4) | (b1 >>> 4)];
+                encoded[length++] = remaining > 1 ? ALPHABET[((b1 & 0x0f) << 2) | (b2 >>> 6)] : (byte) '=';
+                encoded[length++] = remaining > 2 ? ALPHABET[b2 & 0x3f] : (byte) '=';
+            }
+            outputStream.write(encoded, 0, length);
+            count = 0;
+        }
+    }
+}
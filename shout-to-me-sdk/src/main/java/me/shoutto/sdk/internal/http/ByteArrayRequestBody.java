@@ -0,0 +1,33 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body held in memory, used for JSON requests
+ */
+public class ByteArrayRequestBody implements StmHttpRequestBody {
+
+    private final String contentType;
+    private final byte[] data;
+
+    public ByteArrayRequestBody(String contentType, byte[] data) {
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public long getContentLength() {
+        return data.length;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(data);
+    }
+}
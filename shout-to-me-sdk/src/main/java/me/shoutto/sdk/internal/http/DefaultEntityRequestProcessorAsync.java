@@ -3,6 +3,8 @@ package me.shoutto.sdk.internal.http;
 import android.util.Log;
 
 import com.android.volley.AuthFailureError;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
@@ -11,35 +13,55 @@ import com.android.volley.toolbox.JsonObjectRequest;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.internal.StmEventBus;
+import me.shoutto.sdk.internal.StmObservable;
 import me.shoutto.sdk.internal.StmObservableResults;
 import me.shoutto.sdk.internal.StmObservableType;
 import me.shoutto.sdk.internal.StmObserver;
 
 /**
- * Volley based async HTTP request processor
+ * Volley based async HTTP request processor. GET responses are cached in StmResponseCache for at
+ * least the time to live passed to the constructor. A GET that is identical to one in flight,
+ * with the same URL, authorization and response adapter, is not sent. Its observers are notified
+ * with the response of the request in flight.
  */
 
 public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcessor<StmBaseEntity> {
 
     private static final String TAG = DefaultEntityRequestProcessorAsync.class.getSimpleName();
-    private ArrayList<StmObserver> observers;
+    private final StmEventBus eventBus;
     private StmJsonRequestAdapter<StmBaseEntity> requestAdapter;
     private StmRequestQueue requestQueue;
     private StmHttpResponseAdapter<T> responseAdapter;
     private final String authToken;
     private StmUrlProvider urlProvider;
+    private final long cacheTimeToLive;
 
     public DefaultEntityRequestProcessorAsync(StmJsonRequestAdapter<StmBaseEntity> stmHttpRequestAdapter,
                                               StmRequestQueue stmRequestQueue,
                                               StmHttpResponseAdapter<T> stmHttpResponseAdapter,
                                               String authToken,
                                               StmUrlProvider stmUrlProvider) {
-        observers = new ArrayList<>();
+        this(stmHttpRequestAdapter, stmRequestQueue, stmHttpResponseAdapter, authToken, stmUrlProvider, 0);
+    }
+
+    /**
+     * @param cacheTimeToLive the minimum time in milliseconds that GET responses are served from
+     *                        the cache without a network call, or 0 to use the service's cache
+     *                        headers only
+     */
+    public DefaultEntityRequestProcessorAsync(StmJsonRequestAdapter<StmBaseEntity> stmHttpRequestAdapter,
+                                              StmRequestQueue stmRequestQueue,
+                                              StmHttpResponseAdapter<T> stmHttpResponseAdapter,
+                                              String authToken,
+                                              StmUrlProvider stmUrlProvider,
+                                              long cacheTimeToLive) {
+        this.cacheTimeToLive = cacheTimeToLive;
+        eventBus = new StmEventBus();
         requestAdapter = stmHttpRequestAdapter;
         requestQueue = stmRequestQueue;
         responseAdapter = stmHttpResponseAdapter;
@@ -48,6 +70,7 @@ public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcesso
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void processRequest(final HttpMethod httpMethod, final StmBaseEntity stmBaseEntity) {
         String jsonDataString = "";
         if (httpMethod.equals(HttpMethod.POST) || httpMethod.equals(HttpMethod.PUT)) {
@@ -58,15 +81,17 @@ public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcesso
 
         String url = urlProvider.getUrl(stmBaseEntity, httpMethod);
 
+        final String inFlightKey = httpMethod == HttpMethod.GET
+                ? StmInFlightRequests.getKey(url, "Bearer " + authToken, responseAdapter) : null;
+        if (inFlightKey != null && !StmInFlightRequests.getInstance().join(inFlightKey, this)) {
+            return;
+        }
+
         Response.Listener<JSONObject> responseListener = new Response.Listener<JSONObject>() {
             @Override
             public void onResponse(JSONObject response) {
                 T entity = responseAdapter.adapt(response);
-                StmObservableResults<T> stmObservableResults = new StmObservableResults<>();
-                stmObservableResults.setError(false);
-                stmObservableResults.setResult(entity);
-                stmObservableResults.setStmObservableType(StmObservableType.STM_SERVICE_RESPONSE);
-                notifyObservers(stmObservableResults);
+                complete(inFlightKey, StmObservableResults.success(entity, StmObservableType.STM_SERVICE_RESPONSE));
             }
         };
 
@@ -74,31 +99,46 @@ public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcesso
             @Override
             public void onErrorResponse(VolleyError error) {
                 if (error.networkResponse != null && error.networkResponse.statusCode == 404) {
-                    StmObservableResults<T> stmObservableResults = new StmObservableResults<>();
-                    stmObservableResults.setError(false);
-                    stmObservableResults.setResult(null);
-                    stmObservableResults.setStmObservableType(StmObservableType.STM_SERVICE_RESPONSE);
-                    notifyObservers(stmObservableResults);
+                    complete(inFlightKey, StmObservableResults.empty(StmObservableType.STM_SERVICE_RESPONSE));
                 } else {
                     Log.w(TAG, "An error occurred calling Shout to Me service. " + error.getMessage());
-                    StmObservableResults stmObservableResults = new StmObservableResults();
-                    stmObservableResults.setError(true);
-                    stmObservableResults.setErrorMessage("An error occurred calling Shout to Me service. " + error.getMessage());
-                    notifyObservers(stmObservableResults);
+                    complete(inFlightKey, StmObservableResults.failure(
+                            "An error occurred calling Shout to Me service. " + error.getMessage()));
                 }
             }
         };
 
+        if (responseAdapter instanceof StmHttpStreamingResponseAdapter) {
+            StmStreamingJsonRequest<T> streamingRequest = new StmStreamingJsonRequest<>(
+                    adaptHttpMethod(httpMethod),
+                    url,
+                    "".equals(jsonDataString) ? null : jsonDataString,
+                    authToken,
+                    cacheTimeToLive,
+                    (StmHttpStreamingResponseAdapter<T>) responseAdapter,
+                    new Response.Listener<StmJsonEnvelope<T>>() {
+                        @Override
+                        public void onResponse(StmJsonEnvelope<T> envelope) {
+                            T entity = envelope.isSuccess() ? envelope.getData() : null;
+                            complete(inFlightKey,
+                                    StmObservableResults.success(entity, StmObservableType.STM_SERVICE_RESPONSE));
+                        }
+                    },
+                    errorListener);
+            streamingRequest.setShouldCache(httpMethod == HttpMethod.GET);
+            setRetryPolicy(streamingRequest, httpMethod);
+            requestQueue.addToRequestQueue(streamingRequest);
+            return;
+        }
+
         JSONObject jsonDataObject = null;
         try {
             if (!"".equals(jsonDataString)) {
                 jsonDataObject = new JSONObject(jsonDataString);
             }
         } catch (JSONException ex) {
-            StmObservableResults stmObservableResults = new StmObservableResults();
-            stmObservableResults.setError(true);
-            stmObservableResults.setErrorMessage("An error occurred parsing JSON string. Aborting request. JSON:" + jsonDataString);
-            notifyObservers(stmObservableResults);
+            complete(inFlightKey, StmObservableResults.failure(
+                    "An error occurred parsing JSON string. Aborting request. JSON:" + jsonDataString));
             return;
         }
 
@@ -115,11 +155,52 @@ public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcesso
                 params.put("Content-Type", "application/json");
                 return params;
             }
+
+            @Override
+            public String getCacheKey() {
+                return StmResponseCache.getCacheKey(getUrl(), "Bearer " + authToken);
+            }
+
+            @Override
+            protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+                Response<JSONObject> parsedResponse = super.parseNetworkResponse(response);
+                if (parsedResponse.isSuccess() && "success".equals(parsedResponse.result.optString("status"))) {
+                    StmResponseCache.applyTimeToLive(parsedResponse, cacheTimeToLive);
+                }
+                return parsedResponse;
+            }
         };
+        jsonObjectRequest.setShouldCache(httpMethod == HttpMethod.GET);
+        setRetryPolicy(jsonObjectRequest, httpMethod);
 
         requestQueue.addToRequestQueue(jsonObjectRequest);
     }
 
+    /**
+     * Notifies the observers of this request processor, and of the processors that joined the
+     * request if it was a GET
+     */
+    private void complete(String inFlightKey, StmObservableResults stmObservableResults) {
+        if (inFlightKey == null) {
+            notifyObservers(stmObservableResults);
+            return;
+        }
+        for (StmObservable stmObservable : StmInFlightRequests.getInstance().complete(inFlightKey)) {
+            stmObservable.notifyObservers(stmObservableResults);
+        }
+    }
+
+    /**
+     * Volley retries requests that time out. A POST that timed out may have been processed, and
+     * sending it again would create a duplicate, such as a second shout, so POSTs are not retried.
+     */
+    private static void setRetryPolicy(Request<?> request, HttpMethod httpMethod) {
+        if (HttpMethod.POST.equals(httpMethod)) {
+            request.setRetryPolicy(new DefaultRetryPolicy(DefaultRetryPolicy.DEFAULT_TIMEOUT_MS, 0,
+                    DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        }
+    }
+
     private int adaptHttpMethod(HttpMethod httpMethod) {
         if (HttpMethod.DELETE.equals(httpMethod)) {
             return Request.Method.DELETE;
@@ -136,18 +217,16 @@ public class DefaultEntityRequestProcessorAsync<T> implements StmRequestProcesso
 
     @Override
     public void addObserver(StmObserver o) {
-        observers.add(o);
+        eventBus.addObserver(o);
     }
 
     @Override
     public void deleteObserver(StmObserver o) {
-        observers.remove(o);
+        eventBus.deleteObserver(o);
     }
 
     @Override
     public void notifyObservers(StmObservableResults stmObservableResults) {
-        for (StmObserver o : observers) {
-            o.update(stmObservableResults);
-        }
+        eventBus.notifyObservers(stmObservableResults);
     }
 }
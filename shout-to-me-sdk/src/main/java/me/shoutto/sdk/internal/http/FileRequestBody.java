@@ -0,0 +1,74 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A request body that streams a file, or a byte range of a file, in fixed-size chunks
+ */
+public class FileRequestBody implements StmHttpRequestBody {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+    private final String contentType;
+    private final File file;
+    private final long offset;
+    private final long length;
+
+    public FileRequestBody(String contentType, File file) {
+        this(contentType, file, 0, -1);
+    }
+
+    /**
+     * @param contentType the Content-Type header value
+     * @param file the file
+     * @param offset the position of the first byte to send
+     * @param length the number of bytes to send, or -1 to send the rest of the file
+     */
+    public FileRequestBody(String contentType, File file, long offset, long length) {
+        this.contentType = contentType;
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length >= 0 ? length : file.length() - offset;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            long skipped = 0;
+            while (skipped < offset) {
+                long count = inputStream.skip(offset - skipped);
+                if (count <= 0) {
+                    throw new IOException("File is shorter than the requested offset");
+                }
+                skipped += count;
+            }
+
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long remaining = getContentLength();
+            while (remaining > 0) {
+                int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("File is shorter than the requested range");
+                }
+                outputStream.write(buffer, 0, read);
+                remaining -= read;
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+}
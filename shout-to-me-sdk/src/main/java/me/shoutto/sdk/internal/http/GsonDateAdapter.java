@@ -9,36 +9,26 @@ import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
 import java.lang.reflect.Type;
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 
 /**
- * GsonDateAdapter is used by Gson to convert Dates to/from UTC.
+ * GsonDateAdapter is used by Gson to convert Dates to/from UTC. It holds no state and can be
+ * shared across threads without locking.
  */
 public class GsonDateAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
 
-    private final DateFormat dateFormat;
-
-    public GsonDateAdapter() {
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
-        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-    }
-
     @Override
-    public synchronized JsonElement serialize(Date date, Type type, JsonSerializationContext jsonSerializationContext) {
-        return new JsonPrimitive(dateFormat.format(date));
+    public JsonElement serialize(Date date, Type type, JsonSerializationContext jsonSerializationContext) {
+        return new JsonPrimitive(Iso8601DateCodec.format(date));
     }
 
     @Override
-    public synchronized Date deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext) {
+    public Date deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext) {
         try {
-            return dateFormat.parse(jsonElement.getAsString());
+            return Iso8601DateCodec.parse(jsonElement.getAsString());
         } catch (ParseException e) {
             throw new JsonParseException(e);
         }
     }
-}
\ No newline at end of file
+}
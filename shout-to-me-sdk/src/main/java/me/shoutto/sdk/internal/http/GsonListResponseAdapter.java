@@ -2,17 +2,15 @@ package me.shoutto.sdk.internal.http;
 
 import android.util.Log;
 
-import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
-import java.util.Date;
 import java.util.List;
 
 import me.shoutto.sdk.Message;
@@ -22,7 +20,7 @@ import me.shoutto.sdk.StmBaseEntity;
  * Gson adapter for converting JSON from Shout to Me service to Shout to Me a list of entity objects
  */
 
-public class GsonListResponseAdapter<T extends List, U extends StmBaseEntity> implements StmHttpResponseAdapter<T> {
+public class GsonListResponseAdapter<T extends List, U extends StmBaseEntity> implements StmHttpStreamingResponseAdapter<T> {
 
     private static final String TAG = GsonListResponseAdapter.class.getSimpleName();
     private static final String STATUS = "status";
@@ -56,16 +54,7 @@ public class GsonListResponseAdapter<T extends List, U extends StmBaseEntity> im
             JSONObject dataNode = jsonObject.getJSONObject(DATA);
             JSONArray jsonArray = dataNode.getJSONArray(listSerializationKey);
 
-            RuntimeTypeAdapterFactory<StmBaseEntity> runtimeTypeAdapterFactory = RuntimeTypeAdapterFactory
-                    .of(StmBaseEntity.class, StmBaseEntity.SERIALIZATION_FIELD)
-                    .registerSubtype(aClass, objectSerializationKey);
-
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapterFactory(runtimeTypeAdapterFactory)
-                    .registerTypeAdapter(Date.class, new GsonDateAdapter())
-                    .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                    .create();
-
+            Gson gson = GsonRegistry.getPolymorphicEntityGson(aClass, objectSerializationKey);
             list = gson.fromJson(jsonArray.toString(), typeOfT);
         } catch (JSONException ex) {
             String errorMessage = String.format("Error occurred parsing JSONArray of type %s. %s", listSerializationKey, ex.getMessage());
@@ -74,4 +63,16 @@ public class GsonListResponseAdapter<T extends List, U extends StmBaseEntity> im
 
         return list;
     }
+
+    @Override
+    public StmJsonEnvelope<T> adapt(InputStream inputStream) throws IOException {
+        Gson gson = GsonRegistry.getPolymorphicEntityGson(aClass, objectSerializationKey);
+        StmJsonEnvelope<T> envelope = StmJsonEnvelopeReader.read(inputStream, gson, listSerializationKey, typeOfT);
+        if (!envelope.isSuccess()) {
+            Log.e(TAG, String.format("Error occurred calling Shout to Me service. Response status = %s", envelope.getStatus()));
+        } else if (!envelope.isDataFound()) {
+            Log.e(TAG, String.format("Error occurred parsing JSONArray of type %s. Node not found.", listSerializationKey));
+        }
+        return envelope;
+    }
 }
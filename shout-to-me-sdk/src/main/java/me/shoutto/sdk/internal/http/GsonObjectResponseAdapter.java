@@ -2,15 +2,12 @@ package me.shoutto.sdk.internal.http;
 
 import android.util.Log;
 
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
-import java.util.Date;
 
 import me.shoutto.sdk.StmBaseEntity;
 
@@ -18,7 +15,7 @@ import me.shoutto.sdk.StmBaseEntity;
  * GsonAdapter for converting JSON from Shout to Me service to Shout to Me entity objects
  */
 
-public class GsonObjectResponseAdapter<T extends StmBaseEntity> implements StmHttpResponseAdapter<T> {
+public class GsonObjectResponseAdapter<T extends StmBaseEntity> implements StmHttpStreamingResponseAdapter<T> {
 
     private static final String TAG = GsonObjectResponseAdapter.class.getSimpleName();
     private static final String SUCCESS = "success";
@@ -45,12 +42,7 @@ public class GsonObjectResponseAdapter<T extends StmBaseEntity> implements StmHt
             JSONObject dataNode = jsonObject.getJSONObject("data");
             JSONObject objNode = dataNode.getJSONObject(serializationKey);
 
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(Date.class, new GsonDateAdapter())
-                    .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                    .create();
-
-            obj = gson.fromJson(objNode.toString(), typeOfT);
+            obj = GsonRegistry.getEntityGson().fromJson(objNode.toString(), typeOfT);
         } catch (JSONException ex) {
             String errorMessage = String.format("Error occurred parsing JSONObject of type %s. %s", serializationKey, ex.getMessage());
             Log.e(TAG, errorMessage, ex);
@@ -58,4 +50,15 @@ public class GsonObjectResponseAdapter<T extends StmBaseEntity> implements StmHt
 
         return obj;
     }
+
+    @Override
+    public StmJsonEnvelope<T> adapt(InputStream inputStream) throws IOException {
+        StmJsonEnvelope<T> envelope = StmJsonEnvelopeReader.read(inputStream, GsonRegistry.getEntityGson(), serializationKey, typeOfT);
+        if (!envelope.isSuccess()) {
+            Log.e(TAG, String.format("Error occurred calling Shout to Me service. Response status = %s", envelope.getStatus()));
+        } else if (!envelope.isDataFound()) {
+            Log.e(TAG, String.format("Error occurred parsing JSONObject of type %s. Node not found.", serializationKey));
+        }
+        return envelope;
+    }
 }
@@ -0,0 +1,92 @@
+package me.shoutto.sdk.internal.http;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+import me.shoutto.sdk.Channel;
+import me.shoutto.sdk.Conversation;
+import me.shoutto.sdk.Message;
+import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.Subscription;
+
+/**
+ * Holds the configured Gson instances used to serialize and deserialize Shout to Me entities.
+ * Gson instances are thread safe and cache the reflective type adapters they build, so they are
+ * created once and shared rather than rebuilt for every request.
+ */
+public final class GsonRegistry {
+
+    private static final Gson ENTITY_GSON = newEntityGsonBuilder().create();
+    private static final Gson POLYMORPHIC_ENTITY_GSON = newEntityGsonBuilder()
+            .registerTypeAdapterFactory(RuntimeTypeAdapterFactory
+                    .of(StmBaseEntity.class, StmBaseEntity.SERIALIZATION_FIELD)
+                    .registerSubtype(Channel.class, Channel.SERIALIZATION_KEY)
+                    .registerSubtype(Conversation.class, Conversation.SERIALIZATION_KEY)
+                    .registerSubtype(Message.class, Message.SERIALIZATION_KEY)
+                    .registerSubtype(Subscription.class, Subscription.SERIALIZATION_KEY))
+            .create();
+    private static final ConcurrentHashMap<Class<? extends StmBaseEntity>, Gson> SUBTYPE_GSON =
+            new ConcurrentHashMap<>();
+
+    static {
+        SUBTYPE_GSON.put(Channel.class, POLYMORPHIC_ENTITY_GSON);
+        SUBTYPE_GSON.put(Conversation.class, POLYMORPHIC_ENTITY_GSON);
+        SUBTYPE_GSON.put(Message.class, POLYMORPHIC_ENTITY_GSON);
+        SUBTYPE_GSON.put(Subscription.class, POLYMORPHIC_ENTITY_GSON);
+    }
+
+    private GsonRegistry() {
+    }
+
+    /**
+     * Returns the Gson used for Shout to Me entities: lower case with underscores field naming
+     * and UTC dates.
+     * @return the shared Gson instance
+     */
+    public static Gson getEntityGson() {
+        return ENTITY_GSON;
+    }
+
+    /**
+     * Returns the entity Gson that also resolves <code>StmBaseEntity</code> to the Channel,
+     * Conversation, Message and Subscription subtypes.
+     * @return the shared Gson instance
+     */
+    public static Gson getPolymorphicEntityGson() {
+        return POLYMORPHIC_ENTITY_GSON;
+    }
+
+    /**
+     * Returns a polymorphic entity Gson that resolves the specified subtype. Subtypes other than
+     * the built-in ones get their own Gson, which is built on first use and then reused.
+     * @param subtype the StmBaseEntity subclass
+     * @param label the serialization key of the subclass
+     * @return the shared Gson instance
+     */
+    public static Gson getPolymorphicEntityGson(Class<? extends StmBaseEntity> subtype, String label) {
+        Gson gson = SUBTYPE_GSON.get(subtype);
+        if (gson == null) {
+            gson = newEntityGsonBuilder()
+                    .registerTypeAdapterFactory(RuntimeTypeAdapterFactory
+                            .of(StmBaseEntity.class, StmBaseEntity.SERIALIZATION_FIELD)
+                            .registerSubtype(subtype, label))
+                    .create();
+            Gson existing = SUBTYPE_GSON.putIfAbsent(subtype, gson);
+            if (existing != null) {
+                gson = existing;
+            }
+        }
+        return gson;
+    }
+
+    private static GsonBuilder newEntityGsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Date.class, new GsonDateAdapter())
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+    }
+}
@@ -0,0 +1,176 @@
+package me.shoutto.sdk.internal.http;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Thread-safe, lock-free codec for the Shout to Me service date format
+ * <code>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</code> in UTC. Canonical values are formatted and parsed by
+ * hand without any shared mutable state. The fast path uses the proleptic Gregorian calendar,
+ * while SimpleDateFormat uses the Julian calendar before the Gregorian cutover in October 1582, so
+ * the fast path is limited to years 1900 to 9999: a conservative lower bound well after the
+ * cutover, and the largest year that fits the four digit year field. Values outside that range
+ * and non-canonical input fall back to a per-thread SimpleDateFormat so that behavior matches the
+ * original adapter.
+ */
+public final class Iso8601DateCodec {
+
+    static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final int LENGTH = 24;
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60L * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24L * MILLIS_PER_HOUR;
+    // 1900-01-01T00:00:00.000Z and 10000-01-01T00:00:00.000Z
+    private static final int MIN_FAST_PATH_YEAR = 1900;
+    private static final long MIN_FAST_PATH_MILLIS = -2208988800000L;
+    private static final long MAX_FAST_PATH_MILLIS = 253402300800000L;
+    private static final ThreadLocal<DateFormat> FALLBACK_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            DateFormat dateFormat = new SimpleDateFormat(PATTERN, Locale.US);
+            dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return dateFormat;
+        }
+    };
+
+    private Iso8601DateCodec() {
+    }
+
+    public static String format(Date date) {
+        return format(date.getTime());
+    }
+
+    public static String format(long millis) {
+        if (millis < MIN_FAST_PATH_MILLIS || millis >= MAX_FAST_PATH_MILLIS) {
+            return FALLBACK_FORMAT.get().format(new Date(millis));
+        }
+
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        long millisOfDay = millis - days * MILLIS_PER_DAY;
+
+        // Civil date from days since the epoch (proleptic Gregorian calendar)
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int hour = (int) (millisOfDay / MILLIS_PER_HOUR);
+        int minute = (int) ((millisOfDay % MILLIS_PER_HOUR) / MILLIS_PER_MINUTE);
+        int second = (int) ((millisOfDay % MILLIS_PER_MINUTE) / MILLIS_PER_SECOND);
+        int milli = (int) (millisOfDay % MILLIS_PER_SECOND);
+
+        char[] buffer = new char[LENGTH];
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, hour, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, minute, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, second, 2);
+        buffer[19] = '.';
+        writeDigits(buffer, 20, milli, 3);
+        buffer[23] = 'Z';
+        return new String(buffer);
+    }
+
+    public static Date parse(String value) throws ParseException {
+        if (value == null) {
+            throw new ParseException("Unparseable date: null", 0);
+        }
+
+        if (value.length() == LENGTH
+                && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+                && value.charAt(13) == ':' && value.charAt(16) == ':' && value.charAt(19) == '.'
+                && value.charAt(23) == 'Z') {
+            int year = readDigits(value, 0, 4);
+            int month = readDigits(value, 5, 2);
+            int day = readDigits(value, 8, 2);
+            int hour = readDigits(value, 11, 2);
+            int minute = readDigits(value, 14, 2);
+            int second = readDigits(value, 17, 2);
+            int milli = readDigits(value, 20, 3);
+
+            if (year >= MIN_FAST_PATH_YEAR && month >= 1 && month <= 12
+                    && day >= 1 && day <= daysInMonth(year, month)
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59
+                    && second >= 0 && second <= 59 && milli >= 0) {
+                long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                        + hour * MILLIS_PER_HOUR
+                        + minute * MILLIS_PER_MINUTE
+                        + second * MILLIS_PER_SECOND
+                        + milli;
+                return new Date(millis);
+            }
+        }
+
+        return FALLBACK_FORMAT.get().parse(value);
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the value of the digits or -1 if any character is not a digit
+     */
+    private static int readDigits(String value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            result--;
+        }
+        return result;
+    }
+}
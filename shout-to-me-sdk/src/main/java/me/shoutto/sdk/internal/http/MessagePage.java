@@ -0,0 +1,33 @@
+package me.shoutto.sdk.internal.http;
+
+import java.util.List;
+
+import me.shoutto.sdk.internal.database.MessageRecord;
+
+/**
+ * A page of messages from the Shout to Me service. Messages that could not be read are not in the
+ * message records but are still counted, so a full page can be told apart from the last page.
+ */
+
+public class MessagePage {
+
+    private final List<MessageRecord> messageRecords;
+    private final int messageCount;
+
+    public MessagePage(List<MessageRecord> messageRecords, int messageCount) {
+        this.messageRecords = messageRecords;
+        this.messageCount = messageCount;
+    }
+
+    public List<MessageRecord> getMessageRecords() {
+        return messageRecords;
+    }
+
+    /**
+     * Gets the number of messages the service returned, including those that could not be read
+     * @return the number of messages
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+}
@@ -0,0 +1,67 @@
+package me.shoutto.sdk.internal.http;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import me.shoutto.sdk.Message;
+import me.shoutto.sdk.internal.database.MessageRecord;
+
+/**
+ * Parse a page of messages from the Shout to Me service into message records. The messages are
+ * kept as JSON so they are only deserialized when they are read from the message store. A message
+ * without an ID or sent date cannot be stored, so it is logged and skipped.
+ */
+
+public class MessagePageResponseAdapter implements StmHttpResponseAdapter<MessagePage> {
+
+    private static final String TAG = MessagePageResponseAdapter.class.getSimpleName();
+    private static final String STATUS = "status";
+    private static final String SUCCESS = "success";
+    private static final String DATA = "data";
+    private static final String ID = "id";
+    private static final String SENT_DATE = "sent_date";
+
+    @Override
+    public MessagePage adapt(JSONObject jsonObject) {
+        JSONArray jsonArray;
+        try {
+            String status = jsonObject.getString(STATUS);
+            if (!SUCCESS.equals(status)) {
+                String errorMessage = String.format("Error occurred calling Shout to Me service. JSON response = %s", jsonObject.toString());
+                Log.e(TAG, errorMessage);
+                return null;
+            }
+
+            jsonArray = jsonObject.getJSONObject(DATA).getJSONArray(Message.LIST_SERIALIZATION_KEY);
+        } catch (JSONException ex) {
+            String errorMessage = String.format("Error occurred parsing JSONArray of type %s. %s",
+                    Message.LIST_SERIALIZATION_KEY, ex.getMessage());
+            Log.e(TAG, errorMessage, ex);
+            return null;
+        }
+
+        List<MessageRecord> messageRecords = new ArrayList<>(jsonArray.length());
+        for (int i = 0; i < jsonArray.length(); i++) {
+            try {
+                JSONObject messageJson = jsonArray.getJSONObject(i);
+                MessageRecord messageRecord = new MessageRecord();
+                messageRecord.setMessageId(messageJson.getString(ID));
+                messageRecord.setSentDate(Iso8601DateCodec.parse(messageJson.getString(SENT_DATE)));
+                messageRecord.setJson(messageJson.toString());
+                messageRecords.add(messageRecord);
+            } catch (JSONException | ParseException ex) {
+                Log.w(TAG, String.format("Skipping message %d of the page. It has no valid ID or sent date. %s",
+                        i, ex.getMessage()));
+            }
+        }
+
+        return new MessagePage(messageRecords, jsonArray.length());
+    }
+}
@@ -0,0 +1,87 @@
+package me.shoutto.sdk.internal.http;
+
+import android.util.Log;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Date;
+
+import me.shoutto.sdk.StmBaseEntity;
+
+/**
+ * Creates the URL for a page of messages sorted by sent date, oldest first. Once a cursor is set,
+ * the page starts after the message with the cursor's sent date and ID, so paging forward from
+ * the newest stored message returns only messages that are not stored yet.
+ *
+ * A provider created without a page size is not paged. It creates the URL for the whole message
+ * list and ignores the cursor.
+ */
+
+public class MessagePageUrlProvider implements StmUrlProvider {
+
+    private static final String TAG = MessagePageUrlProvider.class.getSimpleName();
+    private String baseApiUrl;
+    private int pageSize;
+    private Date afterSentDate;
+    private String afterMessageId;
+
+    public MessagePageUrlProvider(String baseApiUrl) {
+        this(baseApiUrl, 0);
+    }
+
+    public MessagePageUrlProvider(String baseApiUrl, int pageSize) {
+        this.baseApiUrl = baseApiUrl;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Sets the message that the next page starts after
+     * @param sentDate the sent date of the message, or null to start from the oldest message
+     * @param messageId the ID of the message
+     */
+    public void setCursor(Date sentDate, String messageId) {
+        afterSentDate = sentDate;
+        afterMessageId = messageId;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isPaged() {
+        return pageSize > 0;
+    }
+
+    @Override
+    public String getUrl(StmBaseEntity entity, HttpMethod httpMethod) {
+        String url;
+        if (isPaged()) {
+            url = String.format("%s%s?date_field=sent_date&sort=asc&limit=%d", baseApiUrl,
+                    entity.getBaseEndpoint(), pageSize);
+
+            if (afterSentDate != null) {
+                url = url.concat("&after=" + encode(Iso8601DateCodec.format(afterSentDate)));
+                if (afterMessageId != null) {
+                    url = url.concat("&after_id=" + encode(afterMessageId));
+                }
+            }
+        } else {
+            url = baseApiUrl + entity.getBaseEndpoint();
+        }
+
+        if (!HttpMethod.GET.equals(httpMethod)) {
+            Log.w(TAG, "MessagePageUrlProvider only supports HttpMethod.GET");
+        }
+
+        return url;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(ex);
+        }
+    }
+}
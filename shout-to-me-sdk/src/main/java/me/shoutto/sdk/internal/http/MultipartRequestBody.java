@@ -0,0 +1,108 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A multipart/form-data request body. File parts are streamed from their own request bodies when
+ * the request is written, so only the small part headers are held in memory. The content length
+ * is known whenever every file part knows its length.
+ */
+public class MultipartRequestBody implements StmHttpRequestBody {
+
+    private static final String CRLF = "\r\n";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final String boundary;
+    private final List<Part> parts;
+
+    public MultipartRequestBody() {
+        this("stm-" + UUID.randomUUID().toString());
+    }
+
+    MultipartRequestBody(String boundary) {
+        this.boundary = boundary;
+        parts = new ArrayList<>();
+    }
+
+    /**
+     * Adds a text field
+     * @param name the field name
+     * @param value the field value
+     */
+    public void addField(String name, String value) {
+        String header = "--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"" + escape(name) + "\"" + CRLF
+                + CRLF;
+        parts.add(new Part(utf8(header), new ByteArrayRequestBody(null, utf8(value))));
+    }
+
+    /**
+     * Adds a file part whose content is streamed from the body
+     * @param name the field name
+     * @param fileName the file name reported to the server
+     * @param body the file content
+     */
+    public void addFile(String name, String fileName, StmHttpRequestBody body) {
+        String header = "--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"" + escape(name) + "\"; filename=\""
+                + escape(fileName) + "\"" + CRLF
+                + "Content-Type: " + body.getContentType() + CRLF
+                + CRLF;
+        parts.add(new Part(utf8(header), body));
+    }
+
+    @Override
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public long getContentLength() {
+        long length = closingDelimiter().length;
+        for (Part part : parts) {
+            long bodyLength = part.body.getContentLength();
+            if (bodyLength < 0) {
+                return -1;
+            }
+            length += part.header.length + bodyLength + CRLF.length();
+        }
+        return length;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        byte[] crlf = utf8(CRLF);
+        for (Part part : parts) {
+            outputStream.write(part.header);
+            part.body.writeTo(outputStream);
+            outputStream.write(crlf);
+        }
+        outputStream.write(closingDelimiter());
+    }
+
+    private byte[] closingDelimiter() {
+        return utf8("--" + boundary + "--" + CRLF);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static class Part {
+        private final byte[] header;
+        private final StmHttpRequestBody body;
+
+        Part(byte[] header, StmHttpRequestBody body) {
+            this.header = header;
+            this.body = body;
+        }
+    }
+}
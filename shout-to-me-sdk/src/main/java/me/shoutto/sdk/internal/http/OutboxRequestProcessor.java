@@ -0,0 +1,144 @@
+package me.shoutto.sdk.internal.http;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.HttpURLConnection;
+
+import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.internal.StmEventBus;
+import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObservableType;
+import me.shoutto.sdk.internal.StmObserver;
+import me.shoutto.sdk.internal.database.OutboxRecord;
+
+/**
+ * Async HTTP request processor for write operations. POST, PUT and DELETE requests are added to
+ * the {@link StmOutbox} so they are delivered even if the network is unavailable when they are
+ * made. GET requests are sent directly with Volley. Observers are notified on the main thread.
+ *
+ * When the processor is coalescing, a queued request for the same resource is superseded by a
+ * new one, for example an unsubscribe made while the subscribe is still queued. The observers of
+ * the superseded request are notified of success with a null result, since the resource ends in
+ * the state the caller last asked for.
+ *
+ * The auth token is only used for GET requests. Queued requests are sent with the token of the
+ * session at the time they are sent.
+ */
+
+public class OutboxRequestProcessor<T> implements StmRequestProcessor<StmBaseEntity>, StmObserver {
+
+    private static final String TAG = OutboxRequestProcessor.class.getSimpleName();
+    private final StmEventBus eventBus;
+    private StmOutbox outbox;
+    private DefaultEntityRequestProcessorAsync<T> readRequestProcessor;
+    private StmJsonRequestAdapter<StmBaseEntity> requestAdapter;
+    private StmHttpResponseAdapter<T> responseAdapter;
+    private StmUrlProvider urlProvider;
+    private final boolean isCoalescing;
+
+    /**
+     * @param isCoalescing true if each request replaces the whole state of its resource, so that
+     *                     only the latest queued request for a resource needs to be sent. The
+     *                     resource is identified by its DELETE URL.
+     */
+    public OutboxRequestProcessor(StmOutbox stmOutbox,
+                                  StmJsonRequestAdapter<StmBaseEntity> stmHttpRequestAdapter,
+                                  StmRequestQueue stmRequestQueue,
+                                  StmHttpResponseAdapter<T> stmHttpResponseAdapter,
+                                  String authToken,
+                                  StmUrlProvider stmUrlProvider,
+                                  boolean isCoalescing) {
+        eventBus = new StmEventBus(StmEventBus.DeliveryThread.MAIN);
+        outbox = stmOutbox;
+        requestAdapter = stmHttpRequestAdapter;
+        responseAdapter = stmHttpResponseAdapter;
+        urlProvider = stmUrlProvider;
+        this.isCoalescing = isCoalescing;
+        readRequestProcessor = new DefaultEntityRequestProcessorAsync<>(stmHttpRequestAdapter,
+                stmRequestQueue, stmHttpResponseAdapter, authToken, stmUrlProvider);
+        readRequestProcessor.addObserver(this);
+    }
+
+    @Override
+    public void processRequest(HttpMethod httpMethod, StmBaseEntity stmBaseEntity) {
+        if (httpMethod.equals(HttpMethod.GET)) {
+            readRequestProcessor.processRequest(httpMethod, stmBaseEntity);
+            return;
+        }
+
+        OutboxRecord outboxRecord = new OutboxRecord();
+        outboxRecord.setHttpMethod(httpMethod.toString());
+        outboxRecord.setUrl(urlProvider.getUrl(stmBaseEntity, httpMethod));
+        if ((httpMethod.equals(HttpMethod.POST) || httpMethod.equals(HttpMethod.PUT)) && requestAdapter != null) {
+            outboxRecord.setBody(requestAdapter.adapt(stmBaseEntity));
+        }
+        if (isCoalescing) {
+            outboxRecord.setCoalescingKey(urlProvider.getUrl(stmBaseEntity, HttpMethod.DELETE));
+        }
+
+        outbox.enqueue(outboxRecord, new StmOutbox.OperationListener() {
+            @Override
+            public void onSent(int responseCode, String body) {
+                if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                    postResult(null);
+                } else if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    postError("An error occurred calling Shout to Me service. Response code " + responseCode);
+                } else if (body == null || body.isEmpty()) {
+                    postResult(null);
+                } else {
+                    postResponse(body);
+                }
+            }
+
+            @Override
+            public void onFailed(String errorMessage) {
+                postError(errorMessage);
+            }
+
+            @Override
+            public void onSuperseded() {
+                postResult(null);
+            }
+        });
+    }
+
+    private void postResponse(String body) {
+        try {
+            postResult(responseAdapter.adapt(new JSONObject(body)));
+        } catch (JSONException ex) {
+            Log.w(TAG, "An error occurred parsing the Shout to Me service response. " + body, ex);
+            postError("An error occurred parsing JSON string. JSON:" + body);
+        }
+    }
+
+    private void postResult(T result) {
+        notifyObservers(StmObservableResults.success(result, StmObservableType.STM_SERVICE_RESPONSE));
+    }
+
+    private void postError(String errorMessage) {
+        notifyObservers(StmObservableResults.failure(errorMessage));
+    }
+
+    @Override
+    public void update(StmObservableResults stmObservableResults) {
+        notifyObservers(stmObservableResults);
+    }
+
+    @Override
+    public void addObserver(StmObserver o) {
+        eventBus.addObserver(o);
+    }
+
+    @Override
+    public void deleteObserver(StmObserver o) {
+        eventBus.deleteObserver(o);
+    }
+
+    @Override
+    public void notifyObservers(StmObservableResults stmObservableResults) {
+        eventBus.notifyObservers(stmObservableResults);
+    }
+}
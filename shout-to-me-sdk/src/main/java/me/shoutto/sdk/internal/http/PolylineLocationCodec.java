@@ -0,0 +1,102 @@
+package me.shoutto.sdk.internal.http;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import me.shoutto.sdk.UserLocation;
+
+/**
+ * Compact text encoding for a list of user locations, based on the encoded polyline algorithm.
+ * Each location is written as four signed values: latitude and longitude in fixed point with five
+ * decimal places (about one meter), the date in milliseconds and the meters since the last update
+ * rounded to whole meters, or -1 when unknown. Latitude, longitude and date are written as the
+ * difference from the previous location, so a typical location takes 12 to 16 ASCII characters
+ * instead of about 150 bytes of JSON.
+ */
+public final class PolylineLocationCodec {
+
+    static final int VALUES_PER_LOCATION = 4;
+    private static final double COORDINATE_FACTOR = 1e5;
+    private static final int ESTIMATED_CHARS_PER_LOCATION = 16;
+
+    private PolylineLocationCodec() {
+    }
+
+    /**
+     * Encodes the locations in iteration order
+     * @param userLocations the locations to encode
+     * @return the encoded locations
+     */
+    public static String encode(Collection<? extends UserLocation> userLocations) {
+        StringBuilder stringBuilder = new StringBuilder(userLocations.size() * ESTIMATED_CHARS_PER_LOCATION);
+        long previousLat = 0;
+        long previousLon = 0;
+        long previousDate = 0;
+        for (UserLocation userLocation : userLocations) {
+            Double[] coordinates = userLocation.getLocation().getCoordinates();
+            long lat = Math.round(coordinates[1] * COORDINATE_FACTOR);
+            long lon = Math.round(coordinates[0] * COORDINATE_FACTOR);
+            long date = userLocation.getDate().getTime();
+            Float metersSinceLastUpdate = userLocation.getMetersSinceLastUpdate();
+
+            appendValue(stringBuilder, lat - previousLat);
+            appendValue(stringBuilder, lon - previousLon);
+            appendValue(stringBuilder, date - previousDate);
+            appendValue(stringBuilder, metersSinceLastUpdate != null ? Math.round(metersSinceLastUpdate) : -1);
+
+            previousLat = lat;
+            previousLon = lon;
+            previousDate = date;
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Decodes encoded locations to rows of latitude and longitude in fixed point, the date in
+     * milliseconds and the rounded meters since the last update
+     * @param encodedLocations the encoded locations
+     * @return one row per location
+     */
+    static List<long[]> decode(String encodedLocations) {
+        List<long[]> locations = new ArrayList<>();
+        long[] previous = new long[VALUES_PER_LOCATION];
+        int[] position = { 0 };
+        while (position[0] < encodedLocations.length()) {
+            long[] location = new long[VALUES_PER_LOCATION];
+            for (int i = 0; i < VALUES_PER_LOCATION; i++) {
+                location[i] = readValue(encodedLocations, position);
+            }
+            for (int i = 0; i < VALUES_PER_LOCATION - 1; i++) {
+                location[i] += previous[i];
+            }
+            locations.add(location);
+            previous = location;
+        }
+        return locations;
+    }
+
+    private static void appendValue(StringBuilder stringBuilder, long value) {
+        long unsigned = (value << 1) ^ (value >> 63);
+        while (unsigned >= 0x20) {
+            stringBuilder.append((char) ((0x20 | (unsigned & 0x1F)) + 63));
+            unsigned >>>= 5;
+        }
+        stringBuilder.append((char) (unsigned + 63));
+    }
+
+    private static long readValue(String encodedLocations, int[] position) {
+        long unsigned = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (position[0] >= encodedLocations.length()) {
+                throw new IllegalArgumentException("Encoded locations are truncated");
+            }
+            chunk = encodedLocations.charAt(position[0]++) - 63;
+            unsigned |= (long) (chunk & 0x1F) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (unsigned >>> 1) ^ -(unsigned & 1);
+    }
+}
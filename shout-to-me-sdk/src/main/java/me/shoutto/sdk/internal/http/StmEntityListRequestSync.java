@@ -2,29 +2,14 @@ package me.shoutto.sdk.internal.http;
 
 import android.util.Log;
 
-import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.Date;
 import java.util.List;
 
-import javax.net.ssl.HttpsURLConnection;
-
-import me.shoutto.sdk.Conversation;
-import me.shoutto.sdk.Message;
 import me.shoutto.sdk.StmBaseEntity;
-import me.shoutto.sdk.Subscription;
 
 /**
  * This class GETs, POSTs, or PUTs a list of entities from the Shout to Me API
@@ -44,76 +29,32 @@ public class StmEntityListRequestSync<T extends StmBaseEntity> extends StmHttpRe
      * @return a list of StmBaseEntity subclass objects
      */
     public List<T> process(String method, String authToken, String serverUrl, String bodyJsonString,
-                           Type serializationListType, String responseObjectKey) {
+                           final Type serializationListType, final String responseObjectKey) {
 
         List<T> entityList = null;
 
         if (!"".equals(authToken)) {
-            HttpURLConnection connection;
-            URL url;
-
             try {
-                url = new URL(serverUrl);
-                if (url.getProtocol().equals("https")) {
-                    connection = (HttpsURLConnection) url.openConnection();
-                } else {
-                    connection = (HttpURLConnection) url.openConnection();
-                }
-
-                connection.setRequestMethod(method);
-                connection.addRequestProperty("Authorization", "Bearer " + authToken);
-                connection.addRequestProperty("Content-Type", "application/json");
-
-                if (method.equals("POST") || method.equals("PUT")) {
-                    connection.setDoOutput(true);
-                    if (bodyJsonString != null) {
-                        connection.setFixedLengthStreamingMode(bodyJsonString.getBytes().length);
-                    }
+                final Gson gson = GsonRegistry.getPolymorphicEntityGson();
+
+                StmJsonEnvelope<List<T>> envelope = getHttpTransport().execute(HttpMethod.valueOf(method),
+                        serverUrl, "Bearer " + authToken, bodyJsonString,
+                        new StmHttpResponseHandler<StmJsonEnvelope<List<T>>>() {
+                            @Override
+                            public StmJsonEnvelope<List<T>> handleResponse(int responseCode, InputStream inputStream)
+                                    throws IOException {
+                                if (inputStream == null) {
+                                    throw new IOException("No response body. HTTP status " + responseCode);
+                                }
+                                return StmJsonEnvelopeReader.read(inputStream, gson, responseObjectKey,
+                                        serializationListType);
+                            }
+                        });
+
+                if (!envelope.isSuccess()) {
+                    Log.e(TAG, "Response status was " + envelope.getStatus());
                 } else {
-                    connection.setDoOutput(false);
-                }
-
-                connection.connect();
-
-                if (method.equals("POST") || method.equals("PUT")) {
-                    if (bodyJsonString != null) {
-                        OutputStream outStream = connection.getOutputStream();
-                        outStream.write(bodyJsonString.getBytes());
-                        outStream.close();
-                    }
-                }
-
-                int responseCode = connection.getResponseCode();
-
-                String response;
-                if (responseCode == 200) {
-                    final InputStream in = new BufferedInputStream(connection.getInputStream());
-                    response = convertStreamToString(in);
-                    in.close();
-                } else {
-                    final InputStream in = new BufferedInputStream(connection.getErrorStream());
-                    response = convertStreamToString(in);
-                    in.close();
-                }
-
-                JSONObject responseJson = new JSONObject(response);
-                if (!responseJson.getString("status").equals("success")) {
-                    Log.e(TAG, "Response status was " + responseJson.getString("status"));
-                } else {
-                    JSONArray jsonArray = responseJson.getJSONObject("data").getJSONArray(responseObjectKey);
-                    RuntimeTypeAdapterFactory<StmBaseEntity> runtimeTypeAdapterFactory = RuntimeTypeAdapterFactory
-                            .of(StmBaseEntity.class, StmBaseEntity.SERIALIZATION_FIELD)
-                            .registerSubtype(Conversation.class, Conversation.SERIALIZATION_KEY)
-                            .registerSubtype(Message.class, Message.SERIALIZATION_KEY)
-                            .registerSubtype(Subscription.class, Subscription.SERIALIZATION_KEY);
-
-                    Gson gson = new GsonBuilder()
-                            .registerTypeAdapterFactory(runtimeTypeAdapterFactory)
-                            .registerTypeAdapter(Date.class, new GsonDateAdapter())
-                            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                            .create();
-
-                    entityList = gson.fromJson(jsonArray.toString(), serializationListType);
+                    entityList = envelope.getData();
                 }
             }  catch (Exception ex) {
                 Log.e(TAG, "Could not process request.", ex);
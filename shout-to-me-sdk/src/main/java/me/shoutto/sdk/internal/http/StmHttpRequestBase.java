@@ -1,25 +1,40 @@
 package me.shoutto.sdk.internal.http;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 /**
  * Base class for Shout to Me HTTP request objects
  */
 class StmHttpRequestBase {
 
-    String convertStreamToString(InputStream is) throws Exception {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        StringBuilder sb = new StringBuilder();
-        String line;
+    private static final int HTTP_OK = 200;
 
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
-        }
-
-        is.close();
+    StmHttpTransport getHttpTransport() {
+        return StmHttpTransport.getInstance();
+    }
 
-        return sb.toString();
+    /**
+     * Sends the request. A successful response is parsed directly from the stream when the
+     * response adapter supports it, otherwise the body is returned as a String.
+     */
+    StmHttpResponse executeRequest(HttpMethod httpMethod, String url, String authorization, String body,
+                                   final StmHttpResponseAdapter<?> responseAdapter) throws IOException {
+        return getHttpTransport().execute(httpMethod, url, authorization, body,
+                new StmHttpResponseHandler<StmHttpResponse>() {
+                    @Override
+                    public StmHttpResponse handleResponse(int responseCode, InputStream inputStream)
+                            throws IOException {
+                        if (inputStream == null) {
+                            return new StmHttpResponse(responseCode, null);
+                        }
+                        if (responseCode == HTTP_OK && responseAdapter instanceof StmHttpStreamingResponseAdapter) {
+                            StmJsonEnvelope<?> envelope =
+                                    ((StmHttpStreamingResponseAdapter<?>) responseAdapter).adapt(inputStream);
+                            return new StmHttpResponse(responseCode, null, envelope);
+                        }
+                        return new StmHttpResponse(responseCode, StmHttpTransport.readFully(inputStream));
+                    }
+                });
     }
 }
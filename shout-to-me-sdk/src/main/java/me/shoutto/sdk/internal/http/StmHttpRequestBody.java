@@ -0,0 +1,31 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that is written directly to the connection, so that large bodies such as audio
+ * are streamed rather than copied into memory first.
+ */
+public interface StmHttpRequestBody {
+
+    /**
+     * Returns the Content-Type header value
+     * @return the content type
+     */
+    String getContentType();
+
+    /**
+     * Returns the number of bytes writeTo will write. The request is sent with fixed-length
+     * streaming when the length is known and with chunked streaming otherwise.
+     * @return the length in bytes, or -1 if it is not known in advance
+     */
+    long getContentLength();
+
+    /**
+     * Writes the body to the connection
+     * @param outputStream the request stream
+     * @throws IOException if the body cannot be written
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,34 @@
+package me.shoutto.sdk.internal.http;
+
+/**
+ * The response code and body of a request sent through {@link StmHttpTransport}. When the body
+ * was parsed while streaming, the envelope is set and the body is null.
+ */
+public class StmHttpResponse {
+
+    private final int responseCode;
+    private final String body;
+    private final StmJsonEnvelope<?> envelope;
+
+    StmHttpResponse(int responseCode, String body) {
+        this(responseCode, body, null);
+    }
+
+    StmHttpResponse(int responseCode, String body, StmJsonEnvelope<?> envelope) {
+        this.responseCode = responseCode;
+        this.body = body;
+        this.envelope = envelope;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public StmJsonEnvelope<?> getEnvelope() {
+        return envelope;
+    }
+}
@@ -0,0 +1,20 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the response of a request sent through {@link StmHttpTransport}
+ */
+
+interface StmHttpResponseHandler<T> {
+
+    /**
+     * Handles the response. Implementations do not need to close the stream.
+     * @param responseCode the HTTP response code
+     * @param inputStream the response body stream or error stream. May be null.
+     * @return the handled result
+     * @throws IOException if the stream could not be read
+     */
+    T handleResponse(int responseCode, InputStream inputStream) throws IOException;
+}
@@ -3,22 +3,15 @@ package me.shoutto.sdk.internal.http;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.support.v4.content.ContextCompat;
-import android.util.Base64;
 import android.util.Log;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.HashMap;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,20 +23,29 @@ import me.shoutto.sdk.internal.PendingApiObjectChange;
 public class StmHttpSender {
 
     private static final String TAG = StmHttpSender.class.getSimpleName();
+    // The service is not confirmed to accept multipart shouts yet. Until it is, shouts are posted
+    // as JSON with the audio as a Base64 string, which is streamed from the recording.
+    private static final boolean IS_MULTIPART_SHOUT_ENABLED = false;
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private StmService stmService;
 
     public StmHttpSender(StmService stmService) {
         this.stmService = stmService;
     }
 
-    public Shout postNewShout(Shout shout) throws Exception {
+    /**
+     * Posts a new shout to the Shout to Me service
+     * @param shout the shout, for its tags and topic
+     * @param audio the shout audio as a WAV request body, or null if the shout has no audio
+     * @return the shout from the response, or null if it could not be created
+     * @throws Exception if the shout could not be sent
+     */
+    public Shout postNewShout(Shout shout, StmHttpRequestBody audio) throws Exception {
 
         Shout shoutFromResponse = null;
-        HttpURLConnection connection;
-        int responseCode;
         try {
-            Map<String, String> params = new HashMap<>();
-            params.put("audio", new String(Base64.encode(shout.getAudio(), Base64.NO_WRAP)) ); //No_wrap to get rid of \n
+            Map<String, String> params = new LinkedHashMap<>();
             params.put("channel_id", stmService.getChannelId());
             if (shout.getTags() != null) {
                 params.put("tags", shout.getTags());
@@ -51,36 +53,21 @@ public class StmHttpSender {
             if (shout.getTopic() != null) {
                 params.put("topic", shout.getTopic());
             }
-            String requestString = buildRequestString(params);
-
-            URL url = new URL(stmService.getServerUrl() + "/shouts");
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setDoOutput(true);
-            connection.addRequestProperty("Authorization", "Bearer " + stmService.getUserAuthToken());
-            connection.addRequestProperty("Content-Type", "application/json");
-            connection.setFixedLengthStreamingMode(requestString.getBytes().length);
-            connection.connect();
-
-            OutputStream outStream = connection.getOutputStream();
-            outStream.write(requestString.getBytes());
-            outStream.close();
-
-            responseCode = connection.getResponseCode();
+            StmHttpRequestBody requestBody = IS_MULTIPART_SHOUT_ENABLED
+                    ? buildMultipartRequestBody(params, audio)
+                    : buildJsonRequestBody(params, audio);
+
+            StmHttpResponse httpResponse = StmHttpTransport.getInstance().executeStreaming(HttpMethod.POST,
+                    stmService.getServerUrl() + "/shouts", "Bearer " + stmService.getUserAuthToken(),
+                    requestBody);
+
+            int responseCode = httpResponse.getResponseCode();
             Log.d(TAG, String.valueOf(responseCode));
 
-            String response;
-            if (responseCode == 200) {
-                final InputStream in = new BufferedInputStream(connection.getInputStream());
-                response = convertStreamToString(in);
-                in.close();
-            } else {
-                final InputStream in = new BufferedInputStream(connection.getErrorStream());
-                response = convertStreamToString(in);
-                in.close();
+            String response = httpResponse.getBody();
+            if (responseCode != 200) {
                 throw new Exception("Error occurred in create shout server call. " + response);
             }
-            connection.disconnect();
 
             try {
                 JSONObject shoutResponseJson = new JSONObject(response);
@@ -106,9 +93,6 @@ public class StmHttpSender {
 
     public JSONObject putEntityObject(StmBaseEntity baseEntity) throws Exception {
 
-        HttpURLConnection connection;
-        int responseCode;
-
         JSONObject requestJson = new JSONObject();
         try {
             Set<Map.Entry<String, PendingApiObjectChange>> entrySet = baseEntity.getPendingChanges().entrySet();
@@ -123,34 +107,17 @@ public class StmHttpSender {
         String requestString = requestJson.toString();
 
         try {
-            URL url = new URL(baseEntity.getSingleResourceEndpoint().replace(":id", baseEntity.getId()));
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("PUT");
-            connection.setDoOutput(true);
-            connection.addRequestProperty("Authorization", "Bearer " + stmService.getUserAuthToken());
-            connection.addRequestProperty("Content-Type", "application/json");
-            connection.setFixedLengthStreamingMode(requestString.getBytes().length);
-            connection.connect();
-
-            OutputStream outStream = connection.getOutputStream();
-            outStream.write(requestString.getBytes());
-            outStream.close();
-
-            responseCode = connection.getResponseCode();
+            StmHttpResponse httpResponse = StmHttpTransport.getInstance().execute(HttpMethod.PUT,
+                    baseEntity.getSingleResourceEndpoint().replace(":id", baseEntity.getId()),
+                    "Bearer " + stmService.getUserAuthToken(), requestString);
+
+            int responseCode = httpResponse.getResponseCode();
             Log.d(TAG, String.valueOf(responseCode));
 
-            String response;
-            if (responseCode == 200) {
-                final InputStream in = new BufferedInputStream(connection.getInputStream());
-                response = convertStreamToString(in);
-                in.close();
-            } else {
-                final InputStream in = new BufferedInputStream(connection.getErrorStream());
-                response = convertStreamToString(in);
-                in.close();
+            String response = httpResponse.getBody();
+            if (responseCode != 200) {
                 throw new Exception("Error occurred in create shout server call. " + response);
             }
-            connection.disconnect();
 
             try {
                 return new JSONObject(response);
@@ -171,7 +138,11 @@ public class StmHttpSender {
         return null;
     }
 
-    private String buildRequestString(Map<String, String> params) {
+    /**
+     * Builds a JSON body with the request parameters as fields and the audio as a Base64 string.
+     * The audio is encoded from the recording as the request is written.
+     */
+    private StmHttpRequestBody buildJsonRequestBody(Map<String, String> params, StmHttpRequestBody audio) {
         JSONObject requestJson = new JSONObject();
         try {
             requestJson.put("device_id", stmService.getInstallationId());
@@ -183,28 +154,41 @@ public class StmHttpSender {
                 }
             }
             if (params != null) {
-                for (Map.Entry param: params.entrySet()) {
-                    requestJson.put(param.getKey().toString(), param.getValue().toString());
+                for (Map.Entry<String, String> param : params.entrySet()) {
+                    requestJson.put(param.getKey(), param.getValue());
                 }
             }
         } catch (JSONException ex) {
             Log.e(TAG, "Error occurred trying to construct Shout to Me JSON request", ex);
         }
-        Log.d(TAG, requestJson.toString());
-        return requestJson.toString();
+        if (audio == null) {
+            return new ByteArrayRequestBody(CONTENT_TYPE_JSON, requestJson.toString().getBytes(UTF_8));
+        }
+        return new Base64JsonRequestBody(requestJson.toString(), "audio", audio);
     }
 
-    private String convertStreamToString(InputStream is) throws Exception {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        StringBuilder sb = new StringBuilder();
-        String line;
-
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
+    /**
+     * Builds a multipart body with the request parameters as fields and the audio as a file part.
+     * The audio is streamed from the recording when the request is written.
+     */
+    private StmHttpRequestBody buildMultipartRequestBody(Map<String, String> params, StmHttpRequestBody audio) {
+        MultipartRequestBody requestBody = new MultipartRequestBody();
+        requestBody.addField("device_id", stmService.getInstallationId());
+        if (ContextCompat.checkSelfPermission(stmService, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED) {
+            if (stmService.getUserLocationListener() != null) {
+                requestBody.addField("lat", String.valueOf(stmService.getUserLocationListener().getLatitude()));
+                requestBody.addField("lon", String.valueOf(stmService.getUserLocationListener().getLongitude()));
+            }
         }
-
-        is.close();
-
-        return sb.toString();
+        if (params != null) {
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                requestBody.addField(param.getKey(), param.getValue());
+            }
+        }
+        if (audio != null) {
+            requestBody.addFile("audio", "shout.wav", audio);
+        }
+        return requestBody;
     }
 }
@@ -0,0 +1,14 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response adapter that can parse a Shout to Me service response directly from the response
+ * stream instead of from a fully materialized JSONObject
+ */
+
+interface StmHttpStreamingResponseAdapter<T> extends StmHttpResponseAdapter<T> {
+
+    StmJsonEnvelope<T> adapt(InputStream inputStream) throws IOException;
+}
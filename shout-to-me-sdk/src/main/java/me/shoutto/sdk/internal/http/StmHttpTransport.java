@@ -0,0 +1,260 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared HTTP transport for all synchronous calls to the Shout to Me service. Response streams are
+ * always drained and closed instead of disconnected so that the underlying socket is returned to
+ * the platform keep-alive pool and reused by the next request to the same host. The number of
+ * concurrent requests to a single host is bounded. Successful writes expire the affected responses
+ * in StmResponseCache.
+ * <p>
+ * The transport does not change the process-wide http.keepAlive and http.maxConnections system
+ * properties, since they belong to the host app. Keep-alive is on by default, and the platform
+ * keeps up to 5 idle connections per host unless the app sets http.maxConnections, which is
+ * enough for DEFAULT_MAX_REQUESTS_PER_HOST concurrent requests.
+ */
+public class StmHttpTransport {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final int STREAMING_CHUNK_SIZE = 8 * 1024;
+    private static final StmHttpResponseHandler<StmHttpResponse> STRING_RESPONSE_HANDLER =
+            new StmHttpResponseHandler<StmHttpResponse>() {
+                @Override
+                public StmHttpResponse handleResponse(int responseCode, InputStream inputStream)
+                        throws IOException {
+                    String body = inputStream != null ? readFully(inputStream) : null;
+                    return new StmHttpResponse(responseCode, body);
+                }
+            };
+    private static StmHttpTransport instance;
+    private final int maxRequestsPerHost;
+    private final ConcurrentHashMap<String, Semaphore> hostPermits;
+    private volatile int connectTimeout;
+    private volatile int readTimeout;
+
+    StmHttpTransport(int connectTimeout, int readTimeout, int maxRequestsPerHost) {
+        if (maxRequestsPerHost < 1) {
+            throw new IllegalArgumentException("maxRequestsPerHost must be greater than 0");
+        }
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        hostPermits = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized StmHttpTransport getInstance() {
+        if (instance == null) {
+            instance = new StmHttpTransport(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT,
+                    DEFAULT_MAX_REQUESTS_PER_HOST);
+        }
+        return instance;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Executes a JSON request and returns the response code and body
+     * @param httpMethod the HTTP method
+     * @param url the full URL
+     * @param authorization the Authorization header value or null
+     * @param body the request body for POST and PUT requests or null
+     * @return the response
+     * @throws IOException if the request could not be completed
+     */
+    public StmHttpResponse execute(HttpMethod httpMethod, String url, String authorization, String body)
+            throws IOException {
+        byte[] bodyBytes = body != null ? body.getBytes("UTF-8") : null;
+        return execute(httpMethod, url, authorization, CONTENT_TYPE_JSON, bodyBytes);
+    }
+
+    /**
+     * Executes a request and returns the response code and body
+     * @param httpMethod the HTTP method
+     * @param url the full URL
+     * @param authorization the Authorization header value or null
+     * @param contentType the Content-Type header value
+     * @param body the request body for POST and PUT requests or null
+     * @return the response
+     * @throws IOException if the request could not be completed
+     */
+    public StmHttpResponse execute(HttpMethod httpMethod, String url, String authorization,
+                                   String contentType, byte[] body) throws IOException {
+        return execute(httpMethod, url, authorization, contentType, body, STRING_RESPONSE_HANDLER);
+    }
+
+    /**
+     * Executes a request whose body is streamed to the connection and returns the response code
+     * and body. Bodies of known length are sent with fixed-length streaming, others are chunked,
+     * so the body is never buffered in full.
+     * @param httpMethod the HTTP method
+     * @param url the full URL
+     * @param authorization the Authorization header value or null
+     * @param body the request body
+     * @return the response
+     * @throws IOException if the request could not be completed
+     */
+    public StmHttpResponse executeStreaming(HttpMethod httpMethod, String url, String authorization,
+                                            StmHttpRequestBody body) throws IOException {
+        return execute(httpMethod, url, authorization, body.getContentType(), body, STRING_RESPONSE_HANDLER);
+    }
+
+    /**
+     * Executes a JSON request and passes the response stream to the handler
+     * @param httpMethod the HTTP method
+     * @param url the full URL
+     * @param authorization the Authorization header value or null
+     * @param body the request body for POST and PUT requests or null
+     * @param responseHandler the handler that consumes the response stream
+     * @return the result of the handler
+     * @throws IOException if the request could not be completed
+     */
+    <T> T execute(HttpMethod httpMethod, String url, String authorization, String body,
+                  StmHttpResponseHandler<T> responseHandler) throws IOException {
+        byte[] bodyBytes = body != null ? body.getBytes("UTF-8") : null;
+        return execute(httpMethod, url, authorization, CONTENT_TYPE_JSON, bodyBytes, responseHandler);
+    }
+
+    <T> T execute(HttpMethod httpMethod, String url, String authorization, String contentType,
+                  byte[] body, StmHttpResponseHandler<T> responseHandler) throws IOException {
+        StmHttpRequestBody requestBody = body != null ? new ByteArrayRequestBody(contentType, body) : null;
+        return execute(httpMethod, url, authorization, contentType, requestBody, responseHandler);
+    }
+
+    private <T> T execute(HttpMethod httpMethod, String url, String authorization, String contentType,
+                          StmHttpRequestBody body, StmHttpResponseHandler<T> responseHandler)
+            throws IOException {
+        URL requestUrl = new URL(url);
+        Semaphore permits = acquirePermit(requestUrl);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) requestUrl.openConnection();
+            connection.setRequestMethod(httpMethod.toString());
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            if (authorization != null) {
+                connection.addRequestProperty("Authorization", authorization);
+            }
+            connection.addRequestProperty("Content-Type", contentType);
+
+            boolean hasBody = (httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PUT);
+            connection.setDoOutput(hasBody);
+            if (hasBody && body != null) {
+                long contentLength = body.getContentLength();
+                if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                    connection.setFixedLengthStreamingMode((int) contentLength);
+                } else {
+                    connection.setChunkedStreamingMode(STREAMING_CHUNK_SIZE);
+                }
+            }
+
+            connection.connect();
+
+            if (hasBody && body != null) {
+                OutputStream outStream = new BufferedOutputStream(connection.getOutputStream(),
+                        STREAMING_CHUNK_SIZE);
+                try {
+                    body.writeTo(outStream);
+                } finally {
+                    outStream.close();
+                }
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (httpMethod != HttpMethod.GET && responseCode < HttpURLConnection.HTTP_MULT_CHOICE) {
+                StmResponseCache.invalidateAfterWrite(url, authorization);
+            }
+            InputStream in = responseCode < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getInputStream() : connection.getErrorStream();
+
+            if (in == null) {
+                return responseHandler.handleResponse(responseCode, null);
+            }
+
+            InputStream bufferedIn = new BufferedInputStream(in);
+            try {
+                T result = responseHandler.handleResponse(responseCode, bufferedIn);
+                drain(bufferedIn);
+                return result;
+            } finally {
+                bufferedIn.close();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Semaphore acquirePermit(URL url) throws IOException {
+        String hostKey = url.getHost() + ":" + url.getPort();
+        Semaphore permits = hostPermits.get(hostKey);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(maxRequestsPerHost, true);
+            permits = hostPermits.putIfAbsent(hostKey, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to " + hostKey);
+        }
+        return permits;
+    }
+
+    /**
+     * Reads whatever the handler left unread. Draining the stream is what allows
+     * HttpURLConnection to return the connection to the keep-alive pool.
+     */
+    private static void drain(InputStream in) {
+        try {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // Discard
+            }
+        } catch (IOException ex) {
+            // The stream was closed by the handler. The connection will not be reused.
+        }
+    }
+
+    static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+}
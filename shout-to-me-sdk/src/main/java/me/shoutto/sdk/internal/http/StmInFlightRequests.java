@@ -0,0 +1,72 @@
+package me.shoutto.sdk.internal.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.shoutto.sdk.internal.StmObservable;
+
+/**
+ * Tracks the GET requests that are in flight so that identical requests made while one is in
+ * flight, for example the unread message count requested by several views at once, share its
+ * response instead of each sending their own. The request processor that sends the request
+ * completes it and notifies the observers of every processor that joined it.
+ */
+class StmInFlightRequests {
+
+    private static final StmInFlightRequests instance = new StmInFlightRequests();
+    private final Map<String, List<StmObservable>> requests = new HashMap<>();
+
+    StmInFlightRequests() {
+    }
+
+    static StmInFlightRequests getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the key that identifies identical requests
+     * @param url the request URL
+     * @param authorization the Authorization header or null
+     * @param responseAdapter the adapter of the response, since requesters of the same URL may
+     *                        adapt the response to different types
+     * @return the key
+     */
+    static String getKey(String url, String authorization, StmHttpResponseAdapter<?> responseAdapter) {
+        return responseAdapter.getClass().getName() + " " + StmResponseCache.getCacheKey(url, authorization);
+    }
+
+    /**
+     * Adds a request processor to the request with the key
+     * @param key the request key
+     * @param stmObservable the request processor to notify when the request completes
+     * @return true if there was no request in flight and the caller must send it, false if the
+     * request processor was added to the request in flight
+     */
+    synchronized boolean join(String key, StmObservable stmObservable) {
+        List<StmObservable> requesters = requests.get(key);
+        if (requesters != null) {
+            requesters.add(stmObservable);
+            return false;
+        }
+        requesters = new ArrayList<>(1);
+        requesters.add(stmObservable);
+        requests.put(key, requesters);
+        return true;
+    }
+
+    /**
+     * Removes the request with the key. Requests made after this are sent again.
+     * @param key the request key
+     * @return the request processors to notify of the response
+     */
+    synchronized List<StmObservable> complete(String key) {
+        List<StmObservable> requesters = requests.remove(key);
+        if (requesters == null) {
+            return Collections.emptyList();
+        }
+        return requesters;
+    }
+}
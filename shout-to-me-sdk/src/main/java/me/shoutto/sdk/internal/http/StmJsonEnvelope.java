@@ -0,0 +1,54 @@
+package me.shoutto.sdk.internal.http;
+
+import android.util.Log;
+
+import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObservableType;
+
+/**
+ * The status and the requested data node of a Shout to Me service response envelope
+ * <code>{"status": "...", "data": {"key": ...}}</code>
+ */
+public class StmJsonEnvelope<T> {
+
+    private static final String TAG = StmJsonEnvelope.class.getSimpleName();
+    private static final String SUCCESS = "success";
+    private final String status;
+    private final T data;
+    private final boolean dataFound;
+
+    StmJsonEnvelope(String status, T data, boolean dataFound) {
+        this.status = status;
+        this.data = data;
+        this.dataFound = dataFound;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public boolean isDataFound() {
+        return dataFound;
+    }
+
+    public boolean isSuccess() {
+        return SUCCESS.equals(status);
+    }
+
+    /**
+     * Converts the envelope to the results that request processors notify their observers of
+     * @return the data as a service response, or a failure if the status is not success
+     */
+    StmObservableResults<T> toObservableResults() {
+        if (!isSuccess()) {
+            Log.e(TAG, "Response status was " + status);
+            return StmObservableResults.failure("An error was received from the Shout to Me service. Status: "
+                    + status);
+        }
+        return StmObservableResults.success(data, StmObservableType.STM_SERVICE_RESPONSE);
+    }
+}
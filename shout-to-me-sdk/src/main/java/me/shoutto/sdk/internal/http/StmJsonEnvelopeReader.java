@@ -0,0 +1,71 @@
+package me.shoutto.sdk.internal.http;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+
+/**
+ * Reads a Shout to Me service response envelope directly from the response stream. Only the
+ * <code>status</code> field and the <code>data.&lt;key&gt;</code> node are consumed; every other
+ * value is skipped without building an intermediate tree.
+ */
+class StmJsonEnvelopeReader {
+
+    private static final String STATUS = "status";
+    private static final String SUCCESS = "success";
+    private static final String DATA = "data";
+
+    private StmJsonEnvelopeReader() {
+    }
+
+    /**
+     * Reads the envelope from the stream. The stream is left open so that the caller can drain it
+     * and release the connection.
+     */
+    static <T> StmJsonEnvelope<T> read(InputStream inputStream, Gson gson, String dataKey, Type typeOfT)
+            throws IOException {
+        return read(new JsonReader(new InputStreamReader(inputStream, "UTF-8")), gson, dataKey, typeOfT);
+    }
+
+    static <T> StmJsonEnvelope<T> read(JsonReader jsonReader, Gson gson, String dataKey, Type typeOfT)
+            throws IOException {
+        String status = null;
+        T data = null;
+        boolean dataFound = false;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (STATUS.equals(name) && jsonReader.peek() == JsonToken.STRING) {
+                status = jsonReader.nextString();
+            } else if (DATA.equals(name) && jsonReader.peek() == JsonToken.BEGIN_OBJECT
+                    && (status == null || SUCCESS.equals(status))) {
+                // Status normally precedes data, but it is not guaranteed. Data is parsed
+                // optimistically and discarded below if the status turns out not to be success.
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    if (dataKey.equals(jsonReader.nextName())) {
+                        data = gson.fromJson(jsonReader, typeOfT);
+                        dataFound = true;
+                    } else {
+                        jsonReader.skipValue();
+                    }
+                }
+                jsonReader.endObject();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        if (!SUCCESS.equals(status)) {
+            return new StmJsonEnvelope<>(status, null, false);
+        }
+        return new StmJsonEnvelope<>(status, data, dataFound);
+    }
+}
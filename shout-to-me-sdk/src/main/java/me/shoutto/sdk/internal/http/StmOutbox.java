@@ -0,0 +1,287 @@
+package me.shoutto.sdk.internal.http;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import me.shoutto.sdk.internal.StmPreferenceManager;
+import me.shoutto.sdk.internal.StmScheduler;
+import me.shoutto.sdk.internal.database.OutboxDao;
+import me.shoutto.sdk.internal.database.OutboxDaoImpl;
+import me.shoutto.sdk.internal.database.OutboxRecord;
+
+/**
+ * A persistent FIFO of write requests to the Shout to Me service. Requests are stored in the
+ * SDK database before they are sent, and a serial worker on the io pool sends them in order. A request
+ * that fails because of the network or a server error stays at the head of the queue and is
+ * retried with exponential backoff, so queued writes survive flaky connectivity and process
+ * restarts without retry storms.
+ *
+ * A request with a coalescing key supersedes any queued request with the same key, so only the
+ * latest state of a resource, such as a channel subscription, is sent.
+ *
+ * The coalescing key also serves as the request's idempotency key. A POST without one may create
+ * a duplicate if it is sent twice, so it is only retried when the service responded that it did
+ * not process the request (408 or 429). After a network error or a server error it may already
+ * have been processed, so it fails instead.
+ *
+ * Requests are stored without credentials. The Authorization header is taken from the current
+ * session when a request is sent, so requests queued before a token refresh are not rejected and
+ * no token is kept in the database. A request that is due while there is no session is retried
+ * later.
+ */
+public class StmOutbox {
+
+    static final int MAX_ATTEMPTS = 12;
+    static final long INITIAL_BACKOFF_IN_MILLIS = 2000;
+    static final long MAX_BACKOFF_IN_MILLIS = 60 * 60 * 1000;
+    private static final String TAG = StmOutbox.class.getSimpleName();
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static StmOutbox instance;
+    private final OutboxDao outboxDao;
+    private final StmHttpTransport stmHttpTransport;
+    private final HttpAuthHeaderProvider authHeaderProvider;
+    private final Executor worker;
+    private final ScheduledExecutorService timer;
+    private final Map<Long, OperationListener> listeners;
+    private final Random random;
+    private final Runnable drainTask;
+    private ScheduledFuture<?> scheduledDrain;
+
+    StmOutbox(OutboxDao outboxDao, StmHttpTransport stmHttpTransport, HttpAuthHeaderProvider authHeaderProvider,
+              Executor worker, ScheduledExecutorService timer) {
+        this.outboxDao = outboxDao;
+        this.stmHttpTransport = stmHttpTransport;
+        this.authHeaderProvider = authHeaderProvider;
+        this.worker = worker;
+        this.timer = timer;
+        listeners = new ConcurrentHashMap<>();
+        random = new Random();
+        drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drainDueOperations();
+            }
+        };
+    }
+
+    public static synchronized void setInstance(Context context) {
+        if (instance == null) {
+            final StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(context);
+            HttpAuthHeaderProvider sessionAuthHeaderProvider = new HttpAuthHeaderProvider() {
+                @Override
+                public String getHeaderValue() throws IllegalStateException {
+                    String authToken = stmPreferenceManager.getSessionSnapshot().getAuthToken();
+                    return new BearerAuthHeaderProvider(authToken).getHeaderValue();
+                }
+            };
+            instance = new StmOutbox(new OutboxDaoImpl(context), StmHttpTransport.getInstance(),
+                    sessionAuthHeaderProvider, StmScheduler.newSerialExecutor(), StmScheduler.timer());
+        }
+    }
+
+    public static synchronized StmOutbox getInstance() {
+        return instance;
+    }
+
+    /**
+     * Adds a request to the outbox and starts sending if the worker is idle
+     * @param outboxRecord the request
+     * @param listener notified when the request has been sent, has failed permanently or has
+     *                 been superseded, or null. Listeners are kept in memory only and are called
+     *                 on the worker thread.
+     */
+    public void enqueue(final OutboxRecord outboxRecord, final OperationListener listener) {
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    addOperation(outboxRecord, listener);
+                } catch (RuntimeException ex) {
+                    Log.e(TAG, "Could not add request to the outbox", ex);
+                    if (listener != null) {
+                        listener.onFailed("Could not add request to the outbox. " + ex.getMessage());
+                    }
+                    return;
+                }
+                drainDueOperations();
+            }
+        });
+    }
+
+    /**
+     * Sends any queued requests that are due. Called when the SDK starts so that requests
+     * queued by an earlier process are delivered.
+     */
+    public void drain() {
+        worker.execute(drainTask);
+    }
+
+    void addOperation(OutboxRecord outboxRecord, OperationListener listener) {
+        String coalescingKey = outboxRecord.getCoalescingKey();
+        if (coalescingKey != null) {
+            for (OutboxRecord supersededRecord : outboxDao.getOutboxRecordsWithCoalescingKey(coalescingKey)) {
+                outboxDao.deleteOutboxRecord(supersededRecord.getId());
+                OperationListener supersededListener = listeners.remove(supersededRecord.getId());
+                if (supersededListener != null) {
+                    supersededListener.onSuperseded();
+                }
+            }
+        }
+
+        long id = outboxDao.addOutboxRecord(outboxRecord);
+        outboxRecord.setId(id);
+        if (listener != null) {
+            listeners.put(id, listener);
+        }
+    }
+
+    void drainDueOperations() {
+        OutboxRecord outboxRecord;
+        while ((outboxRecord = outboxDao.getFirstOutboxRecord()) != null) {
+            long delay = outboxRecord.getNextAttemptDate().getTime() - System.currentTimeMillis();
+            if (delay > 0) {
+                scheduleDrain(delay);
+                return;
+            }
+            send(outboxRecord);
+        }
+    }
+
+    private void send(OutboxRecord outboxRecord) {
+        String authorization;
+        try {
+            authorization = authHeaderProvider.getHeaderValue();
+        } catch (IllegalStateException ex) {
+            retryLater(outboxRecord, "There is no user session to send the request with");
+            return;
+        }
+
+        StmHttpResponse response;
+        try {
+            byte[] body = outboxRecord.getBody() != null ? outboxRecord.getBody().getBytes("UTF-8") : null;
+            response = stmHttpTransport.execute(HttpMethod.valueOf(outboxRecord.getHttpMethod()),
+                    outboxRecord.getUrl(), authorization, CONTENT_TYPE_JSON, body);
+        } catch (IOException ex) {
+            String errorMessage = "An error occurred calling Shout to Me service. " + ex.getMessage();
+            if (isIdempotent(outboxRecord)) {
+                retryLater(outboxRecord, errorMessage);
+            } else {
+                Log.w(TAG, String.format("Not retrying %s %s, which may have been processed. %s",
+                        outboxRecord.getHttpMethod(), outboxRecord.getUrl(), errorMessage));
+                fail(outboxRecord, errorMessage);
+            }
+            return;
+        }
+
+        int responseCode = response.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT || responseCode == HTTP_TOO_MANY_REQUESTS) {
+            retryLater(outboxRecord, "Shout to Me service responded with " + responseCode);
+            return;
+        }
+        if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR && isIdempotent(outboxRecord)) {
+            retryLater(outboxRecord, "Shout to Me service responded with " + responseCode);
+            return;
+        }
+
+        outboxDao.deleteOutboxRecord(outboxRecord.getId());
+        OperationListener listener = listeners.remove(outboxRecord.getId());
+        if (listener != null) {
+            listener.onSent(responseCode, response.getBody());
+        }
+    }
+
+    private static boolean isIdempotent(OutboxRecord outboxRecord) {
+        return !HttpMethod.POST.name().equals(outboxRecord.getHttpMethod())
+                || outboxRecord.getCoalescingKey() != null;
+    }
+
+    private void retryLater(OutboxRecord outboxRecord, String errorMessage) {
+        int attempts = outboxRecord.getAttempts() + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            Log.w(TAG, String.format("Giving up on %s %s after %d attempts. %s", outboxRecord.getHttpMethod(),
+                    outboxRecord.getUrl(), attempts, errorMessage));
+            fail(outboxRecord, errorMessage);
+            return;
+        }
+
+        Date nextAttemptDate = new Date(System.currentTimeMillis() + getBackoff(attempts));
+        Log.w(TAG, String.format("Attempt %d of %s %s failed. Retrying at %s. %s", attempts,
+                outboxRecord.getHttpMethod(), outboxRecord.getUrl(), nextAttemptDate, errorMessage));
+        outboxDao.updateOutboxRecordAttempts(outboxRecord.getId(), attempts, nextAttemptDate);
+        outboxRecord.setAttempts(attempts);
+        outboxRecord.setNextAttemptDate(nextAttemptDate);
+    }
+
+    private void fail(OutboxRecord outboxRecord, String errorMessage) {
+        outboxDao.deleteOutboxRecord(outboxRecord.getId());
+        OperationListener listener = listeners.remove(outboxRecord.getId());
+        if (listener != null) {
+            listener.onFailed(errorMessage);
+        }
+    }
+
+    /**
+     * Returns the backoff after the given number of failed attempts: the initial backoff doubled
+     * for each earlier failure, capped at the maximum, with up to half of it randomized so that
+     * devices that lost connectivity together do not retry together
+     */
+    long getBackoff(int attempts) {
+        long backoff = INITIAL_BACKOFF_IN_MILLIS << Math.min(attempts - 1, 20);
+        backoff = Math.min(backoff, MAX_BACKOFF_IN_MILLIS);
+        return backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+    }
+
+    private void scheduleDrain(long delay) {
+        if (scheduledDrain != null && !scheduledDrain.isDone()
+                && scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        // The timer only hands the drain over to the worker, which sends on the io pool
+        scheduledDrain = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                worker.execute(drainTask);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Listener for the outcome of a queued request
+     */
+    public interface OperationListener {
+
+        /**
+         * The request was delivered and the service responded with a final response code
+         * @param responseCode the HTTP response code
+         * @param body the response body or null
+         */
+        void onSent(int responseCode, String body);
+
+        /**
+         * The request was dropped after the maximum number of attempts
+         * @param errorMessage the error of the last attempt
+         */
+        void onFailed(String errorMessage);
+
+        /**
+         * The request was replaced by a later request with the same coalescing key before it
+         * was sent
+         */
+        void onSuperseded();
+    }
+}
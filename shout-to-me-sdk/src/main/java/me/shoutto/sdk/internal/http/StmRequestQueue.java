@@ -2,10 +2,16 @@ package me.shoutto.sdk.internal.http;
 
 import android.content.Context;
 
+import com.android.volley.AuthFailureError;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.Volley;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
 
+/**
+ * The shared Volley request queue. Responses are cached in StmResponseCache, and the cached
+ * responses affected by a POST, PUT or DELETE request are expired when it finishes.
+ */
 public class StmRequestQueue {
 
     private static StmRequestQueue instance;
@@ -31,7 +37,17 @@ public class StmRequestQueue {
         if (requestQueue == null) {
             // getApplicationContext() is key, it keeps you from leaking the
             // Activity or BroadcastReceiver if someone passes one in.
-            requestQueue = Volley.newRequestQueue(context.getApplicationContext());
+            requestQueue = new RequestQueue(StmResponseCache.getInstance(context.getApplicationContext()),
+                    new BasicNetwork(new HurlStack()));
+            requestQueue.addRequestFinishedListener(new RequestQueue.RequestFinishedListener<Object>() {
+                @Override
+                public void onRequestFinished(Request<Object> request) {
+                    if (request.getMethod() != Request.Method.GET) {
+                        invalidateAfterWrite(request);
+                    }
+                }
+            });
+            requestQueue.start();
         }
         return requestQueue;
     }
@@ -39,4 +55,14 @@ public class StmRequestQueue {
     public <T> void addToRequestQueue(Request<T> req) {
         getRequestQueue().add(req);
     }
+
+    private static void invalidateAfterWrite(Request<?> request) {
+        String authorization = null;
+        try {
+            authorization = request.getHeaders().get("Authorization");
+        } catch (AuthFailureError ex) {
+            // Expire the responses cached without an Authorization header
+        }
+        StmResponseCache.invalidateAfterWrite(request.getUrl(), authorization);
+    }
 }
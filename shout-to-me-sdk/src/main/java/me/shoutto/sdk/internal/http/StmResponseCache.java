@@ -0,0 +1,196 @@
+package me.shoutto.sdk.internal.http;
+
+import android.content.Context;
+
+import com.android.volley.Cache;
+import com.android.volley.Response;
+import com.android.volley.toolbox.DiskBasedCache;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Volley response cache for GET requests to the Shout to Me service. Recently used entries are
+ * kept in a memory LRU in front of Volley's disk cache. Cache keys include a digest of the
+ * Authorization header, so responses are never shared between users.
+ * <p>
+ * Requests can extend the time to live that the service sends with applyTimeToLive. Until an
+ * entry expires it is delivered from the cache without a network call. After that Volley sends
+ * the entry's ETag and Last-Modified date in If-None-Match and If-Modified-Since headers, so an
+ * unchanged resource costs a 304 response with no body.
+ * <p>
+ * A successful write to a URL expires the cached responses for that URL and its parent paths.
+ * For example, a PUT to /users/{id}/channel_subscription expires the cached /users/{id}.
+ */
+public class StmResponseCache implements Cache {
+
+    static final String DISK_CACHE_DIRECTORY = "volley";
+    private static final int DISK_CACHE_SIZE_IN_BYTES = 5 * 1024 * 1024;
+    private static final int MEMORY_CACHE_SIZE_IN_BYTES = 512 * 1024;
+    private static StmResponseCache instance;
+    private final Cache diskCache;
+    private final int maxMemoryBytes;
+    private final LinkedHashMap<String, Entry> memoryCache;
+    private int memoryBytes;
+
+    StmResponseCache(Cache diskCache, int maxMemoryBytes) {
+        this.diskCache = diskCache;
+        this.maxMemoryBytes = maxMemoryBytes;
+        memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static synchronized StmResponseCache getInstance(Context context) {
+        if (instance == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), DISK_CACHE_DIRECTORY);
+            instance = new StmResponseCache(new DiskBasedCache(directory, DISK_CACHE_SIZE_IN_BYTES),
+                    MEMORY_CACHE_SIZE_IN_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Expires the cached responses affected by a successful write, if the cache has been created
+     * @param url the URL of the POST, PUT or DELETE request
+     * @param authorization the Authorization header of the request
+     */
+    public static void invalidateAfterWrite(String url, String authorization) {
+        StmResponseCache stmResponseCache;
+        synchronized (StmResponseCache.class) {
+            stmResponseCache = instance;
+        }
+        if (stmResponseCache != null) {
+            stmResponseCache.invalidateUrl(url, authorization);
+        }
+    }
+
+    /**
+     * Returns the cache key for a GET request
+     * @param url the request URL
+     * @param authorization the Authorization header or null
+     * @return the cache key
+     */
+    public static String getCacheKey(String url, String authorization) {
+        if (authorization == null) {
+            return url;
+        }
+        return digest(authorization) + " " + url;
+    }
+
+    /**
+     * Extends the expiry of a successful response to at least timeToLive milliseconds from now.
+     * Responses that the service marked no-cache or no-store have no cache entry and are left
+     * alone.
+     * @param response the parsed response
+     * @param timeToLive the minimum time to live in milliseconds
+     */
+    public static void applyTimeToLive(Response<?> response, long timeToLive) {
+        if (timeToLive <= 0 || !response.isSuccess() || response.cacheEntry == null) {
+            return;
+        }
+        long expiry = System.currentTimeMillis() + timeToLive;
+        response.cacheEntry.softTtl = Math.max(response.cacheEntry.softTtl, expiry);
+        response.cacheEntry.ttl = Math.max(response.cacheEntry.ttl, expiry);
+    }
+
+    @Override
+    public synchronized Entry get(String key) {
+        Entry entry = memoryCache.get(key);
+        if (entry == null) {
+            entry = diskCache.get(key);
+            if (entry != null) {
+                putInMemory(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public synchronized void put(String key, Entry entry) {
+        diskCache.put(key, entry);
+        putInMemory(key, entry);
+    }
+
+    @Override
+    public synchronized void initialize() {
+        diskCache.initialize();
+    }
+
+    @Override
+    public synchronized void invalidate(String key, boolean fullExpire) {
+        Entry entry = memoryCache.get(key);
+        if (entry != null) {
+            entry.softTtl = 0;
+            if (fullExpire) {
+                entry.ttl = 0;
+            }
+        }
+        diskCache.invalidate(key, fullExpire);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        removeFromMemory(key);
+        diskCache.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        memoryCache.clear();
+        memoryBytes = 0;
+        diskCache.clear();
+    }
+
+    void invalidateUrl(String url, String authorization) {
+        int queryStart = url.indexOf('?');
+        String path = queryStart >= 0 ? url.substring(0, queryStart) : url;
+        int pathStart = path.indexOf("://");
+        pathStart = path.indexOf('/', pathStart >= 0 ? pathStart + 3 : 0);
+        while (pathStart >= 0 && path.length() > pathStart + 1) {
+            invalidate(getCacheKey(path, authorization), true);
+            path = path.substring(0, path.lastIndexOf('/'));
+        }
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        removeFromMemory(key);
+        int size = entry.data != null ? entry.data.length : 0;
+        if (size > maxMemoryBytes / 4) {
+            return;
+        }
+        memoryCache.put(key, entry);
+        memoryBytes += size;
+
+        Iterator<Map.Entry<String, Entry>> iterator = memoryCache.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            memoryBytes -= eldest.data != null ? eldest.data.length : 0;
+            iterator.remove();
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        Entry entry = memoryCache.remove(key);
+        if (entry != null && entry.data != null) {
+            memoryBytes -= entry.data.length;
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes("UTF-8"));
+            StringBuilder stringBuilder = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                stringBuilder.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                stringBuilder.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return stringBuilder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException ex) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package me.shoutto.sdk.internal.http;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Volley request that parses the response body with a streaming response adapter on the network
+ * thread. Unlike JsonObjectRequest, the body is never decoded into a String or a JSONObject tree.
+ * Responses are cached in StmResponseCache for at least the specified time to live.
+ */
+class StmStreamingJsonRequest<T> extends Request<StmJsonEnvelope<T>> {
+
+    private static final String PROTOCOL_CHARSET = "utf-8";
+    private static final String PROTOCOL_CONTENT_TYPE = "application/json; charset=" + PROTOCOL_CHARSET;
+    private final String requestBody;
+    private final String authToken;
+    private final long cacheTimeToLive;
+    private final StmHttpStreamingResponseAdapter<T> responseAdapter;
+    private final Response.Listener<StmJsonEnvelope<T>> listener;
+
+    StmStreamingJsonRequest(int method, String url, String requestBody, String authToken,
+                            long cacheTimeToLive,
+                            StmHttpStreamingResponseAdapter<T> responseAdapter,
+                            Response.Listener<StmJsonEnvelope<T>> listener,
+                            Response.ErrorListener errorListener) {
+        super(method, url, errorListener);
+        this.requestBody = requestBody;
+        this.authToken = authToken;
+        this.cacheTimeToLive = cacheTimeToLive;
+        this.responseAdapter = responseAdapter;
+        this.listener = listener;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> params = new HashMap<>();
+        params.put("Authorization", "Bearer " + authToken);
+        return params;
+    }
+
+    @Override
+    public String getCacheKey() {
+        return StmResponseCache.getCacheKey(getUrl(), "Bearer " + authToken);
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return PROTOCOL_CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] getBody() {
+        if (requestBody == null) {
+            return null;
+        }
+        try {
+            return requestBody.getBytes(PROTOCOL_CHARSET);
+        } catch (UnsupportedEncodingException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Response<StmJsonEnvelope<T>> parseNetworkResponse(NetworkResponse response) {
+        try {
+            StmJsonEnvelope<T> envelope = responseAdapter.adapt(new ByteArrayInputStream(response.data));
+            Response<StmJsonEnvelope<T>> parsedResponse =
+                    Response.success(envelope, HttpHeaderParser.parseCacheHeaders(response));
+            if (envelope.isSuccess()) {
+                StmResponseCache.applyTimeToLive(parsedResponse, cacheTimeToLive);
+            }
+            return parsedResponse;
+        } catch (IOException | JsonParseException | IllegalStateException ex) {
+            return Response.error(new ParseError(ex));
+        }
+    }
+
+    @Override
+    protected void deliverResponse(StmJsonEnvelope<T> response) {
+        listener.onResponse(response);
+    }
+}
@@ -1,30 +1,50 @@
 package me.shoutto.sdk.internal.http;
 
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.SortedSet;
 
 import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.UserLocation;
 
 /**
- * Custom request adapter for User Locations.
+ * Custom request adapter for User Locations. The locations are sent either as a JSON array or,
+ * in the polyline format, as a single string encoded with PolylineLocationCodec.
  */
 
 public class UserLocationsRequestAdapter implements StmJsonRequestAdapter<SortedSet<? extends StmBaseEntity>> {
+
+    public enum Format {
+        JSON,
+        POLYLINE
+    }
+
+    private static final String POLYLINE_FORMAT_NAME = "polyline";
+    private final Format format;
+
+    public UserLocationsRequestAdapter() {
+        this(Format.JSON);
+    }
+
+    public UserLocationsRequestAdapter(Format format) {
+        this.format = format;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public String adapt(SortedSet<? extends StmBaseEntity> userLocationSortedSet) {
+        if (format == Format.POLYLINE) {
+            Map<String, String> map = new LinkedHashMap<>();
+            map.put("locations_format", POLYLINE_FORMAT_NAME);
+            map.put("locations", PolylineLocationCodec.encode((SortedSet<UserLocation>) userLocationSortedSet));
+
+            return GsonRegistry.getEntityGson().toJson(map, map.getClass());
+        }
+
         Map<String, SortedSet<? extends StmBaseEntity>> map = new HashMap<>();
         map.put("locations", userLocationSortedSet);
 
-        Gson gson = new GsonBuilder()
-                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                .registerTypeAdapter(Date.class, new GsonDateAdapter())
-                .create();
-        return gson.toJson(map, map.getClass());
+        return GsonRegistry.getEntityGson().toJson(map, map.getClass());
     }
 }
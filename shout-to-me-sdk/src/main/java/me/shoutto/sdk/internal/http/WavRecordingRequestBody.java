@@ -0,0 +1,39 @@
+package me.shoutto.sdk.internal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import me.shoutto.sdk.internal.audio.PcmRecording;
+import me.shoutto.sdk.internal.audio.WavHeader;
+
+/**
+ * A request body that writes a recording as a WAV file straight from the recorder's segments,
+ * without assembling the file in memory
+ */
+public class WavRecordingRequestBody implements StmHttpRequestBody {
+
+    private static final String CONTENT_TYPE_WAV = "audio/wav";
+    private final PcmRecording recording;
+
+    public WavRecordingRequestBody(PcmRecording recording) {
+        this.recording = recording;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE_WAV;
+    }
+
+    @Override
+    public long getContentLength() {
+        return WavHeader.LENGTH + recording.size();
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        byte[] header = new byte[WavHeader.LENGTH];
+        WavHeader.write(header, 0, recording.size());
+        outputStream.write(header);
+        recording.writeTo(outputStream);
+    }
+}
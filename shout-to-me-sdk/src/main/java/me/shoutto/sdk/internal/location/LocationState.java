@@ -0,0 +1,44 @@
+package me.shoutto.sdk.internal.location;
+
+/**
+ * The last user location that was sent to the Shout to Me service. Instances do not change, so
+ * a state read by one thread can be used without a lock while another thread stores a new one.
+ */
+public final class LocationState {
+
+    private final double lat;
+    private final double lon;
+    private final long time;
+    private final float accuracy;
+
+    public LocationState(double lat, double lon, long time, float accuracy) {
+        this.lat = lat;
+        this.lon = lon;
+        this.time = time;
+        this.accuracy = accuracy;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    /**
+     * Returns the time of the location fix
+     * @return the time in milliseconds since the epoch, or 0 if unknown
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the accuracy of the location fix
+     * @return the accuracy radius in meters, or 0 if unknown
+     */
+    public float getAccuracy() {
+        return accuracy;
+    }
+}
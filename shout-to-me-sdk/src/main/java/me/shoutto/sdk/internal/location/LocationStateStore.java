@@ -0,0 +1,169 @@
+package me.shoutto.sdk.internal.location;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+import me.shoutto.sdk.internal.StmScheduler;
+
+/**
+ * Stores the last user location as a fixed-size binary record, so that the location update path
+ * reads and writes it without parsing strings or going through the shared preferences. The record
+ * is read from disk once per process and then served from memory.
+ * <p>
+ * A new record is written on the disk writer thread to a temporary file that is then renamed over
+ * the old one, so a reader sees either the old record or the new one. The record ends with a CRC32
+ * of its contents, and a record that is truncated or damaged is treated as missing.
+ */
+public class LocationStateStore {
+
+    static final int RECORD_SIZE = 36;
+    private static final String TAG = LocationStateStore.class.getSimpleName();
+    private static final String FILE_NAME = "me.shoutto.sdk.location_state";
+    private static final int RECORD_VERSION = 1;
+    private static LocationStateStore instance;
+    private final File file;
+    private final File tempFile;
+    private final Executor diskWriter;
+    private volatile LocationState locationState;
+    private volatile boolean isLoaded;
+
+    LocationStateStore(File file, Executor diskWriter) {
+        this.file = file;
+        this.diskWriter = diskWriter;
+        tempFile = new File(file.getPath() + ".tmp");
+    }
+
+    public static synchronized LocationStateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocationStateStore(new File(context.getApplicationContext().getFilesDir(), FILE_NAME),
+                    StmScheduler.diskWriter());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the stored location state
+     * @return the location state or null if none has been stored
+     */
+    public LocationState read() {
+        if (!isLoaded) {
+            synchronized (this) {
+                if (!isLoaded) {
+                    locationState = load();
+                    isLoaded = true;
+                }
+            }
+        }
+        return locationState;
+    }
+
+    /**
+     * Replaces the stored location state. The new state is served from memory right away and is
+     * written to disk on the disk writer thread.
+     * @param locationState the new location state
+     */
+    public synchronized void write(final LocationState locationState) {
+        this.locationState = locationState;
+        isLoaded = true;
+        diskWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeFile(locationState);
+            }
+        });
+    }
+
+    static byte[] encode(LocationState locationState) {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(RECORD_SIZE);
+        byteBuffer.putInt(RECORD_VERSION);
+        byteBuffer.putDouble(locationState.getLat());
+        byteBuffer.putDouble(locationState.getLon());
+        byteBuffer.putLong(locationState.getTime());
+        byteBuffer.putFloat(locationState.getAccuracy());
+        CRC32 crc32 = new CRC32();
+        crc32.update(byteBuffer.array(), 0, RECORD_SIZE - 4);
+        byteBuffer.putInt((int) crc32.getValue());
+        return byteBuffer.array();
+    }
+
+    static LocationState decode(byte[] record) {
+        if (record.length != RECORD_SIZE) {
+            return null;
+        }
+        ByteBuffer byteBuffer = ByteBuffer.wrap(record);
+        CRC32 crc32 = new CRC32();
+        crc32.update(record, 0, RECORD_SIZE - 4);
+        if (byteBuffer.getInt(RECORD_SIZE - 4) != (int) crc32.getValue()
+                || byteBuffer.getInt() != RECORD_VERSION) {
+            return null;
+        }
+        return new LocationState(byteBuffer.getDouble(), byteBuffer.getDouble(), byteBuffer.getLong(),
+                byteBuffer.getFloat());
+    }
+
+    private LocationState load() {
+        if (!file.exists()) {
+            return null;
+        }
+
+        byte[] record = new byte[RECORD_SIZE];
+        int length = 0;
+        FileInputStream fileInputStream = null;
+        try {
+            fileInputStream = new FileInputStream(file);
+            int bytesRead;
+            while (length < RECORD_SIZE
+                    && (bytesRead = fileInputStream.read(record, length, RECORD_SIZE - length)) != -1) {
+                length += bytesRead;
+            }
+        } catch (IOException ex) {
+            Log.w(TAG, "Could not read location state", ex);
+            return null;
+        } finally {
+            if (fileInputStream != null) {
+                try {
+                    fileInputStream.close();
+                } catch (IOException ex) {
+                    Log.w(TAG, "Could not close location state file", ex);
+                }
+            }
+        }
+
+        LocationState storedLocationState = length == RECORD_SIZE ? decode(record) : null;
+        if (storedLocationState == null) {
+            Log.w(TAG, "Ignoring damaged location state file " + file.getPath());
+        }
+        return storedLocationState;
+    }
+
+    private void writeFile(LocationState locationState) {
+        FileOutputStream fileOutputStream = null;
+        try {
+            fileOutputStream = new FileOutputStream(tempFile);
+            fileOutputStream.write(encode(locationState));
+            fileOutputStream.close();
+            fileOutputStream = null;
+            if (!tempFile.renameTo(file)) {
+                Log.w(TAG, "Could not replace location state file " + file.getPath());
+            }
+        } catch (IOException ex) {
+            Log.w(TAG, "Could not write location state", ex);
+        } finally {
+            if (fileOutputStream != null) {
+                try {
+                    fileOutputStream.close();
+                } catch (IOException ex) {
+                    Log.w(TAG, "Could not close location state file", ex);
+                }
+            }
+        }
+    }
+}
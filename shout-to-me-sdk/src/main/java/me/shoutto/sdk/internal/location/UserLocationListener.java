@@ -4,9 +4,7 @@ import android.content.Context;
 import android.location.Location;
 import android.util.Log;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -16,11 +14,13 @@ import me.shoutto.sdk.StmError;
 import me.shoutto.sdk.StmResponse;
 import me.shoutto.sdk.User;
 import me.shoutto.sdk.UserLocation;
+import me.shoutto.sdk.internal.StmEventBus;
 import me.shoutto.sdk.internal.StmObservable;
 import me.shoutto.sdk.internal.StmObservableResults;
 import me.shoutto.sdk.internal.StmObservableType;
 import me.shoutto.sdk.internal.StmObserver;
 import me.shoutto.sdk.internal.StmPreferenceManager;
+import me.shoutto.sdk.internal.StmScheduler;
 import me.shoutto.sdk.internal.database.UserLocationDao;
 import me.shoutto.sdk.internal.database.UserLocationDaoImpl;
 import me.shoutto.sdk.internal.http.EntityListRequestProcessorSync;
@@ -39,7 +39,7 @@ public class UserLocationListener implements LocationUpdateListener, StmObservab
 
     private static final String TAG = UserLocationListener.class.getSimpleName();
     private LocationServicesClient locationServicesClient;
-    private List<StmObserver> observers;
+    private final StmEventBus eventBus;
     private Context context;
 
     public UserLocationListener(LocationServicesClient locationServicesClient,
@@ -48,7 +48,7 @@ public class UserLocationListener implements LocationUpdateListener, StmObservab
 
         this.locationServicesClient = locationServicesClient;
         this.locationServicesClient.registerLocationUpdateListener(this);
-        observers = new ArrayList<>();
+        eventBus = new StmEventBus();
     }
 
     public double getLatitude() {
@@ -70,10 +70,10 @@ public class UserLocationListener implements LocationUpdateListener, StmObservab
     @Override
     public void onLocationUpdate(final Location location) {
 
-        new Thread(new Runnable() {
+        StmScheduler.io().execute(new Runnable() {
             @Override
             public void run() {
-                StmPreferenceManager stmPreferenceManager = new StmPreferenceManager(context);
+                StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(context);
                 String serverUrl = stmPreferenceManager.getServerUrl();
                 String userAuthToken = stmPreferenceManager.getAuthToken();
                 String userId = stmPreferenceManager.getUserId();
@@ -94,50 +94,39 @@ public class UserLocationListener implements LocationUpdateListener, StmObservab
                             entityListRequestProcessorSync,
                             new GeofenceManager(context),
                             stmPreferenceManager,
-                            new UserLocationDaoImpl(context),
+                            UserLocationDaoImpl.getInstance(context),
                             context,
                             "LOCATION_SERVICE_UPDATE");
 
                     updateUserLocation.update(location, new Callback<Void>() {
                         @Override
                         public void onSuccess(StmResponse stmResponse) {
-                            StmObservableResults<Void> stmObservableResults = new StmObservableResults<>();
-                            stmObservableResults.setError(false);
-                            stmObservableResults.setResult(null);
-                            stmObservableResults.setStmObservableType(StmObservableType.UPDATE_USER_LOCATION);
-                            notifyObservers(stmObservableResults);
+                            notifyObservers(StmObservableResults.empty(StmObservableType.UPDATE_USER_LOCATION));
                         }
 
                         @Override
                         public void onFailure(StmError stmError) {
                             Log.e(TAG, stmError.getMessage());
-                            StmObservableResults<Void> stmObservableResults = new StmObservableResults<>();
-                            stmObservableResults.setError(true);
-                            stmObservableResults.setErrorMessage(stmError.getMessage());
-                            notifyObservers(stmObservableResults);
+                            notifyObservers(StmObservableResults.failure(stmError.getMessage()));
                         }
                     });
                 }
             }
-        }).start();
+        });
     }
 
     @Override
     public void addObserver(StmObserver o) {
-        observers.add(o);
+        eventBus.addObserver(o);
     }
 
     @Override
     public void deleteObserver(StmObserver o) {
-        if (observers.contains(o)) {
-            observers.remove(o);
-        }
+        eventBus.deleteObserver(o);
     }
 
     @Override
     public void notifyObservers(StmObservableResults stmObserverResults) {
-        for (StmObserver o : observers) {
-            o.update(stmObserverResults);
-        }
+        eventBus.notifyObservers(stmObserverResults);
     }
 }
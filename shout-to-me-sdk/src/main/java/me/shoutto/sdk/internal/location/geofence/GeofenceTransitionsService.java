@@ -20,6 +20,7 @@ import me.shoutto.sdk.StmError;
 import me.shoutto.sdk.StmResponse;
 import me.shoutto.sdk.User;
 import me.shoutto.sdk.internal.StmPreferenceManager;
+import me.shoutto.sdk.internal.StmScheduler;
 import me.shoutto.sdk.internal.database.UserLocationDaoImpl;
 import me.shoutto.sdk.internal.http.EntityListRequestProcessorSync;
 import me.shoutto.sdk.internal.http.NullResponseAdapter;
@@ -66,11 +67,11 @@ public class GeofenceTransitionsService extends Service {
                 } else {
                     Log.i(TAG,String.format("Geofence exit detected %f, %f", location.getLatitude(), location.getLongitude()));
 
-                    new Thread(new Runnable() {
+                    StmScheduler.io().execute(new Runnable() {
                         @Override
                         public void run() {
 
-                            final StmPreferenceManager stmPreferenceManager = new StmPreferenceManager(context);
+                            final StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(context);
                             String userId = stmPreferenceManager.getUserId();
                             final String authToken = stmPreferenceManager.getAuthToken();
                             final String serverUrl = stmPreferenceManager.getServerUrl();
@@ -90,7 +91,7 @@ public class GeofenceTransitionsService extends Service {
                                     entityListRequestProcessorSync,
                                     new GeofenceManager(context),
                                     stmPreferenceManager,
-                                    new UserLocationDaoImpl(context),
+                                    UserLocationDaoImpl.getInstance(context),
                                     context,
                                     "GEOFENCE_EXIT");
 
@@ -107,7 +108,7 @@ public class GeofenceTransitionsService extends Service {
                                 }
                             });
                         }
-                    }).start();
+                    });
                 }
             } else {
                 stopSelf(startId);
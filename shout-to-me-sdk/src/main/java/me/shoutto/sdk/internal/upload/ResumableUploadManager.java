@@ -0,0 +1,135 @@
+package me.shoutto.sdk.internal.upload;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import me.shoutto.sdk.internal.database.UploadDao;
+import me.shoutto.sdk.internal.database.UploadRecord;
+
+/**
+ * Uploads files in fixed-size parts and records each acknowledged part in the upload journal.
+ * If an upload is interrupted, uploading the same file again resumes the journaled upload and
+ * sends only the parts that are missing. A journal entry is only resumed while the file is
+ * unchanged, and entries older than a day are aborted and removed. Files that fit in one part
+ * are uploaded with a single request and are not journaled, since there is nothing to resume.
+ */
+public class ResumableUploadManager {
+
+    /**
+     * The smallest part size S3 accepts for all but the last part
+     */
+    public static final long DEFAULT_PART_SIZE = 5 * 1024 * 1024;
+    private static final String TAG = ResumableUploadManager.class.getSimpleName();
+    private static final long STALE_UPLOAD_AGE_IN_MILLIS = 24 * 60 * 60 * 1000;
+    private final UploadDao uploadDao;
+    private final UploadPartTransport uploadPartTransport;
+    private final long partSize;
+
+    public ResumableUploadManager(UploadDao uploadDao, UploadPartTransport uploadPartTransport) {
+        this(uploadDao, uploadPartTransport, DEFAULT_PART_SIZE);
+    }
+
+    public ResumableUploadManager(UploadDao uploadDao, UploadPartTransport uploadPartTransport,
+                                  long partSize) {
+        if (partSize < 1) {
+            throw new IllegalArgumentException("partSize must be greater than 0");
+        }
+        this.uploadDao = uploadDao;
+        this.uploadPartTransport = uploadPartTransport;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Uploads the file, resuming a journaled upload of the same file if there is one
+     * @param file the file to upload
+     * @param objectKey the key to upload a new file to
+     * @return the key the file was uploaded to, which is the key of the original upload when
+     * an upload is resumed
+     * @throws IOException if the upload was interrupted. Calling this method again resumes it.
+     */
+    public synchronized String upload(File file, String objectKey) throws IOException {
+        deleteStaleUploads();
+
+        UploadRecord uploadRecord = uploadDao.getUploadRecord(file.getAbsolutePath());
+        if (file.length() <= partSize) {
+            if (uploadRecord != null) {
+                abortUpload(uploadRecord);
+            }
+            uploadPartTransport.putObject(objectKey, file);
+            return objectKey;
+        }
+
+        if (uploadRecord != null && !isResumable(uploadRecord, file)) {
+            abortUpload(uploadRecord);
+            uploadRecord = null;
+        }
+        if (uploadRecord == null) {
+            uploadRecord = startUpload(file, objectKey);
+        }
+
+        try {
+            Map<Integer, String> completedParts = uploadDao.getCompletedParts(uploadRecord.getId());
+            long fileLength = uploadRecord.getFileLength();
+            int partCount = (int) ((fileLength + partSize - 1) / partSize);
+            List<String> eTags = new ArrayList<>(partCount);
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                String eTag = completedParts.get(partNumber);
+                if (eTag == null) {
+                    long offset = (partNumber - 1) * partSize;
+                    long length = Math.min(partSize, fileLength - offset);
+                    eTag = uploadPartTransport.uploadPart(uploadRecord.getObjectKey(),
+                            uploadRecord.getUploadId(), partNumber, file, offset, length);
+                    uploadDao.addCompletedPart(uploadRecord.getId(), partNumber, eTag);
+                }
+                eTags.add(eTag);
+            }
+            uploadPartTransport.completeUpload(uploadRecord.getObjectKey(), uploadRecord.getUploadId(), eTags);
+        } catch (UploadNotFoundException ex) {
+            uploadDao.deleteUploadRecord(uploadRecord.getId());
+            throw ex;
+        }
+
+        uploadDao.deleteUploadRecord(uploadRecord.getId());
+        return uploadRecord.getObjectKey();
+    }
+
+    private UploadRecord startUpload(File file, String objectKey) throws IOException {
+        UploadRecord uploadRecord = new UploadRecord();
+        uploadRecord.setFilePath(file.getAbsolutePath());
+        uploadRecord.setFileLength(file.length());
+        uploadRecord.setFileLastModified(file.lastModified());
+        uploadRecord.setPartSize(partSize);
+        uploadRecord.setObjectKey(objectKey);
+        uploadRecord.setUploadId(uploadPartTransport.startUpload(objectKey));
+        uploadRecord.setId(uploadDao.addUploadRecord(uploadRecord));
+        return uploadRecord;
+    }
+
+    private boolean isResumable(UploadRecord uploadRecord, File file) {
+        return uploadRecord.getFileLength() == file.length()
+                && uploadRecord.getFileLastModified() == file.lastModified()
+                && uploadRecord.getPartSize() == partSize;
+    }
+
+    private void deleteStaleUploads() {
+        Date cutoff = new Date(System.currentTimeMillis() - STALE_UPLOAD_AGE_IN_MILLIS);
+        for (UploadRecord uploadRecord : uploadDao.getUploadRecordsCreatedBefore(cutoff)) {
+            abortUpload(uploadRecord);
+        }
+    }
+
+    private void abortUpload(UploadRecord uploadRecord) {
+        uploadDao.deleteUploadRecord(uploadRecord.getId());
+        try {
+            uploadPartTransport.abortUpload(uploadRecord.getObjectKey(), uploadRecord.getUploadId());
+        } catch (IOException ex) {
+            Log.w(TAG, "Could not abort upload " + uploadRecord.getUploadId(), ex);
+        }
+    }
+}
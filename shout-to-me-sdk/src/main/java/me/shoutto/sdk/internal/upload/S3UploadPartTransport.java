@@ -0,0 +1,99 @@
+package me.shoutto.sdk.internal.upload;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uploads parts with the S3 multipart upload API, and single-part files with PutObject
+ */
+public class S3UploadPartTransport implements UploadPartTransport {
+
+    private static final String ERROR_CODE_NO_SUCH_UPLOAD = "NoSuchUpload";
+    private final AmazonS3Client s3Client;
+    private final String bucketName;
+
+    public S3UploadPartTransport(AmazonS3Client s3Client, String bucketName) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public void putObject(String objectKey, File file) throws IOException {
+        try {
+            s3Client.putObject(new PutObjectRequest(bucketName, objectKey, file));
+        } catch (AmazonClientException ex) {
+            throw toIOException("Could not upload " + objectKey, ex);
+        }
+    }
+
+    @Override
+    public String startUpload(String objectKey) throws IOException {
+        try {
+            return s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, objectKey))
+                    .getUploadId();
+        } catch (AmazonClientException ex) {
+            throw toIOException("Could not start upload of " + objectKey, ex);
+        }
+    }
+
+    @Override
+    public String uploadPart(String objectKey, String uploadId, int partNumber, File file, long offset,
+                             long length) throws IOException {
+        UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                .withBucketName(bucketName)
+                .withKey(objectKey)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withFile(file)
+                .withFileOffset(offset)
+                .withPartSize(length);
+        try {
+            return s3Client.uploadPart(uploadPartRequest).getETag();
+        } catch (AmazonClientException ex) {
+            throw toIOException("Could not upload part " + partNumber + " of " + objectKey, ex);
+        }
+    }
+
+    @Override
+    public void completeUpload(String objectKey, String uploadId, List<String> eTags) throws IOException {
+        List<PartETag> partETags = new ArrayList<>(eTags.size());
+        for (int i = 0; i < eTags.size(); i++) {
+            partETags.add(new PartETag(i + 1, eTags.get(i)));
+        }
+        try {
+            s3Client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partETags));
+        } catch (AmazonClientException ex) {
+            throw toIOException("Could not complete upload of " + objectKey, ex);
+        }
+    }
+
+    @Override
+    public void abortUpload(String objectKey, String uploadId) throws IOException {
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+        } catch (AmazonClientException ex) {
+            throw toIOException("Could not abort upload of " + objectKey, ex);
+        }
+    }
+
+    private static IOException toIOException(String message, AmazonClientException ex) {
+        if (ex instanceof AmazonServiceException
+                && ERROR_CODE_NO_SUCH_UPLOAD.equals(((AmazonServiceException) ex).getErrorCode())) {
+            return new UploadNotFoundException(message, ex);
+        }
+        return new IOException(message, ex);
+    }
+}
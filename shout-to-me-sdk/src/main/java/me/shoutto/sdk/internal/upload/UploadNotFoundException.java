@@ -0,0 +1,14 @@
+package me.shoutto.sdk.internal.upload;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server no longer knows a multipart upload, for example because it was
+ * completed, aborted or expired. The upload cannot be resumed and must be started again.
+ */
+public class UploadNotFoundException extends IOException {
+
+    public UploadNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,63 @@
+package me.shoutto.sdk.internal.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The server side of a multipart upload. A file is uploaded by starting an upload, uploading
+ * each part, and completing the upload with the ETags of all parts in order. Parts that were
+ * uploaded before an interruption can be reused as long as the upload has not been completed or
+ * aborted. Files that fit in one part are uploaded with a single request instead.
+ */
+public interface UploadPartTransport {
+
+    /**
+     * Uploads the whole file with a single request
+     * @param objectKey the key of the object being uploaded
+     * @param file the file
+     * @throws IOException if the file could not be uploaded
+     */
+    void putObject(String objectKey, File file) throws IOException;
+
+    /**
+     * Starts a new multipart upload
+     * @param objectKey the key of the object being uploaded
+     * @return the upload ID
+     * @throws IOException if the upload could not be started
+     */
+    String startUpload(String objectKey) throws IOException;
+
+    /**
+     * Uploads one part of the file
+     * @param objectKey the key of the object being uploaded
+     * @param uploadId the upload ID
+     * @param partNumber the part number, starting at 1
+     * @param file the file
+     * @param offset the position of the first byte of the part in the file
+     * @param length the length of the part
+     * @return the ETag of the part
+     * @throws UploadNotFoundException if the server no longer knows the upload
+     * @throws IOException if the part could not be uploaded
+     */
+    String uploadPart(String objectKey, String uploadId, int partNumber, File file, long offset,
+                      long length) throws IOException;
+
+    /**
+     * Completes the upload
+     * @param objectKey the key of the object being uploaded
+     * @param uploadId the upload ID
+     * @param eTags the ETags of all parts, ordered by part number
+     * @throws UploadNotFoundException if the server no longer knows the upload
+     * @throws IOException if the upload could not be completed
+     */
+    void completeUpload(String objectKey, String uploadId, List<String> eTags) throws IOException;
+
+    /**
+     * Aborts the upload and discards the parts stored on the server
+     * @param objectKey the key of the object being uploaded
+     * @param uploadId the upload ID
+     * @throws IOException if the upload could not be aborted
+     */
+    void abortUpload(String objectKey, String uploadId) throws IOException;
+}
@@ -41,7 +41,7 @@ public class InitializeLocationAfterBoot implements StmObserver {
             }
         };
 
-        StmPreferenceManager stmPreferenceManager = new StmPreferenceManager(context);
+        StmPreferenceManager stmPreferenceManager = StmPreferenceManager.getInstance(context);
         authToken = stmPreferenceManager.getAuthToken();
         serverUrl = stmPreferenceManager.getServerUrl();
         user = new User();
@@ -0,0 +1,123 @@
+package me.shoutto.sdk.internal.usecases;
+
+import java.util.List;
+
+import me.shoutto.sdk.Message;
+import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.StmCallback;
+import me.shoutto.sdk.StmError;
+import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObserver;
+import me.shoutto.sdk.internal.database.MessageDao;
+import me.shoutto.sdk.internal.database.MessageRecord;
+import me.shoutto.sdk.internal.http.HttpMethod;
+import me.shoutto.sdk.internal.http.MessagePage;
+import me.shoutto.sdk.internal.http.MessagePageUrlProvider;
+import me.shoutto.sdk.internal.http.StmRequestProcessor;
+
+/**
+ * Syncs the user's messages from the Shout to Me service into the message store. Pages are
+ * requested oldest first, starting after the newest stored message, so only messages that are not
+ * stored yet are transferred. Each page is stored before the next is requested, so an interrupted
+ * sync resumes where it stopped. If the URL provider is not paged, the whole message list is
+ * requested once and the messages that are not stored yet are added. A response that cannot be
+ * read as a page of messages fails the sync rather than ending it. The request processor must be
+ * synchronous.
+ */
+
+public class SyncMessages implements StmObserver {
+
+    private StmRequestProcessor<StmBaseEntity> stmRequestProcessor;
+    private MessagePageUrlProvider messagePageUrlProvider;
+    private MessageDao messageDao;
+    private String userId;
+    private MessagePage page;
+    private String errorMessage;
+
+    public SyncMessages(StmRequestProcessor<StmBaseEntity> stmRequestProcessor,
+                        MessagePageUrlProvider messagePageUrlProvider,
+                        MessageDao messageDao, String userId) {
+        this.stmRequestProcessor = stmRequestProcessor;
+        this.messagePageUrlProvider = messagePageUrlProvider;
+        this.messageDao = messageDao;
+        this.userId = userId;
+    }
+
+    /**
+     * Requests pages until a page is not full. Stops early if a page does not advance the newest
+     * stored message, which would otherwise request the same page forever.
+     * @param callback the callback to execute with the number of messages added, or null
+     */
+    public void sync(StmCallback<Integer> callback) {
+        long numRowsBefore = messageDao.getNumRows(userId);
+        MessageRecord newest = messageDao.getNewestMessageRecord(userId);
+
+        stmRequestProcessor.addObserver(this);
+        try {
+            boolean isAdvanced;
+            do {
+                if (newest == null) {
+                    messagePageUrlProvider.setCursor(null, null);
+                } else {
+                    messagePageUrlProvider.setCursor(newest.getSentDate(), newest.getMessageId());
+                }
+                page = null;
+                errorMessage = null;
+                stmRequestProcessor.processRequest(HttpMethod.GET, new Message());
+
+                if (errorMessage == null && page == null) {
+                    errorMessage = "The Shout to Me service did not return a page of messages";
+                }
+                if (errorMessage != null) {
+                    if (callback != null) {
+                        callback.onError(new StmError(errorMessage, false, StmError.SEVERITY_MINOR));
+                    }
+                    return;
+                }
+                if (page.getMessageCount() == 0) {
+                    break;
+                }
+
+                List<MessageRecord> messageRecords = page.getMessageRecords();
+                for (MessageRecord messageRecord : messageRecords) {
+                    messageRecord.setUserId(userId);
+                }
+                messageDao.addMessageRecords(messageRecords);
+
+                MessageRecord previousNewest = newest;
+                newest = messageDao.getNewestMessageRecord(userId);
+                isAdvanced = isNewer(newest, previousNewest);
+            } while (messagePageUrlProvider.isPaged() && isAdvanced
+                    && page.getMessageCount() >= messagePageUrlProvider.getPageSize());
+        } finally {
+            stmRequestProcessor.deleteObserver(this);
+        }
+
+        if (callback != null) {
+            callback.onResponse((int) (messageDao.getNumRows(userId) - numRowsBefore));
+        }
+    }
+
+    private static boolean isNewer(MessageRecord messageRecord, MessageRecord other) {
+        if (messageRecord == null) {
+            return false;
+        }
+        if (other == null) {
+            return true;
+        }
+        int result = messageRecord.getSentDate().compareTo(other.getSentDate());
+        if (result == 0) {
+            result = messageRecord.getMessageId().compareTo(other.getMessageId());
+        }
+        return result > 0;
+    }
+
+    @Override
+    public void update(StmObservableResults stmObservableResults) {
+        if (stmObservableResults.isError()) {
+            errorMessage = stmObservableResults.getErrorMessage();
+            return;
+        }
+        page = (MessagePage) stmObservableResults.getResult();
+    }
+}
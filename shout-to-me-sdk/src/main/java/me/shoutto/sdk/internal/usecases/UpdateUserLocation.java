@@ -17,18 +17,22 @@ import me.shoutto.sdk.StmCallback;
 import me.shoutto.sdk.StmError;
 import me.shoutto.sdk.UserLocation;
 import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObserver;
 import me.shoutto.sdk.internal.StmPreferenceManager;
 import me.shoutto.sdk.internal.database.UserLocationDao;
 import me.shoutto.sdk.internal.database.UserLocationDaoImpl;
 import me.shoutto.sdk.internal.database.UserLocationRecord;
 import me.shoutto.sdk.internal.http.HttpMethod;
 import me.shoutto.sdk.internal.http.StmRequestProcessor;
+import me.shoutto.sdk.internal.location.LocationState;
 import me.shoutto.sdk.internal.location.UserLocationListener;
 import me.shoutto.sdk.internal.location.geofence.GeofenceManager;
 
 /**
  * Process an update to the user's newLocation by creating a new geofence and sending a newLocation
- * update to the Shout to Me service.
+ * update to the Shout to Me service. Locations that could not be sent are stored and sent with
+ * later updates in pages of at most BATCH_SIZE locations, oldest first. Only the stored locations
+ * that the service acknowledged are deleted, so an interrupted backlog resumes with the next update.
  */
 
 public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseEntity>, Void> {
@@ -38,12 +42,15 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
     private static final long MINIMUM_UPDATE_PERIOD = 15000;
     private static final String BROADCAST_ACTION = "me.shoutto.sdk.action.UpdateUserLocation";
     private static final String PACKAGE_VOIGO = "me.shoutto.voigo";
+    private static final int BATCH_SIZE = 100;
     private GeofenceManager geofenceManager;
     private StmPreferenceManager stmPreferenceManager;
     private UserLocationDao userLocationDao;
     private Context context;
     private String triggeringEvent;
     private UserLocation userLocation;
+    private List<Long> sentRecordIds = new ArrayList<>();
+    private boolean isBacklogPending;
 
     public UpdateUserLocation(StmRequestProcessor<SortedSet<? extends StmBaseEntity>> stmRequestProcessor,
                               GeofenceManager geofenceManager,
@@ -72,18 +79,16 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
         Float distanceSinceLastUpdate = null;
 
         synchronized (lock) {
-            Double lastUserLocationLat = stmPreferenceManager.getUserLocationLat();
-            Double lastUserLocationLon = stmPreferenceManager.getUserLocationLon();
-            Long lastUserLocationTime = stmPreferenceManager.getUserLocationTime();
+            LocationState lastLocationState = stmPreferenceManager.getUserLocationState();
 
-            if (lastUserLocationLat != null && lastUserLocationLon != null) {
+            if (lastLocationState != null) {
                 Location lastUserLocation = new Location("");
-                lastUserLocation.setLatitude(lastUserLocationLat);
-                lastUserLocation.setLongitude(lastUserLocationLon);
+                lastUserLocation.setLatitude(lastLocationState.getLat());
+                lastUserLocation.setLongitude(lastLocationState.getLon());
 
                 distanceSinceLastUpdate = lastUserLocation.distanceTo(location);
 
-                if (lastUserLocationTime != null && (location.getTime() - lastUserLocationTime) < MINIMUM_UPDATE_PERIOD) {
+                if (lastLocationState.getTime() != 0L && (location.getTime() - lastLocationState.getTime()) < MINIMUM_UPDATE_PERIOD) {
                     // TODO: May need to be able to handle older dates with project_until_date at some point
                     shouldUpdateUserLocation = false;
                 }
@@ -98,9 +103,8 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
             }
 
             Log.d(TAG, "Location requires updating. Updating now.");
-            stmPreferenceManager.setUserLocationLat(location.getLatitude());
-            stmPreferenceManager.setUserLocationLon(location.getLongitude());
-            stmPreferenceManager.setUserLocationTime(location.getTime());
+            stmPreferenceManager.setUserLocationState(new LocationState(location.getLatitude(),
+                    location.getLongitude(), location.getTime(), location.getAccuracy()));
 
             this.callback = callback;
 
@@ -139,11 +143,6 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
 
     private void processUpdateRequest(Location location, Float distanceSinceLastUpdate) {
 
-        SortedSet<UserLocation> userLocationSortedSet = new TreeSet<>(new UserLocationDateComparator());
-
-        // Get any previously saved user locations
-        userLocationSortedSet.addAll(userLocationDao.getAllUserLocations());
-
         // Add the current location
         Double[] coordinates = { location.getLongitude(), location.getLatitude() };
         userLocation = new UserLocation();
@@ -157,15 +156,75 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
         if (distanceSinceLastUpdate != null) {
             userLocation.setMetersSinceLastUpdate(distanceSinceLastUpdate);
         }
+
+        // Send the oldest previously saved user locations with the current location
+        List<UserLocationRecord> userLocationRecords = userLocationDao.getOldestUserLocationRecords(BATCH_SIZE - 1);
+        SortedSet<UserLocation> userLocationSortedSet = createUserLocationSortedSet(userLocationRecords);
         userLocationSortedSet.add(userLocation);
+        sentRecordIds = getIds(userLocationRecords);
+        isBacklogPending = false;
 
         stmRequestProcessor.processRequest(HttpMethod.PUT, userLocationSortedSet);
+
+        if (isBacklogPending && userLocationRecords.size() == BATCH_SIZE - 1) {
+            sendBacklog();
+        }
+    }
+
+    /**
+     * Sends the remaining saved user locations one page at a time until the backlog is empty or
+     * a page is not acknowledged. The request processor is synchronous, so each page has been
+     * acknowledged or has failed by the time processRequest returns.
+     */
+    private void sendBacklog() {
+        BacklogPageObserver backlogPageObserver = new BacklogPageObserver();
+        stmRequestProcessor.addObserver(backlogPageObserver);
+        try {
+            List<UserLocationRecord> userLocationRecords;
+            do {
+                userLocationRecords = userLocationDao.getOldestUserLocationRecords(BATCH_SIZE);
+                if (userLocationRecords.isEmpty()) {
+                    return;
+                }
+                backlogPageObserver.recordIds = getIds(userLocationRecords);
+                backlogPageObserver.isAcknowledged = false;
+                stmRequestProcessor.processRequest(HttpMethod.PUT, createUserLocationSortedSet(userLocationRecords));
+            } while (backlogPageObserver.isAcknowledged && userLocationRecords.size() == BATCH_SIZE);
+        } finally {
+            stmRequestProcessor.deleteObserver(backlogPageObserver);
+        }
+    }
+
+    private SortedSet<UserLocation> createUserLocationSortedSet(List<UserLocationRecord> userLocationRecords) {
+        SortedSet<UserLocation> userLocationSortedSet = new TreeSet<>(new UserLocationDateComparator());
+        for (UserLocationRecord userLocationRecord : userLocationRecords) {
+            UserLocation savedUserLocation = new UserLocation();
+            savedUserLocation.setDate(userLocationRecord.getDate());
+            if (userLocationRecord.getMetersSinceLastUpdate() > 0.0) {
+                savedUserLocation.setMetersSinceLastUpdate(userLocationRecord.getMetersSinceLastUpdate());
+            }
+            Double[] coordinates = { userLocationRecord.getLon(), userLocationRecord.getLat() };
+            savedUserLocation.setLocation(new UserLocation.Location(coordinates));
+            userLocationSortedSet.add(savedUserLocation);
+        }
+        return userLocationSortedSet;
+    }
+
+    private static List<Long> getIds(List<UserLocationRecord> userLocationRecords) {
+        List<Long> ids = new ArrayList<>(userLocationRecords.size());
+        for (UserLocationRecord userLocationRecord : userLocationRecords) {
+            ids.add(userLocationRecord.getId());
+        }
+        return ids;
     }
 
     @Override
     public void processCallback(StmObservableResults stmObservableResults) {
         Log.d(TAG, "User location was updated.");
-        userLocationDao.deleteAllUserLocationRecords();
+        if (!sentRecordIds.isEmpty()) {
+            userLocationDao.deleteUserLocationRecords(sentRecordIds);
+        }
+        isBacklogPending = true;
         super.processCallback(stmObservableResults);
     }
 
@@ -185,11 +244,25 @@ public class UpdateUserLocation extends BaseUseCase<SortedSet<? extends StmBaseE
         }
         userLocationDao.addUserLocationRecord(userLocationRecord);
 
-        userLocationDao.truncateTable();
-
         super.processCallbackError(stmObservableResults);
     }
 
+    private class BacklogPageObserver implements StmObserver {
+
+        private List<Long> recordIds;
+        private boolean isAcknowledged;
+
+        @Override
+        public void update(StmObservableResults stmObservableResults) {
+            if (stmObservableResults.isError()) {
+                Log.w(TAG, "Could not send saved user locations. " + stmObservableResults.getErrorMessage());
+                return;
+            }
+            userLocationDao.deleteUserLocationRecords(recordIds);
+            isAcknowledged = true;
+        }
+    }
+
     class UserLocationDateComparator implements Comparator<UserLocation> {
         public int compare(UserLocation ul1, UserLocation ul2) {
             return ul2.getDate().compareTo(ul1.getDate());
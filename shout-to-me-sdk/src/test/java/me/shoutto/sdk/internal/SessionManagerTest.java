@@ -0,0 +1,193 @@
+package me.shoutto.sdk.internal;
+
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import me.shoutto.sdk.StmCallback;
+import me.shoutto.sdk.StmError;
+import me.shoutto.sdk.User;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * SessionManagerTest
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class SessionManagerTest {
+
+    @Mock
+    private StmPreferenceManager mockStmPreferenceManager;
+
+    private SessionSnapshot sessionSnapshot;
+    private QueuedExecutor queuedExecutor;
+    private FakeSessionLoader fakeSessionLoader;
+    private SessionManager sessionManager;
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(Log.class);
+
+        sessionSnapshot = new SessionSnapshot(null, null, "serverUrl", null, "installationId");
+        when(mockStmPreferenceManager.getSessionSnapshot()).thenAnswer(new Answer<SessionSnapshot>() {
+            @Override
+            public SessionSnapshot answer(InvocationOnMock invocation) {
+                return sessionSnapshot;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                sessionSnapshot = sessionSnapshot.withUserSession((String) invocation.getArgument(0),
+                        (String) invocation.getArgument(1));
+                return null;
+            }
+        }).when(mockStmPreferenceManager).setUserSession(nullable(String.class), nullable(String.class));
+
+        queuedExecutor = new QueuedExecutor();
+        fakeSessionLoader = new FakeSessionLoader();
+        sessionManager = new SessionManager(mockStmPreferenceManager, fakeSessionLoader, queuedExecutor);
+    }
+
+    @Test
+    public void getSession_WithStoredSession_ShouldCallBackImmediatelyWithoutLoading() {
+        sessionSnapshot = sessionSnapshot.withUserSession("userId", "authToken");
+        RecordingCallback recordingCallback = new RecordingCallback();
+
+        sessionManager.getSession(recordingCallback);
+
+        assertEquals(1, recordingCallback.sessionSnapshots.size());
+        assertEquals("authToken", recordingCallback.sessionSnapshots.get(0).getAuthToken());
+        assertTrue(queuedExecutor.runnables.isEmpty());
+        assertEquals(0, fakeSessionLoader.numberOfLoads);
+    }
+
+    @Test
+    public void getSession_WhileLoading_ShouldLoadOnceAndReplayAllCallbacks() {
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        RecordingCallback thirdCallback = new RecordingCallback();
+
+        sessionManager.getSession(firstCallback);
+        sessionManager.getSession(secondCallback);
+        sessionManager.getSession(thirdCallback);
+
+        assertEquals(1, queuedExecutor.runnables.size());
+        assertTrue(firstCallback.sessionSnapshots.isEmpty());
+
+        queuedExecutor.runAll();
+
+        assertEquals(1, fakeSessionLoader.numberOfLoads);
+        for (RecordingCallback recordingCallback : new RecordingCallback[] { firstCallback, secondCallback, thirdCallback }) {
+            assertEquals(1, recordingCallback.sessionSnapshots.size());
+            assertEquals("userId1", recordingCallback.sessionSnapshots.get(0).getUserId());
+            assertEquals("authToken1", recordingCallback.sessionSnapshots.get(0).getAuthToken());
+        }
+
+        RecordingCallback laterCallback = new RecordingCallback();
+        sessionManager.getSession(laterCallback);
+        assertEquals(1, laterCallback.sessionSnapshots.size());
+        assertTrue(queuedExecutor.runnables.isEmpty());
+    }
+
+    @Test
+    public void getSession_WithLoadError_ShouldCallBackAllWithErrorAndRetryOnNextCall() {
+        fakeSessionLoader.stmError = new StmError("Network error", true, StmError.SEVERITY_MAJOR);
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+
+        sessionManager.getSession(firstCallback);
+        sessionManager.getSession(secondCallback);
+        queuedExecutor.runAll();
+
+        assertEquals(1, firstCallback.stmErrors.size());
+        assertEquals(1, secondCallback.stmErrors.size());
+        assertNull(sessionSnapshot.getAuthToken());
+
+        fakeSessionLoader.stmError = null;
+        RecordingCallback retryCallback = new RecordingCallback();
+        sessionManager.getSession(retryCallback);
+        queuedExecutor.runAll();
+
+        assertEquals(2, fakeSessionLoader.numberOfLoads);
+        assertEquals(1, retryCallback.sessionSnapshots.size());
+    }
+
+    @Test
+    public void reload_ShouldReplaceStoredSession() {
+        sessionSnapshot = sessionSnapshot.withUserSession("oldUserId", "oldAuthToken");
+        RecordingCallback recordingCallback = new RecordingCallback();
+
+        sessionManager.reload(recordingCallback);
+        queuedExecutor.runAll();
+
+        assertEquals(1, fakeSessionLoader.numberOfLoads);
+        assertEquals("authToken1", recordingCallback.sessionSnapshots.get(0).getAuthToken());
+    }
+
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            while (!runnables.isEmpty()) {
+                runnables.remove(0).run();
+            }
+        }
+    }
+
+    private static class FakeSessionLoader implements SessionManager.SessionLoader {
+        int numberOfLoads;
+        StmError stmError;
+
+        @Override
+        public void load(StmCallback<User> callback) {
+            numberOfLoads++;
+            if (stmError != null) {
+                callback.onError(stmError);
+                return;
+            }
+            User user = new User();
+            user.setId("userId" + numberOfLoads);
+            user.setAuthToken("authToken" + numberOfLoads);
+            callback.onResponse(user);
+        }
+    }
+
+    private static class RecordingCallback implements StmCallback<SessionSnapshot> {
+        final List<SessionSnapshot> sessionSnapshots = new ArrayList<>();
+        final List<StmError> stmErrors = new ArrayList<>();
+
+        @Override
+        public void onResponse(SessionSnapshot sessionSnapshot) {
+            sessionSnapshots.add(sessionSnapshot);
+        }
+
+        @Override
+        public void onError(StmError stmError) {
+            stmErrors.add(stmError);
+        }
+    }
+}
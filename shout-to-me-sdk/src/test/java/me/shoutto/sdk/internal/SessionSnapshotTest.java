@@ -0,0 +1,48 @@
+package me.shoutto.sdk.internal;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * SessionSnapshotTest
+ */
+public class SessionSnapshotTest {
+
+    @Test
+    public void withUserSession_ShouldReplaceUserValuesAndKeepOthers() {
+        SessionSnapshot sessionSnapshot = new SessionSnapshot(null, null, "serverUrl", "channelId", "installationId");
+
+        SessionSnapshot newSessionSnapshot = sessionSnapshot.withUserSession("userId", "authToken");
+
+        assertFalse(sessionSnapshot.hasUserSession());
+        assertNull(sessionSnapshot.getUserId());
+        assertTrue(newSessionSnapshot.hasUserSession());
+        assertEquals("userId", newSessionSnapshot.getUserId());
+        assertEquals("authToken", newSessionSnapshot.getAuthToken());
+        assertEquals("serverUrl", newSessionSnapshot.getServerUrl());
+        assertEquals("channelId", newSessionSnapshot.getChannelId());
+        assertEquals("installationId", newSessionSnapshot.getInstallationId());
+    }
+
+    @Test
+    public void hasUserSession_WithoutAuthToken_ShouldReturnFalse() {
+        SessionSnapshot sessionSnapshot = new SessionSnapshot("userId", null, "serverUrl", null, null);
+
+        assertFalse(sessionSnapshot.hasUserSession());
+    }
+
+    @Test
+    public void withChannelId_ShouldOnlyReplaceChannelId() {
+        SessionSnapshot sessionSnapshot = new SessionSnapshot("userId", "authToken", "serverUrl", null, null)
+                .withChannelId("channelId");
+
+        assertEquals("channelId", sessionSnapshot.getChannelId());
+        assertEquals("userId", sessionSnapshot.getUserId());
+        assertEquals("authToken", sessionSnapshot.getAuthToken());
+        assertEquals("serverUrl", sessionSnapshot.getServerUrl());
+    }
+}
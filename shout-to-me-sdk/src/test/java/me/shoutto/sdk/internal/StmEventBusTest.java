@@ -0,0 +1,120 @@
+package me.shoutto.sdk.internal;
+
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * StmEventBusTest
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class StmEventBusTest {
+
+    private StmEventBus stmEventBus;
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(Log.class);
+        stmEventBus = new StmEventBus();
+    }
+
+    @Test
+    public void notifyObservers_WithObserverDeletingItself_ShouldDeliverToAllObservers() {
+        final RecordingObserver secondObserver = new RecordingObserver();
+        RecordingObserver firstObserver = new RecordingObserver() {
+            @Override
+            public void update(StmObservableResults stmObservableResults) {
+                super.update(stmObservableResults);
+                stmEventBus.deleteObserver(this);
+            }
+        };
+        stmEventBus.addObserver(firstObserver);
+        stmEventBus.addObserver(secondObserver);
+
+        stmEventBus.notifyObservers(StmObservableResults.failure("first"));
+        stmEventBus.notifyObservers(StmObservableResults.failure("second"));
+
+        assertEquals(1, firstObserver.stmObservableResults.size());
+        assertEquals(2, secondObserver.stmObservableResults.size());
+    }
+
+    @Test
+    public void notifyObservers_WithObserverAddedDuringDelivery_ShouldDeliverFromNextResult() {
+        final RecordingObserver addedObserver = new RecordingObserver();
+        RecordingObserver firstObserver = new RecordingObserver() {
+            @Override
+            public void update(StmObservableResults stmObservableResults) {
+                super.update(stmObservableResults);
+                if (this.stmObservableResults.size() == 1) {
+                    stmEventBus.addObserver(addedObserver);
+                }
+            }
+        };
+        stmEventBus.addObserver(firstObserver);
+
+        stmEventBus.notifyObservers(StmObservableResults.failure("first"));
+        assertEquals(0, addedObserver.stmObservableResults.size());
+
+        stmEventBus.notifyObservers(StmObservableResults.failure("second"));
+        assertEquals(1, addedObserver.stmObservableResults.size());
+    }
+
+    @Test
+    public void notifyObservers_WithFailingObserver_ShouldDeliverToRemainingObservers() {
+        RecordingObserver recordingObserver = new RecordingObserver();
+        stmEventBus.addObserver(new StmObserver() {
+            @Override
+            public void update(StmObservableResults stmObservableResults) {
+                throw new IllegalStateException("Observer failed");
+            }
+        });
+        stmEventBus.addObserver(recordingObserver);
+
+        stmEventBus.notifyObservers(StmObservableResults.failure("error"));
+
+        assertEquals(1, recordingObserver.stmObservableResults.size());
+    }
+
+    @Test
+    public void notifyObservers_WithDeliveryExecutor_ShouldDeliverOnExecutor() {
+        final List<Runnable> runnables = new ArrayList<>();
+        stmEventBus = new StmEventBus(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnables.add(runnable);
+            }
+        });
+        RecordingObserver recordingObserver = new RecordingObserver();
+        stmEventBus.addObserver(recordingObserver);
+        StmObservableResults<Void> stmObservableResults = StmObservableResults.empty(StmObservableType.UPLOAD_FILE);
+
+        stmEventBus.notifyObservers(stmObservableResults);
+        assertEquals(0, recordingObserver.stmObservableResults.size());
+
+        runnables.get(0).run();
+        assertEquals(1, recordingObserver.stmObservableResults.size());
+        assertSame(stmObservableResults, recordingObserver.stmObservableResults.get(0));
+    }
+
+    private static class RecordingObserver implements StmObserver {
+        final List<StmObservableResults> stmObservableResults = new ArrayList<>();
+
+        @Override
+        public void update(StmObservableResults stmObservableResults) {
+            this.stmObservableResults.add(stmObservableResults);
+        }
+    }
+}
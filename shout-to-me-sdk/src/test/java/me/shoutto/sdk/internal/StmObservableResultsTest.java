@@ -0,0 +1,40 @@
+package me.shoutto.sdk.internal;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmObservableResultsTest
+ */
+public class StmObservableResultsTest {
+
+    @Test
+    public void success_WithNullResult_ShouldReturnSharedEmptyResults() {
+        StmObservableResults<String> stmObservableResults =
+                StmObservableResults.success(null, StmObservableType.STM_SERVICE_RESPONSE);
+
+        assertSame(StmObservableResults.empty(StmObservableType.STM_SERVICE_RESPONSE), stmObservableResults);
+        assertFalse(stmObservableResults.isError());
+        assertNull(stmObservableResults.getResult());
+        assertEquals(StmObservableType.STM_SERVICE_RESPONSE, stmObservableResults.getStmObservableType());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void setResult_OnEmptyResults_ShouldThrowException() {
+        StmObservableResults<String> stmObservableResults = StmObservableResults.empty(StmObservableType.UPLOAD_FILE);
+        stmObservableResults.setResult("result");
+    }
+
+    @Test
+    public void failure_ShouldReturnErrorResults() {
+        StmObservableResults<String> stmObservableResults = StmObservableResults.failure("error");
+
+        assertTrue(stmObservableResults.isError());
+        assertEquals("error", stmObservableResults.getErrorMessage());
+    }
+}
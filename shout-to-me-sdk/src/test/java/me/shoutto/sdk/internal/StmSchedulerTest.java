@@ -0,0 +1,124 @@
+package me.shoutto.sdk.internal;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmSchedulerTest
+ */
+public class StmSchedulerTest {
+
+    @Test
+    public void io_WithBurstOfTasks_ShouldRunThemOnBoundedNamedThreads() throws Exception {
+        final int numberOfTasks = 50;
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch countDownLatch = new CountDownLatch(numberOfTasks);
+
+        for (int i = 0; i < numberOfTasks; i++) {
+            StmScheduler.io().execute(new Runnable() {
+                @Override
+                public void run() {
+                    threadNames.add(Thread.currentThread().getName());
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    countDownLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(threadNames.size() <= StmScheduler.IO_POOL_SIZE);
+        for (String threadName : threadNames) {
+            assertTrue(threadName, threadName.startsWith("stm-io-"));
+        }
+    }
+
+    @Test
+    public void scheduleOnIo_ShouldRunTaskOnIoPoolAfterDelay() throws Exception {
+        final String[] threadName = new String[1];
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+
+        StmScheduler.scheduleOnIo(new Runnable() {
+            @Override
+            public void run() {
+                threadName[0] = Thread.currentThread().getName();
+                countDownLatch.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(threadName[0], threadName[0].startsWith("stm-io-"));
+    }
+
+    @Test
+    public void diskWriter_ShouldRunTasksInOrder() throws Exception {
+        final StringBuilder stringBuilder = new StringBuilder();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        for (int i = 0; i < 5; i++) {
+            final int number = i;
+            StmScheduler.diskWriter().execute(new Runnable() {
+                @Override
+                public void run() {
+                    stringBuilder.append(number);
+                }
+            });
+        }
+        StmScheduler.diskWriter().execute(new Runnable() {
+            @Override
+            public void run() {
+                countDownLatch.countDown();
+            }
+        });
+
+        assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+        assertEquals("01234", stringBuilder.toString());
+    }
+
+    @Test
+    public void newSerialExecutor_ShouldRunTasksInOrderOneAtATimeOnIoPool() throws Exception {
+        final int numberOfTasks = 20;
+        final StringBuffer stringBuffer = new StringBuffer();
+        final AtomicInteger runningTasks = new AtomicInteger();
+        final AtomicInteger maxRunningTasks = new AtomicInteger();
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch countDownLatch = new CountDownLatch(numberOfTasks);
+        Executor serialExecutor = StmScheduler.newSerialExecutor();
+
+        for (int i = 0; i < numberOfTasks; i++) {
+            final int number = i;
+            serialExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    maxRunningTasks.set(Math.max(maxRunningTasks.get(), runningTasks.incrementAndGet()));
+                    threadNames.add(Thread.currentThread().getName());
+                    stringBuffer.append(number).append(',');
+                    runningTasks.decrementAndGet();
+                    countDownLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+        assertEquals("0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,", stringBuffer.toString());
+        assertEquals(1, maxRunningTasks.get());
+        for (String threadName : threadNames) {
+            assertTrue(threadName, threadName.startsWith("stm-io-"));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * FlacAudioEncoderTest
+ */
+public class FlacAudioEncoderTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    @Test
+    public void encode_WithSpeech_ShouldBeLosslessAndSmallerThanPcm() throws IOException {
+        short[] audio = generate(new boolean[] { false, true, true, false, true }, 1);
+        byte[] flac = encode(audio);
+
+        assertSamplesEqual(audio, new FlacDecoder(flac).decode());
+        assertTrue("FLAC is " + flac.length + " bytes", flac.length < audio.length * 2 * 6 / 10);
+    }
+
+    @Test
+    public void encode_WithPartialLastBlock_ShouldBeLossless() throws IOException {
+        int[] lengths = { 1, 5, 200, 257, FlacAudioEncoder.BLOCK_SIZE - 1, FlacAudioEncoder.BLOCK_SIZE + 300 };
+        for (int length : lengths) {
+            short[] audio = new short[length];
+            System.arraycopy(generate(new boolean[] { true }, length), 0, audio, 0, length);
+            assertSamplesEqual(audio, new FlacDecoder(encode(audio)).decode());
+        }
+    }
+
+    @Test
+    public void encode_WithFullScaleNoise_ShouldBeLossless() throws IOException {
+        Random random = new Random(7);
+        short[] audio = new short[SAMPLE_RATE];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (short) random.nextInt();
+        }
+        audio[100] = Short.MIN_VALUE;
+        audio[101] = Short.MAX_VALUE;
+        assertSamplesEqual(audio, new FlacDecoder(encode(audio)).decode());
+    }
+
+    @Test
+    public void encode_WithDigitalSilence_ShouldUseConstantSubframes() throws IOException {
+        short[] audio = new short[SAMPLE_RATE * 2];
+        byte[] flac = encode(audio);
+
+        assertSamplesEqual(audio, new FlacDecoder(flac).decode());
+        assertTrue(flac.length < 200);
+    }
+
+    @Test
+    public void encode_ShouldWriteStreamInfo() throws IOException {
+        short[] audio = generate(new boolean[] { true }, 2);
+        FlacDecoder flacDecoder = new FlacDecoder(encode(audio));
+        flacDecoder.decode();
+
+        assertEquals(SAMPLE_RATE, flacDecoder.sampleRate);
+        assertEquals(audio.length, flacDecoder.totalSamples);
+    }
+
+    private static byte[] encode(short[] audio) throws IOException {
+        byte[] pcm = new byte[audio.length * 2];
+        for (int i = 0; i < audio.length; i++) {
+            pcm[2 * i] = (byte) audio[i];
+            pcm[2 * i + 1] = (byte) (audio[i] >> 8);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new FlacAudioEncoder().encode(new ByteArrayInputStream(pcm), pcm.length, output);
+        return output.toByteArray();
+    }
+
+    private static void assertSamplesEqual(short[] expected, int[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("sample " + i, expected[i], actual[i]);
+        }
+    }
+
+    private static short[] generate(boolean[] voicedSeconds, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[SAMPLE_RATE * voicedSeconds.length];
+        for (int i = 0; i < samples.length; i++) {
+            double value = random.nextGaussian() * 60;
+            if (voicedSeconds[i / SAMPLE_RATE]) {
+                value += 6000 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE)
+                        + 2500 * Math.sin(2 * Math.PI * 720 * i / SAMPLE_RATE);
+            }
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return samples;
+    }
+
+    /**
+     * Decodes the subset of FLAC the encoder writes: mono 16-bit frames with constant, verbatim
+     * and fixed subframes. Checks the frame CRCs.
+     */
+    private static class FlacDecoder {
+        private final byte[] data;
+        private int bitPosition;
+        int sampleRate;
+        long totalSamples;
+
+        FlacDecoder(byte[] data) {
+            this.data = data;
+        }
+
+        int[] decode() {
+            assertEquals('f', readBits(8));
+            assertEquals('L', readBits(8));
+            assertEquals('a', readBits(8));
+            assertEquals('C', readBits(8));
+            assertEquals(1, readBits(1));
+            assertEquals(0, readBits(7));
+            assertEquals(34, readBits(24));
+            readBits(16);
+            readBits(16);
+            readBits(24);
+            readBits(24);
+            sampleRate = readBits(20);
+            assertEquals(0, readBits(3));
+            assertEquals(15, readBits(5));
+            totalSamples = ((long) readBits(4) << 32) | (readBits(32) & 0xFFFFFFFFL);
+            bitPosition += 128;
+
+            int[] samples = new int[(int) totalSamples];
+            int count = 0;
+            while (bitPosition < data.length * 8) {
+                count += decodeFrame(samples, count);
+            }
+            assertEquals(samples.length, count);
+            return samples;
+        }
+
+        private int decodeFrame(int[] samples, int offset) {
+            int frameStart = bitPosition / 8;
+            assertEquals(0xFFF8, readBits(16));
+            int blockSizeCode = readBits(4);
+            assertEquals(5, readBits(4));
+            assertEquals(0, readBits(4));
+            assertEquals(4, readBits(3));
+            assertEquals(0, readBits(1));
+            int first = readBits(8);
+            int continuationBytes = Integer.numberOfLeadingZeros(~(first << 24));
+            for (int i = 1; i < continuationBytes; i++) {
+                readBits(8);
+            }
+            int blockSize;
+            if (blockSizeCode == 12) {
+                blockSize = 4096;
+            } else if (blockSizeCode == 6) {
+                blockSize = readBits(8) + 1;
+            } else {
+                assertEquals(7, blockSizeCode);
+                blockSize = readBits(16) + 1;
+            }
+            int headerCrc = FlacAudioEncoder.crc8(slice(frameStart, bitPosition / 8), bitPosition / 8 - frameStart);
+            assertEquals(headerCrc, readBits(8));
+
+            assertEquals(0, readBits(1));
+            int type = readBits(6);
+            assertEquals(0, readBits(1));
+            if (type == 0) {
+                int value = readSigned(16);
+                for (int i = 0; i < blockSize; i++) {
+                    samples[offset + i] = value;
+                }
+            } else if (type == 1) {
+                for (int i = 0; i < blockSize; i++) {
+                    samples[offset + i] = readSigned(16);
+                }
+            } else {
+                assertEquals(8, type & ~7);
+                decodeFixed(samples, offset, blockSize, type & 7);
+            }
+
+            bitPosition = (bitPosition + 7) & ~7;
+            int frameCrc = FlacAudioEncoder.crc16(slice(frameStart, bitPosition / 8), bitPosition / 8 - frameStart);
+            assertEquals(frameCrc, readBits(16));
+            return blockSize;
+        }
+
+        private void decodeFixed(int[] samples, int offset, int blockSize, int order) {
+            for (int i = 0; i < order; i++) {
+                samples[offset + i] = readSigned(16);
+            }
+            assertEquals(0, readBits(2));
+            int partitionOrder = readBits(4);
+            int sample = order;
+            for (int partition = 0; partition < (1 << partitionOrder); partition++) {
+                int parameter = readBits(4);
+                int size = (blockSize >> partitionOrder) - (partition == 0 ? order : 0);
+                for (int i = 0; i < size; i++, sample++) {
+                    int quotient = 0;
+                    while (readBits(1) == 0) {
+                        quotient++;
+                    }
+                    int value = (quotient << parameter) | readBits(parameter);
+                    int residual = (value >>> 1) ^ -(value & 1);
+                    int[] x = samples;
+                    int n = offset + sample;
+                    switch (order) {
+                        case 0:
+                            x[n] = residual;
+                            break;
+                        case 1:
+                            x[n] = residual + x[n - 1];
+                            break;
+                        case 2:
+                            x[n] = residual + 2 * x[n - 1] - x[n - 2];
+                            break;
+                        case 3:
+                            x[n] = residual + 3 * x[n - 1] - 3 * x[n - 2] + x[n - 3];
+                            break;
+                        default:
+                            x[n] = residual + 4 * x[n - 1] - 6 * x[n - 2] + 4 * x[n - 3] - x[n - 4];
+                            break;
+                    }
+                }
+            }
+            assertEquals(blockSize, sample);
+        }
+
+        private byte[] slice(int start, int end) {
+            byte[] slice = new byte[end - start];
+            System.arraycopy(data, start, slice, 0, slice.length);
+            return slice;
+        }
+
+        private int readSigned(int bits) {
+            return (readBits(bits) << (32 - bits)) >> (32 - bits);
+        }
+
+        private int readBits(int bits) {
+            int value = 0;
+            for (int i = 0; i < bits; i++) {
+                int bit = (data[bitPosition >> 3] >> (7 - (bitPosition & 7))) & 1;
+                value = (value << 1) | bit;
+                bitPosition++;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * PcmSegmentBufferTest
+ */
+public class PcmSegmentBufferTest {
+
+    @Test
+    public void append_AcrossSegments_ShouldPreserveAudio() throws IOException {
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(100, 16);
+        byte[] expected = appendSequence(pcmSegmentBuffer, 0, 70, 9);
+        pcmSegmentBuffer.commit();
+
+        PcmRecording recording = pcmSegmentBuffer.getRecording();
+        assertEquals(70, recording.size());
+        assertEquals(5, recording.getSegmentCount());
+
+        byte[] copy = new byte[72];
+        recording.copyTo(copy, 2);
+        assertTrue(Arrays.equals(expected, Arrays.copyOfRange(copy, 2, 72)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        recording.writeTo(outputStream);
+        assertTrue(Arrays.equals(expected, outputStream.toByteArray()));
+
+        assertEquals(6, recording.getSegment(4).remaining());
+    }
+
+    @Test
+    public void getRecording_ShouldOnlyIncludeCommittedAudio() {
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(100, 16);
+        appendSequence(pcmSegmentBuffer, 0, 40, 40);
+        pcmSegmentBuffer.commit();
+        appendSequence(pcmSegmentBuffer, 40, 20, 20);
+
+        assertEquals(60, pcmSegmentBuffer.size());
+        assertEquals(40, pcmSegmentBuffer.getRecording().size());
+    }
+
+    @Test
+    public void append_BeyondExpectedCapacity_ShouldGrow() {
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(32, 16);
+        byte[] expected = appendSequence(pcmSegmentBuffer, 0, 100, 33);
+        pcmSegmentBuffer.commit();
+
+        byte[] copy = new byte[100];
+        pcmSegmentBuffer.getRecording().copyTo(copy, 0);
+        assertTrue(Arrays.equals(expected, copy));
+    }
+
+    @Test
+    public void reset_ShouldDiscardAudio() {
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(100, 16);
+        appendSequence(pcmSegmentBuffer, 0, 50, 50);
+        pcmSegmentBuffer.commit();
+        pcmSegmentBuffer.reset();
+        byte[] expected = appendSequence(pcmSegmentBuffer, 100, 10, 10);
+        pcmSegmentBuffer.commit();
+
+        byte[] copy = new byte[10];
+        pcmSegmentBuffer.getRecording().copyTo(copy, 0);
+        assertEquals(10, pcmSegmentBuffer.getRecording().size());
+        assertTrue(Arrays.equals(expected, copy));
+    }
+
+    @Test
+    public void getSegment_ShouldBeReadOnly() {
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(100, 16);
+        appendSequence(pcmSegmentBuffer, 0, 20, 20);
+        pcmSegmentBuffer.commit();
+
+        ByteBuffer segment = pcmSegmentBuffer.getRecording().getSegment(0);
+        try {
+            segment.put((byte) 1);
+            fail("Segment should be read-only");
+        } catch (ReadOnlyBufferException ex) {
+            // Expected
+        }
+    }
+
+    /**
+     * Appends bytes first, first + 1, ... in direct buffers of at most chunkSize bytes
+     */
+    private static byte[] appendSequence(PcmSegmentBuffer pcmSegmentBuffer, int first, int length, int chunkSize) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (first + i);
+        }
+        ByteBuffer captureBuffer = ByteBuffer.allocateDirect(chunkSize);
+        for (int offset = 0; offset < length; offset += chunkSize) {
+            captureBuffer.clear();
+            captureBuffer.put(bytes, offset, Math.min(chunkSize, length - offset));
+            captureBuffer.flip();
+            pcmSegmentBuffer.append(captureBuffer);
+            assertEquals(0, captureBuffer.remaining());
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,166 @@
+package me.shoutto.sdk.internal.audio;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * RecordingEncoderTest
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class RecordingEncoderTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        PowerMockito.mockStatic(Log.class);
+        directory = File.createTempFile("recordings", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void encode_WithInMemoryRecording_ShouldPassPcmToEncoder() throws IOException {
+        byte[] pcm = sequence(50000);
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(pcm.length, 4096);
+        pcmSegmentBuffer.append(ByteBuffer.wrap(pcm));
+        pcmSegmentBuffer.commit();
+        StmAudioRecorderResult stmAudioRecorderResult = new StmAudioRecorderResult();
+        stmAudioRecorderResult.setRecording(pcmSegmentBuffer.getRecording());
+
+        CopyingEncoder copyingEncoder = new CopyingEncoder();
+        File encodedFile = new RecordingEncoder(copyingEncoder, directory).encode(stmAudioRecorderResult);
+
+        assertEquals(pcm.length, copyingEncoder.pcmLength);
+        assertTrue(encodedFile.getName().endsWith(".pcm"));
+        assertTrue(Arrays.equals(pcm, readFully(encodedFile)));
+    }
+
+    @Test
+    public void encode_WithRecordingFile_ShouldSkipWavHeader() throws IOException {
+        byte[] pcm = sequence(3000);
+        WavFileWriter wavFileWriter = new WavFileWriter(new File(directory, "recording.wav"));
+        wavFileWriter.open();
+        wavFileWriter.append(ByteBuffer.wrap(pcm));
+        wavFileWriter.commit();
+        StmAudioRecorderResult stmAudioRecorderResult = new StmAudioRecorderResult();
+        stmAudioRecorderResult.setFile(wavFileWriter.finish());
+
+        CopyingEncoder copyingEncoder = new CopyingEncoder();
+        File encodedFile = new RecordingEncoder(copyingEncoder, directory).encode(stmAudioRecorderResult);
+
+        assertEquals(pcm.length, copyingEncoder.pcmLength);
+        assertTrue(Arrays.equals(pcm, readFully(encodedFile)));
+    }
+
+    @Test
+    public void encode_WhenEncoderFails_ShouldFallBackToFlacAndDeletePartialFile() throws IOException {
+        byte[] pcm = sequence(8000);
+        PcmSegmentBuffer pcmSegmentBuffer = new PcmSegmentBuffer(pcm.length, 4096);
+        pcmSegmentBuffer.append(ByteBuffer.wrap(pcm));
+        pcmSegmentBuffer.commit();
+        StmAudioRecorderResult stmAudioRecorderResult = new StmAudioRecorderResult();
+        stmAudioRecorderResult.setRecording(pcmSegmentBuffer.getRecording());
+
+        File encodedFile = new RecordingEncoder(new FailingEncoder(), directory).encode(stmAudioRecorderResult);
+
+        assertTrue(encodedFile.getName().endsWith(".flac"));
+        assertEquals(1, directory.listFiles().length);
+        byte[] flac = readFully(encodedFile);
+        assertEquals("fLaC", new String(flac, 0, 4, "US-ASCII"));
+    }
+
+    @Test(expected = IOException.class)
+    public void encode_WhenFlacFails_ShouldThrowIOException() throws IOException {
+        StmAudioRecorderResult stmAudioRecorderResult = new StmAudioRecorderResult();
+        stmAudioRecorderResult.setFile(new File(directory, "missing.wav"));
+
+        new RecordingEncoder(new FlacAudioEncoder(), directory).encode(stmAudioRecorderResult);
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        return data;
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return output.toByteArray();
+    }
+
+    private static class CopyingEncoder implements AudioEncoder {
+        long pcmLength;
+
+        @Override
+        public String getFileExtension() {
+            return "pcm";
+        }
+
+        @Override
+        public void encode(InputStream pcmInput, long pcmLength, OutputStream output) throws IOException {
+            this.pcmLength = pcmLength;
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = pcmInput.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static class FailingEncoder implements AudioEncoder {
+        @Override
+        public String getFileExtension() {
+            return "aac";
+        }
+
+        @Override
+        public void encode(InputStream pcmInput, long pcmLength, OutputStream output) throws IOException {
+            output.write(new byte[100]);
+            throw new IOException("Codec unavailable");
+        }
+    }
+}
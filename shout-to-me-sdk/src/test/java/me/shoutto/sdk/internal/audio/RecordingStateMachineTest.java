@@ -0,0 +1,213 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.shoutto.sdk.VadConfig;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * RecordingStateMachineTest
+ */
+public class RecordingStateMachineTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SIZE = 1600;
+
+    @Test
+    public void onFrame_WithSpeechUntilMaxLength_ShouldCountDownEachSecondAndStop() {
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 3, 2000, true,
+                recordingListener);
+
+        recordingStateMachine.start();
+        recordingStateMachine.onFrame(FRAME_SIZE, 1);
+        int frames = 1;
+        while (!recordingStateMachine.isFinished()) {
+            recordingStateMachine.onFrame(FRAME_SIZE, -1);
+            frames++;
+        }
+
+        assertEquals(3 * SAMPLE_RATE / FRAME_SIZE, frames);
+        assertEquals(RecordingStateMachine.State.STOPPED, recordingStateMachine.getState());
+        assertEquals(3, recordingStateMachine.getSecondsElapsed());
+        assertTrue(recordingStateMachine.didUserSpeak());
+        assertEquals("3/0 2/1 1/2 0/3", recordingListener.countdown());
+        assertEquals(1, recordingListener.numberOfCommits);
+    }
+
+    @Test
+    public void onFrame_WithoutSpeechUntilMaxLength_ShouldCancel() {
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 2, 2000, true,
+                recordingListener);
+
+        recordingStateMachine.start();
+        while (!recordingStateMachine.isFinished()) {
+            recordingStateMachine.onFrame(FRAME_SIZE, -1);
+        }
+
+        assertEquals(RecordingStateMachine.State.CANCELLED, recordingStateMachine.getState());
+        assertFalse(recordingStateMachine.didUserSpeak());
+        assertEquals(0, recordingListener.numberOfCommits);
+    }
+
+    @Test
+    public void onFrame_WithSilenceAfterSpeech_ShouldStopWhenSilenceTimeoutHasElapsed() {
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 30, 500, true,
+                recordingListener);
+
+        recordingStateMachine.start();
+        assertEquals(RecordingStateMachine.State.SPEAKING, recordingStateMachine.onFrame(FRAME_SIZE, 1));
+        assertEquals(RecordingStateMachine.State.SILENCE_AFTER_SPEECH, recordingStateMachine.onFrame(FRAME_SIZE, 0));
+        assertEquals(1, recordingListener.numberOfCommits);
+
+        // Speech within the silence timeout keeps the recording going
+        recordingStateMachine.onFrame(FRAME_SIZE, -1);
+        assertEquals(RecordingStateMachine.State.SPEAKING, recordingStateMachine.onFrame(FRAME_SIZE, 1));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(RecordingStateMachine.State.SPEAKING, recordingStateMachine.onFrame(FRAME_SIZE, -1));
+        }
+
+        recordingStateMachine.onFrame(FRAME_SIZE, 0);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(RecordingStateMachine.State.SILENCE_AFTER_SPEECH, recordingStateMachine.onFrame(FRAME_SIZE, -1));
+        }
+        assertEquals(RecordingStateMachine.State.STOPPED, recordingStateMachine.onFrame(FRAME_SIZE, -1));
+        assertEquals(3, recordingListener.numberOfCommits);
+        assertEquals(3, recordingStateMachine.getSecondsElapsed());
+    }
+
+    @Test
+    public void onFrame_WithSilenceDetectionDisabled_ShouldRecordUntilMaxLength() {
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 2, 100, false,
+                recordingListener);
+
+        recordingStateMachine.start();
+        recordingStateMachine.onFrame(FRAME_SIZE, 1);
+        recordingStateMachine.onFrame(FRAME_SIZE, 0);
+        int frames = 2;
+        while (!recordingStateMachine.isFinished()) {
+            recordingStateMachine.onFrame(FRAME_SIZE, -1);
+            frames++;
+        }
+
+        assertEquals(2 * SAMPLE_RATE / FRAME_SIZE, frames);
+        assertEquals(RecordingStateMachine.State.STOPPED, recordingStateMachine.getState());
+    }
+
+    @Test
+    public void requestStop_FromAnotherThread_ShouldStopOnNextFrame() throws InterruptedException {
+        RecordingListener recordingListener = new RecordingListener();
+        final RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 30, 2000, true,
+                recordingListener);
+        recordingStateMachine.start();
+        recordingStateMachine.onFrame(FRAME_SIZE, 1);
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                recordingStateMachine.requestStop();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertFalse(recordingStateMachine.isFinished());
+        assertEquals(RecordingStateMachine.State.STOPPED, recordingStateMachine.onFrame(0, -1));
+        assertEquals(1, recordingListener.numberOfCommits);
+
+        // Frames after the end change nothing
+        recordingStateMachine.onFrame(FRAME_SIZE, 0);
+        assertEquals(1, recordingListener.numberOfCommits);
+    }
+
+    @Test
+    public void requestCancel_AfterRequestStop_ShouldCancel() {
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 30, 2000, true,
+                recordingListener);
+        recordingStateMachine.start();
+        recordingStateMachine.onFrame(FRAME_SIZE, 1);
+
+        recordingStateMachine.requestStop();
+        recordingStateMachine.requestCancel();
+
+        assertEquals(RecordingStateMachine.State.CANCELLED, recordingStateMachine.onFrame(FRAME_SIZE, -1));
+        assertEquals(0, recordingListener.numberOfCommits);
+    }
+
+    @Test
+    public void onFrame_WithSyntheticSpeech_ShouldStopAfterSilenceTimeout() {
+        short[] audio = generate(new boolean[] { false, false, true, true, false, false, false, false, false, false }, 1);
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setSilenceTimeoutInMillis(2000);
+        VoiceActivityDetector voiceActivityDetector = new VoiceActivityDetector(vadConfig, SAMPLE_RATE);
+        RecordingListener recordingListener = new RecordingListener();
+        RecordingStateMachine recordingStateMachine = new RecordingStateMachine(SAMPLE_RATE, 10,
+                vadConfig.getSilenceTimeoutInMillis(), true, recordingListener);
+
+        recordingStateMachine.start();
+        short[] buffer = new short[1280];
+        int offset = 0;
+        while (!recordingStateMachine.isFinished() && offset + buffer.length <= audio.length) {
+            System.arraycopy(audio, offset, buffer, 0, buffer.length);
+            recordingStateMachine.onFrame(buffer.length,
+                    voiceActivityDetector.determineTalkingStatus(buffer, buffer.length));
+            offset += buffer.length;
+        }
+
+        assertEquals(RecordingStateMachine.State.STOPPED, recordingStateMachine.getState());
+        assertTrue(recordingStateMachine.didUserSpeak());
+        assertTrue(offset >= 6 * SAMPLE_RATE && offset < 7 * SAMPLE_RATE);
+        assertEquals(6, recordingStateMachine.getSecondsElapsed());
+    }
+
+    private static short[] generate(boolean[] voicedSeconds, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[SAMPLE_RATE * voicedSeconds.length];
+        for (int i = 0; i < samples.length; i++) {
+            double value = random.nextGaussian() * 60;
+            if (voicedSeconds[i / SAMPLE_RATE]) {
+                value += 6000 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE)
+                        + 2500 * Math.sin(2 * Math.PI * 720 * i / SAMPLE_RATE);
+            }
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return samples;
+    }
+
+    private static class RecordingListener implements RecordingStateMachine.Listener {
+        final List<String> countdownUpdates = new ArrayList<>();
+        int numberOfCommits;
+
+        @Override
+        public void onCountdownUpdate(int secondsRemaining, int secondsElapsed) {
+            countdownUpdates.add(secondsRemaining + "/" + secondsElapsed);
+        }
+
+        @Override
+        public void onCommitAudio() {
+            numberOfCommits++;
+        }
+
+        String countdown() {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (String countdownUpdate : countdownUpdates) {
+                if (stringBuilder.length() > 0) {
+                    stringBuilder.append(' ');
+                }
+                stringBuilder.append(countdownUpdate);
+            }
+            return stringBuilder.toString();
+        }
+    }
+}
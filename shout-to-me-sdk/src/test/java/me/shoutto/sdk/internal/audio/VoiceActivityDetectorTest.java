@@ -0,0 +1,232 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Random;
+
+import me.shoutto.sdk.VadConfig;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * VoiceActivityDetectorTest
+ */
+public class VoiceActivityDetectorTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    @Test
+    public void determineTalkingStatus_WithSpeechAfterNoise_ShouldDetectSpeechThenSilence() {
+        short[] audio = generate(new boolean[] { false, false, true, true, false, false }, 1);
+        VoiceActivityDetector voiceActivityDetector = new VoiceActivityDetector();
+
+        int firstSpeech = -1;
+        int firstSilenceAfterSpeech = -1;
+        short[] buffer = new short[1280];
+        for (int offset = 0; offset + buffer.length <= audio.length; offset += buffer.length) {
+            System.arraycopy(audio, offset, buffer, 0, buffer.length);
+            int result = voiceActivityDetector.determineTalkingStatus(buffer, buffer.length);
+            if (result == 1 && firstSpeech < 0) {
+                firstSpeech = offset;
+            } else if (result == 0 && firstSpeech >= 0 && firstSilenceAfterSpeech < 0) {
+                firstSilenceAfterSpeech = offset;
+            }
+        }
+
+        assertTrue(firstSpeech >= 2 * SAMPLE_RATE && firstSpeech < 3 * SAMPLE_RATE);
+        assertTrue(firstSilenceAfterSpeech >= 4 * SAMPLE_RATE && firstSilenceAfterSpeech < 5 * SAMPLE_RATE);
+    }
+
+    @Test
+    public void determineTalkingStatus_ShouldMatchPerSampleLogarithmReference() {
+        int[] bufferSizes = { 160, 1000, 1280, 4096 };
+        for (int seed = 0; seed < 8; seed++) {
+            Random random = new Random(seed);
+            boolean[] pattern = new boolean[12];
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = random.nextBoolean();
+            }
+            short[] audio = generate(pattern, seed);
+            int bufferSize = bufferSizes[seed % bufferSizes.length];
+
+            VoiceActivityDetector voiceActivityDetector = new VoiceActivityDetector();
+            ReferenceDetector referenceDetector = new ReferenceDetector();
+            short[] buffer = new short[bufferSize];
+            for (int offset = 0; offset + bufferSize <= audio.length; offset += bufferSize) {
+                System.arraycopy(audio, offset, buffer, 0, bufferSize);
+                assertEquals("seed " + seed + " offset " + offset,
+                        referenceDetector.determineTalkingStatus(buffer, bufferSize),
+                        voiceActivityDetector.determineTalkingStatus(buffer, bufferSize));
+            }
+        }
+    }
+
+    @Test
+    public void determineTalkingStatus_WithShortBuffer_ShouldMatchShortArray() {
+        short[] audio = generate(new boolean[] { false, true, false, true, true, false }, 3);
+        VoiceActivityDetector arrayDetector = new VoiceActivityDetector();
+        VoiceActivityDetector bufferDetector = new VoiceActivityDetector();
+        short[] buffer = new short[1280];
+        ShortBuffer captureSamples = ByteBuffer.allocateDirect(buffer.length * 2)
+                .order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+
+        for (int offset = 0; offset + buffer.length <= audio.length; offset += buffer.length) {
+            System.arraycopy(audio, offset, buffer, 0, buffer.length);
+            captureSamples.clear();
+            captureSamples.put(buffer);
+            assertEquals(arrayDetector.determineTalkingStatus(buffer, buffer.length),
+                    bufferDetector.determineTalkingStatus(captureSamples, buffer.length));
+        }
+    }
+
+    @Test
+    public void determineTalkingStatus_WithShorterSpeechOffset_ShouldDetectSilenceSooner() {
+        short[] audio = generate(new boolean[] { false, false, true, true, false, false }, 1);
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setSpeechOffsetDurationInMillis(200);
+
+        int defaultSilence = findFirstSilenceAfterSpeech(new VoiceActivityDetector(), audio);
+        int configuredSilence = findFirstSilenceAfterSpeech(new VoiceActivityDetector(vadConfig, SAMPLE_RATE), audio);
+
+        assertTrue(configuredSilence > 0);
+        assertTrue(configuredSilence < defaultSilence);
+    }
+
+    @Test
+    public void constructor_WithProfiles_ShouldDetectSpeech() {
+        short[] audio = generate(new boolean[] { false, false, true, true, false, false }, 1);
+        VadConfig[] profiles = { VadConfig.forQuietRoom(), VadConfig.forCar(), VadConfig.forNoisyVenue() };
+        for (VadConfig profile : profiles) {
+            assertTrue(findFirstSilenceAfterSpeech(new VoiceActivityDetector(profile, SAMPLE_RATE), audio) > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_WithOffsetShorterThanOnset_ShouldThrowIllegalArgumentException() {
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setSpeechOnsetDurationInMillis(300);
+        vadConfig.setSpeechOffsetDurationInMillis(200);
+        new VoiceActivityDetector(vadConfig, SAMPLE_RATE);
+    }
+
+    @Test
+    public void determineTalkingStatus_WithDigitalSilence_ShouldIgnoreZeroSamples() {
+        VoiceActivityDetector voiceActivityDetector = new VoiceActivityDetector();
+        short[] buffer = new short[SAMPLE_RATE];
+
+        assertEquals(-1, voiceActivityDetector.determineTalkingStatus(buffer, buffer.length));
+    }
+
+    private static int findFirstSilenceAfterSpeech(VoiceActivityDetector voiceActivityDetector, short[] audio) {
+        boolean speechDetected = false;
+        short[] buffer = new short[1280];
+        for (int offset = 0; offset + buffer.length <= audio.length; offset += buffer.length) {
+            System.arraycopy(audio, offset, buffer, 0, buffer.length);
+            int result = voiceActivityDetector.determineTalkingStatus(buffer, buffer.length);
+            if (result == 1) {
+                speechDetected = true;
+            } else if (result == 0 && speechDetected) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One second of low-level noise or speech-like tone per pattern entry
+     */
+    private static short[] generate(boolean[] voicedSeconds, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[SAMPLE_RATE * voicedSeconds.length];
+        for (int i = 0; i < samples.length; i++) {
+            double value = random.nextGaussian() * 60;
+            if (voicedSeconds[i / SAMPLE_RATE]) {
+                value += 6000 * Math.sin(2 * Math.PI * 180 * i / SAMPLE_RATE)
+                        + 2500 * Math.sin(2 * Math.PI * 720 * i / SAMPLE_RATE);
+            }
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return samples;
+    }
+
+    /**
+     * The original detector: a logarithm per sample and a shifted 50 frame history
+     */
+    private static class ReferenceDetector {
+        int sequence = 0;
+        boolean isTalking = false;
+        int[] history = new int[50];
+        double[] frame = new double[160];
+        int count = 0;
+        double baseline = 0.0;
+
+        int determineTalkingStatus(short[] samples, int numberOfSamples) {
+            int result = -1;
+            for (int i = 0; i < numberOfSamples; i++) {
+                double dbfs = 0 - 20 * Math.log10(Math.abs(samples[i] / 32768.0));
+                if (Double.isInfinite(dbfs)) {
+                    continue;
+                }
+                if (count == frame.length) {
+                    result = checkFrame();
+                    if (result == 0 || result == 1) {
+                        return result;
+                    }
+                    count = 0;
+                }
+                frame[count++] = dbfs;
+            }
+            return result;
+        }
+
+        private int checkFrame() {
+            double energy = 0;
+            for (int i = 0; i < count; i++) {
+                energy += frame[i];
+            }
+            energy /= count;
+
+            if (sequence <= 30) {
+                updateBaseline(energy);
+            }
+            int counter = (0 - (energy - baseline)) >= 8.0 ? 1 : 0;
+            if (sequence >= 30 && counter == 0 && !isTalking) {
+                updateBaseline(energy);
+            }
+            System.arraycopy(history, 0, history, 1, history.length - 1);
+            history[0] = counter;
+
+            if (sequence < 30) {
+                sequence++;
+                return -1;
+            }
+            int action = -1;
+            if (!isTalking && countSpeech(10) == 10) {
+                isTalking = true;
+                action = 1;
+            } else if (isTalking && countSpeech(50) == 0) {
+                isTalking = false;
+                action = 0;
+            }
+            sequence++;
+            return action;
+        }
+
+        private void updateBaseline(double energy) {
+            int n = sequence > 10 ? 10 : sequence;
+            baseline = (baseline * n + energy) / (n + 1);
+        }
+
+        private int countSpeech(int frames) {
+            int speech = 0;
+            for (int i = 0; i < frames; i++) {
+                speech += history[i];
+            }
+            return speech;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package me.shoutto.sdk.internal.audio;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+/**
+ * WavFileWriterTest
+ */
+public class WavFileWriterTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("shout", ".wav");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void finish_ShouldWriteHeaderAndDropUncommittedAudio() throws IOException {
+        WavFileWriter wavFileWriter = new WavFileWriter(file);
+        wavFileWriter.open();
+        wavFileWriter.append(sequence(0, 1000));
+        wavFileWriter.commit();
+        wavFileWriter.append(sequence(1000, 300));
+
+        File result = wavFileWriter.finish();
+
+        byte[] wavData = readFully(result);
+        assertEquals(WavHeader.LENGTH + 1000, wavData.length);
+        ByteBuffer header = ByteBuffer.wrap(wavData).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(36 + 1000, header.getInt(4));
+        assertEquals(1000, header.getInt(40));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals((byte) i, wavData[WavHeader.LENGTH + i]);
+        }
+    }
+
+    @Test
+    public void finish_ShouldMatchInMemoryHeader() throws IOException {
+        WavFileWriter wavFileWriter = new WavFileWriter(file);
+        wavFileWriter.open();
+        wavFileWriter.append(sequence(0, 640));
+        wavFileWriter.commit();
+
+        byte[] wavData = readFully(wavFileWriter.finish());
+        byte[] expected = new byte[WavHeader.LENGTH];
+        WavHeader.write(expected, 0, 640);
+        for (int i = 0; i < WavHeader.LENGTH; i++) {
+            assertEquals("byte " + i, expected[i], wavData[i]);
+        }
+    }
+
+    @Test
+    public void open_WithExistingFile_ShouldTruncate() throws IOException {
+        WavFileWriter wavFileWriter = new WavFileWriter(file);
+        wavFileWriter.open();
+        wavFileWriter.append(sequence(0, 5000));
+        wavFileWriter.commit();
+        wavFileWriter.finish();
+
+        wavFileWriter = new WavFileWriter(file);
+        wavFileWriter.open();
+        wavFileWriter.append(sequence(0, 10));
+        wavFileWriter.commit();
+
+        assertEquals(WavHeader.LENGTH + 10, wavFileWriter.finish().length());
+    }
+
+    @Test
+    public void abort_ShouldDeleteFile() throws IOException {
+        WavFileWriter wavFileWriter = new WavFileWriter(file);
+        wavFileWriter.open();
+        wavFileWriter.append(sequence(0, 100));
+        wavFileWriter.abort();
+
+        assertFalse(file.exists());
+    }
+
+    private static ByteBuffer sequence(int start, int length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) (start + i));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = inputStream.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        } finally {
+            inputStream.close();
+        }
+        return data;
+    }
+}
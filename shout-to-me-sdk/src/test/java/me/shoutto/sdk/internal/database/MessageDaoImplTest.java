@@ -0,0 +1,107 @@
+package me.shoutto.sdk.internal.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * MessageDaoImplTest
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class MessageDaoImplTest {
+
+    private static final String USER_ID = "user1";
+    private StmDbHelper stmDbHelper;
+    private MessageDaoImpl messageDao;
+
+    @Before
+    public void setUp() {
+        stmDbHelper = new StmDbHelper(RuntimeEnvironment.application);
+        messageDao = new MessageDaoImpl(stmDbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        stmDbHelper.close();
+    }
+
+    @Test
+    public void addMessageRecords_WithStoredMessage_ShouldReplaceIt() {
+        messageDao.addMessageRecords(Arrays.asList(newRecord(USER_ID, "a", 1000L, "{\"v\":1}")));
+        messageDao.addMessageRecords(Arrays.asList(newRecord(USER_ID, "a", 1000L, "{\"v\":2}")));
+
+        assertEquals(1, messageDao.getNumRows(USER_ID));
+        MessageRecord storedRecord = messageDao.getNewestMessageRecord(USER_ID);
+        assertEquals(USER_ID, storedRecord.getUserId());
+        assertEquals("a", storedRecord.getMessageId());
+        assertEquals(1000L, storedRecord.getSentDate().getTime());
+        assertEquals("{\"v\":2}", storedRecord.getJson());
+    }
+
+    @Test
+    public void getNewestMessageRecord_WithoutRecords_ShouldReturnNull() {
+        messageDao.addMessageRecords(Arrays.asList(newRecord("user2", "a", 1000L, "{}")));
+
+        assertNull(messageDao.getNewestMessageRecord(USER_ID));
+    }
+
+    @Test
+    public void getMessageRecordsBefore_ShouldPageNewestFirstThroughEqualSentDates() {
+        List<MessageRecord> messageRecords = new ArrayList<>();
+        messageRecords.add(newRecord(USER_ID, "a", 1000L, "{}"));
+        messageRecords.add(newRecord(USER_ID, "b", 2000L, "{}"));
+        messageRecords.add(newRecord(USER_ID, "c", 2000L, "{}"));
+        messageRecords.add(newRecord(USER_ID, "d", 2000L, "{}"));
+        messageRecords.add(newRecord(USER_ID, "e", 3000L, "{}"));
+        messageRecords.add(newRecord("user2", "f", 2500L, "{}"));
+        messageDao.addMessageRecords(messageRecords);
+
+        StringBuilder messageIds = new StringBuilder();
+        MessageRecord before = null;
+        List<MessageRecord> page;
+        do {
+            page = messageDao.getMessageRecordsBefore(USER_ID, before, 2);
+            assertTrue(page.size() <= 2);
+            for (MessageRecord messageRecord : page) {
+                messageIds.append(messageRecord.getMessageId());
+                before = messageRecord;
+            }
+        } while (!page.isEmpty());
+
+        assertEquals("edcba", messageIds.toString());
+    }
+
+    @Test
+    public void deleteMessageRecords_ShouldOnlyDeleteTheUsersRecords() {
+        messageDao.addMessageRecords(Arrays.asList(newRecord(USER_ID, "a", 1000L, "{}"),
+                newRecord("user2", "a", 1000L, "{}")));
+
+        messageDao.deleteMessageRecords(USER_ID);
+
+        assertEquals(0, messageDao.getNumRows(USER_ID));
+        assertEquals(1, messageDao.getNumRows("user2"));
+    }
+
+    private static MessageRecord newRecord(String userId, String messageId, long sentDate, String json) {
+        MessageRecord messageRecord = new MessageRecord();
+        messageRecord.setUserId(userId);
+        messageRecord.setMessageId(messageId);
+        messageRecord.setSentDate(new Date(sentDate));
+        messageRecord.setJson(json);
+        return messageRecord;
+    }
+}
@@ -0,0 +1,149 @@
+package me.shoutto.sdk.internal.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import me.shoutto.sdk.UserLocation;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * UserLocationDaoImplTest
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class UserLocationDaoImplTest {
+
+    private static final long MAX_NUM_RECORDS = 5;
+    private StmDbHelper stmDbHelper;
+    private UserLocationDaoImpl userLocationDao;
+
+    @Before
+    public void setUp() {
+        stmDbHelper = new StmDbHelper(RuntimeEnvironment.application);
+        userLocationDao = new UserLocationDaoImpl(stmDbHelper, MAX_NUM_RECORDS);
+    }
+
+    @After
+    public void tearDown() {
+        stmDbHelper.close();
+    }
+
+    @Test
+    public void addUserLocationRecord_ShouldStoreAllFields() {
+        UserLocationRecord userLocationRecord = newRecord(1000L);
+        userLocationRecord.setMetersSinceLastUpdate(12.5f);
+        userLocationRecord.setRadius(30f);
+        userLocationRecord.setType("Point");
+        userLocationDao.addUserLocationRecord(userLocationRecord);
+
+        List<UserLocationRecord> userLocationRecords = userLocationDao.getAllUserLocationRecords();
+
+        assertEquals(1, userLocationRecords.size());
+        UserLocationRecord storedRecord = userLocationRecords.get(0);
+        assertEquals(1000L, storedRecord.getDate().getTime());
+        assertEquals(47.6, storedRecord.getLat());
+        assertEquals(-122.3, storedRecord.getLon());
+        assertEquals(12.5f, storedRecord.getMetersSinceLastUpdate());
+        assertEquals(30f, storedRecord.getRadius());
+        assertEquals("Point", storedRecord.getType());
+    }
+
+    @Test
+    public void addUserLocationRecord_BeyondLimit_ShouldKeepNewestRecords() {
+        long[] dates = { 5000L, 1000L, 7000L, 3000L, 2000L, 6000L, 4000L };
+        for (long date : dates) {
+            userLocationDao.addUserLocationRecord(newRecord(date));
+        }
+
+        assertEquals(MAX_NUM_RECORDS, userLocationDao.getNumRows());
+        long oldestDate = Long.MAX_VALUE;
+        for (UserLocationRecord userLocationRecord : userLocationDao.getAllUserLocationRecords()) {
+            oldestDate = Math.min(oldestDate, userLocationRecord.getDate().getTime());
+        }
+        assertEquals(3000L, oldestDate);
+    }
+
+    @Test
+    public void getAllUserLocations_ShouldMapCoordinatesAsLonLat() {
+        UserLocationRecord userLocationRecord = newRecord(1000L);
+        userLocationDao.addUserLocationRecord(userLocationRecord);
+        userLocationRecord = newRecord(2000L);
+        userLocationRecord.setMetersSinceLastUpdate(8f);
+        userLocationDao.addUserLocationRecord(userLocationRecord);
+
+        List<UserLocation> userLocations = userLocationDao.getAllUserLocations();
+
+        assertEquals(2, userLocations.size());
+        for (UserLocation userLocation : userLocations) {
+            assertEquals(-122.3, userLocation.getLocation().getCoordinates()[0]);
+            assertEquals(47.6, userLocation.getLocation().getCoordinates()[1]);
+            if (userLocation.getDate().getTime() == 1000L) {
+                assertNull(userLocation.getMetersSinceLastUpdate());
+            } else {
+                assertEquals(8f, userLocation.getMetersSinceLastUpdate());
+            }
+        }
+    }
+
+    @Test
+    public void deleteAllUserLocationRecords_ShouldEmptyTable() {
+        userLocationDao.addUserLocationRecord(newRecord(1000L));
+        userLocationDao.addUserLocationRecord(newRecord(2000L));
+
+        userLocationDao.deleteAllUserLocationRecords();
+
+        assertEquals(0, userLocationDao.getNumRows());
+    }
+
+    @Test
+    public void getOldestUserLocationRecords_ShouldReturnOldestRecordsFirst() {
+        long[] dates = { 3000L, 1000L, 4000L, 2000L };
+        for (long date : dates) {
+            userLocationDao.addUserLocationRecord(newRecord(date));
+        }
+
+        List<UserLocationRecord> userLocationRecords = userLocationDao.getOldestUserLocationRecords(3);
+
+        assertEquals(3, userLocationRecords.size());
+        assertEquals(1000L, userLocationRecords.get(0).getDate().getTime());
+        assertEquals(2000L, userLocationRecords.get(1).getDate().getTime());
+        assertEquals(3000L, userLocationRecords.get(2).getDate().getTime());
+    }
+
+    @Test
+    public void deleteUserLocationRecords_ShouldOnlyDeleteGivenRecords() {
+        userLocationDao.addUserLocationRecord(newRecord(1000L));
+        userLocationDao.addUserLocationRecord(newRecord(2000L));
+        List<UserLocationRecord> sentRecords = userLocationDao.getOldestUserLocationRecords(2);
+        userLocationDao.addUserLocationRecord(newRecord(500L));
+
+        List<Long> ids = new ArrayList<>();
+        for (UserLocationRecord userLocationRecord : sentRecords) {
+            ids.add(userLocationRecord.getId());
+        }
+        userLocationDao.deleteUserLocationRecords(ids);
+
+        List<UserLocationRecord> userLocationRecords = userLocationDao.getAllUserLocationRecords();
+        assertEquals(1, userLocationRecords.size());
+        assertEquals(500L, userLocationRecords.get(0).getDate().getTime());
+    }
+
+    private static UserLocationRecord newRecord(long date) {
+        UserLocationRecord userLocationRecord = new UserLocationRecord();
+        userLocationRecord.setDate(new Date(date));
+        userLocationRecord.setLat(47.6);
+        userLocationRecord.setLon(-122.3);
+        return userLocationRecord;
+    }
+}
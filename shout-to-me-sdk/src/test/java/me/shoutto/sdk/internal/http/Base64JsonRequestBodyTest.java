@@ -0,0 +1,70 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Base64JsonRequestBodyTest
+ */
+public class Base64JsonRequestBodyTest {
+
+    @Test
+    public void writeTo_ShouldAddBase64FieldToJson() throws IOException {
+        Base64JsonRequestBody requestBody = new Base64JsonRequestBody("{\"channel_id\":\"abc\"}", "audio",
+                new ByteArrayRequestBody("audio/wav", "RIFF!".getBytes("UTF-8")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        requestBody.writeTo(output);
+
+        assertEquals("{\"channel_id\":\"abc\",\"audio\":\"UklGRiE=\"}", output.toString("UTF-8"));
+        assertEquals("application/json", requestBody.getContentType());
+    }
+
+    @Test
+    public void writeTo_WithEmptyJson_ShouldWriteOnlyBase64Field() throws IOException {
+        Base64JsonRequestBody requestBody = new Base64JsonRequestBody("{}", "audio",
+                new ByteArrayRequestBody("audio/wav", "RI".getBytes("UTF-8")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        requestBody.writeTo(output);
+
+        assertEquals("{\"audio\":\"Ukk=\"}", output.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeTo_WithDataLargerThanBuffer_ShouldEncodeAcrossBuffers() throws IOException {
+        byte[] data = new byte[20000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        Base64JsonRequestBody requestBody = new Base64JsonRequestBody("{}", "audio",
+                new ByteArrayRequestBody("audio/wav", data));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        requestBody.writeTo(output);
+
+        String json = output.toString("UTF-8");
+        String encoded = json.substring("{\"audio\":\"".length(), json.length() - 2);
+        assertEquals(encode(data), encoded);
+        assertEquals(output.size(), requestBody.getContentLength());
+    }
+
+    private static String encode(byte[] data) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < data.length; i += 3) {
+            int n = (data[i] & 0xff) << 16;
+            n |= i + 1 < data.length ? (data[i + 1] & 0xff) << 8 : 0;
+            n |= i + 2 < data.length ? data[i + 2] & 0xff : 0;
+            stringBuilder.append(alphabet.charAt(n >>> 18));
+            stringBuilder.append(alphabet.charAt((n >>> 12) & 0x3f));
+            stringBuilder.append(i + 1 < data.length ? alphabet.charAt((n >>> 6) & 0x3f) : '=');
+            stringBuilder.append(i + 2 < data.length ? alphabet.charAt(n & 0x3f) : '=');
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import me.shoutto.sdk.Channel;
+import me.shoutto.sdk.Message;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * GsonRegistryTest
+ */
+public class GsonRegistryTest {
+
+    @Test
+    public void getEntityGson_ShouldReturnSharedInstance() {
+        assertSame(GsonRegistry.getEntityGson(), GsonRegistry.getEntityGson());
+        assertSame(GsonRegistry.getPolymorphicEntityGson(), GsonRegistry.getPolymorphicEntityGson());
+    }
+
+    @Test
+    public void getPolymorphicEntityGson_WithBuiltInSubtype_ShouldReturnSharedPolymorphicInstance() {
+        assertSame(GsonRegistry.getPolymorphicEntityGson(),
+                GsonRegistry.getPolymorphicEntityGson(Message.class, Message.SERIALIZATION_KEY));
+        assertSame(GsonRegistry.getPolymorphicEntityGson(),
+                GsonRegistry.getPolymorphicEntityGson(Channel.class, Channel.SERIALIZATION_KEY));
+    }
+
+    @Test
+    public void getEntityGson_ShouldSerializeDatesAsUtc() {
+        String json = GsonRegistry.getEntityGson().toJson(new Date(0L), Date.class);
+
+        assertEquals("\"1970-01-01T00:00:00.000Z\"", json);
+    }
+}
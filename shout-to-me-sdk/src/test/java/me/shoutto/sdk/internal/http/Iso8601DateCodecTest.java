@@ -0,0 +1,79 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+/**
+ * Iso8601DateCodecTest
+ */
+public class Iso8601DateCodecTest {
+
+    private static final long YEAR_1900 = -2208988800000L;
+    private static final long YEAR_2100 = 4102444800000L;
+
+    @Test
+    public void format_ShouldMatchSimpleDateFormat() {
+        DateFormat dateFormat = createSimpleDateFormat();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long millis = YEAR_1900 + (long) (random.nextDouble() * (YEAR_2100 - YEAR_1900));
+            assertEquals(dateFormat.format(new Date(millis)), Iso8601DateCodec.format(millis));
+        }
+    }
+
+    @Test
+    public void format_WithBoundaryValues_ShouldMatchSimpleDateFormat() {
+        DateFormat dateFormat = createSimpleDateFormat();
+        long[] values = { 0L, -1L, 1L, YEAR_1900, YEAR_1900 - 1, 951782400000L, 951868799999L,
+                253402300799999L, 253402300800000L, -62167219200000L };
+        for (long millis : values) {
+            assertEquals(dateFormat.format(new Date(millis)), Iso8601DateCodec.format(millis));
+        }
+    }
+
+    @Test
+    public void parse_ShouldMatchSimpleDateFormat() throws ParseException {
+        DateFormat dateFormat = createSimpleDateFormat();
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long millis = YEAR_1900 + (long) (random.nextDouble() * (YEAR_2100 - YEAR_1900));
+            String value = dateFormat.format(new Date(millis));
+            assertEquals(dateFormat.parse(value), Iso8601DateCodec.parse(value));
+        }
+    }
+
+    @Test
+    public void parse_WithNonCanonicalValue_ShouldFallBackToSimpleDateFormat() throws ParseException {
+        DateFormat dateFormat = createSimpleDateFormat();
+        String[] values = { "2017-02-30T10:00:00.000Z", "2017-1-5T10:00:00.5Z", "1850-06-01T00:00:00.000Z" };
+        for (String value : values) {
+            assertEquals(dateFormat.parse(value), Iso8601DateCodec.parse(value));
+        }
+    }
+
+    @Test
+    public void parse_WithInvalidValue_ShouldThrowParseException() {
+        try {
+            Iso8601DateCodec.parse("not a date");
+            fail("ParseException expected");
+        } catch (ParseException ex) {
+            // Expected
+        }
+    }
+
+    private static DateFormat createSimpleDateFormat() {
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat;
+    }
+}
@@ -0,0 +1,58 @@
+package me.shoutto.sdk.internal.http;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+
+import me.shoutto.sdk.internal.database.MessageRecord;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * MessagePageResponseAdapterTest
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class MessagePageResponseAdapterTest {
+
+    @Test
+    public void adapt_WithMessagesMissingIdOrSentDate_ShouldSkipThemAndCountThem() throws JSONException {
+        JSONObject jsonObject = new JSONObject("{\"status\":\"success\",\"data\":{\"messages\":["
+                + "{\"id\":\"a\",\"sent_date\":\"1970-01-01T00:00:01.000Z\"},"
+                + "{\"sent_date\":\"1970-01-01T00:00:02.000Z\"},"
+                + "{\"id\":\"c\"},"
+                + "{\"id\":\"d\",\"sent_date\":\"not a date\"},"
+                + "{\"id\":\"e\",\"sent_date\":\"1970-01-01T00:00:05.000Z\"}]}}");
+
+        MessagePage messagePage = new MessagePageResponseAdapter().adapt(jsonObject);
+
+        assertEquals(5, messagePage.getMessageCount());
+        assertEquals(2, messagePage.getMessageRecords().size());
+        MessageRecord messageRecord = messagePage.getMessageRecords().get(1);
+        assertEquals("e", messageRecord.getMessageId());
+        assertEquals(new Date(5000L), messageRecord.getSentDate());
+    }
+
+    @Test
+    public void adapt_WithEmptyPage_ShouldReturnEmptyPage() throws JSONException {
+        JSONObject jsonObject = new JSONObject("{\"status\":\"success\",\"data\":{\"messages\":[]}}");
+
+        MessagePage messagePage = new MessagePageResponseAdapter().adapt(jsonObject);
+
+        assertEquals(0, messagePage.getMessageCount());
+        assertEquals(0, messagePage.getMessageRecords().size());
+    }
+
+    @Test
+    public void adapt_WithoutMessages_ShouldReturnNull() throws JSONException {
+        JSONObject jsonObject = new JSONObject("{\"status\":\"success\",\"data\":{}}");
+
+        assertNull(new MessagePageResponseAdapter().adapt(jsonObject));
+    }
+}
@@ -0,0 +1,48 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import me.shoutto.sdk.Message;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * MessagePageUrlProviderTest
+ */
+
+public class MessagePageUrlProviderTest {
+
+    private static final String BASE_URL = "http://app.shoutto.me/api/v1";
+
+    @Test
+    public void getUrl_WithoutCursor_ShouldReturnFirstPageUrl() {
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 100);
+
+        String url = messagePageUrlProvider.getUrl(new Message(), HttpMethod.GET);
+
+        assertEquals(BASE_URL + "/messages?date_field=sent_date&sort=asc&limit=100", url);
+    }
+
+    @Test
+    public void getUrl_WithCursor_ShouldReturnUrlStartingAfterCursor() {
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 50);
+        messagePageUrlProvider.setCursor(new Date(1500000000123L), "abc 1&2");
+
+        String url = messagePageUrlProvider.getUrl(new Message(), HttpMethod.GET);
+
+        assertEquals(BASE_URL + "/messages?date_field=sent_date&sort=asc&limit=50"
+                + "&after=2017-07-14T02%3A40%3A00.123Z&after_id=abc+1%262", url);
+    }
+
+    @Test
+    public void getUrl_WhenNotPaged_ShouldReturnMessageListUrlAndIgnoreCursor() {
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL);
+        messagePageUrlProvider.setCursor(new Date(1500000000123L), "abc123");
+
+        String url = messagePageUrlProvider.getUrl(new Message(), HttpMethod.GET);
+
+        assertEquals(BASE_URL + "/messages", url);
+    }
+}
@@ -0,0 +1,88 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * MultipartRequestBodyTest
+ */
+public class MultipartRequestBodyTest {
+
+    @Test
+    public void writeTo_ShouldWriteFieldsAndFileParts() throws IOException {
+        MultipartRequestBody requestBody = new MultipartRequestBody("boundary");
+        requestBody.addField("channel_id", "abc");
+        requestBody.addFile("audio", "shout.wav", new ByteArrayRequestBody("audio/wav", new byte[] { 'R', 'I' }));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        requestBody.writeTo(output);
+
+        String expected = "--boundary\r\n"
+                + "Content-Disposition: form-data; name=\"channel_id\"\r\n"
+                + "\r\n"
+                + "abc\r\n"
+                + "--boundary\r\n"
+                + "Content-Disposition: form-data; name=\"audio\"; filename=\"shout.wav\"\r\n"
+                + "Content-Type: audio/wav\r\n"
+                + "\r\n"
+                + "RI\r\n"
+                + "--boundary--\r\n";
+        assertEquals(expected, output.toString("UTF-8"));
+        assertEquals("multipart/form-data; boundary=boundary", requestBody.getContentType());
+    }
+
+    @Test
+    public void getContentLength_ShouldMatchBytesWritten() throws IOException {
+        MultipartRequestBody requestBody = new MultipartRequestBody();
+        requestBody.addField("topic", "caf\u00e9");
+        requestBody.addField("tags", "a,b");
+        requestBody.addFile("audio", "shout.wav", new ByteArrayRequestBody("audio/wav", new byte[12345]));
+
+        CountingOutputStream output = new CountingOutputStream();
+        requestBody.writeTo(output);
+
+        assertEquals(output.count, requestBody.getContentLength());
+    }
+
+    @Test
+    public void getContentLength_WithUnknownPartLength_ShouldBeUnknown() {
+        MultipartRequestBody requestBody = new MultipartRequestBody();
+        requestBody.addField("topic", "news");
+        requestBody.addFile("audio", "shout.wav", new StmHttpRequestBody() {
+            @Override
+            public String getContentType() {
+                return "audio/wav";
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) {
+            }
+        });
+
+        assertEquals(-1, requestBody.getContentLength());
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.shoutto.sdk.internal.http;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import me.shoutto.sdk.UserLocation;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * PolylineLocationCodecTest
+ */
+public class PolylineLocationCodecTest {
+
+    @Test
+    public void encode_ShouldRoundTripThroughDecode() {
+        List<UserLocation> userLocations = createUserLocations(500);
+
+        List<long[]> decodedLocations = PolylineLocationCodec.decode(PolylineLocationCodec.encode(userLocations));
+
+        assertEquals(userLocations.size(), decodedLocations.size());
+        for (int i = 0; i < userLocations.size(); i++) {
+            UserLocation userLocation = userLocations.get(i);
+            long[] decodedLocation = decodedLocations.get(i);
+            assertEquals(Math.round(userLocation.getLocation().getCoordinates()[1] * 1e5), decodedLocation[0]);
+            assertEquals(Math.round(userLocation.getLocation().getCoordinates()[0] * 1e5), decodedLocation[1]);
+            assertEquals(userLocation.getDate().getTime(), decodedLocation[2]);
+            assertEquals((long) Math.round(userLocation.getMetersSinceLastUpdate()), decodedLocation[3]);
+        }
+    }
+
+    @Test
+    public void encode_WithUnknownMetersSinceLastUpdate_ShouldDecodeAsMinusOne() {
+        UserLocation userLocation = createUserLocation(-33.86785, 151.20732, 1500000000000L);
+
+        List<long[]> decodedLocations = PolylineLocationCodec.decode(PolylineLocationCodec.encode(
+                Collections.singletonList(userLocation)));
+
+        assertEquals(1, decodedLocations.size());
+        assertEquals(-3386785L, decodedLocations.get(0)[0]);
+        assertEquals(15120732L, decodedLocations.get(0)[1]);
+        assertEquals(-1L, decodedLocations.get(0)[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_WithTruncatedInput_ShouldThrowIllegalArgumentException() {
+        String encodedLocations = PolylineLocationCodec.encode(createUserLocations(2));
+
+        PolylineLocationCodec.decode(encodedLocations.substring(0, encodedLocations.length() - 1));
+    }
+
+    @Test
+    public void adapt_WithPolylineFormat_ShouldBeMuchSmallerThanJson() throws Exception {
+        SortedSet<UserLocation> userLocationSortedSet = new TreeSet<>(new Comparator<UserLocation>() {
+            @Override
+            public int compare(UserLocation ul1, UserLocation ul2) {
+                return ul2.getDate().compareTo(ul1.getDate());
+            }
+        });
+        userLocationSortedSet.addAll(createUserLocations(1000));
+
+        String json = new UserLocationsRequestAdapter().adapt(userLocationSortedSet);
+        String polyline = new UserLocationsRequestAdapter(UserLocationsRequestAdapter.Format.POLYLINE)
+                .adapt(userLocationSortedSet);
+
+        JSONObject jsonObject = new JSONObject(polyline);
+        assertEquals("polyline", jsonObject.getString("locations_format"));
+        assertEquals(1000, PolylineLocationCodec.decode(jsonObject.getString("locations")).size());
+        assertTrue("JSON is " + json.length() + " bytes, polyline is " + polyline.length() + " bytes",
+                polyline.length() * 5 < json.length());
+    }
+
+    private static List<UserLocation> createUserLocations(int numberOfLocations) {
+        Random random = new Random(1);
+        List<UserLocation> userLocations = new ArrayList<>();
+        double lat = 45.5231;
+        double lon = -122.6765;
+        for (int i = 0; i < numberOfLocations; i++) {
+            lat += (random.nextDouble() - 0.5) / 100;
+            lon += (random.nextDouble() - 0.5) / 100;
+            UserLocation userLocation = createUserLocation(lat, lon, 1500000000000L + i * 60000L + random.nextInt(1000));
+            userLocation.setMetersSinceLastUpdate(random.nextFloat() * 5000);
+            userLocations.add(userLocation);
+        }
+        return userLocations;
+    }
+
+    private static UserLocation createUserLocation(double lat, double lon, long date) {
+        UserLocation userLocation = new UserLocation();
+        userLocation.setDate(new Date(date));
+        userLocation.setLocation(new UserLocation.Location(new Double[] { lon, lat }));
+        return userLocation;
+    }
+}
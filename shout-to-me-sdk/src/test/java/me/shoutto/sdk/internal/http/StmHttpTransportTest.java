@@ -0,0 +1,207 @@
+package me.shoutto.sdk.internal.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmHttpTransportTest
+ */
+public class StmHttpTransportTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = readBody(exchange.getRequestBody());
+                String response = String.format("{\"method\":\"%s\",\"auth\":\"%s\",\"body\":%s}",
+                        exchange.getRequestMethod(),
+                        exchange.getRequestHeaders().getFirst("Authorization"),
+                        body.isEmpty() ? "null" : body);
+                sendResponse(exchange, 200, response);
+            }
+        });
+        server.createContext("/upload", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = readBody(exchange.getRequestBody());
+                String response = String.format("%s|%s|%s|%s",
+                        exchange.getRequestHeaders().getFirst("Content-Type"),
+                        exchange.getRequestHeaders().getFirst("Content-Length"),
+                        exchange.getRequestHeaders().getFirst("Transfer-Encoding"),
+                        body);
+                sendResponse(exchange, 200, response);
+            }
+        });
+        server.createContext("/missing", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                sendResponse(exchange, 404, "{\"status\":\"fail\"}");
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int active = activeRequests.incrementAndGet();
+                int max;
+                while ((max = maxActiveRequests.get()) < active) {
+                    maxActiveRequests.compareAndSet(max, active);
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                activeRequests.decrementAndGet();
+                sendResponse(exchange, 200, "{\"status\":\"success\"}");
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void execute_WithPutBody_ShouldSendBodyAndHeaders() throws IOException {
+        StmHttpTransport transport = new StmHttpTransport(5000, 5000, 2);
+        StmHttpResponse response = transport.execute(HttpMethod.PUT, baseUrl + "/echo",
+                "Bearer token", "{\"a\":1}");
+
+        assertEquals(200, response.getResponseCode());
+        assertEquals("{\"method\":\"PUT\",\"auth\":\"Bearer token\",\"body\":{\"a\":1}}", response.getBody());
+    }
+
+    @Test
+    public void execute_WithErrorResponse_ShouldReturnErrorBody() throws IOException {
+        StmHttpTransport transport = new StmHttpTransport(5000, 5000, 2);
+        StmHttpResponse response = transport.execute(HttpMethod.GET, baseUrl + "/missing", null, null);
+
+        assertEquals(404, response.getResponseCode());
+        assertEquals("{\"status\":\"fail\"}", response.getBody());
+    }
+
+    @Test
+    public void executeStreaming_WithBodyOfKnownLength_ShouldUseFixedLength() throws IOException {
+        StmHttpTransport transport = new StmHttpTransport(5000, 5000, 2);
+        StmHttpResponse response = transport.executeStreaming(HttpMethod.POST, baseUrl + "/upload", null,
+                new ByteArrayRequestBody("audio/wav", "RIFF".getBytes("UTF-8")));
+
+        assertEquals(200, response.getResponseCode());
+        assertEquals("audio/wav|4|null|RIFF", response.getBody());
+    }
+
+    @Test
+    public void executeStreaming_WithBodyOfUnknownLength_ShouldUseChunkedEncoding() throws IOException {
+        StmHttpTransport transport = new StmHttpTransport(5000, 5000, 2);
+        StmHttpResponse response = transport.executeStreaming(HttpMethod.POST, baseUrl + "/upload", null,
+                new StmHttpRequestBody() {
+                    @Override
+                    public String getContentType() {
+                        return "audio/wav";
+                    }
+
+                    @Override
+                    public long getContentLength() {
+                        return -1;
+                    }
+
+                    @Override
+                    public void writeTo(OutputStream outputStream) throws IOException {
+                        for (int i = 0; i < 3000; i++) {
+                            outputStream.write("0123456789".getBytes("UTF-8"));
+                        }
+                    }
+                });
+
+        assertEquals(200, response.getResponseCode());
+        String[] fields = response.getBody().split("\\|");
+        assertEquals("audio/wav", fields[0]);
+        assertEquals("null", fields[1]);
+        assertEquals("chunked", fields[2]);
+        assertEquals(30000, fields[3].length());
+    }
+
+    @Test
+    public void execute_WithConcurrentRequests_ShouldNotExceedPerHostLimit() throws Exception {
+        final StmHttpTransport transport = new StmHttpTransport(5000, 5000, 2);
+        final CountDownLatch latch = new CountDownLatch(8);
+        final List<Integer> responseCodes = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int code = transport.execute(HttpMethod.GET, baseUrl + "/slow", null, null)
+                                .getResponseCode();
+                        synchronized (responseCodes) {
+                            responseCodes.add(code);
+                        }
+                    } catch (IOException ex) {
+                        // Counted as a missing response code below
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(8, responseCodes.size());
+        assertTrue(maxActiveRequests.get() <= 2);
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toString("UTF-8");
+    }
+
+    private static void sendResponse(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+}
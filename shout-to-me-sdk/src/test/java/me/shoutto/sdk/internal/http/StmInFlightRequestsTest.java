@@ -0,0 +1,79 @@
+package me.shoutto.sdk.internal.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import me.shoutto.sdk.internal.StmObservable;
+import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObserver;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmInFlightRequestsTest
+ */
+public class StmInFlightRequestsTest {
+
+    private static final String URL = "https://app.shoutto.me/api/v1/messages?unread_only=true";
+    private StmInFlightRequests stmInFlightRequests;
+
+    @Before
+    public void setUp() {
+        stmInFlightRequests = new StmInFlightRequests();
+    }
+
+    @Test
+    public void join_WithRequestInFlight_ShouldAttachToRequest() {
+        String key = StmInFlightRequests.getKey(URL, "Bearer token", new CountResponseAdapter());
+        FakeObservable firstObservable = new FakeObservable();
+        FakeObservable secondObservable = new FakeObservable();
+        FakeObservable thirdObservable = new FakeObservable();
+
+        assertTrue(stmInFlightRequests.join(key, firstObservable));
+        assertFalse(stmInFlightRequests.join(key, secondObservable));
+        assertFalse(stmInFlightRequests.join(key, thirdObservable));
+
+        List<StmObservable> requesters = stmInFlightRequests.complete(key);
+        assertEquals(3, requesters.size());
+        assertSame(firstObservable, requesters.get(0));
+        assertSame(thirdObservable, requesters.get(2));
+    }
+
+    @Test
+    public void join_AfterComplete_ShouldSendNewRequest() {
+        String key = StmInFlightRequests.getKey(URL, "Bearer token", new CountResponseAdapter());
+        stmInFlightRequests.join(key, new FakeObservable());
+        stmInFlightRequests.complete(key);
+
+        assertTrue(stmInFlightRequests.join(key, new FakeObservable()));
+        assertEquals(0, stmInFlightRequests.complete("unknown key").size());
+    }
+
+    @Test
+    public void getKey_WithDifferentAuthorizationOrAdapter_ShouldNotMatch() {
+        String key = StmInFlightRequests.getKey(URL, "Bearer token", new CountResponseAdapter());
+
+        assertEquals(key, StmInFlightRequests.getKey(URL, "Bearer token", new CountResponseAdapter()));
+        assertFalse(key.equals(StmInFlightRequests.getKey(URL, "Bearer other", new CountResponseAdapter())));
+        assertFalse(key.equals(StmInFlightRequests.getKey(URL, "Bearer token", new NullResponseAdapter())));
+    }
+
+    private static class FakeObservable implements StmObservable {
+        @Override
+        public void addObserver(StmObserver o) {
+        }
+
+        @Override
+        public void deleteObserver(StmObserver o) {
+        }
+
+        @Override
+        public void notifyObservers(StmObservableResults stmObserverResults) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package me.shoutto.sdk.internal.http;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmJsonEnvelopeReaderTest
+ */
+public class StmJsonEnvelopeReaderTest {
+
+    private final Gson gson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    private final Type itemListType = new TypeToken<List<Item>>(){}.getType();
+
+    @Test
+    public void read_WithSuccessEnvelope_ShouldReturnDataNode() throws IOException {
+        String json = "{\"status\":\"success\",\"data\":{\"count\":2,\"items\":"
+                + "[{\"item_name\":\"a\",\"nested\":{\"x\":[1,2]}},{\"item_name\":\"b\"}]}}";
+
+        StmJsonEnvelope<List<Item>> envelope = StmJsonEnvelopeReader.read(toStream(json), gson, "items", itemListType);
+
+        assertTrue(envelope.isSuccess());
+        assertTrue(envelope.isDataFound());
+        assertEquals(2, envelope.getData().size());
+        assertEquals("a", envelope.getData().get(0).itemName);
+        assertEquals("b", envelope.getData().get(1).itemName);
+    }
+
+    @Test
+    public void read_WithStatusAfterData_ShouldReturnDataNode() throws IOException {
+        String json = "{\"data\":{\"items\":[{\"item_name\":\"a\"}]},\"status\":\"success\"}";
+
+        StmJsonEnvelope<List<Item>> envelope = StmJsonEnvelopeReader.read(toStream(json), gson, "items", itemListType);
+
+        assertTrue(envelope.isSuccess());
+        assertEquals("a", envelope.getData().get(0).itemName);
+    }
+
+    @Test
+    public void read_WithFailStatus_ShouldReturnNoData() throws IOException {
+        String json = "{\"data\":{\"items\":[{\"item_name\":\"a\"}]},\"status\":\"fail\"}";
+
+        StmJsonEnvelope<List<Item>> envelope = StmJsonEnvelopeReader.read(toStream(json), gson, "items", itemListType);
+
+        assertFalse(envelope.isSuccess());
+        assertEquals("fail", envelope.getStatus());
+        assertNull(envelope.getData());
+    }
+
+    @Test
+    public void read_WithMissingKey_ShouldReturnDataNotFound() throws IOException {
+        String json = "{\"status\":\"success\",\"data\":{\"other\":{\"item_name\":\"a\"}}}";
+
+        StmJsonEnvelope<List<Item>> envelope = StmJsonEnvelopeReader.read(toStream(json), gson, "items", itemListType);
+
+        assertTrue(envelope.isSuccess());
+        assertFalse(envelope.isDataFound());
+        assertNull(envelope.getData());
+    }
+
+    private static InputStream toStream(String json) throws IOException {
+        return new ByteArrayInputStream(json.getBytes("UTF-8"));
+    }
+
+    private static class Item {
+        String itemName;
+    }
+}
@@ -0,0 +1,323 @@
+package me.shoutto.sdk.internal.http;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import me.shoutto.sdk.internal.database.OutboxDao;
+import me.shoutto.sdk.internal.database.OutboxRecord;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmOutboxTest
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class StmOutboxTest {
+
+    private InMemoryOutboxDao outboxDao;
+    private FakeHttpTransport transport;
+    private ScheduledExecutorService worker;
+    private StmOutbox stmOutbox;
+    private String authToken = "token";
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(Log.class);
+        outboxDao = new InMemoryOutboxDao();
+        transport = new FakeHttpTransport();
+        worker = Executors.newSingleThreadScheduledExecutor();
+        HttpAuthHeaderProvider authHeaderProvider = new HttpAuthHeaderProvider() {
+            @Override
+            public String getHeaderValue() throws IllegalStateException {
+                return new BearerAuthHeaderProvider(authToken).getHeaderValue();
+            }
+        };
+        stmOutbox = new StmOutbox(outboxDao, transport, authHeaderProvider, worker, worker);
+    }
+
+    @After
+    public void tearDown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void drainDueOperations_ShouldSendInOrderAndRemoveRecords() {
+        RecordingListener firstListener = new RecordingListener();
+        RecordingListener secondListener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("PUT", "/users/1", "{\"a\":1}", null), firstListener);
+        stmOutbox.addOperation(newRecord("POST", "/shouts", "{\"b\":2}", null), secondListener);
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(Arrays.asList("PUT /users/1 {\"a\":1}", "POST /shouts {\"b\":2}"), transport.requests);
+        assertEquals(Arrays.asList("sent 200"), firstListener.events);
+        assertEquals(Arrays.asList("sent 200"), secondListener.events);
+        assertTrue(outboxDao.records.isEmpty());
+    }
+
+    @Test
+    public void addOperation_WithSameCoalescingKey_ShouldSupersedeQueuedRequest() {
+        RecordingListener subscribeListener = new RecordingListener();
+        RecordingListener otherListener = new RecordingListener();
+        RecordingListener unsubscribeListener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("PUT", "/subscriptions", "{\"channelId\":\"c1\"}", "/subscriptions/c1"),
+                subscribeListener);
+        stmOutbox.addOperation(newRecord("PUT", "/subscriptions", "{\"channelId\":\"c2\"}", "/subscriptions/c2"),
+                otherListener);
+        stmOutbox.addOperation(newRecord("DELETE", "/subscriptions/c1", null, "/subscriptions/c1"),
+                unsubscribeListener);
+
+        assertEquals(Arrays.asList("superseded"), subscribeListener.events);
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(Arrays.asList("PUT /subscriptions {\"channelId\":\"c2\"}", "DELETE /subscriptions/c1 null"),
+                transport.requests);
+        assertEquals(Arrays.asList("superseded"), subscribeListener.events);
+        assertEquals(Arrays.asList("sent 200"), unsubscribeListener.events);
+    }
+
+    @Test
+    public void drainDueOperations_WhenNetworkFails_ShouldKeepQueueOrderAndBackOff() {
+        RecordingListener firstListener = new RecordingListener();
+        RecordingListener secondListener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("PUT", "/users/1", "{}", null), firstListener);
+        stmOutbox.addOperation(newRecord("PUT", "/users/2", "{}", null), secondListener);
+        transport.failures.add(new IOException("Network unreachable"));
+
+        long beforeDrain = System.currentTimeMillis();
+        stmOutbox.drainDueOperations();
+
+        assertEquals(1, transport.requests.size());
+        assertEquals(2, outboxDao.records.size());
+        OutboxRecord head = outboxDao.getFirstOutboxRecord();
+        assertEquals("/users/1", head.getUrl());
+        assertEquals(1, head.getAttempts());
+        assertTrue(head.getNextAttemptDate().getTime() >= beforeDrain + StmOutbox.INITIAL_BACKOFF_IN_MILLIS / 2);
+        assertTrue(firstListener.events.isEmpty());
+        assertTrue(secondListener.events.isEmpty());
+
+        head.setNextAttemptDate(new Date(0));
+        stmOutbox.drainDueOperations();
+
+        assertEquals(Arrays.asList("PUT /users/1 {}", "PUT /users/1 {}", "PUT /users/2 {}"), transport.requests);
+        assertEquals(Arrays.asList("sent 200"), firstListener.events);
+        assertEquals(Arrays.asList("sent 200"), secondListener.events);
+    }
+
+    @Test
+    public void drainDueOperations_WithServerError_ShouldRetry() {
+        RecordingListener listener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("PUT", "/users/1", "{}", null), listener);
+        transport.responseCodes.add(503);
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(1, outboxDao.records.size());
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void drainDueOperations_WithClientError_ShouldDeliverResponseWithoutRetry() {
+        RecordingListener listener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("PUT", "/users/1", "{}", null), listener);
+        transport.responseCodes.add(400);
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(Arrays.asList("sent 400"), listener.events);
+        assertTrue(outboxDao.records.isEmpty());
+    }
+
+    @Test
+    public void drainDueOperations_WhenPostWithoutCoalescingKeyFails_ShouldFailWithoutRetry() {
+        RecordingListener networkErrorListener = new RecordingListener();
+        RecordingListener serverErrorListener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("POST", "/things", "{\"a\":1}", null), networkErrorListener);
+        stmOutbox.addOperation(newRecord("POST", "/things", "{\"b\":2}", null), serverErrorListener);
+        transport.failures.add(new IOException("Read timed out"));
+        transport.responseCodes.add(500);
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(2, transport.requests.size());
+        assertEquals(1, networkErrorListener.events.size());
+        assertTrue(networkErrorListener.events.get(0).startsWith("failed"));
+        assertEquals(Arrays.asList("sent 500"), serverErrorListener.events);
+        assertTrue(outboxDao.records.isEmpty());
+    }
+
+    @Test
+    public void drainDueOperations_WhenPostWithCoalescingKeyFails_ShouldRetry() {
+        RecordingListener listener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("POST", "/topics", "{}", "/topics/news"), listener);
+        transport.failures.add(new IOException("Read timed out"));
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(1, outboxDao.records.size());
+        assertEquals(1, outboxDao.getFirstOutboxRecord().getAttempts());
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void drainDueOperations_AfterMaxAttempts_ShouldDropRequestAndFail() {
+        RecordingListener listener = new RecordingListener();
+        OutboxRecord outboxRecord = newRecord("PUT", "/users/1", "{}", null);
+        outboxRecord.setAttempts(StmOutbox.MAX_ATTEMPTS - 1);
+        stmOutbox.addOperation(outboxRecord, listener);
+        transport.failures.add(new IOException("Network unreachable"));
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(1, listener.events.size());
+        assertTrue(listener.events.get(0).startsWith("failed"));
+        assertNull(outboxDao.getFirstOutboxRecord());
+    }
+
+    @Test
+    public void drainDueOperations_ShouldSendWithAuthTokenOfCurrentSession() {
+        stmOutbox.addOperation(newRecord("PUT", "/users/1", "{}", null), null);
+        authToken = "refreshed";
+
+        stmOutbox.drainDueOperations();
+
+        assertEquals(Arrays.asList("Bearer refreshed"), transport.authorizations);
+    }
+
+    @Test
+    public void drainDueOperations_WithoutSession_ShouldRetryWithoutSending() {
+        RecordingListener listener = new RecordingListener();
+        stmOutbox.addOperation(newRecord("POST", "/shouts", "{}", null), listener);
+        authToken = null;
+
+        stmOutbox.drainDueOperations();
+
+        assertTrue(transport.requests.isEmpty());
+        assertEquals(1, outboxDao.getFirstOutboxRecord().getAttempts());
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void getBackoff_ShouldGrowExponentiallyAndBeCapped() {
+        for (int attempts = 1; attempts < 40; attempts++) {
+            long maxBackoff = Math.min(StmOutbox.INITIAL_BACKOFF_IN_MILLIS << Math.min(attempts - 1, 20),
+                    StmOutbox.MAX_BACKOFF_IN_MILLIS);
+            long backoff = stmOutbox.getBackoff(attempts);
+            assertTrue(backoff >= maxBackoff / 2);
+            assertTrue(backoff <= maxBackoff);
+        }
+    }
+
+    private static OutboxRecord newRecord(String httpMethod, String url, String body, String coalescingKey) {
+        OutboxRecord outboxRecord = new OutboxRecord();
+        outboxRecord.setHttpMethod(httpMethod);
+        outboxRecord.setUrl(url);
+        outboxRecord.setBody(body);
+        outboxRecord.setCoalescingKey(coalescingKey);
+        outboxRecord.setNextAttemptDate(new Date(0));
+        return outboxRecord;
+    }
+
+    private static class RecordingListener implements StmOutbox.OperationListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onSent(int responseCode, String body) {
+            events.add("sent " + responseCode);
+        }
+
+        @Override
+        public void onFailed(String errorMessage) {
+            events.add("failed " + errorMessage);
+        }
+
+        @Override
+        public void onSuperseded() {
+            events.add("superseded");
+        }
+    }
+
+    private static class FakeHttpTransport extends StmHttpTransport {
+        private final List<String> requests = new ArrayList<>();
+        private final List<String> authorizations = new ArrayList<>();
+        private final LinkedList<IOException> failures = new LinkedList<>();
+        private final LinkedList<Integer> responseCodes = new LinkedList<>();
+
+        FakeHttpTransport() {
+            super(1000, 1000, 1);
+        }
+
+        @Override
+        public StmHttpResponse execute(HttpMethod httpMethod, String url, String authorization,
+                                       String contentType, byte[] body) throws IOException {
+            requests.add(httpMethod + " " + url + " " + (body != null ? new String(body, "UTF-8") : null));
+            authorizations.add(authorization);
+            if (!failures.isEmpty()) {
+                throw failures.removeFirst();
+            }
+            int responseCode = responseCodes.isEmpty() ? 200 : responseCodes.removeFirst();
+            return new StmHttpResponse(responseCode, "{\"status\":\"success\"}");
+        }
+    }
+
+    private static class InMemoryOutboxDao implements OutboxDao {
+        private final TreeMap<Long, OutboxRecord> records = new TreeMap<>();
+        private long nextId = 1;
+
+        @Override
+        public long addOutboxRecord(OutboxRecord outboxRecord) {
+            long id = nextId++;
+            records.put(id, outboxRecord);
+            return id;
+        }
+
+        @Override
+        public OutboxRecord getFirstOutboxRecord() {
+            return records.isEmpty() ? null : records.firstEntry().getValue();
+        }
+
+        @Override
+        public List<OutboxRecord> getOutboxRecordsWithCoalescingKey(String coalescingKey) {
+            List<OutboxRecord> outboxRecords = new ArrayList<>();
+            for (OutboxRecord outboxRecord : records.values()) {
+                if (coalescingKey.equals(outboxRecord.getCoalescingKey())) {
+                    outboxRecords.add(outboxRecord);
+                }
+            }
+            return outboxRecords;
+        }
+
+        @Override
+        public void updateOutboxRecordAttempts(long outboxRecordId, int attempts, Date nextAttemptDate) {
+            OutboxRecord outboxRecord = records.get(outboxRecordId);
+            outboxRecord.setAttempts(attempts);
+            outboxRecord.setNextAttemptDate(nextAttemptDate);
+        }
+
+        @Override
+        public void deleteOutboxRecord(long outboxRecordId) {
+            records.remove(outboxRecordId);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package me.shoutto.sdk.internal.http;
+
+import com.android.volley.Cache;
+import com.android.volley.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * StmResponseCacheTest
+ */
+public class StmResponseCacheTest {
+
+    private static final String BASE_URL = "https://app.shoutto.me/api/v1";
+    private static final String AUTHORIZATION = "Bearer token1";
+    private FakeDiskCache fakeDiskCache;
+    private StmResponseCache stmResponseCache;
+
+    @Before
+    public void setUp() {
+        fakeDiskCache = new FakeDiskCache();
+        stmResponseCache = new StmResponseCache(fakeDiskCache, 1000);
+    }
+
+    @Test
+    public void get_WithEntryOnDisk_ShouldServeLaterGetsFromMemory() {
+        Cache.Entry entry = createEntry(100);
+        fakeDiskCache.entries.put("key", entry);
+
+        assertSame(entry, stmResponseCache.get("key"));
+        assertSame(entry, stmResponseCache.get("key"));
+
+        assertEquals(1, fakeDiskCache.numberOfGets);
+    }
+
+    @Test
+    public void put_BeyondMemorySize_ShouldEvictLeastRecentlyUsedEntries() {
+        stmResponseCache.put("a", createEntry(200));
+        stmResponseCache.put("b", createEntry(200));
+        stmResponseCache.put("c", createEntry(200));
+        stmResponseCache.get("a");
+        stmResponseCache.put("d", createEntry(200));
+        stmResponseCache.put("e", createEntry(200));
+        stmResponseCache.put("f", createEntry(200));
+
+        fakeDiskCache.numberOfGets = 0;
+        stmResponseCache.get("a");
+        stmResponseCache.get("c");
+        stmResponseCache.get("d");
+        stmResponseCache.get("e");
+        stmResponseCache.get("f");
+        assertEquals(0, fakeDiskCache.numberOfGets);
+
+        stmResponseCache.get("b");
+        assertEquals(1, fakeDiskCache.numberOfGets);
+    }
+
+    @Test
+    public void getCacheKey_ShouldDifferByAuthorization() {
+        String url = BASE_URL + "/users/1";
+
+        assertFalse(StmResponseCache.getCacheKey(url, AUTHORIZATION)
+                .equals(StmResponseCache.getCacheKey(url, "Bearer token2")));
+        assertEquals(StmResponseCache.getCacheKey(url, AUTHORIZATION),
+                StmResponseCache.getCacheKey(url, AUTHORIZATION));
+        assertFalse(StmResponseCache.getCacheKey(url, AUTHORIZATION).contains("token1"));
+    }
+
+    @Test
+    public void invalidateUrl_ShouldExpireUrlAndParentPathsForSameUser() {
+        String userKey = StmResponseCache.getCacheKey(BASE_URL + "/users/1", AUTHORIZATION);
+        String channelsKey = StmResponseCache.getCacheKey(BASE_URL + "/channels", AUTHORIZATION);
+        String otherUserKey = StmResponseCache.getCacheKey(BASE_URL + "/users/1", "Bearer token2");
+        stmResponseCache.put(userKey, createEntry(10));
+        stmResponseCache.put(channelsKey, createEntry(10));
+        stmResponseCache.put(otherUserKey, createEntry(10));
+
+        stmResponseCache.invalidateUrl(BASE_URL + "/users/1/channel_subscription/2?x=1", AUTHORIZATION);
+
+        assertTrue(stmResponseCache.get(userKey).isExpired());
+        assertTrue(fakeDiskCache.entries.get(userKey).isExpired());
+        assertNotNull(stmResponseCache.get(userKey).etag);
+        assertFalse(stmResponseCache.get(channelsKey).isExpired());
+        assertFalse(stmResponseCache.get(otherUserKey).isExpired());
+    }
+
+    @Test
+    public void applyTimeToLive_ShouldExtendExpiry() {
+        Cache.Entry entry = createEntry(10);
+        entry.softTtl = 0;
+        entry.ttl = 0;
+
+        StmResponseCache.applyTimeToLive(Response.success("", entry), 60000);
+
+        assertFalse(entry.isExpired());
+        assertFalse(entry.refreshNeeded());
+        assertTrue(entry.ttl <= System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    public void applyTimeToLive_WithoutCacheEntry_ShouldDoNothing() {
+        Response<String> response = Response.success("", null);
+
+        StmResponseCache.applyTimeToLive(response, 60000);
+
+        assertNull(response.cacheEntry);
+    }
+
+    private static Cache.Entry createEntry(int size) {
+        Cache.Entry entry = new Cache.Entry();
+        entry.data = new byte[size];
+        entry.etag = "\"1\"";
+        entry.softTtl = Long.MAX_VALUE;
+        entry.ttl = Long.MAX_VALUE;
+        return entry;
+    }
+
+    private static class FakeDiskCache implements Cache {
+        final Map<String, Entry> entries = new HashMap<>();
+        int numberOfGets;
+
+        @Override
+        public Entry get(String key) {
+            numberOfGets++;
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(String key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void invalidate(String key, boolean fullExpire) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.softTtl = 0;
+                if (fullExpire) {
+                    entry.ttl = 0;
+                }
+            }
+        }
+
+        @Override
+        public void remove(String key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.shoutto.sdk.internal.location;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * LocationStateStoreTest
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class LocationStateStoreTest {
+
+    private File file;
+    private Executor directExecutor = new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        PowerMockito.mockStatic(Log.class);
+        file = File.createTempFile("location_state", null);
+        if (!file.delete()) {
+            throw new IOException("Could not delete " + file.getPath());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void read_WithNoFile_ShouldReturnNull() {
+        assertNull(new LocationStateStore(file, directExecutor).read());
+    }
+
+    @Test
+    public void write_ShouldBeReadBackByNewStore() {
+        LocationStateStore locationStateStore = new LocationStateStore(file, directExecutor);
+        LocationState locationState = new LocationState(45.523064, -122.676483, 1500000000123L, 12.5f);
+
+        locationStateStore.write(locationState);
+
+        assertSame(locationState, locationStateStore.read());
+        assertEquals(LocationStateStore.RECORD_SIZE, file.length());
+        LocationState storedLocationState = new LocationStateStore(file, directExecutor).read();
+        assertEquals(45.523064, storedLocationState.getLat());
+        assertEquals(-122.676483, storedLocationState.getLon());
+        assertEquals(1500000000123L, storedLocationState.getTime());
+        assertEquals(12.5f, storedLocationState.getAccuracy());
+    }
+
+    @Test
+    public void read_WithDamagedRecord_ShouldReturnNull() throws IOException {
+        new LocationStateStore(file, directExecutor).write(new LocationState(1.0, 2.0, 3L, 4.0f));
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(10);
+        randomAccessFile.write(0x7F);
+        randomAccessFile.close();
+
+        assertNull(new LocationStateStore(file, directExecutor).read());
+    }
+
+    @Test
+    public void read_WithTruncatedRecord_ShouldReturnNull() throws IOException {
+        byte[] record = LocationStateStore.encode(new LocationState(1.0, 2.0, 3L, 4.0f));
+        FileOutputStream fileOutputStream = new FileOutputStream(file);
+        fileOutputStream.write(record, 0, record.length - 1);
+        fileOutputStream.close();
+
+        assertNull(new LocationStateStore(file, directExecutor).read());
+    }
+}
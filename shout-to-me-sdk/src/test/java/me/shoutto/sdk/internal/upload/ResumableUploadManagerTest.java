@@ -0,0 +1,421 @@
+package me.shoutto.sdk.internal.upload;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.shoutto.sdk.internal.database.UploadDao;
+import me.shoutto.sdk.internal.database.UploadRecord;
+import me.shoutto.sdk.internal.http.FileRequestBody;
+import me.shoutto.sdk.internal.http.HttpMethod;
+import me.shoutto.sdk.internal.http.StmHttpResponse;
+import me.shoutto.sdk.internal.http.StmHttpTransport;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * ResumableUploadManagerTest
+ */
+public class ResumableUploadManagerTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private File file;
+    private InMemoryUploadDao uploadDao;
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final List<Integer> receivedParts = new CopyOnWriteArrayList<>();
+    private final List<String> abortedUploads = new CopyOnWriteArrayList<>();
+    private final List<String> putObjects = new CopyOnWriteArrayList<>();
+    private volatile int failingPartNumber;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/uploads", new MultipartUploadHandler());
+        server.createContext("/objects", new PutObjectHandler());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        file = File.createTempFile("upload", ".wav");
+        writeFile(file, sequence(PART_SIZE * 3 + 1000, 1));
+        uploadDao = new InMemoryUploadDao();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void upload_WithoutFailures_ShouldUploadAllPartsAndClearJournal() throws IOException {
+        ResumableUploadManager manager = newManager();
+
+        assertEquals("shout.wav", manager.upload(file, "shout.wav"));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), receivedParts);
+        assertTrue(Arrays.equals(readFile(file), objects.get("shout.wav")));
+        assertTrue(uploadDao.uploadRecords.isEmpty());
+        assertTrue(uploadDao.completedParts.isEmpty());
+    }
+
+    @Test
+    public void upload_AfterMidTransferFailure_ShouldResumeWithMissingParts() throws IOException {
+        ResumableUploadManager manager = newManager();
+        failingPartNumber = 3;
+        try {
+            manager.upload(file, "shout.wav");
+            fail("Expected the upload to be interrupted");
+        } catch (IOException ex) {
+            // The connection was dropped while part 3 was being sent
+        }
+
+        assertEquals(1, uploadDao.uploadRecords.size());
+        assertEquals(2, uploadDao.completedParts.values().iterator().next().size());
+        assertNull(objects.get("shout.wav"));
+
+        failingPartNumber = 0;
+        receivedParts.clear();
+        assertEquals("shout.wav", manager.upload(file, "another-key.wav"));
+
+        assertEquals(Arrays.asList(3, 4), receivedParts);
+        assertEquals(1, uploadIds.get());
+        assertTrue(Arrays.equals(readFile(file), objects.get("shout.wav")));
+        assertTrue(uploadDao.uploadRecords.isEmpty());
+    }
+
+    @Test
+    public void upload_WhenFileChangedSinceInterruption_ShouldAbortAndRestart() throws IOException {
+        ResumableUploadManager manager = newManager();
+        failingPartNumber = 2;
+        try {
+            manager.upload(file, "first.wav");
+            fail("Expected the upload to be interrupted");
+        } catch (IOException ex) {
+            // The connection was dropped while part 2 was being sent
+        }
+
+        byte[] changedContent = sequence(PART_SIZE + 10, 2);
+        writeFile(file, changedContent);
+        failingPartNumber = 0;
+        receivedParts.clear();
+
+        assertEquals("second.wav", manager.upload(file, "second.wav"));
+
+        assertEquals(Arrays.asList("1"), abortedUploads);
+        assertEquals(Arrays.asList(1, 2), receivedParts);
+        assertTrue(Arrays.equals(changedContent, objects.get("second.wav")));
+    }
+
+    @Test
+    public void upload_WhenServerForgotUpload_ShouldClearJournalAndStartOver() throws IOException {
+        ResumableUploadManager manager = newManager();
+        failingPartNumber = 2;
+        try {
+            manager.upload(file, "shout.wav");
+            fail("Expected the upload to be interrupted");
+        } catch (IOException ex) {
+            // The connection was dropped while part 2 was being sent
+        }
+
+        uploads.clear();
+        failingPartNumber = 0;
+        try {
+            manager.upload(file, "shout.wav");
+            fail("Expected the expired upload to be reported");
+        } catch (UploadNotFoundException ex) {
+            assertTrue(uploadDao.uploadRecords.isEmpty());
+        }
+
+        receivedParts.clear();
+        assertEquals("shout.wav", manager.upload(file, "shout.wav"));
+        assertEquals(Arrays.asList(1, 2, 3, 4), receivedParts);
+        assertTrue(Arrays.equals(readFile(file), objects.get("shout.wav")));
+    }
+
+    @Test
+    public void upload_WhenFileFitsInOnePart_ShouldPutObjectWithoutJournal() throws IOException {
+        byte[] content = sequence(PART_SIZE, 3);
+        writeFile(file, content);
+        ResumableUploadManager manager = newManager();
+
+        assertEquals("shout.wav", manager.upload(file, "shout.wav"));
+
+        assertEquals(Arrays.asList("shout.wav"), putObjects);
+        assertEquals(0, uploadIds.get());
+        assertTrue(receivedParts.isEmpty());
+        assertTrue(Arrays.equals(content, objects.get("shout.wav")));
+        assertTrue(uploadDao.uploadRecords.isEmpty());
+    }
+
+    private ResumableUploadManager newManager() {
+        return new ResumableUploadManager(uploadDao, new HttpUploadPartTransport(baseUrl), PART_SIZE);
+    }
+
+    private static byte[] sequence(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    private static void writeFile(File file, byte[] content) throws IOException {
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+        // Make sure the modification is visible even on file systems with coarse timestamps
+        file.setLastModified(System.currentTimeMillis() + content.length);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            return readBody(inputStream, Integer.MAX_VALUE);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static byte[] readBody(InputStream inputStream, int limit) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while (output.size() < limit
+                && (read = inputStream.read(buffer, 0, Math.min(buffer.length, limit - output.size()))) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static void sendResponse(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    /**
+     * A stand-in for a multipart upload API:
+     *      POST   /uploads?key={key}           starts an upload and returns its ID
+     *      PUT    /uploads/{id}/{partNumber}   stores a part and returns its ETag
+     *      POST   /uploads/{id}?key={key}      assembles the parts listed in the body
+     *      DELETE /uploads/{id}                aborts an upload
+     * Unknown upload IDs return 404.
+     */
+    private class MultipartUploadHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String query = exchange.getRequestURI().getQuery();
+            String uploadId = path.length > 2 ? path[2] : null;
+
+            if (uploadId == null) {
+                String newUploadId = String.valueOf(uploadIds.incrementAndGet());
+                uploads.put(newUploadId, new ConcurrentHashMap<Integer, byte[]>());
+                sendResponse(exchange, 200, newUploadId);
+                return;
+            }
+
+            Map<Integer, byte[]> parts = uploads.get(uploadId);
+            if (parts == null) {
+                sendResponse(exchange, 404, "NoSuchUpload");
+                return;
+            }
+
+            if (method.equals("PUT")) {
+                int partNumber = Integer.parseInt(path[3]);
+                if (partNumber == failingPartNumber) {
+                    readBody(exchange.getRequestBody(), 1000);
+                    exchange.close();
+                    return;
+                }
+                byte[] part = readBody(exchange.getRequestBody(), Integer.MAX_VALUE);
+                parts.put(partNumber, part);
+                receivedParts.add(partNumber);
+                sendResponse(exchange, 200, "etag-" + partNumber + "-" + part.length);
+            } else if (method.equals("DELETE")) {
+                uploads.remove(uploadId);
+                abortedUploads.add(uploadId);
+                sendResponse(exchange, 200, "");
+            } else {
+                String[] eTags = new String(readBody(exchange.getRequestBody(), Integer.MAX_VALUE), "UTF-8").split(",");
+                ByteArrayOutputStream object = new ByteArrayOutputStream();
+                for (int i = 0; i < eTags.length; i++) {
+                    byte[] part = parts.get(i + 1);
+                    if (part == null || !eTags[i].equals("etag-" + (i + 1) + "-" + part.length)) {
+                        sendResponse(exchange, 400, "InvalidPart");
+                        return;
+                    }
+                    object.write(part);
+                }
+                objects.put(query.substring("key=".length()), object.toByteArray());
+                uploads.remove(uploadId);
+                sendResponse(exchange, 200, "");
+            }
+        }
+    }
+
+    /**
+     * A stand-in for a single request upload:
+     *      PUT    /objects/{key}               stores the object
+     */
+    private class PutObjectHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String objectKey = exchange.getRequestURI().getPath().substring("/objects/".length());
+            objects.put(objectKey, readBody(exchange.getRequestBody(), Integer.MAX_VALUE));
+            putObjects.add(objectKey);
+            sendResponse(exchange, 200, "");
+        }
+    }
+
+    private static class HttpUploadPartTransport implements UploadPartTransport {
+
+        private final String baseUrl;
+        private final StmHttpTransport stmHttpTransport = StmHttpTransport.getInstance();
+
+        HttpUploadPartTransport(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public void putObject(String objectKey, File file) throws IOException {
+            checkResponse(stmHttpTransport.executeStreaming(HttpMethod.PUT, baseUrl + "/objects/" + objectKey,
+                    null, new FileRequestBody("application/octet-stream", file, 0, file.length())));
+        }
+
+        @Override
+        public String startUpload(String objectKey) throws IOException {
+            return checkResponse(stmHttpTransport.execute(HttpMethod.POST, baseUrl + "/uploads?key=" + objectKey,
+                    null, "text/plain", new byte[0]));
+        }
+
+        @Override
+        public String uploadPart(String objectKey, String uploadId, int partNumber, File file, long offset,
+                                 long length) throws IOException {
+            return checkResponse(stmHttpTransport.executeStreaming(HttpMethod.PUT,
+                    baseUrl + "/uploads/" + uploadId + "/" + partNumber, null,
+                    new FileRequestBody("application/octet-stream", file, offset, length)));
+        }
+
+        @Override
+        public void completeUpload(String objectKey, String uploadId, List<String> eTags) throws IOException {
+            StringBuilder body = new StringBuilder();
+            for (String eTag : eTags) {
+                body.append(body.length() > 0 ? "," : "").append(eTag);
+            }
+            checkResponse(stmHttpTransport.execute(HttpMethod.POST, baseUrl + "/uploads/" + uploadId + "?key=" + objectKey,
+                    null, "text/plain", body.toString().getBytes("UTF-8")));
+        }
+
+        @Override
+        public void abortUpload(String objectKey, String uploadId) throws IOException {
+            checkResponse(stmHttpTransport.execute(HttpMethod.DELETE, baseUrl + "/uploads/" + uploadId,
+                    null, "text/plain", null));
+        }
+
+        private static String checkResponse(StmHttpResponse response) throws IOException {
+            if (response.getResponseCode() == 404) {
+                throw new UploadNotFoundException(response.getBody(), null);
+            } else if (response.getResponseCode() >= 300) {
+                throw new IOException("Unexpected response " + response.getResponseCode());
+            }
+            return response.getBody();
+        }
+    }
+
+    private static class InMemoryUploadDao implements UploadDao {
+
+        private final Map<Long, UploadRecord> uploadRecords = new HashMap<>();
+        private final Map<Long, Map<Integer, String>> completedParts = new HashMap<>();
+        private long nextId = 1;
+
+        @Override
+        public long addUploadRecord(UploadRecord uploadRecord) {
+            long id = nextId++;
+            uploadRecords.put(id, uploadRecord);
+            completedParts.put(id, new TreeMap<Integer, String>());
+            return id;
+        }
+
+        @Override
+        public UploadRecord getUploadRecord(String filePath) {
+            for (UploadRecord uploadRecord : uploadRecords.values()) {
+                if (uploadRecord.getFilePath().equals(filePath)) {
+                    return uploadRecord;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<UploadRecord> getUploadRecordsCreatedBefore(Date date) {
+            List<UploadRecord> staleUploadRecords = new ArrayList<>();
+            for (UploadRecord uploadRecord : uploadRecords.values()) {
+                if (uploadRecord.getDate().before(date)) {
+                    staleUploadRecords.add(uploadRecord);
+                }
+            }
+            return staleUploadRecords;
+        }
+
+        @Override
+        public void addCompletedPart(long uploadRecordId, int partNumber, String eTag) {
+            completedParts.get(uploadRecordId).put(partNumber, eTag);
+        }
+
+        @Override
+        public Map<Integer, String> getCompletedParts(long uploadRecordId) {
+            return new TreeMap<>(completedParts.get(uploadRecordId));
+        }
+
+        @Override
+        public void deleteUploadRecord(long uploadRecordId) {
+            uploadRecords.remove(uploadRecordId);
+            completedParts.remove(uploadRecordId);
+        }
+    }
+}
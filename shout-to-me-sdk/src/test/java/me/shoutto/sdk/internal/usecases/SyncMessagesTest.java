@@ -0,0 +1,283 @@
+package me.shoutto.sdk.internal.usecases;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+import me.shoutto.sdk.StmBaseEntity;
+import me.shoutto.sdk.StmCallback;
+import me.shoutto.sdk.StmError;
+import me.shoutto.sdk.internal.StmObservableResults;
+import me.shoutto.sdk.internal.StmObservableType;
+import me.shoutto.sdk.internal.StmObserver;
+import me.shoutto.sdk.internal.database.MessageDao;
+import me.shoutto.sdk.internal.database.MessageRecord;
+import me.shoutto.sdk.internal.http.HttpMethod;
+import me.shoutto.sdk.internal.http.MessagePage;
+import me.shoutto.sdk.internal.http.MessagePageUrlProvider;
+import me.shoutto.sdk.internal.http.StmRequestProcessor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * SyncMessagesTest
+ */
+public class SyncMessagesTest {
+
+    private static final String BASE_URL = "http://app.shoutto.me/api/v1";
+    private static final String FIRST_PAGE_URL = BASE_URL + "/messages?date_field=sent_date&sort=asc&limit=2";
+    private static final String USER_ID = "user1";
+
+    @Test
+    public void sync_WithEmptyStore_ShouldStoreAllPages() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        stmRequestProcessor.pages.add(Collections.singletonList(newRecord("c", 3000L)));
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertEquals(Integer.valueOf(3), callback.result);
+        assertEquals(3, messageDao.getNumRows(USER_ID));
+        assertEquals(USER_ID, messageDao.getNewestMessageRecord(USER_ID).getUserId());
+        assertEquals(Arrays.asList(FIRST_PAGE_URL, FIRST_PAGE_URL + "&after=1970-01-01T00%3A00%3A02.000Z&after_id=b"),
+                stmRequestProcessor.urls);
+        assertEquals(0, stmRequestProcessor.observers.size());
+    }
+
+    @Test
+    public void sync_WithStoredMessages_ShouldOnlyRequestNewerMessages() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        messageDao.addMessageRecords(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertEquals(Integer.valueOf(0), callback.result);
+        assertEquals(Collections.singletonList(FIRST_PAGE_URL + "&after=1970-01-01T00%3A00%3A02.000Z&after_id=b"),
+                stmRequestProcessor.urls);
+    }
+
+    @Test
+    public void sync_WithPageThatDoesNotAdvance_ShouldStop() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertEquals(Integer.valueOf(2), callback.result);
+        assertEquals(2, stmRequestProcessor.urls.size());
+    }
+
+    @Test
+    public void sync_WithError_ShouldCallBackWithErrorAndKeepStoredPages() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertNull(callback.result);
+        assertNotNull(callback.error);
+        assertEquals(2, messageDao.getNumRows(USER_ID));
+        assertEquals(0, stmRequestProcessor.observers.size());
+    }
+
+    @Test
+    public void sync_WhenNotPaged_ShouldRequestMessageListOnce() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        messageDao.addMessageRecords(Collections.singletonList(newRecord("a", 1000L)));
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertEquals(Integer.valueOf(1), callback.result);
+        assertEquals(Collections.singletonList(BASE_URL + "/messages"), stmRequestProcessor.urls);
+    }
+
+    @Test
+    public void sync_WithSkippedMessagesOnFullPage_ShouldRequestNextPage() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Collections.singletonList(newRecord("a", 1000L)));
+        stmRequestProcessor.skippedMessageCounts.add(1);
+        stmRequestProcessor.pages.add(Collections.singletonList(newRecord("c", 3000L)));
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertEquals(Integer.valueOf(2), callback.result);
+        assertEquals(2, stmRequestProcessor.urls.size());
+    }
+
+    @Test
+    public void sync_WithUnreadablePage_ShouldCallBackWithError() {
+        FakeMessageDao messageDao = new FakeMessageDao();
+        MessagePageUrlProvider messagePageUrlProvider = new MessagePageUrlProvider(BASE_URL, 2);
+        FakeRequestProcessor stmRequestProcessor = new FakeRequestProcessor(messagePageUrlProvider);
+        stmRequestProcessor.pages.add(Arrays.asList(newRecord("a", 1000L), newRecord("b", 2000L)));
+        stmRequestProcessor.pages.add(null);
+        ResultCallback callback = new ResultCallback();
+
+        new SyncMessages(stmRequestProcessor, messagePageUrlProvider, messageDao, USER_ID).sync(callback);
+
+        assertNull(callback.result);
+        assertNotNull(callback.error);
+        assertEquals(2, messageDao.getNumRows(USER_ID));
+    }
+
+    private static MessageRecord newRecord(String messageId, long sentDate) {
+        MessageRecord messageRecord = new MessageRecord();
+        messageRecord.setMessageId(messageId);
+        messageRecord.setSentDate(new Date(sentDate));
+        messageRecord.setJson("{\"id\":\"" + messageId + "\"}");
+        return messageRecord;
+    }
+
+    /**
+     * Returns the queued pages in order, then an empty page once a page has been short, or an
+     * error if the queue runs out after a full page. A null page is returned as an empty result,
+     * like a response the page adapter could not read.
+     */
+    private static class FakeRequestProcessor implements StmRequestProcessor<StmBaseEntity> {
+
+        final List<StmObserver> observers = new ArrayList<>();
+        final LinkedList<List<MessageRecord>> pages = new LinkedList<>();
+        final LinkedList<Integer> skippedMessageCounts = new LinkedList<>();
+        final List<String> urls = new ArrayList<>();
+        private final MessagePageUrlProvider messagePageUrlProvider;
+        private boolean isEnd;
+
+        FakeRequestProcessor(MessagePageUrlProvider messagePageUrlProvider) {
+            this.messagePageUrlProvider = messagePageUrlProvider;
+        }
+
+        @Override
+        public void processRequest(HttpMethod httpMethod, StmBaseEntity requestObject) {
+            urls.add(messagePageUrlProvider.getUrl(requestObject, httpMethod));
+            StmObservableResults<MessagePage> stmObservableResults;
+            if (!pages.isEmpty() && pages.getFirst() == null) {
+                pages.removeFirst();
+                stmObservableResults = StmObservableResults.empty(StmObservableType.STM_SERVICE_RESPONSE);
+            } else if (!pages.isEmpty()) {
+                List<MessageRecord> page = new ArrayList<>();
+                for (MessageRecord messageRecord : pages.removeFirst()) {
+                    page.add(newRecord(messageRecord.getMessageId(), messageRecord.getSentDate().getTime()));
+                }
+                int skippedMessageCount = skippedMessageCounts.isEmpty() ? 0 : skippedMessageCounts.removeFirst();
+                MessagePage messagePage = new MessagePage(page, page.size() + skippedMessageCount);
+                isEnd = messagePage.getMessageCount() < messagePageUrlProvider.getPageSize();
+                stmObservableResults = StmObservableResults.success(messagePage,
+                        StmObservableType.STM_SERVICE_RESPONSE);
+            } else if (isEnd || urls.size() == 1) {
+                stmObservableResults = StmObservableResults.success(
+                        new MessagePage(new ArrayList<MessageRecord>(), 0), StmObservableType.STM_SERVICE_RESPONSE);
+            } else {
+                stmObservableResults = StmObservableResults.failure("Service unavailable");
+            }
+            for (StmObserver observer : new ArrayList<>(observers)) {
+                observer.update(stmObservableResults);
+            }
+        }
+
+        @Override
+        public void addObserver(StmObserver o) {
+            observers.add(o);
+        }
+
+        @Override
+        public void deleteObserver(StmObserver o) {
+            observers.remove(o);
+        }
+
+        @Override
+        public void notifyObservers(StmObservableResults stmObservableResults) {
+            for (StmObserver observer : new ArrayList<>(observers)) {
+                observer.update(stmObservableResults);
+            }
+        }
+    }
+
+    private static class FakeMessageDao implements MessageDao {
+
+        private final List<MessageRecord> messageRecords = new ArrayList<>();
+
+        @Override
+        public void addMessageRecords(List<MessageRecord> newMessageRecords) {
+            for (MessageRecord newMessageRecord : newMessageRecords) {
+                for (int i = messageRecords.size() - 1; i >= 0; i--) {
+                    if (messageRecords.get(i).getMessageId().equals(newMessageRecord.getMessageId())) {
+                        messageRecords.remove(i);
+                    }
+                }
+                messageRecords.add(newMessageRecord);
+            }
+            Collections.sort(messageRecords, new Comparator<MessageRecord>() {
+                @Override
+                public int compare(MessageRecord mr1, MessageRecord mr2) {
+                    int result = mr2.getSentDate().compareTo(mr1.getSentDate());
+                    return result != 0 ? result : mr2.getMessageId().compareTo(mr1.getMessageId());
+                }
+            });
+        }
+
+        @Override
+        public MessageRecord getNewestMessageRecord(String userId) {
+            return messageRecords.isEmpty() ? null : messageRecords.get(0);
+        }
+
+        @Override
+        public List<MessageRecord> getMessageRecordsBefore(String userId, MessageRecord before, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getNumRows(String userId) {
+            return messageRecords.size();
+        }
+
+        @Override
+        public void deleteMessageRecords(String userId) {
+            messageRecords.clear();
+        }
+    }
+
+    private static class ResultCallback implements StmCallback<Integer> {
+
+        Integer result;
+        StmError error;
+
+        @Override
+        public void onResponse(Integer integer) {
+            result = integer;
+        }
+
+        @Override
+        public void onError(StmError stmError) {
+            error = stmError;
+        }
+    }
+}
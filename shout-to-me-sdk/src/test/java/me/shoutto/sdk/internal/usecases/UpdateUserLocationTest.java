@@ -12,10 +12,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.SortedSet;
 
 import me.shoutto.sdk.StmBaseEntity;
@@ -30,11 +36,14 @@ import me.shoutto.sdk.internal.database.UserLocationDao;
 import me.shoutto.sdk.internal.database.UserLocationRecord;
 import me.shoutto.sdk.internal.http.HttpMethod;
 import me.shoutto.sdk.internal.http.StmRequestProcessor;
+import me.shoutto.sdk.internal.location.LocationState;
 import me.shoutto.sdk.internal.location.geofence.GeofenceManager;
 
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -130,9 +139,7 @@ public class UpdateUserLocationTest {
 //
 //        verify(mockCallback, times(0)).onError(any(StmError.class));
 //        verify(mockCallback, times(1)).onResponse(null);
-//        verify(mockStmPreferenceManager, times(0)).setUserLocationLat(any(double.class));
-//        verify(mockStmPreferenceManager, times(0)).setUserLocationLon(any(double.class));
-//        verify(mockStmPreferenceManager, times(0)).setUserLocationTime(any(Long.class));
+//        verify(mockStmPreferenceManager, times(0)).setUserLocationState(any(LocationState.class));
 //        verify(mockContext, times(0)).sendBroadcast(any(Intent.class));
 //        verify(mockGeofenceManager, times(0)).addUserLocationGeofence(any(Location.class));
 //        verify(mockStmRequestProcessor, times(0)).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
@@ -142,7 +149,7 @@ public class UpdateUserLocationTest {
     public void update_WithTooRecentLocation_ShouldCallBackWithNullResultAndReturn() {
 
         when(mockLocationFromPreferences.distanceTo(mockLocation)).thenReturn(10000.0f);
-        when(mockStmPreferenceManager.getUserLocationTime()).thenReturn(59000L);
+        when(mockStmPreferenceManager.getUserLocationState()).thenReturn(new LocationState(33.0, -117.0, 59000L, 10.0f));
 
         UpdateUserLocation updateUserLocation = new UpdateUserLocation(mockStmRequestProcessor,
                 mockGeofenceManager, mockStmPreferenceManager, mockUserLocationDao, mockContext, "");
@@ -150,9 +157,7 @@ public class UpdateUserLocationTest {
 
         verify(mockCallback, times(0)).onError(any(StmError.class));
         verify(mockCallback, times(1)).onResponse(null);
-        verify(mockStmPreferenceManager, times(0)).setUserLocationLat(any(double.class));
-        verify(mockStmPreferenceManager, times(0)).setUserLocationLon(any(double.class));
-        verify(mockStmPreferenceManager, times(0)).setUserLocationTime(any(Long.class));
+        verify(mockStmPreferenceManager, times(0)).setUserLocationState(any(LocationState.class));
         verify(mockContext, times(0)).sendBroadcast(any(Intent.class));
         verify(mockGeofenceManager, times(0)).addUserLocationGeofence(any(Location.class));
         verify(mockStmRequestProcessor, times(0)).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
@@ -162,7 +167,7 @@ public class UpdateUserLocationTest {
     public void update_WithOutOfOrderLocation_ShouldCallBackWithNullResultAndReturn() {
 
         when(mockLocationFromPreferences.distanceTo(mockLocation)).thenReturn(10000.0f);
-        when(mockStmPreferenceManager.getUserLocationTime()).thenReturn(61000L);
+        when(mockStmPreferenceManager.getUserLocationState()).thenReturn(new LocationState(33.0, -117.0, 61000L, 10.0f));
 
         UpdateUserLocation updateUserLocation = new UpdateUserLocation(mockStmRequestProcessor,
                 mockGeofenceManager, mockStmPreferenceManager, mockUserLocationDao, mockContext, "");
@@ -170,9 +175,7 @@ public class UpdateUserLocationTest {
 
         verify(mockCallback, times(0)).onError(any(StmError.class));
         verify(mockCallback, times(1)).onResponse(null);
-        verify(mockStmPreferenceManager, times(0)).setUserLocationLat(any(double.class));
-        verify(mockStmPreferenceManager, times(0)).setUserLocationLon(any(double.class));
-        verify(mockStmPreferenceManager, times(0)).setUserLocationTime(any(Long.class));
+        verify(mockStmPreferenceManager, times(0)).setUserLocationState(any(LocationState.class));
         verify(mockContext, times(0)).sendBroadcast(any(Intent.class));
         verify(mockGeofenceManager, times(0)).addUserLocationGeofence(any(Location.class));
         verify(mockStmRequestProcessor, times(0)).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
@@ -181,7 +184,8 @@ public class UpdateUserLocationTest {
     @Test
     public void update_WithValidLocation_ShouldProcessLocationAndCallBackWithNullResult() {
         when(mockLocationFromPreferences.distanceTo(mockLocation)).thenReturn(10000.0f);
-        when(mockStmPreferenceManager.getUserLocationTime()).thenReturn(30000L);
+        when(mockStmPreferenceManager.getUserLocationState()).thenReturn(new LocationState(33.0, -117.0, 30000L, 10.0f));
+        when(mockUserLocationDao.getOldestUserLocationRecords(99)).thenReturn(createRecords(7L, 1));
 
         UpdateUserLocation updateUserLocation = new UpdateUserLocation(mockStmRequestProcessor,
                 mockGeofenceManager, mockStmPreferenceManager, mockUserLocationDao, mockContext, "");
@@ -196,19 +200,68 @@ public class UpdateUserLocationTest {
 
         verify(mockCallback, times(0)).onError(any(StmError.class));
         verify(mockCallback, times(1)).onResponse(null);
-        verify(mockStmPreferenceManager, times(1)).setUserLocationLat(any(double.class));
-        verify(mockStmPreferenceManager, times(1)).setUserLocationLon(any(double.class));
-        verify(mockStmPreferenceManager, times(1)).setUserLocationTime(any(Long.class));
+        verify(mockStmPreferenceManager, times(1)).setUserLocationState(any(LocationState.class));
         verify(mockContext, times(1)).sendBroadcast(any(Intent.class));
         verify(mockGeofenceManager, times(1)).addUserLocationGeofence(any(Location.class));
         verify(mockStmRequestProcessor, times(1)).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
-        verify(mockUserLocationDao, times(1)).deleteAllUserLocationRecords();
+        verify(mockUserLocationDao, times(1)).deleteUserLocationRecords(Collections.singletonList(7L));
+        verify(mockUserLocationDao, times(0)).deleteAllUserLocationRecords();
+        verify(mockUserLocationDao, times(0)).getOldestUserLocationRecords(100);
+    }
+
+    @Test
+    public void update_WithLargeBacklog_ShouldSendPagesAndDeleteAcknowledgedRecords() {
+        when(mockLocationFromPreferences.distanceTo(mockLocation)).thenReturn(10000.0f);
+        when(mockStmPreferenceManager.getUserLocationState()).thenReturn(new LocationState(33.0, -117.0, 30000L, 10.0f));
+        when(mockUserLocationDao.getOldestUserLocationRecords(99)).thenReturn(createRecords(1L, 99));
+        when(mockUserLocationDao.getOldestUserLocationRecords(100))
+                .thenReturn(createRecords(100L, 100), createRecords(200L, 30));
+
+        final List<StmObserver> observers = new ArrayList<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                observers.add((StmObserver) invocation.getArgument(0));
+                return null;
+            }
+        }).when(mockStmRequestProcessor).addObserver(any(StmObserver.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                observers.remove((StmObserver) invocation.getArgument(0));
+                return null;
+            }
+        }).when(mockStmRequestProcessor).deleteObserver(any(StmObserver.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                StmObservableResults<Void> stmObservableResults = new StmObservableResults<>();
+                stmObservableResults.setError(false);
+                stmObservableResults.setStmObservableType(StmObservableType.STM_SERVICE_RESPONSE);
+                for (StmObserver observer : new ArrayList<>(observers)) {
+                    observer.update(stmObservableResults);
+                }
+                return null;
+            }
+        }).when(mockStmRequestProcessor).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
+
+        UpdateUserLocation updateUserLocation = new UpdateUserLocation(mockStmRequestProcessor,
+                mockGeofenceManager, mockStmPreferenceManager, mockUserLocationDao, mockContext, "");
+        updateUserLocation.update(mockLocation, mockCallback);
+
+        verify(mockCallback, times(1)).onResponse(null);
+        verify(mockStmRequestProcessor, times(3)).processRequest(any(HttpMethod.class), ArgumentMatchers.<SortedSet<UserLocation>>any());
+        verify(mockUserLocationDao, times(1)).deleteUserLocationRecords(createIds(1L, 99));
+        verify(mockUserLocationDao, times(1)).deleteUserLocationRecords(createIds(100L, 100));
+        verify(mockUserLocationDao, times(1)).deleteUserLocationRecords(createIds(200L, 30));
+        verify(mockUserLocationDao, times(0)).deleteAllUserLocationRecords();
+        assertTrue(observers.isEmpty());
     }
 
     @Test
     public void update_WithCallbackError_ShouldAddRecordToUserLocationTable() {
         when(mockLocationFromPreferences.distanceTo(mockLocation)).thenReturn(10000.0f);
-        when(mockStmPreferenceManager.getUserLocationTime()).thenReturn(30000L);
+        when(mockStmPreferenceManager.getUserLocationState()).thenReturn(new LocationState(33.0, -117.0, 30000L, 10.0f));
 
         UpdateUserLocation updateUserLocation = new UpdateUserLocation(mockStmRequestProcessor,
                 mockGeofenceManager, mockStmPreferenceManager, mockUserLocationDao, mockContext, "");
@@ -222,6 +275,26 @@ public class UpdateUserLocationTest {
         updateUserLocation.update(stmObservableResults);
 
         verify(mockUserLocationDao, times(1)).addUserLocationRecord(any(UserLocationRecord.class));
-        verify(mockUserLocationDao, times(1)).truncateTable();
+        verify(mockUserLocationDao, times(0)).truncateTable();
+        verify(mockUserLocationDao, times(0)).deleteUserLocationRecords(ArgumentMatchers.<Long>anyList());
+    }
+
+    private static List<UserLocationRecord> createRecords(long firstId, int count) {
+        List<UserLocationRecord> userLocationRecords = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UserLocationRecord userLocationRecord = new UserLocationRecord();
+            userLocationRecord.setId(firstId + i);
+            userLocationRecord.setDate(new Date(firstId + i));
+            userLocationRecords.add(userLocationRecord);
+        }
+        return userLocationRecords;
+    }
+
+    private static List<Long> createIds(long firstId, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(firstId + i);
+        }
+        return ids;
     }
 }